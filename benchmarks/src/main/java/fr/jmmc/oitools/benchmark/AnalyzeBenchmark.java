@@ -0,0 +1,94 @@
+/* 
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools.benchmark;
+
+import fr.jmmc.oitools.model.OIFitsCollection;
+import fr.jmmc.oitools.model.OIFitsFile;
+import fr.nom.tam.fits.FitsException;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Analyzer (granules) and OIFitsCollection.analyzeCollection benchmarks
+ *
+ * @author bourgesl
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnalyzeBenchmark {
+
+    /** number of rows of the synthetic file */
+    @Param({"100000"})
+    public int syntheticRows;
+
+    private List<OIFitsFile> corpus;
+    private OIFitsFile synthetic;
+    private OIFitsCollection collection;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, FitsException {
+        corpus = BenchmarkData.loadCorpus();
+        synthetic = BenchmarkData.createSyntheticFile(syntheticRows, 32);
+        collection = BenchmarkData.loadCorpusCollection();
+    }
+
+    @Benchmark
+    public void analyzeCorpus(final Blackhole bh) {
+        for (OIFitsFile oiFitsFile : corpus) {
+            bh.consume(analyze(oiFitsFile));
+        }
+    }
+
+    @Benchmark
+    public Object analyzeSynthetic() {
+        return analyze(synthetic);
+    }
+
+    @Benchmark
+    public Object analyzeCollection() {
+        collection.analyzeCollection();
+        return collection.getDistinctGranules();
+    }
+
+    private static Object analyze(final OIFitsFile oiFitsFile) {
+        // clear previous analysis results:
+        oiFitsFile.setChanged();
+        oiFitsFile.analyze();
+        return oiFitsFile.getOiDataPerGranule();
+    }
+}
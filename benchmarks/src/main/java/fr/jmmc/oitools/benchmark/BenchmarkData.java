@@ -0,0 +1,189 @@
+/* 
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools.benchmark;
+
+import fr.jmmc.oitools.OIFitsConstants;
+import fr.jmmc.oitools.meta.OIFitsStandard;
+import fr.jmmc.oitools.model.OIFitsCollection;
+import fr.jmmc.oitools.model.OIFitsFile;
+import fr.jmmc.oitools.model.OIFitsLoader;
+import fr.jmmc.oitools.model.OIFitsWriter;
+import fr.jmmc.oitools.model.OITarget;
+import fr.jmmc.oitools.model.OIVis2;
+import fr.jmmc.oitools.model.OIWavelength;
+import fr.nom.tam.fits.FitsException;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Shared benchmark inputs: OIFits corpus (test files) and synthetic large files
+ *
+ * The corpus directory is given by the system property "oitools.corpus"
+ * (src/test/resources/oifits of the project by default).
+ *
+ * @author bourgesl
+ */
+public final class BenchmarkData {
+
+    /** system property giving the corpus directory */
+    public final static String PROPERTY_CORPUS = "oitools.corpus";
+    /** default corpus directory (relative to the benchmarks module) */
+    public final static String DEFAULT_CORPUS = "../src/test/resources/oifits";
+    /** synthetic instrument name */
+    public final static String SYNTHETIC_INSNAME = "SYNTH";
+    /** synthetic target name */
+    public final static String SYNTHETIC_TARGET = "SYNTH_STAR";
+
+    private BenchmarkData() {
+        // utility class
+    }
+
+    /**
+     * Return the OIFits files of the corpus directory (sorted)
+     * @return absolute file paths
+     * @throws IllegalStateException if the corpus directory has no file
+     */
+    public static List<String> getCorpusFiles() {
+        final File dir = new File(System.getProperty(PROPERTY_CORPUS, DEFAULT_CORPUS));
+        final File[] files = dir.listFiles();
+
+        final List<String> fileLocations = new ArrayList<String>();
+        if (files != null) {
+            for (File file : files) {
+                final String name = file.getName().toLowerCase();
+                if (file.isFile() && (name.endsWith(".fits") || name.endsWith(".oifits") || name.endsWith(".fits.gz"))) {
+                    fileLocations.add(file.getAbsolutePath());
+                }
+            }
+        }
+        if (fileLocations.isEmpty()) {
+            throw new IllegalStateException("No OIFits file in the corpus directory: " + dir.getAbsolutePath()
+                    + " (use -D" + PROPERTY_CORPUS + "=<dir>)");
+        }
+        Collections.sort(fileLocations);
+        return fileLocations;
+    }
+
+    /**
+     * Load all files of the corpus
+     * @return loaded files
+     * @throws IOException IO failure
+     * @throws FitsException if any fits file can not be opened
+     */
+    public static List<OIFitsFile> loadCorpus() throws IOException, FitsException {
+        final List<String> fileLocations = getCorpusFiles();
+        final List<OIFitsFile> oiFitsFiles = new ArrayList<OIFitsFile>(fileLocations.size());
+        for (String fileLocation : fileLocations) {
+            oiFitsFiles.add(OIFitsLoader.loadOIFits(fileLocation));
+        }
+        return oiFitsFiles;
+    }
+
+    /**
+     * Load the corpus as an analyzed OIFits collection
+     * @return OIFits collection
+     * @throws IOException IO failure
+     * @throws FitsException if any fits file can not be opened
+     */
+    public static OIFitsCollection loadCorpusCollection() throws IOException, FitsException {
+        return OIFitsCollection.create(null, getCorpusFiles());
+    }
+
+    /**
+     * Create a synthetic OIFits file (1 target, 1 instrument mode, 1 OI_VIS2 table)
+     * @param nRows number of OI_VIS2 rows
+     * @param nWaves number of wavelengths
+     * @return OIFits file (in memory)
+     */
+    public static OIFitsFile createSyntheticFile(final int nRows, final int nWaves) {
+        final OIFitsFile oiFitsFile = new OIFitsFile(OIFitsStandard.VERSION_1);
+
+        final OITarget target = new OITarget(oiFitsFile, 1);
+        target.getTargetId()[0] = 1;
+        target.getTarget()[0] = SYNTHETIC_TARGET;
+        target.getRaEp0()[0] = 83.81860;
+        target.getDecEp0()[0] = -5.38968;
+        target.getEquinox()[0] = 2000f;
+        target.getVelTyp()[0] = OIFitsConstants.COLUMN_VELTYP_LSR;
+        target.getVelDef()[0] = OIFitsConstants.COLUMN_VELDEF_OPTICAL;
+        target.getSpecTyp()[0] = "";
+        oiFitsFile.addOiTable(target);
+
+        final OIWavelength waves = new OIWavelength(oiFitsFile, nWaves);
+        waves.setInsName(SYNTHETIC_INSNAME);
+        for (int j = 0; j < nWaves; j++) {
+            waves.getEffWave()[j] = 1.5E-6f + j * 1E-8f;
+            waves.getEffBand()[j] = 1E-8f;
+        }
+        oiFitsFile.addOiTable(waves);
+
+        final OIVis2 vis2 = new OIVis2(oiFitsFile, SYNTHETIC_INSNAME, nRows);
+        vis2.setDateObs("2020-01-01");
+        for (int i = 0; i < nRows; i++) {
+            vis2.getTargetId()[i] = 1;
+            vis2.getTime()[i] = i;
+            // 4 nights:
+            vis2.getMJD()[i] = 58849.0 + (4.0 * i) / nRows;
+            vis2.getIntTime()[i] = 1.0;
+            vis2.getUCoord()[i] = 100.0 * Math.cos(0.01 * i);
+            vis2.getVCoord()[i] = 100.0 * Math.sin(0.01 * i);
+            vis2.getStaIndex()[i][0] = (short) (1 + (i % 4));
+            vis2.getStaIndex()[i][1] = (short) (5 + (i % 3));
+
+            for (int j = 0; j < nWaves; j++) {
+                vis2.getVis2Data()[i][j] = 0.5 + 0.4 * Math.sin(0.001 * i + 0.1 * j);
+                vis2.getVis2Err()[i][j] = 0.01;
+            }
+        }
+        oiFitsFile.addOiTable(vis2);
+
+        return oiFitsFile;
+    }
+
+    /**
+     * Write a synthetic OIFits file in the temporary directory
+     * @param nRows number of OI_VIS2 rows
+     * @param nWaves number of wavelengths
+     * @return written file (deleted on exit)
+     * @throws IOException IO failure
+     * @throws FitsException if any FITS error occurred
+     */
+    public static File writeSyntheticFile(final int nRows, final int nWaves) throws IOException, FitsException {
+        final File file = File.createTempFile("oitools-bench-" + nRows + "x" + nWaves + "-", ".fits");
+        file.deleteOnExit();
+        OIFitsWriter.writeOIFits(file.getAbsolutePath(), createSyntheticFile(nRows, nWaves));
+        return file;
+    }
+
+    /**
+     * Create a temporary output file
+     * @param prefix file prefix
+     * @return temporary file (deleted on exit)
+     * @throws IOException IO failure
+     */
+    public static File createTempFile(final String prefix) throws IOException {
+        final File file = File.createTempFile(prefix, ".fits");
+        file.deleteOnExit();
+        return file;
+    }
+}
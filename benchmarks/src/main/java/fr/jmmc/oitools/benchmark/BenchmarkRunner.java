@@ -0,0 +1,61 @@
+/* 
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Run the OITools benchmarks with the GC profiler (allocation rates) enabled.
+ * Usage: java -jar target/benchmarks.jar [JMH options] [benchmark regexp]
+ * ie java -Doitools.corpus=../src/test/resources/oifits -jar target/benchmarks.jar LoadBenchmark
+ *
+ * @author bourgesl
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+        // utility class
+    }
+
+    /**
+     * Main entry point
+     * @param args JMH command line options
+     * @throws CommandLineOptionException if the options are invalid
+     * @throws RunnerException if any benchmark failed
+     */
+    public static void main(final String[] args) throws CommandLineOptionException, RunnerException {
+        final CommandLineOptions cmdOptions = new CommandLineOptions(args);
+
+        final OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(cmdOptions);
+        builder.addProfiler(GCProfiler.class);
+
+        if (cmdOptions.getIncludes().isEmpty()) {
+            // all OITools benchmarks:
+            builder.include(BenchmarkRunner.class.getPackage().getName() + ".*");
+        }
+        new Runner(builder.build()).run();
+    }
+}
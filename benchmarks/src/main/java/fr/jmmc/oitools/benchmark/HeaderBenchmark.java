@@ -0,0 +1,158 @@
+/* 
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools.benchmark;
+
+import fr.jmmc.oitools.fits.FitsConstants;
+import fr.jmmc.oitools.fits.FitsHDUIndex;
+import fr.nom.tam.fits.FitsException;
+import fr.nom.tam.fits.FitsUtil;
+import fr.nom.tam.fits.Header;
+import fr.nom.tam.fits.HeaderCard;
+import fr.nom.tam.util.AsciiFuncs;
+import fr.nom.tam.util.BufferedDataInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Header parsing benchmarks on the headers of the corpus files (read in memory):
+ * block parser (lazy cards) versus the card image String parser (HeaderCard(String))
+ *
+ * @author bourgesl
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HeaderBenchmark {
+
+    private List<String> corpus;
+    /** header blocks of all HDUs of the corpus files */
+    private List<byte[]> headers;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, FitsException {
+        corpus = new ArrayList<String>();
+        headers = new ArrayList<byte[]>();
+
+        for (String fileLocation : BenchmarkData.getCorpusFiles()) {
+            if (FitsUtil.isCompressed(new File(fileLocation))) {
+                continue;
+            }
+            corpus.add(fileLocation);
+
+            final FitsHDUIndex index = FitsHDUIndex.open(fileLocation);
+            final RandomAccessFile raf = new RandomAccessFile(fileLocation, "r");
+            try {
+                for (FitsHDUIndex.Entry entry : index.getEntries()) {
+                    final byte[] bytes = new byte[(int) (entry.getDataOffset() - entry.getHeaderOffset())];
+                    raf.seek(entry.getHeaderOffset());
+                    raf.readFully(bytes);
+                    headers.add(bytes);
+                }
+            } finally {
+                raf.close();
+                index.close();
+            }
+        }
+    }
+
+    @Benchmark
+    public void parseHeaders(final Blackhole bh) throws IOException, FitsException {
+        for (byte[] bytes : headers) {
+            bh.consume(readHeader(bytes).getNumberOfCards());
+        }
+    }
+
+    @Benchmark
+    public void parseHeadersKeywords(final Blackhole bh) throws IOException, FitsException {
+        for (byte[] bytes : headers) {
+            bh.consume(getKeywords(readHeader(bytes)));
+        }
+    }
+
+    @Benchmark
+    public void parseCardStrings(final Blackhole bh) {
+        for (byte[] bytes : headers) {
+            bh.consume(parseCardStrings(bytes).getNumberOfCards());
+        }
+    }
+
+    @Benchmark
+    public void parseCardStringsKeywords(final Blackhole bh) {
+        for (byte[] bytes : headers) {
+            bh.consume(getKeywords(parseCardStrings(bytes)));
+        }
+    }
+
+    @Benchmark
+    public void scanIndex(final Blackhole bh) throws IOException, FitsException {
+        for (String fileLocation : corpus) {
+            final FitsHDUIndex index = FitsHDUIndex.open(fileLocation);
+            try {
+                bh.consume(index.getNbEntries());
+            } finally {
+                index.close();
+            }
+        }
+    }
+
+    private static Header readHeader(final byte[] bytes) throws IOException, FitsException {
+        return Header.readHeader(new BufferedDataInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+    /**
+     * Former header parsing: one String and HeaderCard(String) per card image
+     */
+    private static Header parseCardStrings(final byte[] bytes) {
+        final Header header = new Header();
+        for (int off = 0; off < bytes.length; off += 80) {
+            final String image = AsciiFuncs.asciiString(bytes, off, 80);
+            header.addLine(new HeaderCard(image));
+            if (image.startsWith("END     ")) {
+                break;
+            }
+        }
+        return header;
+    }
+
+    private static double getKeywords(final Header header) {
+        return header.getIntValue(FitsConstants.KEYWORD_NAXIS1, 0) + header.getIntValue(FitsConstants.KEYWORD_NAXIS2, 0)
+                + header.getIntValue(FitsConstants.KEYWORD_EXT_VER, 1) + header.getDoubleValue("MJD-OBS", 0.0);
+    }
+}
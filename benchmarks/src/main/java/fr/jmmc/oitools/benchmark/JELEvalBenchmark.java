@@ -0,0 +1,79 @@
+/* 
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools.benchmark;
+
+import fr.jmmc.oitools.OIFitsConstants;
+import fr.jmmc.oitools.model.JELEval;
+import fr.jmmc.oitools.model.OIData;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JELEval.eval benchmarks (1D broadcast and 2D expressions) on a synthetic OI_VIS2 table
+ *
+ * @author bourgesl
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JELEvalBenchmark {
+
+    private final static String COLUMN_EVAL = "BENCH_EVAL";
+    private final static String EXPR_1D = "2 * " + OIFitsConstants.COLUMN_MJD;
+    private final static String EXPR_2D = OIFitsConstants.COLUMN_VIS2DATA + " / " + OIFitsConstants.COLUMN_VIS2ERR
+            + " + " + OIFitsConstants.COLUMN_UCOORD;
+
+    /** number of rows of the synthetic table */
+    @Param({"20000"})
+    public int syntheticRows;
+
+    private JELEval eval;
+    private OIData oiData;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        eval = new JELEval();
+        oiData = BenchmarkData.createSyntheticFile(syntheticRows, 32).getOiVis2()[0];
+    }
+
+    @Benchmark
+    public double[][] eval1D() {
+        return eval.eval(oiData, COLUMN_EVAL, EXPR_1D, false);
+    }
+
+    @Benchmark
+    public double[][] eval2D() {
+        return eval.eval(oiData, COLUMN_EVAL, EXPR_2D, false);
+    }
+}
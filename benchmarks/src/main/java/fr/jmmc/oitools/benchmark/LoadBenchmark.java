@@ -0,0 +1,151 @@
+/* 
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools.benchmark;
+
+import fr.jmmc.oitools.meta.ColumnMeta;
+import fr.jmmc.oitools.model.OIFitsChecker;
+import fr.jmmc.oitools.model.OIFitsFile;
+import fr.jmmc.oitools.model.OIFitsLoader;
+import fr.jmmc.oitools.model.OITable;
+import fr.nom.tam.fits.FitsException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * OIFitsLoader.loadOIFits benchmarks on the corpus and on a synthetic large file.
+ * The retained heap of the last loaded models (used heap after GC) is printed after each iteration
+ * to compare flat vs jagged column storage.
+ *
+ * @author bourgesl
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoadBenchmark {
+
+    /** true to read column values on demand */
+    @Param({"false", "true"})
+    public boolean lazy;
+
+    /** true to convert flat columns to jagged arrays after loading (previous storage) to compare retained heap */
+    @Param({"false", "true"})
+    public boolean jagged;
+
+    /** number of rows of the synthetic file */
+    @Param({"100000"})
+    public int syntheticRows;
+
+    /** number of wavelengths of the synthetic file */
+    @Param({"32"})
+    public int syntheticWaves;
+
+    private List<String> corpus;
+    private String synthetic;
+    /** last loaded models (retained heap) */
+    private final List<OIFitsFile> retained = new ArrayList<OIFitsFile>();
+    /** used heap after GC before the iteration */
+    private long usedBefore;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, FitsException {
+        corpus = BenchmarkData.getCorpusFiles();
+        synthetic = BenchmarkData.writeSyntheticFile(syntheticRows, syntheticWaves).getAbsolutePath();
+    }
+
+    @Setup(Level.Iteration)
+    public void measureHeapBefore() {
+        retained.clear();
+        usedBefore = getUsedHeapAfterGC();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printRetainedHeap() {
+        final long used = getUsedHeapAfterGC();
+        System.out.println("retained heap (" + ((jagged) ? "jagged" : "flat") + "): "
+                + ((used - usedBefore) / 1024) + " KB for " + retained.size() + " files");
+        retained.clear();
+    }
+
+    @Benchmark
+    public void loadCorpus(final Blackhole bh) throws IOException, FitsException {
+        retained.clear();
+        for (String fileLocation : corpus) {
+            final OIFitsFile oiFitsFile = load(fileLocation);
+            retained.add(oiFitsFile);
+            bh.consume(oiFitsFile);
+        }
+    }
+
+    @Benchmark
+    public OIFitsFile loadSynthetic() throws IOException, FitsException {
+        final OIFitsFile oiFitsFile = load(synthetic);
+        retained.clear();
+        retained.add(oiFitsFile);
+        return oiFitsFile;
+    }
+
+    private OIFitsFile load(final String fileLocation) throws IOException, FitsException {
+        final OIFitsFile oiFitsFile = OIFitsLoader.loadOIFits(null, new OIFitsChecker(), fileLocation, false, false, lazy);
+        if (jagged) {
+            for (OITable oiTable : oiFitsFile.getOITableList()) {
+                for (ColumnMeta column : oiTable.getColumnDescCollection()) {
+                    if (oiTable.getColumnFlat(column.getName()) != null) {
+                        // typed getters return copies: store jagged arrays instead
+                        oiTable.setColumnValue(column.getName(), oiTable.getColumnValue(column.getName()));
+                    }
+                }
+            }
+        }
+        return oiFitsFile;
+    }
+
+    /**
+     * Return the used heap after full GC
+     * @return used heap in bytes
+     */
+    static long getUsedHeapAfterGC() {
+        final Runtime rt = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, rt.totalMemory() - rt.freeMemory());
+        }
+        return used;
+    }
+}
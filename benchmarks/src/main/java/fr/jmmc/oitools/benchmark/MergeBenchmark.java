@@ -0,0 +1,152 @@
+/* 
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools.benchmark;
+
+import fr.jmmc.oitools.model.Granule;
+import fr.jmmc.oitools.model.OIFitsCollection;
+import fr.jmmc.oitools.model.OIData;
+import fr.jmmc.oitools.model.OIFitsFile;
+import fr.jmmc.oitools.model.OITable;
+import fr.jmmc.oitools.processing.Merger;
+import fr.jmmc.oitools.processing.Selector;
+import fr.nom.tam.fits.FitsException;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Merger.process benchmarks on the corpus (first target) and on synthetic large files
+ * and OI_DATA copy benchmarks keeping half rows and wavelengths (filtered copy vs copy then resize):
+ * the GC profiler gives the allocated bytes per operation and the heap peak is printed per iteration.
+ *
+ * @author bourgesl
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MergeBenchmark {
+
+    /** number of rows of each synthetic file */
+    @Param({"50000"})
+    public int syntheticRows;
+
+    private OIFitsCollection corpus;
+    private Selector selectorTarget;
+    private OIFitsCollection synthetic;
+    private OIFitsFile copySource;
+    private OIData copyData;
+    private BitSet maskRows;
+    private BitSet maskWavelengths;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, FitsException {
+        corpus = BenchmarkData.loadCorpusCollection();
+
+        final Granule granule = corpus.getSortedGranules().get(0);
+        selectorTarget = new Selector();
+        selectorTarget.setTargetUID(granule.getTarget().getTarget());
+
+        // 2 synthetic files (same target and instrument mode):
+        synthetic = OIFitsCollection.create(null, Arrays.asList(
+                BenchmarkData.writeSyntheticFile(syntheticRows, 32).getAbsolutePath(),
+                BenchmarkData.writeSyntheticFile(syntheticRows, 32).getAbsolutePath()));
+
+        // keep even rows and wavelengths:
+        copySource = BenchmarkData.createSyntheticFile(syntheticRows, 32);
+        copyData = copySource.getOiDataList().get(0);
+
+        maskRows = new BitSet(syntheticRows);
+        for (int i = 0; i < syntheticRows; i += 2) {
+            maskRows.set(i);
+        }
+        maskWavelengths = new BitSet(32);
+        for (int j = 0; j < 32; j += 2) {
+            maskWavelengths.set(j);
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void printPeakHeap() {
+        long peak = 0L;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        System.out.println("peak heap: " + (peak / (1024 * 1024)) + " MB");
+    }
+
+    @Benchmark
+    public OIFitsFile mergeCorpusTarget() {
+        return Merger.process(corpus, selectorTarget);
+    }
+
+    @Benchmark
+    public OIFitsFile mergeSynthetic() {
+        return Merger.process(synthetic);
+    }
+
+    @Benchmark
+    public OITable copyFiltered() {
+        final OIFitsFile resultFile = new OIFitsFile(copySource.getVersion());
+        resultFile.addOiTable(resultFile.copyTable(copyData.getOiWavelength()));
+
+        return resultFile.copyTable(copyData, maskRows.cardinality(), maskRows, maskWavelengths);
+    }
+
+    @Benchmark
+    public OITable copyThenResize() {
+        final OIFitsFile resultFile = new OIFitsFile(copySource.getVersion());
+        resultFile.addOiTable(resultFile.copyTable(copyData.getOiWavelength()));
+
+        final OITable newOiTable = resultFile.copyTable(copyData);
+        newOiTable.resizeTable(maskRows.cardinality(), maskRows, maskWavelengths);
+        return newOiTable;
+    }
+}
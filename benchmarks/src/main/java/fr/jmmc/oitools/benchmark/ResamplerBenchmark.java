@@ -0,0 +1,92 @@
+/* 
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools.benchmark;
+
+import fr.jmmc.oitools.processing.Resampler;
+import fr.jmmc.oitools.processing.Resampler.Filter;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Resampler.filter benchmarks (double / float images)
+ *
+ * @author bourgesl
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResamplerBenchmark {
+
+    /** source image size */
+    @Param({"256", "1024"})
+    public int size;
+
+    /** destination / source size ratio */
+    @Param({"0.5", "2.0"})
+    public double scale;
+
+    @Param({"FILTER_MITCHELL", "FILTER_LANCZOS3"})
+    public Filter filter;
+
+    private double[][] srcD;
+    private double[][] dstD;
+    private float[][] srcF;
+    private float[][] dstF;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final int dstSize = (int) Math.round(scale * size);
+
+        srcD = new double[size][size];
+        srcF = new float[size][size];
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                srcF[y][x] = (float) (Math.sin(0.1 * x) * Math.cos(0.07 * y) + 0.001 * x);
+                srcD[y][x] = srcF[y][x];
+            }
+        }
+        dstD = new double[dstSize][dstSize];
+        dstF = new float[dstSize][dstSize];
+    }
+
+    @Benchmark
+    public double[][] filterDouble() {
+        return Resampler.filter(srcD, dstD, filter, false);
+    }
+
+    @Benchmark
+    public float[][] filterFloat() {
+        return Resampler.filter(srcF, dstF, filter, false);
+    }
+}
@@ -0,0 +1,110 @@
+/* 
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools.benchmark;
+
+import fr.jmmc.oitools.model.Granule;
+import fr.jmmc.oitools.model.OIFitsCollection;
+import fr.jmmc.oitools.model.range.Range;
+import fr.jmmc.oitools.processing.Selector;
+import fr.jmmc.oitools.processing.SelectorResult;
+import fr.nom.tam.fits.FitsException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * OIFitsCollection.findOIData benchmarks on the corpus
+ *
+ * @author bourgesl
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SelectBenchmark {
+
+    private OIFitsCollection collection;
+    private Selector selectorTarget;
+    private Selector selectorWavelength;
+    private Selector selectorMjd;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, FitsException {
+        collection = BenchmarkData.loadCorpusCollection();
+
+        // use the first granule having a MJD range:
+        Granule granule = null;
+        for (Granule g : collection.getSortedGranules()) {
+            if (g.getTarget() != null && g.getInsMode() != null && g.hasMjdRange()) {
+                granule = g;
+                break;
+            }
+        }
+        if (granule == null) {
+            throw new IllegalStateException("No granule in the corpus");
+        }
+        selectorTarget = new Selector();
+        selectorTarget.setTargetUID(granule.getTarget().getTarget());
+
+        selectorWavelength = new Selector();
+        selectorWavelength.setTargetUID(granule.getTarget().getTarget());
+        final Range wlRange = granule.getInsMode().getWavelengthRange();
+        selectorWavelength.addFilter(Selector.FILTER_EFFWAVE, Arrays.asList(
+                new Range(wlRange.getMin(), 0.5 * (wlRange.getMin() + wlRange.getMax()))));
+
+        selectorMjd = new Selector();
+        final Range mjdRange = granule.getMjdRange();
+        selectorMjd.addFilter(Selector.FILTER_MJD, Arrays.asList(
+                new Range(mjdRange.getMin(), 0.5 * (mjdRange.getMin() + mjdRange.getMax()))));
+    }
+
+    @Benchmark
+    public SelectorResult selectAll() {
+        return collection.findOIData(null);
+    }
+
+    @Benchmark
+    public SelectorResult selectTarget() {
+        return collection.findOIData(selectorTarget);
+    }
+
+    @Benchmark
+    public SelectorResult selectTargetWavelength() {
+        return collection.findOIData(selectorWavelength);
+    }
+
+    @Benchmark
+    public SelectorResult selectMjd() {
+        return collection.findOIData(selectorMjd);
+    }
+}
@@ -0,0 +1,84 @@
+/* 
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools.benchmark;
+
+import fr.jmmc.oitools.model.OIFitsFile;
+import fr.jmmc.oitools.model.OIFitsWriter;
+import fr.nom.tam.fits.FitsException;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * OIFitsWriter.writeOIFits benchmarks on the corpus and on a synthetic large file
+ *
+ * @author bourgesl
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WriteBenchmark {
+
+    /** true to compute checksums (CHECKSUM / DATASUM keywords) */
+    @Param({"false", "true"})
+    public boolean doChecksum;
+
+    /** number of rows of the synthetic file */
+    @Param({"100000"})
+    public int syntheticRows;
+
+    private List<OIFitsFile> corpus;
+    private OIFitsFile synthetic;
+    private String outputPath;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException, FitsException {
+        corpus = BenchmarkData.loadCorpus();
+        synthetic = BenchmarkData.createSyntheticFile(syntheticRows, 32);
+        outputPath = BenchmarkData.createTempFile("oitools-bench-write-").getAbsolutePath();
+    }
+
+    @Benchmark
+    public void writeCorpus() throws IOException, FitsException {
+        for (OIFitsFile oiFitsFile : corpus) {
+            OIFitsWriter.writeOIFits(outputPath, oiFitsFile, doChecksum);
+        }
+    }
+
+    @Benchmark
+    public void writeSynthetic() throws IOException, FitsException {
+        OIFitsWriter.writeOIFits(outputPath, synthetic, doChecksum);
+    }
+}
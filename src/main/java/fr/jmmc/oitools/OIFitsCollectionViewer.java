@@ -21,16 +21,13 @@ package fr.jmmc.oitools;
 
 import fr.jmmc.oitools.model.CsvOutputVisitor;
 import fr.jmmc.oitools.model.Granule;
+import fr.jmmc.oitools.model.GranuleStats;
 import fr.jmmc.oitools.model.InstrumentMode;
 import fr.jmmc.oitools.model.OIData;
 import fr.jmmc.oitools.model.OIFitsCollection;
 import fr.jmmc.oitools.model.OIFitsFile;
-import fr.jmmc.oitools.model.OIT3;
-import fr.jmmc.oitools.model.OIVis;
-import fr.jmmc.oitools.model.OIVis2;
 import fr.jmmc.oitools.model.OutputVisitor;
 import fr.jmmc.oitools.model.Target;
-import fr.jmmc.oitools.model.TargetIdMatcher;
 import fr.jmmc.oitools.model.TargetManager;
 import fr.jmmc.oitools.model.range.Range;
 import fr.jmmc.oitools.util.StationNamesComparator;
@@ -107,61 +104,26 @@ public final class OIFitsCollectionViewer {
             final Range mjdRange = granule.getMjdRange();
 
             final Set<OIData> oiDatas = oiDataPerGranule.get(granule);
+
+            final GranuleStats stats;
             if (oiDatas != null) {
-                final double tMin = mjdRange.getMin();
-                final double tMax = mjdRange.getMax();
                 // Statistics per granule:
-                int nbVis = 0, nbVis2 = 0, nbT3 = 0;
-                double intTime = Double.POSITIVE_INFINITY;
-                String facilityName = "";
+                stats = new GranuleStats();
 
                 for (OIData oiData : oiDatas) {
-                    final TargetIdMatcher targetIdMatcher = oiData.getTargetIdMatcher(tm, gTarget);
-
-                    if (targetIdMatcher != null) {
-                        /* one oiData table, search for target by targetid (and nightid) */
-                        final int nbRows = oiData.getNbRows();
-                        final short[] targetIds = oiData.getTargetId();
-                        final int[] nightIds = oiData.getNightId();
-                        final double[] intTimes = oiData.getIntTime();
-
-                        boolean match = false;
-
-                        for (int i = 0; i < nbRows; i++) {
-                            // same target and same night:
-                            if (targetIdMatcher.match(targetIds[i]) && (gNightId == nightIds[i])) {
-                                // TODO: count flag? what to do with flagged measures?
-                                // TODO: check for NaN values ?
-                                // number of rows in data tables:
-                                if (oiData instanceof OIVis) {
-                                    nbVis += 1;
-                                } else if (oiData instanceof OIVis2) {
-                                    nbVis2 += 1;
-                                } else if (oiData instanceof OIT3) {
-                                    nbT3 += 1;
-                                }
-                                // TODO: add OIFlux ?
-
-                                /* search for minimal (?) INT_TIME for target */
-                                final double t = intTimes[i];
-                                if (t < intTime) {
-                                    intTime = t;
-                                }
-
-                                match = true;
-                            }
-                        } // rows
-                        if (match && facilityName.isEmpty() && oiData.getArrName() != null) {
-                            facilityName = oiData.getArrName(); // potential multiple ARRNAME values !
-                        }
-                    }
+                    stats.add(oiData, oiData.getTargetIdMatcher(tm, gTarget), gNightId);
                 }
+            } else {
+                // granule from catalog entries (no OIData table):
+                stats = oiFitsCollection.getGranuleStats(granule);
+            }
 
+            if (stats != null) {
                 out.appendMetadataRecord(targetName, targetRa, targetDec,
-                        intTime, tMin, tMax,
+                        stats.getIntTime(), mjdRange.getMin(), mjdRange.getMax(),
                         resPower, minWavelength, maxWavelength,
-                        facilityName, insName,
-                        nbVis, nbVis2, nbT3, nbChannels);
+                        stats.getFacilityName(), insName,
+                        stats.getNbVis(), stats.getNbVis2(), stats.getNbT3(), nbChannels);
             }
         }
     }
@@ -17,6 +17,7 @@
 package fr.jmmc.oitools;
 
 import fr.jmmc.oitools.fits.FitsUtils;
+import fr.jmmc.oitools.model.OIFitsCatalog;
 import fr.jmmc.oitools.model.OIFitsChecker;
 import fr.jmmc.oitools.model.OIFitsCollection;
 import fr.jmmc.oitools.model.OIFitsFile;
@@ -26,8 +27,12 @@ import fr.jmmc.oitools.model.Target;
 import fr.jmmc.oitools.model.range.Range;
 import fr.jmmc.oitools.processing.Merger;
 import fr.jmmc.oitools.processing.Selector;
+import fr.jmmc.oitools.processing.SelectorResult;
 import fr.nom.tam.fits.FitsException;
+import java.io.File;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -47,6 +52,9 @@ public class OIFitsProcessor extends OIFitsCommand {
 
     private static final String OPTION_MATCH_SEP = "-separation";
     private static final String OPTION_OUTPUT = "-output";
+    private static final String OPTION_THREADS = "-threads";
+    private static final String OPTION_CATALOG = "-catalog";
+    private static final String OPTION_HDU = "-hdu";
     /* filter options */
     private static final String OPTION_TARGET = "-target";
     private static final String OPTION_INSNAME = "-insname";
@@ -107,6 +115,44 @@ public class OIFitsProcessor extends OIFitsCommand {
         }
     }
 
+    /**
+     * Return the number of loader threads from command arguments (1 by default)
+     *
+     * @param args command line arguments.
+     * @return number of loader threads
+     */
+    private static int getArgThreads(final String[] args) {
+        final String threads = getOptionArgValue(args, OPTION_THREADS);
+        if (threads != null) {
+            try {
+                return Math.max(1, Integer.parseInt(threads));
+            } catch (NumberFormatException nfe) {
+                error("Invalid number of threads: " + threads);
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Create the OIFits collection of the given files, using the catalog given by command arguments if any
+     * (unless the validation is requested)
+     *
+     * @param args command line arguments.
+     * @param checker checker component
+     * @param fileLocations file locations
+     * @param check true if the validation is requested
+     * @return new OIFits collection
+     */
+    private static OIFitsCollection createCollection(final String[] args, final OIFitsChecker checker,
+                                                     final List<String> fileLocations, final boolean check) throws FitsException, IOException {
+        final String catalogDir = getOptionArgValue(args, OPTION_CATALOG);
+        if (catalogDir != null && !check) {
+            // only reload new or changed files:
+            return new OIFitsCatalog(new File(catalogDir)).createCollection(checker, fileLocations, getArgThreads(args));
+        }
+        return OIFitsCollection.create(checker, fileLocations, getArgThreads(args), !check);
+    }
+
     /**
      * List content of files
      *
@@ -120,7 +166,8 @@ public class OIFitsProcessor extends OIFitsCommand {
 
         final OIFitsChecker checker = new OIFitsChecker();
 
-        final OIFitsCollection oiFitsCollection = OIFitsCollection.create(checker, fileLocations);
+        // only read needed columns if the validation is not requested:
+        final OIFitsCollection oiFitsCollection = createCollection(args, checker, fileLocations, check);
 
         if (check) {
             info("validation results:\n" + checker.getCheckReport());
@@ -142,7 +189,8 @@ public class OIFitsProcessor extends OIFitsCommand {
 
         final OIFitsChecker checker = new OIFitsChecker();
 
-        final OIFitsCollection oiFitsCollection = OIFitsCollection.create(checker, fileLocations);
+        // only read needed columns if the validation is not requested:
+        final OIFitsCollection oiFitsCollection = createCollection(args, checker, fileLocations, check);
 
         if (check) {
             info("validation results:\n" + checker.getCheckReport());
@@ -158,18 +206,19 @@ public class OIFitsProcessor extends OIFitsCommand {
      */
     private static void dump(final String[] args) throws FitsException, IOException {
         final List<String> fileLocations = getInputFiles(args);
+        final String hduFilter = getOptionArgValue(args, OPTION_HDU);
 
         FitsUtils.setup();
 
-        final StringBuilder sb = new StringBuilder(16 * 1024);
+        // stream the output per HDU (not closed):
+        final Writer out = new OutputStreamWriter(System.out);
 
         for (String fileLocation : fileLocations) {
             info("Processing: " + fileLocation);
             try {
-                FitsUtils.dumpFile(fileLocation, false, sb);
-
-                info(sb.toString());
-                sb.setLength(0); // reset
+                FitsUtils.dumpFile(fileLocation, false, hduFilter, out);
+                out.write('\n');
+                out.flush();
 
             } catch (Exception e) {
                 error("Error reading file '" + fileLocation + "'", e);
@@ -213,7 +262,8 @@ public class OIFitsProcessor extends OIFitsCommand {
 
         handleArgSeparation(args);
 
-        final OIFitsCollection oiFitsCollection = OIFitsCollection.create(null, fileLocations);
+        // lazy loading: only selected columns are read (released once written in streaming mode):
+        final OIFitsCollection oiFitsCollection = OIFitsCollection.create(null, fileLocations, getArgThreads(args), true);
 
         final Selector selector = new Selector();
 
@@ -275,13 +325,25 @@ public class OIFitsProcessor extends OIFitsCommand {
 
         // TODO: handle extra arguments from OIFITS2 data model
         // Call merge
-        final OIFitsFile result = Merger.process(oiFitsCollection, selector);
+        if (check) {
+            // validation needs the complete result:
+            final OIFitsFile result = Merger.process(oiFitsCollection, selector);
 
-        if (result != null && result.hasOiData()) {
-            // Store result
-            write(outputFilePath, result, check);
+            if (result != null && result.hasOiData()) {
+                // Store result
+                write(outputFilePath, result, check);
+            } else {
+                info("Result is empty, no file created.");
+            }
         } else {
-            info("Result is empty, no file created.");
+            final SelectorResult result = oiFitsCollection.findOIData(selector);
+
+            // Streaming mode: OI_DATA tables are written as soon as produced (temporary file renamed on success):
+            if (Merger.processAndWrite(result, null, outputFilePath, false)) {
+                info("Writing: " + outputFilePath);
+            } else {
+                info("Result is empty, no file created.");
+            }
         }
     }
 
@@ -331,6 +393,9 @@ public class OIFitsProcessor extends OIFitsCommand {
             // note: should be generalized to any argument having value(s):
             if (OPTION_OUTPUT.substring(0, 2).equals(args[i])
                     || OPTION_MATCH_SEP.equals(args[i])
+                    || OPTION_THREADS.equals(args[i])
+                    || OPTION_CATALOG.equals(args[i])
+                    || OPTION_HDU.equals(args[i])
                     || OPTION_OUTPUT.equals(args[i])
                     || OPTION_TARGET.equals(args[i])
                     || OPTION_INSNAME.equals(args[i])
@@ -371,6 +436,9 @@ public class OIFitsProcessor extends OIFitsCommand {
         info("| [-l] or [-log]              Enable logging (quiet by default)                      |");
         info("| [-c] or [-check]            Check output file before writing                       |");
         info("| [-separation] <value>       Separation in arcsec for the target matcher            |");
+        info("| [-threads] <value>          Number of threads to load files (1 by default)         |");
+        info("| [-catalog] <dir>            Catalog directory to only reload changed files (list)  |");
+        info("| [-hdu] <EXTNAME[#EXTVER]>   Only dump the given HDU (dump)                         |");
         info("| [-o] or [-output] <file_path> Complete path, absolute or relative, for output file |");
         info("| [-target] <value>           Filter result on given Target                          |");
         info("| [-insname] <value>          Filter result on given InsName                         |");
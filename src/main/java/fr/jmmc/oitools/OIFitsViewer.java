@@ -35,6 +35,9 @@ import fr.jmmc.oitools.model.XmlOutputVisitor;
 import fr.jmmc.oitools.model.range.Range;
 import fr.nom.tam.fits.FitsException;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedHashMap;
@@ -118,6 +121,14 @@ public final class OIFitsViewer extends OIFitsCommand {
         this.tsvSerializer = (doCsvOutput) ? new CsvOutputVisitor(metadataProvider, verbose) : null;
     }
 
+    /**
+     * Define the parallel check flag used while loading files (see OIFitsChecker.setParallelCheck)
+     * @param parallel true to check OI tables in parallel
+     */
+    public void setParallelCheck(final boolean parallel) {
+        this.checker.setParallelCheck(parallel);
+    }
+
     /**
      * Process the given file
      *
@@ -153,6 +164,50 @@ public final class OIFitsViewer extends OIFitsCommand {
         return output;
     }
 
+    /**
+     * Process the given file and stream the serializer output (or the check report) into the given writer
+     * (flushed after each table) so the memory footprint does not depend on the output size.
+     * The file is completely loaded before writing anything, but if writing fails (writer or visitor failure),
+     * the output is left partial (unterminated oifits element): use process(fileLocation) to get complete output only.
+     *
+     * @param fileLocation absolute File Path or URL (file:// or http://)
+     * @param out output writer (not closed)
+     * @throws FitsException excpetion thrown during fits reading
+     * @throws IOException exception thrown on file reading or writing error
+     */
+    public void process(final String fileLocation, final Writer out) throws IOException, FitsException {
+        // Load file
+        final OIFitsFile oiFitsFile = OIFitsLoader.loadOIFits(this.checker, fileLocation, true);
+
+        // TSV output has precedence (see process(String)):
+        final OutputVisitor serializer = (this.tsvSerializer != null) ? this.tsvSerializer : this.xmlSerializer;
+
+        try {
+            if (serializer != null) {
+                serializer.setOutput(out);
+                try {
+                    oiFitsFile.accept(serializer);
+                    // write any remaining content (chunked):
+                    serializer.flush();
+                } catch (UncheckedIOException uioe) {
+                    throw uioe.getCause();
+                } finally {
+                    serializer.setOutput(null);
+                    serializer.reset();
+                }
+            } else if (this.checker != null) {
+                // check mode:
+                out.write(this.checker.getCheckReport());
+            }
+            out.flush();
+        } finally {
+            if (this.checker != null) {
+                // clean the checker before processing any other files
+                this.checker.clearCheckReport();
+            }
+        }
+    }
+
     public static void targetMetadata(final OIFitsFile oiFitsFile, final OutputVisitor out) {
         if (oiFitsFile.hasOiTarget()) {
             final OITarget oiTarget = oiFitsFile.getOiTarget();
@@ -287,6 +342,7 @@ public final class OIFitsViewer extends OIFitsCommand {
         boolean tsv = false;
         boolean xml = true;
         boolean useGranules = false;
+        boolean parallel = false;
 
         final List<String> fileLocations = new ArrayList<String>(args.length);
 
@@ -304,6 +360,8 @@ public final class OIFitsViewer extends OIFitsCommand {
                     xml = false;
                 } else if (arg.equals("-g") || arg.equals("-granule")) {
                     useGranules = true;
+                } else if (arg.equals("-p") || arg.equals("-parallel")) {
+                    parallel = true;
                 } else if (arg.equals("-l") || arg.equals("-log")) {
                     quiet = false;
                 } else if (arg.equals("-h") || arg.equals("-help")) {
@@ -324,29 +382,45 @@ public final class OIFitsViewer extends OIFitsCommand {
             errorArg("No file location given in arguments.");
         }
 
-        process(xml, tsv, format, verbose, useGranules, fileLocations);
+        process(xml, tsv, format, verbose, useGranules, parallel, fileLocations);
     }
 
     public static void process(final boolean xml, final boolean tsv, final boolean format, final boolean verbose,
                                final boolean useGranules, final List<String> fileLocations) {
+        process(xml, tsv, format, verbose, useGranules, false, fileLocations);
+    }
+
+    public static void process(final boolean xml, final boolean tsv, final boolean format, final boolean verbose,
+                               final boolean useGranules, final boolean parallel, final List<String> fileLocations) {
 
         final OIFitsViewer viewer = new OIFitsViewer(xml, tsv, format, verbose, useGranules);
+        viewer.setParallelCheck(parallel);
 
-        if (xml) {
-            info("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n<oifits_list>");
-        }
-        for (String fileLocation : fileLocations) {
-            if (!xml) {
-                info("Processing: " + fileLocation);
+        // stream the output (not closed):
+        final Writer out = new OutputStreamWriter(System.out);
+        try {
+            if (xml) {
+                out.write("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n<oifits_list>\n");
+            }
+            for (String fileLocation : fileLocations) {
+                if (!xml) {
+                    out.write("Processing: " + fileLocation + "\n");
+                }
+                try {
+                    // note: a failure while writing leaves a partial (unterminated) oifits element:
+                    viewer.process(fileLocation, out);
+                    out.write('\n');
+                } catch (Exception e) {
+                    out.flush();
+                    error("Error reading file '" + fileLocation + "'", e);
+                }
             }
-            try {
-                info(viewer.process(fileLocation));
-            } catch (Exception e) {
-                error("Error reading file '" + fileLocation + "'", e);
+            if (xml) {
+                out.write("</oifits_list>\n");
             }
-        }
-        if (xml) {
-            info("</oifits_list>");
+            out.flush();
+        } catch (IOException ioe) {
+            error("Error writing output", ioe);
         }
     }
 
@@ -375,6 +449,7 @@ public final class OIFitsViewer extends OIFitsCommand {
         info("| [-t] or [-tsv]               Dump object table in tsv format          |");
         info("| [-c] or [-check]             Check only given file(s)                 |");
         info("| [-g] or [-granule]           Use Granules to get target metadata      |");
+        info("| [-p] or [-parallel]          Check tables in parallel (multi-core)    |");
         info("-------------------------------------------------------------------------");
     }
 
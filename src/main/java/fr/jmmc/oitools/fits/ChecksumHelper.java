@@ -22,11 +22,11 @@ package fr.jmmc.oitools.fits;
 import fr.nom.tam.fits.BasicHDU;
 import fr.nom.tam.fits.Fits;
 import fr.nom.tam.fits.FitsException;
-import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 
@@ -37,8 +37,8 @@ import java.security.NoSuchAlgorithmException;
  */
 public final class ChecksumHelper {
 
-    /** Default read buffer capacity: 8K */
-    private static final int DEFAULT_BUFFER_CAPACITY = 8192;
+    /** File channel read buffer capacity: 256K */
+    private static final int CHANNEL_BUFFER_CAPACITY = 256 * 1024;
     /** toHexString characters */
     private final static char[] hexArray = "0123456789abcdef".toCharArray();
 
@@ -68,26 +68,48 @@ public final class ChecksumHelper {
      * @return file checksum
      */
     public static String computeChecksum(final File file, final String algorithm) {
-        final MessageDigest digest;
-        try {
-            digest = MessageDigest.getInstance(algorithm);
-        } catch (NoSuchAlgorithmException nsae) {
-            throw new IllegalArgumentException("Unsupported algorithm : " + algorithm, nsae);
+        return computeChecksums(file, algorithm)[0];
+    }
+
+    /**
+     * Return the checksums for the given file using the given algorithms (file read once)
+     * @param file file to use
+     * @param algorithms the names of the algorithms requested (MD5, SHA-256 ...)
+     * @return file checksums (same order as algorithms)
+     */
+    public static String[] computeChecksums(final File file, final String... algorithms) {
+        final MessageDigest[] digests = new MessageDigest[algorithms.length];
+        for (int i = 0; i < algorithms.length; i++) {
+            try {
+                digests[i] = MessageDigest.getInstance(algorithms[i]);
+            } catch (NoSuchAlgorithmException nsae) {
+                throw new IllegalArgumentException("Unsupported algorithm : " + algorithms[i], nsae);
+            }
         }
 
-        return toHexString(createChecksum(digest, file));
+        updateDigests(digests, file);
+
+        final String[] checksums = new String[digests.length];
+        for (int i = 0; i < digests.length; i++) {
+            checksums[i] = toHexString(digests[i].digest());
+        }
+        return checksums;
     }
 
-    private static byte[] createChecksum(final MessageDigest digest, final File file) {
-        final byte[] buffer = new byte[DEFAULT_BUFFER_CAPACITY];
+    private static void updateDigests(final MessageDigest[] digests, final File file) {
+        final ByteBuffer buffer = ByteBuffer.allocate(CHANNEL_BUFFER_CAPACITY);
 
-        InputStream in = null;
+        FileInputStream in = null;
         try {
-            in = new BufferedInputStream(new FileInputStream(file), DEFAULT_BUFFER_CAPACITY);
+            in = new FileInputStream(file);
+            final FileChannel channel = in.getChannel();
 
-            int len;
-            while ((len = in.read(buffer)) > 0) {
-                digest.update(buffer, 0, len);
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                for (MessageDigest digest : digests) {
+                    digest.update(buffer.array(), 0, buffer.limit());
+                }
+                buffer.clear();
             }
 
         } catch (IOException ioe) {
@@ -101,8 +123,6 @@ public final class ChecksumHelper {
                 }
             }
         }
-
-        return digest.digest();
     }
 
     private static String toHexString(final byte[] bytes) {
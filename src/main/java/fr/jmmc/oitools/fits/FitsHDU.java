@@ -74,9 +74,8 @@ public abstract class FitsHDU extends ModelBase {
             "extension name", Types.TYPE_CHAR, true, NO_STR_VALUES);
 
     /* members */
-    /** Rule list used in the situation to harvest the rules. It is not created if one is not in isInspectRules() 
-     */
-    private final Set<Rule> applyRules = OIFitsChecker.isInspectRules() ? new HashSet<Rule>() : null;
+    /** Set to use when in the situation to harvest the rules. It is only created by checkers having isInspectRules() enabled */
+    private Set<Rule> applyRules = null;
 
     /**
      * Fits extension number (-1 means undefined)
@@ -167,10 +166,21 @@ public abstract class FitsHDU extends ModelBase {
      *
      * @return applyRules
      */
-    public Set<Rule> getApplyRules() {
+    public synchronized Set<Rule> getApplyRules() {
         return applyRules;
     }
 
+    /**
+     * Add the given rule to the applyRules (created if needed)
+     * @param rule rule to add
+     */
+    public synchronized void addApplyRule(final Rule rule) {
+        if (applyRules == null) {
+            applyRules = new HashSet<Rule>();
+        }
+        applyRules.add(rule);
+    }
+
     /* --- ext number --- */
     /**
      * Get the extension number
@@ -739,15 +749,15 @@ public abstract class FitsHDU extends ModelBase {
             // get keyword value :
             value = getKeywordValue(keywordName);
 
-            if ((value == null) || OIFitsChecker.isInspectRules()) {
+            if ((value == null) || checker.isInspectRules()) {
                 if (!keyword.isOptional()) {
                     // rule [GENERIC_KEYWORD_MANDATORY]
                     checker.ruleFailed(Rule.GENERIC_KEYWORD_MANDATORY, this, keywordName);
                 }
             }
-            if ((value != null) || OIFitsChecker.isInspectRules()) {
+            if ((value != null) || checker.isInspectRules()) {
 
-                if ((value == null) && OIFitsChecker.isInspectRules()) {
+                if ((value == null) && checker.isInspectRules()) {
                     // InspectRules: fix null value in following check():
                     value = getDefaultValue(keyword.getDataType());
                 }
@@ -766,7 +776,7 @@ public abstract class FitsHDU extends ModelBase {
      * @param kDataType Types
      */
     public void checkKeywordFormat(final OIFitsChecker checker, final FitsHDU hduFits, final KeywordMeta keyword, final Types kDataType) {
-        if ((kDataType != keyword.getDataType()) || OIFitsChecker.isInspectRules()) {
+        if ((kDataType != keyword.getDataType()) || checker.isInspectRules()) {
             // rule [GENERIC_KEYWORD_FORMAT] check if the keyword format matches the expected format (data type)
             checker.ruleFailed(Rule.GENERIC_KEYWORD_FORMAT, hduFits, keyword.getName()).addKeywordValue(kDataType.getRepresentation(), keyword.getType());
         }
@@ -781,7 +791,7 @@ public abstract class FitsHDU extends ModelBase {
     public void checkMJD(final OIFitsChecker checker, final String name, final double mjd) {
         // rule [GENERIC_MJD_RANGE] check if the MJD value is within 'normal' range (1933 - 2150)
         // mjd can be NaN and then is not checked:
-        if (((mjd < MJD_1933) || (mjd > MJD_2150)) || OIFitsChecker.isInspectRules()) {
+        if (((mjd < MJD_1933) || (mjd > MJD_2150)) || checker.isInspectRules()) {
             checker.ruleFailed(Rule.GENERIC_MJD_RANGE, this, name).addKeywordValue(mjd, MJD_1933 + " - " + MJD_2150);
         }
     }
@@ -795,7 +805,7 @@ public abstract class FitsHDU extends ModelBase {
     public static void checkDateObsKeyword(final OIFitsChecker checker, final String name, final FitsHDU hdu) {
         final String dateObs = hdu.getKeyword(name);
 
-        if ((dateObs != null) || OIFitsChecker.isInspectRules()) {
+        if ((dateObs != null) || checker.isInspectRules()) {
             final SimpleDateFormat sdf = new SimpleDateFormat(FitsConstants.FORMAT_DATE);
             sdf.setLenient(false);
 
@@ -815,15 +825,15 @@ public abstract class FitsHDU extends ModelBase {
                 }
             }
 
-            if (!valid || OIFitsChecker.isInspectRules()) {
+            if (!valid || checker.isInspectRules()) {
                 // rule [GENERIC_DATE_OBS_STANDARD] check if the DATE_OBS keyword is in the format 'YYYY-MM-DD'
                 checker.ruleFailed(Rule.GENERIC_DATE_OBS_STANDARD, hdu, OIFitsConstants.KEYWORD_DATE_OBS).addKeywordValue(dateObs);
             }
-            if (valid || OIFitsChecker.isInspectRules()) {
+            if (valid || checker.isInspectRules()) {
                 final Calendar cal = sdf.getCalendar();
                 final int year = cal.get(Calendar.YEAR);
 
-                if (((year < YEAR_MIN) || (year > YEAR_MAX)) || OIFitsChecker.isInspectRules()) {
+                if (((year < YEAR_MIN) || (year > YEAR_MAX)) || checker.isInspectRules()) {
                     // rule [GENERIC_DATE_OBS_RANGE] check if the DATE_OBS value is within 'normal' range (1933 - 2150)
                     checker.ruleFailed(Rule.GENERIC_DATE_OBS_RANGE, hdu, OIFitsConstants.KEYWORD_DATE_OBS).addKeywordValue(dateObs, ("" + YEAR_MIN + " - " + YEAR_MAX));
                 }
@@ -0,0 +1,423 @@
+/* 
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools.fits;
+
+import fr.jmmc.oitools.OIFitsConstants;
+import fr.nom.tam.fits.BasicHDU;
+import fr.nom.tam.fits.Data;
+import fr.nom.tam.fits.FitsException;
+import fr.nom.tam.fits.FitsFactory;
+import fr.nom.tam.fits.FitsUtil;
+import fr.nom.tam.fits.Header;
+import fr.nom.tam.fits.TruncatedFileException;
+import fr.nom.tam.util.BufferedFile;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class gives the table of contents of a (uncompressed) local Fits file:
+ * only HDU headers are read and data blocks are skipped (header data size with padding).
+ * Then any HDU can be read at once given its EXTNAME and EXTVER without reading other HDUs.
+ *
+ * Note: HDU data read by this index (deferred binary tables) are read from its file input:
+ * the index must be closed only after using them.
+ *
+ * Usage:
+ * <pre>
+ * final FitsHDUIndex index = FitsHDUIndex.open(fileLocation);
+ * try {
+ *     final BasicHDU hdu = index.readHDU(OIFitsConstants.TABLE_OI_TARGET, 1);
+ *     ...
+ * } finally {
+ *     index.close();
+ * }
+ * </pre>
+ *
+ * @author bourgesl
+ */
+public final class FitsHDUIndex implements Closeable {
+
+    /** logger */
+    private final static Logger logger = Logger.getLogger(FitsHDUIndex.class.getName());
+    /** default EXTVER value if missing (FITS standard) */
+    public final static int DEFAULT_EXT_VER = 1;
+
+    /**
+     * Scan the given Fits file to build its table of contents
+     * @param absFilePath absolute file path (uncompressed local file)
+     * @return index (file input remains opened until close() is called)
+     * @throws FitsException if any FITS error occurred
+     * @throws IOException if the file does not exist, is compressed or any IO failure
+     */
+    public static FitsHDUIndex open(final String absFilePath) throws IOException, FitsException {
+        final File file = new File(absFilePath);
+        if (!file.exists()) {
+            throw new IOException("File not found: " + absFilePath);
+        }
+        if (FitsUtil.isCompressed(file)) {
+            throw new IOException("Unsupported compressed file: " + absFilePath);
+        }
+        final FitsHDUIndex index = new FitsHDUIndex(absFilePath, new BufferedFile(file, "r"));
+        boolean ok = false;
+        try {
+            index.scan();
+            ok = true;
+        } finally {
+            if (!ok) {
+                index.close();
+            }
+        }
+        return index;
+    }
+
+    /* members */
+    /** absolute file path */
+    private final String absFilePath;
+    /** file input */
+    private final BufferedFile input;
+    /** entries in file order */
+    private final List<Entry> entries = new ArrayList<Entry>();
+    /** entries keyed by EXTNAME and EXTVER */
+    private final Map<String, Entry> entryByKey = new HashMap<String, Entry>();
+    /** entries keyed by EXTNAME */
+    private final Map<String, List<Entry>> entriesByName = new HashMap<String, List<Entry>>();
+
+    /**
+     * Private constructor
+     * @param absFilePath absolute file path
+     * @param input file input
+     */
+    private FitsHDUIndex(final String absFilePath, final BufferedFile input) {
+        this.absFilePath = absFilePath;
+        this.input = input;
+    }
+
+    /**
+     * Read all headers and skip data blocks
+     * @throws FitsException if any FITS error occurred
+     * @throws IOException IO failure
+     */
+    private void scan() throws IOException, FitsException {
+        final long start = System.nanoTime();
+        final long length = input.length();
+
+        long offset = 0L;
+        for (int i = 0; offset < length; i++) {
+            input.seek(offset);
+
+            final Header header;
+            try {
+                header = Header.readHeader(input);
+            } catch (TruncatedFileException tfe) {
+                // ignore truncated HDU like Fits.read():
+                logger.log(Level.WARNING, "Truncated HDU#{0} in file: {1}", new Object[]{i, absFilePath});
+                break;
+            }
+            if (header == null) {
+                break;
+            }
+            final long dataOffset = FitsUtil.findOffset(input);
+            final long dataSize = header.getDataSize();
+
+            addEntry(new Entry(i, header, offset, dataOffset, dataSize));
+
+            // skip data (padded):
+            offset = dataOffset + dataSize;
+        }
+
+        if (logger.isLoggable(Level.FINE)) {
+            logger.log(Level.FINE, "scan[{0}]: {1} HDUs - duration = {2} ms.",
+                    new Object[]{absFilePath, entries.size(), 1e-6d * (System.nanoTime() - start)});
+        }
+    }
+
+    /**
+     * Register the given entry
+     * @param entry entry to add
+     */
+    private void addEntry(final Entry entry) {
+        entries.add(entry);
+
+        final String extName = entry.getExtName();
+        if (extName != null) {
+            // keep the first HDU if EXTVER is duplicated or missing:
+            final String key = getKey(extName, entry.getExtVer());
+            if (!entryByKey.containsKey(key)) {
+                entryByKey.put(key, entry);
+            }
+            List<Entry> list = entriesByName.get(extName);
+            if (list == null) {
+                list = new ArrayList<Entry>(2);
+                entriesByName.put(extName, list);
+            }
+            list.add(entry);
+        }
+    }
+
+    private static String getKey(final String extName, final int extVer) {
+        return extName + '#' + extVer;
+    }
+
+    /**
+     * Return the absolute file path
+     * @return absolute file path
+     */
+    public String getAbsoluteFilePath() {
+        return absFilePath;
+    }
+
+    /**
+     * Return the number of HDUs
+     * @return number of HDUs
+     */
+    public int getNbEntries() {
+        return entries.size();
+    }
+
+    /**
+     * Return all entries in file order
+     * @return entries (read only)
+     */
+    public List<Entry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    /**
+     * Return the entry of the given HDU index
+     * @param index HDU index (0 = primary HDU)
+     * @return entry or null if out of range
+     */
+    public Entry getEntry(final int index) {
+        return (index >= 0 && index < entries.size()) ? entries.get(index) : null;
+    }
+
+    /**
+     * Return the entry of the given EXTNAME and EXTVER
+     * @param extName EXTNAME value
+     * @param extVer EXTVER value (1 if missing)
+     * @return first matching entry or null if not found
+     */
+    public Entry getEntry(final String extName, final int extVer) {
+        return entryByKey.get(getKey(extName, extVer));
+    }
+
+    /**
+     * Return the entries of the given EXTNAME in file order
+     * @param extName EXTNAME value
+     * @return entries (read only, may be empty)
+     */
+    public List<Entry> getEntries(final String extName) {
+        final List<Entry> list = entriesByName.get(extName);
+        return (list != null) ? Collections.unmodifiableList(list) : Collections.<Entry>emptyList();
+    }
+
+    /**
+     * Read the HDU of the given EXTNAME and EXTVER
+     * @param extName EXTNAME value
+     * @param extVer EXTVER value (1 if missing)
+     * @return HDU or null if not found
+     * @throws FitsException if any FITS error occurred
+     * @throws IOException IO failure
+     */
+    public BasicHDU readHDU(final String extName, final int extVer) throws IOException, FitsException {
+        final Entry entry = getEntry(extName, extVer);
+        return (entry != null) ? readHDU(entry) : null;
+    }
+
+    /**
+     * Read the HDU of the given entry (binary table data are deferred until used)
+     * @param entry entry of this index
+     * @return HDU
+     * @throws FitsException if any FITS error occurred
+     * @throws IOException IO failure
+     */
+    public BasicHDU readHDU(final Entry entry) throws IOException, FitsException {
+        input.seek(entry.getHeaderOffset());
+
+        final Header header = Header.readHeader(input);
+        if (header == null) {
+            throw new FitsException("Unable to read the HDU#" + entry.getIndex() + " in file: " + absFilePath);
+        }
+        final Data datum = header.makeData();
+        datum.read(input);
+
+        return FitsFactory.HDUFactory(header, datum);
+    }
+
+    /**
+     * Close the file input
+     * @throws IOException IO failure
+     */
+    @Override
+    public void close() throws IOException {
+        input.close();
+    }
+
+    @Override
+    public String toString() {
+        return "FitsHDUIndex[" + absFilePath + "]" + entries;
+    }
+
+    /**
+     * Table of contents entry (HDU header summary and file offsets)
+     */
+    public final static class Entry {
+
+        /* members */
+        /** HDU index (0 = primary HDU) */
+        private final int index;
+        /** HDU header */
+        private final Header header;
+        /** XTENSION value or null for the primary HDU */
+        private final String xtension;
+        /** EXTNAME value or null */
+        private final String extName;
+        /** EXTVER value (1 if missing) */
+        private final int extVer;
+        /** INSNAME value or null */
+        private final String insName;
+        /** ARRNAME value or null */
+        private final String arrName;
+        /** NAXIS2 value (number of rows for tables) */
+        private final int nbRows;
+        /** file offset of the header */
+        private final long headerOffset;
+        /** file offset of the data */
+        private final long dataOffset;
+        /** data size (with padding) */
+        private final long dataSize;
+
+        Entry(final int index, final Header header, final long headerOffset, final long dataOffset, final long dataSize) {
+            this.index = index;
+            this.header = header;
+            this.xtension = header.getTrimmedStringValue(FitsConstants.KEYWORD_XTENSION);
+            this.extName = header.getTrimmedStringValue(FitsConstants.KEYWORD_EXT_NAME);
+            this.extVer = header.getIntValue(FitsConstants.KEYWORD_EXT_VER, DEFAULT_EXT_VER);
+            this.insName = header.getTrimmedStringValue(OIFitsConstants.KEYWORD_INSNAME);
+            this.arrName = header.getTrimmedStringValue(OIFitsConstants.KEYWORD_ARRNAME);
+            this.nbRows = header.getIntValue(FitsConstants.KEYWORD_NAXIS2, 0);
+            this.headerOffset = headerOffset;
+            this.dataOffset = dataOffset;
+            this.dataSize = dataSize;
+        }
+
+        /**
+         * Return the HDU index
+         * @return HDU index (0 = primary HDU)
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Return the HDU header
+         * @return HDU header
+         */
+        public Header getHeader() {
+            return header;
+        }
+
+        /**
+         * Return the XTENSION value
+         * @return XTENSION value or null for the primary HDU
+         */
+        public String getXtension() {
+            return xtension;
+        }
+
+        /**
+         * Return the EXTNAME value
+         * @return EXTNAME value or null
+         */
+        public String getExtName() {
+            return extName;
+        }
+
+        /**
+         * Return the EXTVER value
+         * @return EXTVER value (1 if missing)
+         */
+        public int getExtVer() {
+            return extVer;
+        }
+
+        /**
+         * Return the INSNAME value
+         * @return INSNAME value or null
+         */
+        public String getInsName() {
+            return insName;
+        }
+
+        /**
+         * Return the ARRNAME value
+         * @return ARRNAME value or null
+         */
+        public String getArrName() {
+            return arrName;
+        }
+
+        /**
+         * Return the NAXIS2 value
+         * @return NAXIS2 value (number of rows for tables) or 0 if missing
+         */
+        public int getNbRows() {
+            return nbRows;
+        }
+
+        /**
+         * Return the file offset of the header
+         * @return file offset of the header
+         */
+        public long getHeaderOffset() {
+            return headerOffset;
+        }
+
+        /**
+         * Return the file offset of the data
+         * @return file offset of the data
+         */
+        public long getDataOffset() {
+            return dataOffset;
+        }
+
+        /**
+         * Return the data size
+         * @return data size (with padding)
+         */
+        public long getDataSize() {
+            return dataSize;
+        }
+
+        @Override
+        public String toString() {
+            return "HDU#" + index + "[" + ((extName != null) ? extName + '#' + extVer : "PRIMARY")
+                    + " rows=" + nbRows + " header@" + headerOffset + " data@" + dataOffset + " (" + dataSize + " bytes)]";
+        }
+    }
+}
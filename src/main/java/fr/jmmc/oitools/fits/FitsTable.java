@@ -30,7 +30,9 @@ import fr.jmmc.oitools.model.OIFitsChecker;
 import fr.jmmc.oitools.model.OITable;
 import fr.jmmc.oitools.model.Rule;
 import fr.jmmc.oitools.model.range.Range;
+import fr.nom.tam.fits.FitsException;
 import fr.nom.tam.util.ArrayFuncs;
+import java.io.IOException;
 import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -77,6 +79,10 @@ public abstract class FitsTable extends FitsHDU {
      * Map storing column values
      */
     private final Map<String, Object> columnsValue = new HashMap<String, Object>();
+    /**
+     * Map storing lazy columns whose values were read (released by unloadColumnValues)
+     */
+    private Map<String, LazyColumn> columnsLazyValue = null;
     /* cached computed data */
     /**
      * Map storing computed values derived from this data table or related
@@ -132,29 +138,105 @@ public abstract class FitsTable extends FitsHDU {
 
         for (ColumnMeta column : getColumnDescCollection()) {
             final String columnName = column.getName();
-            Object columnValue = src.getColumnValue(columnName);
+            // stored value (jagged or flat arrays):
+            Object columnValue = src.getColumnStoredValue(columnName);
 
             if (columnValue == null && !column.isOptional()) {
                 columnValue = createColumnArray(column, nRows);
             }
 
-            // Copy custom units:
-            if (column.isCustomUnits()) {
-                final ColumnMeta srcColumn = src.getColumnDesc(columnName);
-                if (srcColumn != null && srcColumn.isCustomUnits()) {
-                    column.getCustomUnits().set(srcColumn.getCustomUnits());
-                }
+            copyCustomUnits(src, column);
+
+            if (logger.isLoggable(Level.FINE)) {
+                logger.log(Level.FINE, "COLUMN {0} = ''{1}''", new Object[]{columnName, columnValue});
+            }
+            setColumnValue(columnName, columnValue);
+        }
+        // ignore derived columns (defined by constructor)
+        // ignore cached data
+    }
+
+    /**
+     * Copy method for the given table (keyword values, header cards and column values)
+     * keeping only the given rows and wavelengths: column values are filtered from the source table
+     * into new arrays allocated at their final size (source column values are never copied completely).
+     *
+     * @param src table to copy
+     * @param nbKeepRows number of rows to keep i.e. the Fits NAXIS2 keyword value
+     * @param maskRows bit set indicating which rows to keep (null means keep all rows)
+     * @param maskWavelengths bit set indicating which wavelength to keep (null means keep all wavelengths)
+     * @throws IllegalArgumentException if the number of rows is less than 1
+     */
+    protected final void copyTable(final FitsTable src, final int nbKeepRows,
+                                   final BitSet maskRows, final BitSet maskWavelengths) throws IllegalArgumentException {
+        if (nbKeepRows < 1) {
+            throw new IllegalArgumentException("Invalid number of rows : the table must have at least 1 row !");
+        }
+        // Copy keyword values and header cards:
+        super.copyHdu(src);
+
+        final BitSet keepRows;
+        if (maskRows != null) {
+            keepRows = maskRows;
+        } else {
+            keepRows = new BitSet(nbKeepRows);
+            keepRows.set(0, nbKeepRows);
+        }
+        final int nbKeepWl = (maskWavelengths != null) ? maskWavelengths.cardinality() : -1;
+
+        // Filter column values:
+        for (ColumnMeta column : getColumnDescCollection()) {
+            final String columnName = column.getName();
+            // stored value (jagged or flat arrays):
+            Object columnValue = src.getColumnStoredValue(columnName);
+
+            // number of wavelengths given by the source table if not filtered:
+            final int nbWl = ((nbKeepWl == -1) && (column instanceof WaveColumnMeta))
+                    ? src.getColumnDesc(columnName).getRepeat() : nbKeepWl;
+
+            if (columnValue != null) {
+                columnValue = filterColumnValue(column, columnValue, nbKeepRows, keepRows, nbWl, maskWavelengths);
+            } else if (!column.isOptional()) {
+                columnValue = createColumnArray(column, getColumnArrayDims(column, nbKeepRows, nbWl));
             }
 
+            copyCustomUnits(src, column);
+
             if (logger.isLoggable(Level.FINE)) {
                 logger.log(Level.FINE, "COLUMN {0} = ''{1}''", new Object[]{columnName, columnValue});
             }
             setColumnValue(columnName, columnValue);
         }
+        this.setNbRows(nbKeepRows);
+
         // ignore derived columns (defined by constructor)
         // ignore cached data
     }
 
+    /**
+     * Copy the custom units of all columns from the given source table (column values are not copied)
+     * @param src source table
+     */
+    protected final void copyCustomUnits(final FitsTable src) {
+        for (ColumnMeta column : getColumnDescCollection()) {
+            copyCustomUnits(src, column);
+        }
+    }
+
+    /**
+     * Copy the custom units of the given column from the given source table
+     * @param src source table
+     * @param column column descriptor of this table
+     */
+    private static void copyCustomUnits(final FitsTable src, final ColumnMeta column) {
+        if (column.isCustomUnits()) {
+            final ColumnMeta srcColumn = src.getColumnDesc(column.getName());
+            if (srcColumn != null && srcColumn.isCustomUnits()) {
+                column.getCustomUnits().set(srcColumn.getCustomUnits());
+            }
+        }
+    }
+
     /**
      * Resize the table ie column arrays + fix the Fits NAXIS2 keyword value
      *
@@ -187,15 +269,11 @@ public abstract class FitsTable extends FitsHDU {
         // Resize column values:
         for (ColumnMeta column : getColumnDescCollection()) {
             final String columnName = column.getName();
-            final Object columnValueOriginal = getColumnValue(columnName);
+            final Object columnValueOriginal = getColumnStoredValue(columnName);
 
             // ignore optional columns (null):
             if (columnValueOriginal != null) {
-                final int[] dims = getColumnArrayDims(column, nbKeepRows, nbKeepWl);
-                final Object columnValue = createColumnArray(column, dims);
-
-                // copy data (may filter wavelengths)
-                filterColumnArray(columnName, columnValueOriginal, columnValue, (dims.length == 1), maskRows, nbKeepWl, maskWavelengths);
+                final Object columnValue = filterColumnValue(column, columnValueOriginal, nbKeepRows, maskRows, nbKeepWl, maskWavelengths);
 
                 if (logger.isLoggable(Level.FINE)) {
                     logger.log(Level.FINE, "COLUMN {0} = ''{1}''", new Object[]{columnName, columnValue});
@@ -210,6 +288,32 @@ public abstract class FitsTable extends FitsHDU {
         this.setChanged();
     }
 
+    /**
+     * Filter the given column value (jagged or flat arrays) into a new column value
+     *
+     * @param column column descriptor
+     * @param columnValue column value to filter
+     * @param nbKeepRows number of rows to keep
+     * @param maskRows bit set indicating which rows to keep (true means keep row)
+     * @param nbKeepWl number of wavelengths to keep (-1 means all)
+     * @param maskWavelengths bit set indicating which wavelength to keep (null means keep all wavelengths)
+     * @return new column value
+     */
+    private static Object filterColumnValue(final ColumnMeta column, final Object columnValue, final int nbKeepRows,
+                                     final BitSet maskRows, final int nbKeepWl, final BitSet maskWavelengths) {
+        if (columnValue instanceof FlatColumn) {
+            // filter flat arrays (may filter wavelengths):
+            final boolean filterWl = (maskWavelengths != null) && (column instanceof WaveColumnMeta);
+            return ((FlatColumn) columnValue).filter(maskRows, nbKeepRows, (filterWl) ? maskWavelengths : null);
+        }
+        final int[] dims = getColumnArrayDims(column, nbKeepRows, nbKeepWl);
+        final Object newValue = createColumnArray(column, dims);
+
+        // copy data (may filter wavelengths)
+        filterColumnArray(column.getName(), columnValue, newValue, (dims.length == 1), maskRows, nbKeepWl, maskWavelengths);
+        return newValue;
+    }
+
     /**
      * Create a new column arrays according to their format and the given number
      * of rows (NAXIS2)
@@ -660,14 +764,40 @@ public abstract class FitsTable extends FitsHDU {
      * --- Column values -------------------------------------------------------
      */
     /**
-     * Return the Map storing column values
+     * Return the Map storing column values (jagged arrays or FlatColumn instances).
+     * Note: lazy column values (LazyColumn) are read first from their file
      *
      * @return Map storing column values
-     */
-    public final Map<String, Object> getColumnsValue() {
+     * @throws IllegalStateException if a lazy column can not be read
+     */
+    public final Map<String, Object> getColumnsValue() throws IllegalStateException {
+        List<String> lazyNames = null;
+        for (Map.Entry<String, Object> entry : this.columnsValue.entrySet()) {
+            if (entry.getValue() instanceof LazyColumn) {
+                if (lazyNames == null) {
+                    lazyNames = new ArrayList<String>();
+                }
+                lazyNames.add(entry.getKey());
+            }
+        }
+        if (lazyNames != null) {
+            for (String name : lazyNames) {
+                loadColumnValue(name);
+            }
+        }
         return this.columnsValue;
     }
 
+    /**
+     * Return true if the column value given its name is loaded i.e. not waiting to be read from its file (lazy mode)
+     *
+     * @param name column name
+     * @return true if the column value is loaded or undefined; false if it will be read on first access
+     */
+    public final boolean isColumnLoaded(final String name) {
+        return !(this.columnsValue.get(name) instanceof LazyColumn);
+    }
+
     /**
      * Return true if the table contains the column given its column descriptor
      *
@@ -676,20 +806,90 @@ public abstract class FitsTable extends FitsHDU {
      */
     public final boolean hasColumn(final ColumnMeta meta) {
         if (meta.isOptional()) {
-            return getColumnValue(meta.getName()) != null;
+            // stored value (flat arrays are not converted):
+            return getColumnStoredValue(meta.getName()) != null;
         }
         return true;
     }
 
     /**
      * Return the column value given its name The returned value can be null if
-     * the column has never been defined
+     * the column has never been defined.
+     * Note: flat column values (FlatColumn) are returned as new jagged arrays (copy) and the flat storage is kept:
+     * modifying the returned arrays does not change the table (use setColumnValue() or getColumnFlat() instead)
+     * and getColumnFlat() avoids the conversion cost for read-only access
      *
      * @param name column name
      * @return any array value or null if undefined
      */
     public final Object getColumnValue(final String name) {
-        return getColumnsValue().get(name);
+        final Object value = getColumnStoredValue(name);
+        if (value instanceof FlatColumn) {
+            return ((FlatColumn) value).toArray();
+        }
+        return value;
+    }
+
+    /**
+     * Return the column value given its name as a FlatColumn (standard or derived) if it is still stored as a flat array.
+     * Contrary to getColumnValue(), the column value is not converted to jagged arrays.
+     *
+     * @param name column name
+     * @return FlatColumn or null if undefined or not stored as a flat array
+     */
+    public final FlatColumn getColumnFlat(final String name) {
+        Object value = getColumnStoredValue(name);
+        if ((value == null) && (this.columnsDerivedValue != null)) {
+            value = this.columnsDerivedValue.get(name);
+        }
+        return (value instanceof FlatColumn) ? (FlatColumn) value : null;
+    }
+
+    /**
+     * Return the stored column value given its name (jagged arrays or FlatColumn).
+     * Note: lazy column values (LazyColumn) are read once from their file (stored instead)
+     *
+     * @param name column name
+     * @return jagged arrays, FlatColumn or null if undefined
+     * @throws IllegalStateException if the lazy column can not be read
+     */
+    public final Object getColumnStoredValue(final String name) throws IllegalStateException {
+        final Object value = this.columnsValue.get(name);
+        if (value instanceof LazyColumn) {
+            return loadColumnValue(name);
+        }
+        return value;
+    }
+
+    /**
+     * Read the lazy column value from its file and store it
+     * @param name column name
+     * @return jagged arrays, FlatColumn or null if undefined
+     * @throws IllegalStateException if the lazy column can not be read
+     */
+    private synchronized Object loadColumnValue(final String name) throws IllegalStateException {
+        Object value = this.columnsValue.get(name);
+        if (value instanceof LazyColumn) {
+            final LazyColumn lazyColumn = (LazyColumn) value;
+            try {
+                value = lazyColumn.load();
+            } catch (IOException ioe) {
+                throw new IllegalStateException("Unable to read column " + name + " in table " + idToString(), ioe);
+            } catch (FitsException fe) {
+                throw new IllegalStateException("Unable to read column " + name + " in table " + idToString(), fe);
+            }
+            if (value != null) {
+                this.columnsValue.put(name, value);
+
+                if (this.columnsLazyValue == null) {
+                    this.columnsLazyValue = new HashMap<String, LazyColumn>();
+                }
+                this.columnsLazyValue.put(name, lazyColumn);
+            } else {
+                this.columnsValue.remove(name);
+            }
+        }
+        return value;
     }
 
     /**
@@ -828,7 +1028,32 @@ public abstract class FitsTable extends FitsHDU {
         if (logger.isLoggable(Level.FINE)) {
             logger.log(Level.FINE, "COLUMN [{0}] = {1}", new Object[]{name, (value != null) ? ArrayFuncs.arrayDescription(value) : ""});
         }
-        getColumnsValue().put(name, value);
+        this.columnsValue.put(name, value);
+
+        if (this.columnsLazyValue != null) {
+            // value replaced: never read again from its file
+            this.columnsLazyValue.remove(name);
+        }
+    }
+
+    /**
+     * Release the column values read from their file (lazy mode) and the derived column values
+     * to reduce memory usage: released columns are read again from their file on next access.
+     * Note: changes made in place to the released column values are lost
+     *
+     * @return number of released columns
+     */
+    public final synchronized int unloadColumnValues() {
+        int n = 0;
+        if ((this.columnsLazyValue != null) && !this.columnsLazyValue.isEmpty()) {
+            for (Map.Entry<String, LazyColumn> entry : this.columnsLazyValue.entrySet()) {
+                this.columnsValue.put(entry.getKey(), entry.getValue());
+                n++;
+            }
+            this.columnsLazyValue.clear();
+            clearColumnsDerivedValue();
+        }
+        return n;
     }
 
     /*
@@ -930,7 +1155,12 @@ public abstract class FitsTable extends FitsHDU {
      * @return any value or null if undefined
      */
     public final Object getColumnDerivedValue(final String name) {
-        return getColumnsDerivedValue().get(name);
+        final Object value = getColumnsDerivedValue().get(name);
+        if (value instanceof FlatColumn) {
+            // copy (flat storage kept):
+            return ((FlatColumn) value).toArray();
+        }
+        return value;
     }
 
     /**
@@ -1217,6 +1447,21 @@ public abstract class FitsTable extends FitsHDU {
                         double dMax = Double.NEGATIVE_INFINITY;
 
                         if (column.isArray()) {
+                            final FlatColumn flat = getColumnFlat(column.getName());
+                            if (flat != null) {
+                                // avoid converting flat arrays:
+                                final double[] dFlatValues = flat.getDoubles();
+                                for (int i = 0, len = dFlatValues.length; i < len; i++) {
+                                    if (dFlatValues[i] < dMin) {
+                                        dMin = dFlatValues[i];
+                                    }
+                                    if (dFlatValues[i] > dMax) {
+                                        dMax = dFlatValues[i];
+                                    }
+                                }
+                                range = new double[]{dMin, dMax};
+                                break;
+                            }
                             final double[][] dValues = getColumnAsDoubles(column.getName());
                             if (dValues == null) {
                                 break;
@@ -1366,16 +1611,21 @@ public abstract class FitsTable extends FitsHDU {
         /* Get mandatory columns names */
         for (ColumnMeta column : getColumnDescCollection()) {
             columnName = column.getName();
-            value = getColumnValue(columnName);
+            if (checker.isSkippedColumn(this, columnName)) {
+                // column not loaded (column projection):
+                continue;
+            }
+            // stored value (jagged or flat arrays):
+            value = getColumnStoredValue(columnName);
 
-            if ((value == null) || OIFitsChecker.isInspectRules()) {
+            if ((value == null) || checker.isInspectRules()) {
                 if (!column.isOptional()) {
                     /* No column with columnName name */
                     // rule [GENERIC_COL_MANDATORY] check if the required column is present
                     checker.ruleFailed(Rule.GENERIC_COL_MANDATORY, this, columnName);
                 }
             }
-            if ((value == null) && OIFitsChecker.isInspectRules()) {
+            if ((value == null) && checker.isInspectRules()) {
                 // Create a new column value to always enter in column.check(checker) below:
                 value = createColumnArray(column, nRows);
             }
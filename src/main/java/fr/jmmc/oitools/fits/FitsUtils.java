@@ -26,9 +26,13 @@ import fr.nom.tam.fits.BinaryTableHDU;
 import fr.nom.tam.fits.Fits;
 import fr.nom.tam.fits.FitsException;
 import fr.nom.tam.fits.FitsFactory;
+import fr.nom.tam.fits.FitsUtil;
 import fr.nom.tam.fits.Header;
 import fr.nom.tam.fits.HeaderCard;
 import fr.nom.tam.util.ArrayFuncs;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -179,15 +183,137 @@ public final class FitsUtils {
      * @throws FitsException if any FITS exception occurs
      */
     public static void dumpFile(final String absFilePath, final boolean dumpValues, final StringBuilder sb) throws FitsException {
-        final Fits s = new Fits(absFilePath);
+        dumpFile(absFilePath, dumpValues, null, sb);
+    }
 
-        final List<BasicHDU> hduList = new ArrayList<BasicHDU>(Arrays.asList(s.read()));
-        Collections.sort(hduList, ExtNameComparator.INSTANCE);
+    /**
+     * Dump Fits file given its absolute file path.
+     * Local uncompressed files are read using their table of contents (FitsHDUIndex)
+     * so only the matching HDUs are read.
+     * @param absFilePath absolute file path
+     * @param dumpValues true indicates to dump column values
+     * @param hduFilter optional HDU filter 'EXTNAME' or 'EXTNAME#EXTVER' (null means all HDUs)
+     * @param sb buffer to dump into
+     * @throws FitsException if any FITS exception occurs
+     */
+    public static void dumpFile(final String absFilePath, final boolean dumpValues, final String hduFilter,
+                                final StringBuilder sb) throws FitsException {
+        try {
+            dumpFile(absFilePath, dumpValues, hduFilter, sb, null);
+        } catch (IOException ioe) {
+            // no output writer:
+            throw new FitsException("Unable to dump file: " + absFilePath, ioe);
+        }
+    }
 
-        sb.append("HDUs = ").append(hduList.size()).append('\n');
+    /**
+     * Dump Fits file given its absolute file path into the given writer (flushed after each HDU)
+     * so the memory footprint does not depend on the output size.
+     * @param absFilePath absolute file path
+     * @param dumpValues true indicates to dump column values
+     * @param hduFilter optional HDU filter 'EXTNAME' or 'EXTNAME#EXTVER' (null means all HDUs)
+     * @param out output writer (not closed)
+     * @throws FitsException if any FITS exception occurs
+     * @throws IOException if the output writer failed
+     */
+    public static void dumpFile(final String absFilePath, final boolean dumpValues, final String hduFilter,
+                                final Writer out) throws FitsException, IOException {
+        dumpFile(absFilePath, dumpValues, hduFilter, new StringBuilder(16 * 1024), out);
+    }
 
-        for (BasicHDU hdu : hduList) {
-            FitsUtils.dumpHDU(sb, hdu, dumpValues);
+    private static void dumpFile(final String absFilePath, final boolean dumpValues, final String hduFilter,
+                                 final StringBuilder sb, final Writer out) throws FitsException, IOException {
+
+        final String extName;
+        final int extVer;
+        if (hduFilter == null) {
+            extName = null;
+            extVer = -1;
+        } else {
+            final int pos = hduFilter.indexOf('#');
+            if (pos == -1) {
+                extName = hduFilter;
+                extVer = -1;
+            } else {
+                extName = hduFilter.substring(0, pos);
+                try {
+                    extVer = Integer.parseInt(hduFilter.substring(pos + 1));
+                } catch (NumberFormatException nfe) {
+                    throw new FitsException("Invalid HDU filter (EXTNAME#EXTVER expected): " + hduFilter);
+                }
+            }
+        }
+
+        final File file = new File(absFilePath);
+        if (file.isFile() && !FitsUtil.isCompressed(file)) {
+            final FitsHDUIndex index;
+            try {
+                index = FitsHDUIndex.open(absFilePath);
+            } catch (IOException ioe) {
+                throw new FitsException("Unable to read file: " + absFilePath, ioe);
+            }
+            try {
+                final List<FitsHDUIndex.Entry> entries;
+                if (extName == null) {
+                    entries = new ArrayList<FitsHDUIndex.Entry>(index.getEntries());
+                    Collections.sort(entries, EntryExtNameComparator.INSTANCE);
+                } else if (extVer == -1) {
+                    entries = index.getEntries(extName);
+                } else {
+                    final FitsHDUIndex.Entry entry = index.getEntry(extName, extVer);
+                    entries = (entry != null) ? Collections.singletonList(entry) : Collections.<FitsHDUIndex.Entry>emptyList();
+                }
+
+                sb.append("HDUs = ").append(entries.size()).append('\n');
+
+                for (FitsHDUIndex.Entry entry : entries) {
+                    final BasicHDU hdu;
+                    try {
+                        hdu = index.readHDU(entry);
+                    } catch (IOException ioe) {
+                        throw new FitsException("Unable to read file: " + absFilePath, ioe);
+                    }
+                    FitsUtils.dumpHDU(sb, hdu, dumpValues);
+                    flush(sb, out);
+                }
+            } finally {
+                index.close();
+            }
+        } else {
+            final Fits s = new Fits(absFilePath);
+
+            final List<BasicHDU> hduList = new ArrayList<BasicHDU>();
+            for (BasicHDU hdu : s.read()) {
+                if ((extName == null)
+                        || (extName.equals(hdu.getTrimmedString(FitsConstants.KEYWORD_EXT_NAME))
+                        && ((extVer == -1) || (extVer == hdu.getHeader().getIntValue(FitsConstants.KEYWORD_EXT_VER, FitsHDUIndex.DEFAULT_EXT_VER))))) {
+                    hduList.add(hdu);
+                }
+            }
+            if (extName == null) {
+                Collections.sort(hduList, ExtNameComparator.INSTANCE);
+            }
+
+            sb.append("HDUs = ").append(hduList.size()).append('\n');
+
+            for (BasicHDU hdu : hduList) {
+                FitsUtils.dumpHDU(sb, hdu, dumpValues);
+                flush(sb, out);
+            }
+        }
+    }
+
+    /**
+     * Write the buffer into the given writer (if any), flush it and clear the buffer
+     * @param sb buffer
+     * @param out output writer (optional)
+     * @throws IOException if the output writer failed
+     */
+    private static void flush(final StringBuilder sb, final Writer out) throws IOException {
+        if (out != null) {
+            out.append(sb);
+            out.flush();
+            sb.setLength(0);
         }
     }
 
@@ -368,4 +494,16 @@ public final class FitsUtils {
         }
 
     };
+
+    final static class EntryExtNameComparator implements Comparator<FitsHDUIndex.Entry> {
+
+        final static EntryExtNameComparator INSTANCE = new EntryExtNameComparator();
+
+        @Override
+        public int compare(final FitsHDUIndex.Entry entry1, final FitsHDUIndex.Entry entry2) {
+            final String extName1 = (entry1.getExtName() != null) ? entry1.getExtName() : "";
+            final String extName2 = (entry2.getExtName() != null) ? entry2.getExtName() : "";
+            return extName1.compareTo(extName2);
+        }
+    }
 }
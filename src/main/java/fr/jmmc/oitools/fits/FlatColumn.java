@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools.fits;
+
+import fr.nom.tam.util.ArrayFuncs;
+import java.lang.reflect.Array;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * This class represents array column values stored in a single flat (row-major) primitive array
+ * (double[] or float[]) with its row dimensions (stride) instead of one array per row.
+ *
+ * Element [row][col] is stored at data[row * stride + col] (complex values use 2 consecutive values).
+ *
+ * @author bourgesl
+ */
+public final class FlatColumn {
+
+    /** flat primitive array (row-major) */
+    private final Object data;
+    /** number of rows */
+    private final int nRows;
+    /** dimensions of one row (ie [nWave] or [nWave, 2] for complex values) */
+    private final int[] rowDims;
+    /** number of values per row */
+    private final int stride;
+
+    /**
+     * Public constructor
+     * @param data flat primitive array (row-major)
+     * @param nRows number of rows
+     * @param rowDims dimensions of one row
+     * @throws IllegalArgumentException if the data length does not match nRows x rowDims
+     */
+    public FlatColumn(final Object data, final int nRows, final int[] rowDims) throws IllegalArgumentException {
+        final int len = getStride(rowDims);
+
+        if (Array.getLength(data) != nRows * len) {
+            throw new IllegalArgumentException("Invalid flat array length: " + Array.getLength(data)
+                    + " != " + nRows + " x " + Arrays.toString(rowDims));
+        }
+        this.data = data;
+        this.nRows = nRows;
+        this.rowDims = rowDims;
+        this.stride = len;
+    }
+
+    /**
+     * Return a new FlatColumn instance copying the given rectangular array (2D or more)
+     * @param array jagged array (double[][], float[][][] ...)
+     * @return new FlatColumn instance or null if the given array is not a multi-dimensional array
+     */
+    public static FlatColumn valueOf(final Object array) {
+        final int[] dims = ArrayFuncs.getDimensions(array);
+
+        if ((dims == null) || (dims.length < 2)) {
+            return null;
+        }
+        for (int i = 0; i < dims.length; i++) {
+            if (dims[i] < 0) {
+                // unallocated rows:
+                return null;
+            }
+        }
+        return new FlatColumn(ArrayFuncs.flatten(array), dims[0], Arrays.copyOfRange(dims, 1, dims.length));
+    }
+
+    /**
+     * Return the flat primitive array (row-major)
+     * @return flat primitive array
+     */
+    public Object getData() {
+        return data;
+    }
+
+    /**
+     * Return the flat double array or null if this column does not store double values
+     * @return flat double array or null
+     */
+    public double[] getDoubles() {
+        return (data instanceof double[]) ? (double[]) data : null;
+    }
+
+    /**
+     * Return the flat float array or null if this column does not store float (or complex) values
+     * @return flat float array or null
+     */
+    public float[] getFloats() {
+        return (data instanceof float[]) ? (float[]) data : null;
+    }
+
+    /**
+     * Return the base class of the stored values (double.class or float.class)
+     * @return base class
+     */
+    public Class<?> getBaseClass() {
+        return data.getClass().getComponentType();
+    }
+
+    /**
+     * Return the number of rows
+     * @return number of rows
+     */
+    public int getNbRows() {
+        return nRows;
+    }
+
+    /**
+     * Return the dimensions of one row
+     * @return dimensions of one row
+     */
+    public int[] getRowDims() {
+        return rowDims.clone();
+    }
+
+    /**
+     * Return the number of values per row
+     * @return number of values per row
+     */
+    public int getStride() {
+        return stride;
+    }
+
+    /**
+     * Return the offset in the flat array of the first value of the given row
+     * @param row row index
+     * @return row offset
+     */
+    public int getOffset(final int row) {
+        return row * stride;
+    }
+
+    /**
+     * Return the full dimensions (ie [nRows, rowDims...]) equivalent to the jagged array
+     * @return full dimensions
+     */
+    public int[] getDimensions() {
+        final int[] dims = new int[rowDims.length + 1];
+        dims[0] = nRows;
+        System.arraycopy(rowDims, 0, dims, 1, rowDims.length);
+        return dims;
+    }
+
+    /**
+     * Return a new jagged array (double[][], float[][][] ...) copying the flat values
+     * @return new jagged array
+     */
+    public Object toArray() {
+        return ArrayFuncs.curl(data, getDimensions());
+    }
+
+    /**
+     * Return a new FlatColumn keeping only the given rows and optionally the given indexes along the first row dimension (wavelength)
+     * @param keepMaskRows bit set indicating which rows to keep (true means keep row)
+     * @param nbKeepRows number of rows to keep
+     * @param keepMaskCols optional bit set indicating which indexes to keep along the first row dimension (true means keep index)
+     * @return new FlatColumn instance
+     */
+    public FlatColumn filter(final BitSet keepMaskRows, final int nbKeepRows, final BitSet keepMaskCols) {
+        final int[] newRowDims = rowDims.clone();
+        if (keepMaskCols != null) {
+            newRowDims[0] = keepMaskCols.cardinality();
+        }
+        final int newStride = getStride(newRowDims);
+        // number of values per index along the first row dimension (2 for complex values):
+        final int cellLen = (rowDims[0] != 0) ? stride / rowDims[0] : 0;
+
+        final Object output = ArrayFuncs.newInstance(getBaseClass(), nbKeepRows * newStride);
+
+        // no bound checks:
+        for (int i = keepMaskRows.nextSetBit(0), j = 0; i >= 0 && j < nbKeepRows; i = keepMaskRows.nextSetBit(i + 1), j++) {
+            final int srcOffset = i * stride;
+            final int dstOffset = j * newStride;
+
+            if (keepMaskCols == null) {
+                System.arraycopy(data, srcOffset, output, dstOffset, stride);
+            } else {
+                for (int k = keepMaskCols.nextSetBit(0), l = 0; k >= 0 && l < newRowDims[0]; k = keepMaskCols.nextSetBit(k + 1), l++) {
+                    System.arraycopy(data, srcOffset + k * cellLen, output, dstOffset + l * cellLen, cellLen);
+                }
+            }
+        }
+        return new FlatColumn(output, nbKeepRows, newRowDims);
+    }
+
+    @Override
+    public String toString() {
+        return "FlatColumn[" + getBaseClass() + Arrays.toString(getDimensions()) + "]";
+    }
+
+    private static int getStride(final int[] rowDims) {
+        int len = 1;
+        for (int i = 0; i < rowDims.length; i++) {
+            len *= rowDims[i];
+        }
+        return len;
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools.fits;
+
+import fr.nom.tam.fits.FitsException;
+import java.io.IOException;
+
+/**
+ * This interface represents a column value not yet read from its file (lazy loading).
+ * FitsTable replaces it by the loaded value (jagged arrays or FlatColumn) on first access.
+ *
+ * @author bourgesl
+ */
+public interface LazyColumn {
+
+    /**
+     * Read the column value from its file
+     * @return column value (jagged arrays or FlatColumn) or null if undefined
+     * @throws IOException IO failure
+     * @throws FitsException if any FITS error occurred
+     */
+    public Object load() throws IOException, FitsException;
+}
@@ -19,7 +19,9 @@
  ******************************************************************************/
 package fr.jmmc.oitools.image;
 
+import fr.nom.tam.fits.FitsException;
 import java.awt.geom.Rectangle2D;
+import java.io.IOException;
 import java.text.DecimalFormat;
 import java.util.logging.Level;
 
@@ -74,6 +76,10 @@ public final class FitsImage {
     private double rotAngle = 0.0;
     /** image data as float[nbRows][nbCols] ie [Y][X] */
     private float[][] data = null;
+    /** optional loader reading the image data on demand (lazy cube) */
+    private FitsImagePlaneLoader planeLoader = null;
+    /** index of the image plane read by the plane loader [1..n] */
+    private int planeIndex = 1;
     /** minimum value in data */
     private double dataMin = Double.NaN;
     /** maximum value in data */
@@ -134,7 +140,12 @@ public final class FitsImage {
         this.setRotAngle(source.getRotAngle());
 
         // shallow copy the data
-        this.setData(source.getData());
+        if (source.data == null && source.planeLoader != null) {
+            // share the plane loader (data not read):
+            this.setPlaneLoader(source.planeLoader, source.planeIndex, source.getNbRows(), source.getNbCols());
+        } else {
+            this.setData(source.getData());
+        }
         this.setNData(source.getNData());
 
         this.setDataMin(source.getDataMin());
@@ -544,10 +555,27 @@ public final class FitsImage {
      * Return the image data as float[nbRows][nbCols] ie [Y][X]
      * @return image data as float[nbRows][nbCols] ie [Y][X]
      */
-    public float[][] getData() {
+    public float[][] getData() throws IllegalStateException {
+        if (this.data == null && this.planeLoader != null) {
+            try {
+                return this.planeLoader.getPlane(this.planeIndex);
+            } catch (IOException ioe) {
+                throw new IllegalStateException("Unable to read image " + getFitsImageIdentifier(), ioe);
+            } catch (FitsException fe) {
+                throw new IllegalStateException("Unable to read image " + getFitsImageIdentifier(), fe);
+            }
+        }
         return this.data;
     }
 
+    /**
+     * Return true if the image data are read on demand (lazy cube)
+     * @return true if the image data are read on demand
+     */
+    public boolean isLazy() {
+        return (this.data == null && this.planeLoader != null);
+    }
+
     /**
      * Define the image data as float[nbRows][nbCols] ie [Y][X].
      * Note: no array copy is performed so do not modify the given array afterwards.
@@ -561,6 +589,7 @@ public final class FitsImage {
             throw new IllegalStateException("Empty data array !");
         }
         this.data = data;
+        this.planeLoader = null;
 
         // update nbRows / nbCols:
         final int length = data.length;
@@ -572,6 +601,26 @@ public final class FitsImage {
         setDataMax(Double.NaN);
     }
 
+    /**
+     * Define the loader reading the image data on demand (lazy cube)
+     * @param planeLoader loader reading the image plane
+     * @param planeIndex index of the image plane [1..n]
+     * @param nbRows number of rows
+     * @param nbCols number of columns
+     */
+    void setPlaneLoader(final FitsImagePlaneLoader planeLoader, final int planeIndex, final int nbRows, final int nbCols) {
+        this.data = null;
+        this.planeLoader = planeLoader;
+        this.planeIndex = planeIndex;
+
+        setNbRows(nbRows);
+        setNbCols(nbCols);
+
+        // reset data min/max:
+        setDataMin(Double.NaN);
+        setDataMax(Double.NaN);
+    }
+
     /**
      * Return true if the minimum and maximum value in data are defined
      * @return true if the minimum and maximum value in data are defined 
@@ -0,0 +1,1221 @@
+/* 
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools.image;
+
+import fr.jmmc.oitools.fits.FitsConstants;
+import fr.nom.tam.fits.BasicHDU;
+import fr.nom.tam.fits.BinaryTable;
+import fr.nom.tam.fits.BinaryTableHDU;
+import fr.nom.tam.fits.FitsException;
+import fr.nom.tam.fits.Header;
+import fr.nom.tam.fits.HeaderCard;
+import fr.nom.tam.fits.ImageData;
+import fr.nom.tam.fits.ImageHDU;
+import fr.nom.tam.image.QuantizeRandoms;
+import fr.nom.tam.image.TileDescriptor;
+import fr.nom.tam.image.TileLooper;
+import fr.nom.tam.util.ArrayFuncs;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.logging.Level;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * This class compresses and decompresses images stored as tile-compressed binary tables
+ * (FITS tiled image compression convention) using the RICE_1 or GZIP_1 algorithms.
+ *
+ * Floating-point images are quantized (SUBTRACTIVE_DITHER_1) using a quantization step derived
+ * from the noise of each tile (noise / quantizeLevel) or given as -quantizeLevel if negative;
+ * tiles that can not be quantized are compressed losslessly (GZIP_COMPRESSED_DATA column).
+ * Tiles are compressed and decompressed in parallel (fork-join common pool).
+ *
+ * @author bourgesl
+ */
+public final class FitsImageCompression implements FitsImageConstants {
+
+    /** Logger associated to image classes */
+    private final static java.util.logging.Logger logger = java.util.logging.Logger.getLogger(FitsImageCompression.class.getName());
+    /** default quantization level (noise / 4) */
+    public final static float DEFAULT_QUANTIZE_LEVEL = 4f;
+    /** default extension name for compressed images without EXTNAME */
+    private final static String DEFAULT_EXT_NAME = "COMPRESSED_IMAGE";
+    /** default tile size (pixels) */
+    private final static int DEFAULT_TILE_PIXELS = 64 * 1024;
+    /** minimum number of pixels to process tiles in parallel */
+    private final static int PARALLEL_THRESHOLD = 64 * 1024;
+    /** integer value of undefined (NaN) quantized pixels (cfitsio) */
+    private final static int NULL_VALUE = -2147483647;
+    /** integer value of zero quantized pixels (SUBTRACTIVE_DITHER_2) */
+    private final static int ZERO_VALUE = -2147483646;
+    /** number of reserved integer values for quantized pixels */
+    private final static int N_RESERVED_VALUES = 10;
+    /** noise estimate factor (median absolute second order difference to sigma) */
+    private final static double NOISE_FACTOR = 0.6052697;
+    /** seed of the random dithering sequence */
+    private final static int DITHER_SEED = 1;
+    /** structural keywords (not copied between image and compressed headers) */
+    private final static Set<String> STRUCTURAL_KEYWORDS = new HashSet<String>(32);
+    /** prefixes of indexed structural keywords (ie NAXISn) */
+    private final static String[] STRUCTURAL_PREFIXES = new String[]{
+        FitsConstants.KEYWORD_NAXIS, "TTYPE", "TFORM", "TUNIT", "TDIM", "TSCAL", "TZERO", "TNULL", "TDISP",
+        KEYWORD_ZNAXIS, KEYWORD_ZTILE, KEYWORD_ZNAME, KEYWORD_ZVAL
+    };
+
+    static {
+        STRUCTURAL_KEYWORDS.addAll(Arrays.asList(
+                "SIMPLE", "XTENSION", "BITPIX", FitsConstants.KEYWORD_NAXIS, "EXTEND", "PCOUNT", "GCOUNT",
+                "TFIELDS", "THEAP", "END", FitsConstants.KEYWORD_CHECKSUM, FitsConstants.KEYWORD_DATASUM,
+                KEYWORD_ZIMAGE, KEYWORD_ZCMPTYPE, KEYWORD_ZBITPIX, KEYWORD_ZNAXIS, KEYWORD_ZQUANTIZ,
+                KEYWORD_ZDITHER0, KEYWORD_ZBLANK, KEYWORD_ZSCALE, KEYWORD_ZZERO,
+                "ZSIMPLE", "ZEXTEND", "ZTENSION", "ZPCOUNT", "ZGCOUNT", "ZHECKSUM", "ZDATASUM", "ZMASKCMP"
+        ));
+    }
+
+    /* members */
+    /** compression algorithm (RICE_1 or GZIP_1) */
+    private final String type;
+    /** quantization level of floating-point images (0 means lossless) */
+    private final float quantizeLevel;
+    /** optional tile size (FITS axis order) */
+    private int[] tileSize = null;
+
+    /**
+     * Public constructor using the default quantization level
+     * @param type compression algorithm (RICE_1 or GZIP_1)
+     * @throws IllegalArgumentException if the compression algorithm is not supported
+     */
+    public FitsImageCompression(final String type) throws IllegalArgumentException {
+        this(type, DEFAULT_QUANTIZE_LEVEL);
+    }
+
+    /**
+     * Public constructor
+     * @param type compression algorithm (RICE_1 or GZIP_1)
+     * @param quantizeLevel quantization level of floating-point images: quantization step = noise / quantizeLevel
+     * if positive, -quantizeLevel if negative or 0 for lossless compression (GZIP_1 only)
+     * @throws IllegalArgumentException if the compression algorithm is not supported
+     */
+    public FitsImageCompression(final String type, final float quantizeLevel) throws IllegalArgumentException {
+        if (!ZCMPTYPE_RICE_1.equals(type) && !ZCMPTYPE_GZIP_1.equals(type)) {
+            throw new IllegalArgumentException("Unsupported compression algorithm: " + type);
+        }
+        if (Float.isNaN(quantizeLevel) || Float.isInfinite(quantizeLevel)) {
+            throw new IllegalArgumentException("Invalid quantization level: " + quantizeLevel);
+        }
+        this.type = type;
+        this.quantizeLevel = quantizeLevel;
+    }
+
+    /**
+     * Return the compression algorithm
+     * @return compression algorithm (RICE_1 or GZIP_1)
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Return the quantization level of floating-point images
+     * @return quantization level (0 means lossless)
+     */
+    public float getQuantizeLevel() {
+        return quantizeLevel;
+    }
+
+    /**
+     * Return the tile size
+     * @return tile size (FITS axis order) or null to use rows of about 64K pixels
+     */
+    public int[] getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * Define the tile size
+     * @param tileSize tile size (FITS axis order) or null to use rows of about 64K pixels
+     */
+    public void setTileSize(final int[] tileSize) {
+        this.tileSize = tileSize;
+    }
+
+    /**
+     * Return true if the given HDU is a tile-compressed image (ZIMAGE = T)
+     * @param hdu HDU to test
+     * @return true if the given HDU is a tile-compressed image
+     */
+    public static boolean isCompressedImage(final BasicHDU hdu) {
+        return (hdu instanceof BinaryTableHDU) && hdu.getHeader().getBooleanValue(KEYWORD_ZIMAGE, false);
+    }
+
+    /**
+     * Compress the given image HDU into a tile-compressed binary table HDU
+     * @param imgHdu image HDU (1 to 3 axes)
+     * @return binary table HDU
+     * @throws IllegalArgumentException if the image can not be compressed with this algorithm
+     * @throws FitsException if any FITS error occurred
+     */
+    public BinaryTableHDU compress(final ImageHDU imgHdu) throws IllegalArgumentException, FitsException {
+        final long start = System.nanoTime();
+
+        final int bitPix = imgHdu.getBitPix();
+        final int[] axes = imgHdu.getAxes();
+        final Object kernel = ((ImageData) imgHdu.getData()).getData();
+
+        if (axes == null || axes.length == 0 || kernel == null) {
+            throw new IllegalArgumentException("No image data to compress");
+        }
+        if (bitPix == BasicHDU.BITPIX_LONG) {
+            throw new IllegalArgumentException("Unsupported 64-bit integer image compression");
+        }
+        final boolean floating = (bitPix < 0);
+        final boolean quantize = floating && (quantizeLevel != 0f);
+        final boolean rice = ZCMPTYPE_RICE_1.equals(type);
+
+        if (floating && !quantize && rice) {
+            throw new IllegalArgumentException("Unsupported lossless RICE_1 compression of floating-point images");
+        }
+
+        // FITS axis order:
+        final int nAxis = axes.length;
+        final int[] naxis = new int[nAxis];
+        for (int i = 0; i < nAxis; i++) {
+            naxis[i] = axes[nAxis - 1 - i];
+        }
+        final int[] tile = getTileSize(naxis);
+        final List<TileDescriptor> tiles = getTiles(naxis, tile);
+        final int nTiles = tiles.size();
+
+        final Object flat = ArrayFuncs.flatten(kernel);
+        final int bytePix = (quantize) ? 4 : Math.abs(bitPix) / 8;
+
+        final byte[][] compressed = new byte[nTiles][];
+        final byte[][] gzipped = new byte[nTiles][];
+        final double[] zScale = (quantize) ? new double[nTiles] : null;
+        final double[] zZero = (quantize) ? new double[nTiles] : null;
+        final boolean[] nulls = new boolean[nTiles];
+
+        processTiles(tiles, naxis, new TileProcessor() {
+            @Override
+            void process(final int index, final TileDescriptor td) throws FitsException {
+                final int len = getLength(td.size);
+                final Object raw = ArrayFuncs.newInstance(ArrayFuncs.getBaseClass(flat), len);
+                copyTile(flat, naxis, td, raw, true);
+
+                byte[] data = null;
+                gzipped[index] = new byte[0];
+
+                if (!floating) {
+                    data = encode(toInts(raw, len), len, bytePix, rice);
+                } else if (!quantize) {
+                    data = gzip(toBytes(raw, len));
+                } else {
+                    final int[] pixels = new int[len];
+                    final double[] scaling = new double[2];
+
+                    if (quantize(toDoubles(raw, len), td.size[0], index, pixels, scaling, nulls)) {
+                        data = encode(pixels, len, bytePix, rice);
+                        zScale[index] = scaling[0];
+                        zZero[index] = scaling[1];
+                    } else {
+                        // lossless fallback:
+                        gzipped[index] = gzip(toBytes(raw, len));
+                    }
+                }
+                compressed[index] = (data != null) ? data : new byte[0];
+            }
+        });
+
+        boolean hasNull = false;
+        boolean hasGzip = false;
+        for (int i = 0; i < nTiles; i++) {
+            hasNull |= nulls[i];
+            hasGzip |= (gzipped[i].length != 0);
+        }
+
+        // create the binary table:
+        final List<Object> columns = new ArrayList<Object>(4);
+        final List<String> names = new ArrayList<String>(4);
+        columns.add(compressed);
+        names.add(COLUMN_COMPRESSED_DATA);
+        if (hasGzip) {
+            columns.add(gzipped);
+            names.add(COLUMN_GZIP_COMPRESSED_DATA);
+        }
+        if (quantize) {
+            columns.add(zScale);
+            names.add(KEYWORD_ZSCALE);
+            columns.add(zZero);
+            names.add(KEYWORD_ZZERO);
+        }
+        final boolean[] varying = new boolean[columns.size()];
+        varying[0] = true;
+        if (hasGzip) {
+            varying[1] = true;
+        }
+
+        final BinaryTable data = new BinaryTable(columns.toArray(), varying);
+        final Header header = BinaryTableHDU.manufactureHeader(data);
+        final BinaryTableHDU hdu = new BinaryTableHDU(header, data);
+
+        for (int i = 0; i < names.size(); i++) {
+            // note: the header marker is set after the TFORMn keyword:
+            hdu.setColumnName(i, names.get(i), null, null);
+        }
+
+        header.addValue(KEYWORD_ZIMAGE, true, "extension contains compressed image");
+        header.addValue(KEYWORD_ZCMPTYPE, type, "compression algorithm");
+        header.addValue(KEYWORD_ZBITPIX, bitPix, "data type of original image");
+        header.addValue(KEYWORD_ZNAXIS, nAxis, "dimension of original image");
+        for (int i = 0; i < nAxis; i++) {
+            header.addValue(KEYWORD_ZNAXIS + (i + 1), naxis[i], "length of original image axis");
+        }
+        for (int i = 0; i < nAxis; i++) {
+            header.addValue(KEYWORD_ZTILE + (i + 1), tile[i], "size of tiles to be compressed");
+        }
+        if (rice) {
+            header.addValue(KEYWORD_ZNAME + 1, "BLOCKSIZE", "compression block size");
+            header.addValue(KEYWORD_ZVAL + 1, RiceCodec.DEFAULT_BLOCK_SIZE, "pixels per block");
+            header.addValue(KEYWORD_ZNAME + 2, "BYTEPIX", "bytes per pixel (1, 2, 4, or 8)");
+            header.addValue(KEYWORD_ZVAL + 2, bytePix, "bytes per pixel (1, 2, 4, or 8)");
+        }
+        if (quantize) {
+            header.addValue(KEYWORD_ZQUANTIZ, ZQUANTIZ_SUBTRACTIVE_DITHER_1, "Pixel Quantization Algorithm");
+            header.addValue(KEYWORD_ZDITHER0, DITHER_SEED, "dithering offset when quantizing floats");
+            if (hasNull) {
+                header.addValue(KEYWORD_ZBLANK, NULL_VALUE, "null value in the compressed integer array");
+            }
+        }
+        // copy other keywords:
+        final Header imgHeader = imgHdu.getHeader();
+        final String extName = imgHeader.getTrimmedStringValue(FitsConstants.KEYWORD_EXT_NAME);
+        header.addValue(FitsConstants.KEYWORD_EXT_NAME, (extName != null) ? extName : DEFAULT_EXT_NAME, "name of this HDU");
+
+        copyHeaderCards(imgHeader, header, true);
+
+        if (logger.isLoggable(Level.FINE)) {
+            logger.log(Level.FINE, "compress[{0}]: {1} tiles - duration = {2} ms.",
+                    new Object[]{type, nTiles, 1e-6d * (System.nanoTime() - start)});
+        }
+        return hdu;
+    }
+
+    /**
+     * Decompress the given tile-compressed binary table HDU into an image HDU
+     * @param hdu tile-compressed binary table HDU
+     * @return image HDU
+     * @throws FitsException if the compressed image is invalid or not supported
+     */
+    public static ImageHDU decompress(final BinaryTableHDU hdu) throws FitsException {
+        final long start = System.nanoTime();
+
+        final Header header = hdu.getHeader();
+        if (!isCompressedImage(hdu)) {
+            throw new FitsException("Not a compressed image");
+        }
+
+        final String cmpType = header.getTrimmedStringValue(KEYWORD_ZCMPTYPE);
+        final boolean rice;
+        if (ZCMPTYPE_RICE_1.equals(cmpType) || ZCMPTYPE_RICE_ONE.equals(cmpType)) {
+            rice = true;
+        } else if (ZCMPTYPE_GZIP_1.equals(cmpType)) {
+            rice = false;
+        } else {
+            throw new FitsException("Unsupported compression algorithm: " + cmpType);
+        }
+
+        final int bitPix = header.getIntValue(KEYWORD_ZBITPIX, 0);
+        switch (bitPix) {
+            case BasicHDU.BITPIX_BYTE:
+            case BasicHDU.BITPIX_SHORT:
+            case BasicHDU.BITPIX_INT:
+            case BasicHDU.BITPIX_FLOAT:
+            case BasicHDU.BITPIX_DOUBLE:
+                break;
+            default:
+                throw new FitsException("Unsupported " + KEYWORD_ZBITPIX + " value: " + bitPix);
+        }
+
+        final int nAxis = header.getIntValue(KEYWORD_ZNAXIS, 0);
+        if (nAxis <= 0 || nAxis > 999) {
+            throw new FitsException("Invalid " + KEYWORD_ZNAXIS + " value: " + nAxis);
+        }
+        final int[] naxis = new int[nAxis];
+        final int[] tile = new int[nAxis];
+        long size = 1L;
+        for (int i = 0; i < nAxis; i++) {
+            naxis[i] = header.getIntValue(KEYWORD_ZNAXIS + (i + 1), 0);
+            if (naxis[i] <= 0) {
+                throw new FitsException("Invalid " + KEYWORD_ZNAXIS + (i + 1) + " value: " + naxis[i]);
+            }
+            tile[i] = Math.min(naxis[i], Math.max(1, header.getIntValue(KEYWORD_ZTILE + (i + 1), (i == 0) ? naxis[0] : 1)));
+            size *= naxis[i];
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new FitsException("Unsupported image size: " + size + " pixels");
+        }
+
+        // compression parameters:
+        int riceBlock = RiceCodec.DEFAULT_BLOCK_SIZE;
+        int ricePix = 4;
+        for (int i = 1; header.containsKey(KEYWORD_ZNAME + i); i++) {
+            final String name = header.getTrimmedStringValue(KEYWORD_ZNAME + i);
+            if ("BLOCKSIZE".equals(name)) {
+                riceBlock = header.getIntValue(KEYWORD_ZVAL + i, riceBlock);
+            } else if ("BYTEPIX".equals(name)) {
+                ricePix = header.getIntValue(KEYWORD_ZVAL + i, ricePix);
+            }
+        }
+        if (riceBlock <= 0) {
+            throw new FitsException("Invalid BLOCKSIZE value: " + riceBlock);
+        }
+        final int blockSize = riceBlock;
+        final String quantiz = header.getTrimmedStringValue(KEYWORD_ZQUANTIZ);
+        final boolean dither = ZQUANTIZ_SUBTRACTIVE_DITHER_1.equals(quantiz) || ZQUANTIZ_SUBTRACTIVE_DITHER_2.equals(quantiz);
+        final boolean keepZero = ZQUANTIZ_SUBTRACTIVE_DITHER_2.equals(quantiz);
+        final int ditherSeed = header.getIntValue(KEYWORD_ZDITHER0, DITHER_SEED);
+        final boolean hasBlank = header.containsKey(KEYWORD_ZBLANK);
+        final int blank = header.getIntValue(KEYWORD_ZBLANK, NULL_VALUE);
+
+        // columns:
+        final Object[] dataCol = getVaryingColumn(hdu, COLUMN_COMPRESSED_DATA);
+        final Object[] gzipCol = getVaryingColumn(hdu, COLUMN_GZIP_COMPRESSED_DATA);
+        final double[] zScale = getScaling(hdu, KEYWORD_ZSCALE);
+        final double[] zZero = getScaling(hdu, KEYWORD_ZZERO);
+
+        if (dataCol == null && gzipCol == null) {
+            throw new FitsException("Missing " + COLUMN_COMPRESSED_DATA + " column");
+        }
+        final boolean quantized = (bitPix < 0) && (zScale != null) && (zZero != null);
+        final int bytePix = (rice) ? ricePix : ((quantized) ? 4 : Math.abs(bitPix) / 8);
+
+        final List<TileDescriptor> tiles = getTiles(naxis, tile);
+        final int nTiles = tiles.size();
+        if (hdu.getNRows() != nTiles) {
+            throw new FitsException("Invalid number of tiles: " + hdu.getNRows() + " rows for " + nTiles + " tiles");
+        }
+
+        final Object flat = ArrayFuncs.newInstance(getBaseClass(bitPix), (int) size);
+
+        processTiles(tiles, naxis, new TileProcessor() {
+            @Override
+            void process(final int index, final TileDescriptor td) throws FitsException {
+                final int len = getLength(td.size);
+                final byte[] data = getTileData(dataCol, index);
+                final Object raw;
+
+                if (data != null) {
+                    if (!quantized && bitPix < 0) {
+                        // lossless floating-point tile:
+                        raw = fromBytes(gunzip(data), bitPix, len);
+                    } else {
+                        final int[] pixels = decode(data, len, bytePix, rice, blockSize);
+
+                        if (quantized) {
+                            raw = dequantize(pixels, bitPix, index, zScale[index], zZero[index],
+                                    dither, keepZero, ditherSeed, hasBlank, blank);
+                        } else {
+                            raw = fromInts(pixels, bitPix);
+                        }
+                    }
+                } else {
+                    final byte[] gzipData = getTileData(gzipCol, index);
+                    if (gzipData == null) {
+                        throw new FitsException("Missing data for the tile " + (index + 1));
+                    }
+                    // lossless tile:
+                    raw = fromBytes(gunzip(gzipData), bitPix, len);
+                }
+                copyTile(flat, naxis, td, raw, false);
+            }
+        });
+
+        // Java dimensions (without degenerated axes like FitsImageLoader):
+        final List<Integer> dims = new ArrayList<Integer>(nAxis);
+        for (int i = nAxis - 1; i >= 0; i--) {
+            if (naxis[i] > 1) {
+                dims.add(Integer.valueOf(naxis[i]));
+            }
+        }
+        final Object array;
+        if (dims.size() > 1) {
+            final int[] dimens = new int[dims.size()];
+            for (int i = 0; i < dimens.length; i++) {
+                dimens[i] = dims.get(i).intValue();
+            }
+            array = ArrayFuncs.curl(flat, dimens);
+        } else {
+            array = flat;
+        }
+
+        final ImageData imgData = new ImageData(array);
+        final Header imgHeader = ImageHDU.manufactureHeader(imgData);
+
+        copyHeaderCards(header, imgHeader, false);
+
+        if (logger.isLoggable(Level.FINE)) {
+            logger.log(Level.FINE, "decompress[{0}]: {1} tiles - duration = {2} ms.",
+                    new Object[]{cmpType, nTiles, 1e-6d * (System.nanoTime() - start)});
+        }
+        return new ImageHDU(imgHeader, imgData);
+    }
+
+    /**
+     * Return the tile size (FITS axis order) for the given image
+     * @param naxis image axis sizes (FITS axis order)
+     * @return tile size (FITS axis order)
+     */
+    private int[] getTileSize(final int[] naxis) {
+        final int[] tile = new int[naxis.length];
+        for (int i = 0; i < naxis.length; i++) {
+            if (tileSize != null && i < tileSize.length) {
+                tile[i] = tileSize[i];
+            } else if (i == 0) {
+                tile[i] = naxis[0];
+            } else if (i == 1) {
+                // rows of about 64K pixels:
+                tile[i] = DEFAULT_TILE_PIXELS / naxis[0];
+            } else {
+                tile[i] = 1;
+            }
+            tile[i] = Math.min(naxis[i], Math.max(1, tile[i]));
+        }
+        return tile;
+    }
+
+    /**
+     * Return the tiles of the given image in FITS order
+     * @param naxis image axis sizes (FITS axis order)
+     * @param tile tile size (FITS axis order)
+     * @return tile descriptors
+     */
+    private static List<TileDescriptor> getTiles(final int[] naxis, final int[] tile) {
+        final List<TileDescriptor> tiles = new ArrayList<TileDescriptor>();
+        for (TileDescriptor td : new TileLooper(naxis, tile)) {
+            tiles.add(td);
+        }
+        return tiles;
+    }
+
+    /**
+     * Process the given tiles in parallel if the image is large enough
+     * @param tiles tile descriptors
+     * @param naxis image axis sizes (FITS axis order)
+     * @param processor tile processor
+     * @throws FitsException if any tile failed
+     */
+    private static void processTiles(final List<TileDescriptor> tiles, final int[] naxis,
+                                     final TileProcessor processor) throws FitsException {
+        final int nTiles = tiles.size();
+        final long size = getLength(naxis);
+
+        if ((nTiles > 1) && (size >= PARALLEL_THRESHOLD)) {
+            final int nTasks = 4 * ForkJoinPool.getCommonPoolParallelism();
+            final int tilesPerTask = Math.max(1, (nTiles + nTasks - 1) / nTasks);
+            try {
+                ForkJoinPool.commonPool().invoke(new TileTask(tiles, processor, 0, nTiles, tilesPerTask));
+            } catch (TileException te) {
+                throw te.getCause();
+            }
+        } else {
+            for (int i = 0; i < nTiles; i++) {
+                processor.process(i, tiles.get(i));
+            }
+        }
+    }
+
+    /**
+     * Return the number of pixels of the given dimensions
+     * @param size dimensions
+     * @return number of pixels
+     */
+    private static int getLength(final int[] size) {
+        int len = 1;
+        for (int i = 0; i < size.length; i++) {
+            len *= size[i];
+        }
+        return len;
+    }
+
+    /**
+     * Copy the pixels of the given tile between the image and the tile arrays
+     * @param flat image array (1D, FITS order)
+     * @param naxis image axis sizes (FITS axis order)
+     * @param td tile descriptor
+     * @param tileData tile array (1D, FITS order)
+     * @param toTile true to copy image pixels into the tile; false to copy tile pixels into the image
+     */
+    private static void copyTile(final Object flat, final int[] naxis, final TileDescriptor td,
+                                 final Object tileData, final boolean toTile) {
+        final int nAxis = naxis.length;
+        final int rowLen = td.size[0];
+        final int nRows = getLength(td.size) / rowLen;
+        final int[] idx = new int[nAxis];
+
+        for (int r = 0, t = 0; r < nRows; r++, t += rowLen) {
+            int offset = td.corner[0];
+            for (int d = 1, stride = 1; d < nAxis; d++) {
+                stride *= naxis[d - 1];
+                offset += (td.corner[d] + idx[d]) * stride;
+            }
+            if (toTile) {
+                System.arraycopy(flat, offset, tileData, t, rowLen);
+            } else {
+                System.arraycopy(tileData, t, flat, offset, rowLen);
+            }
+            // next row:
+            for (int d = 1; d < nAxis; d++) {
+                if (++idx[d] < td.size[d]) {
+                    break;
+                }
+                idx[d] = 0;
+            }
+        }
+    }
+
+    /**
+     * Quantize the given floating-point tile (SUBTRACTIVE_DITHER_1)
+     * @param values tile values
+     * @param rowLen tile row length
+     * @param index tile index
+     * @param pixels output quantized pixels
+     * @param scaling output scaling: [ZSCALE, ZZERO]
+     * @param nulls flags set to true if the tile contains NaN values
+     * @return true if quantized; false if the tile must be compressed losslessly
+     */
+    private boolean quantize(final double[] values, final int rowLen, final int index,
+                             final int[] pixels, final double[] scaling, final boolean[] nulls) {
+        final int len = values.length;
+
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        boolean hasNull = false;
+        for (int i = 0; i < len; i++) {
+            final double v = values[i];
+            if (Double.isNaN(v)) {
+                hasNull = true;
+            } else {
+                if (v < min) {
+                    min = v;
+                }
+                if (v > max) {
+                    max = v;
+                }
+            }
+        }
+        if (min > max) {
+            // only NaN values:
+            return false;
+        }
+
+        final double delta = (quantizeLevel < 0f) ? -quantizeLevel : estimateNoise(values, rowLen) / quantizeLevel;
+
+        if (!(delta > 0.0) || Double.isInfinite(delta)
+                || ((max - min) / delta > 2.0 * Integer.MAX_VALUE - N_RESERVED_VALUES)
+                || Double.isInfinite(max - min)) {
+            return false;
+        }
+        // center the integer range around 0:
+        final double zero = Math.floor((0.5 * (min + max)) / delta + 0.5) * delta;
+
+        final QuantizeRandoms randoms = new QuantizeRandoms();
+        randoms.computeOffset(index + DITHER_SEED - 1);
+
+        for (int i = 0; i < len; i++) {
+            final double r = randoms.next();
+            final double v = values[i];
+            if (Double.isNaN(v)) {
+                pixels[i] = NULL_VALUE;
+            } else {
+                final double q = (v - zero) / delta + r;
+                pixels[i] = (int) ((q >= 0.0) ? (q + 0.5) : (q - 0.5));
+            }
+        }
+        scaling[0] = delta;
+        scaling[1] = zero;
+        nulls[index] = hasNull;
+        return true;
+    }
+
+    /**
+     * Estimate the noise of the given tile as the median of the row medians of the absolute second
+     * order differences |2 x[i] - x[i-2] - x[i+2]| (cfitsio noise3) ignoring NaN values
+     * @param values tile values
+     * @param rowLen tile row length
+     * @return noise estimate or 0 if undefined
+     */
+    private static double estimateNoise(final double[] values, int rowLen) {
+        final int len = values.length;
+        if (rowLen < 9) {
+            // too short rows: use the tile as a single row
+            rowLen = len;
+        }
+        final int nRows = len / rowLen;
+        final double[] medians = new double[nRows];
+        final double[] row = new double[rowLen];
+        final double[] diffs = new double[rowLen];
+        int nMedians = 0;
+
+        for (int r = 0, offset = 0; r < nRows; r++, offset += rowLen) {
+            int n = 0;
+            for (int i = offset, end = offset + rowLen; i < end; i++) {
+                if (!Double.isNaN(values[i])) {
+                    row[n++] = values[i];
+                }
+            }
+            if (n >= 5) {
+                int nd = 0;
+                for (int i = 2; i < n - 2; i++) {
+                    diffs[nd++] = Math.abs(2.0 * row[i] - row[i - 2] - row[i + 2]);
+                }
+                medians[nMedians++] = median(diffs, nd);
+            }
+        }
+        return (nMedians != 0) ? NOISE_FACTOR * median(medians, nMedians) : 0.0;
+    }
+
+    /**
+     * Return the median of the first values of the given array (sorted in place)
+     * @param values values
+     * @param n number of values
+     * @return median
+     */
+    private static double median(final double[] values, final int n) {
+        Arrays.sort(values, 0, n);
+        final int mid = n / 2;
+        return ((n & 1) != 0) ? values[mid] : 0.5 * (values[mid - 1] + values[mid]);
+    }
+
+    /**
+     * Restore the floating-point values of the given quantized tile
+     * @param pixels quantized pixels
+     * @param bitPix image BITPIX (-32 or -64)
+     * @param index tile index
+     * @param scale quantization step (ZSCALE)
+     * @param zero zero point (ZZERO)
+     * @param dither true if subtractive dithering was used
+     * @param keepZero true if zero values are preserved (SUBTRACTIVE_DITHER_2)
+     * @param ditherSeed seed of the random dithering sequence (ZDITHER0)
+     * @param hasBlank true if undefined pixels (ZBLANK) must be restored as NaN
+     * @param blank integer value of undefined pixels
+     * @return float[] or double[] tile array
+     */
+    private static Object dequantize(final int[] pixels, final int bitPix, final int index,
+                                     final double scale, final double zero, final boolean dither, final boolean keepZero,
+                                     final int ditherSeed, final boolean hasBlank, final int blank) {
+        final int len = pixels.length;
+        final double[] values = new double[len];
+
+        QuantizeRandoms randoms = null;
+        if (dither) {
+            randoms = new QuantizeRandoms();
+            randoms.computeOffset(index + ditherSeed - 1);
+        }
+        for (int i = 0; i < len; i++) {
+            final double r = (dither) ? randoms.next() : 0.0;
+            final int q = pixels[i];
+            if (hasBlank && q == blank) {
+                values[i] = Double.NaN;
+            } else if (keepZero && q == ZERO_VALUE) {
+                values[i] = 0.0;
+            } else {
+                values[i] = (q - r) * scale + zero;
+            }
+        }
+        if (bitPix == BasicHDU.BITPIX_DOUBLE) {
+            return values;
+        }
+        final float[] fValues = new float[len];
+        for (int i = 0; i < len; i++) {
+            fValues[i] = (float) values[i];
+        }
+        return fValues;
+    }
+
+    /**
+     * Compress the given integer pixels
+     * @param pixels pixels
+     * @param len number of pixels
+     * @param bytePix number of bytes per pixel
+     * @param rice true to use RICE_1, false to use GZIP_1
+     * @return compressed bytes
+     * @throws FitsException if any IO failure occurred
+     */
+    private static byte[] encode(final int[] pixels, final int len, final int bytePix, final boolean rice) throws FitsException {
+        if (rice) {
+            return RiceCodec.compress(pixels, len, RiceCodec.DEFAULT_BLOCK_SIZE, bytePix);
+        }
+        final ByteBuffer bb = ByteBuffer.allocate(len * bytePix);
+        for (int i = 0; i < len; i++) {
+            switch (bytePix) {
+                case 1:
+                    bb.put((byte) pixels[i]);
+                    break;
+                case 2:
+                    bb.putShort((short) pixels[i]);
+                    break;
+                default:
+                    bb.putInt(pixels[i]);
+            }
+        }
+        return gzip(bb.array());
+    }
+
+    /**
+     * Decompress the given integer pixels
+     * @param data compressed bytes
+     * @param len number of pixels
+     * @param bytePix number of bytes per pixel
+     * @param rice true to use RICE_1, false to use GZIP_1
+     * @param blockSize RICE_1 block size
+     * @return pixels
+     * @throws FitsException if the compressed data are invalid
+     */
+    private static int[] decode(final byte[] data, final int len, final int bytePix, final boolean rice,
+                                final int blockSize) throws FitsException {
+        final int[] pixels = new int[len];
+        if (rice) {
+            RiceCodec.decompress(data, pixels, len, blockSize, bytePix);
+        } else {
+            final ByteBuffer bb = wrap(gunzip(data), len * bytePix);
+            for (int i = 0; i < len; i++) {
+                switch (bytePix) {
+                    case 1:
+                        pixels[i] = bb.get() & 0xFF;
+                        break;
+                    case 2:
+                        pixels[i] = bb.getShort();
+                        break;
+                    case 4:
+                        pixels[i] = bb.getInt();
+                        break;
+                    default:
+                        throw new FitsException("Unsupported number of bytes per pixel: " + bytePix);
+                }
+            }
+        }
+        return pixels;
+    }
+
+    /**
+     * Return the given byte array as a big-endian buffer
+     * @param data bytes
+     * @param expected expected number of bytes
+     * @return byte buffer
+     * @throws FitsException if the tile data are too short
+     */
+    private static ByteBuffer wrap(final byte[] data, final int expected) throws FitsException {
+        if (data.length < expected) {
+            throw new FitsException("Truncated tile data: " + data.length + " bytes < " + expected + " bytes");
+        }
+        return ByteBuffer.wrap(data);
+    }
+
+    /**
+     * Convert the given integer tile array (byte, short or int) to int[]
+     * @param raw tile array
+     * @param len number of pixels
+     * @return int[] (unsigned bytes)
+     */
+    private static int[] toInts(final Object raw, final int len) {
+        if (raw instanceof int[]) {
+            return (int[]) raw;
+        }
+        final int[] pixels = new int[len];
+        if (raw instanceof short[]) {
+            final short[] s = (short[]) raw;
+            for (int i = 0; i < len; i++) {
+                pixels[i] = s[i];
+            }
+        } else {
+            final byte[] b = (byte[]) raw;
+            for (int i = 0; i < len; i++) {
+                pixels[i] = b[i] & 0xFF;
+            }
+        }
+        return pixels;
+    }
+
+    /**
+     * Convert the given integer pixels to the array type of the given BITPIX
+     * @param pixels pixels
+     * @param bitPix image BITPIX (8, 16 or 32)
+     * @return byte[], short[] or int[] tile array
+     */
+    private static Object fromInts(final int[] pixels, final int bitPix) {
+        final int len = pixels.length;
+        switch (bitPix) {
+            case BasicHDU.BITPIX_BYTE:
+                final byte[] b = new byte[len];
+                for (int i = 0; i < len; i++) {
+                    b[i] = (byte) pixels[i];
+                }
+                return b;
+            case BasicHDU.BITPIX_SHORT:
+                final short[] s = new short[len];
+                for (int i = 0; i < len; i++) {
+                    s[i] = (short) pixels[i];
+                }
+                return s;
+            default:
+                return pixels;
+        }
+    }
+
+    /**
+     * Convert the given floating-point tile array (float or double) to double[]
+     * @param raw tile array
+     * @param len number of pixels
+     * @return double[]
+     */
+    private static double[] toDoubles(final Object raw, final int len) {
+        if (raw instanceof double[]) {
+            return (double[]) raw;
+        }
+        final float[] f = (float[]) raw;
+        final double[] values = new double[len];
+        for (int i = 0; i < len; i++) {
+            values[i] = f[i];
+        }
+        return values;
+    }
+
+    /**
+     * Convert the given tile array to big-endian bytes
+     * @param raw tile array (byte, short, int, float or double)
+     * @param len number of pixels
+     * @return bytes
+     */
+    private static byte[] toBytes(final Object raw, final int len) {
+        if (raw instanceof byte[]) {
+            return (byte[]) raw;
+        }
+        final ByteBuffer bb = ByteBuffer.allocate(len * ArrayFuncs.getBaseLength(raw));
+        if (raw instanceof short[]) {
+            bb.asShortBuffer().put((short[]) raw);
+        } else if (raw instanceof int[]) {
+            bb.asIntBuffer().put((int[]) raw);
+        } else if (raw instanceof float[]) {
+            bb.asFloatBuffer().put((float[]) raw);
+        } else {
+            bb.asDoubleBuffer().put((double[]) raw);
+        }
+        return bb.array();
+    }
+
+    /**
+     * Convert the given big-endian bytes to the array type of the given BITPIX
+     * @param data bytes
+     * @param bitPix image BITPIX
+     * @param len number of pixels
+     * @return tile array
+     * @throws FitsException if the tile data are too short
+     */
+    private static Object fromBytes(final byte[] data, final int bitPix, final int len) throws FitsException {
+        final ByteBuffer bb = wrap(data, len * (Math.abs(bitPix) / 8));
+        final Object raw = ArrayFuncs.newInstance(getBaseClass(bitPix), len);
+        switch (bitPix) {
+            case BasicHDU.BITPIX_BYTE:
+                bb.get((byte[]) raw);
+                break;
+            case BasicHDU.BITPIX_SHORT:
+                bb.asShortBuffer().get((short[]) raw);
+                break;
+            case BasicHDU.BITPIX_INT:
+                bb.asIntBuffer().get((int[]) raw);
+                break;
+            case BasicHDU.BITPIX_FLOAT:
+                bb.asFloatBuffer().get((float[]) raw);
+                break;
+            default:
+                bb.asDoubleBuffer().get((double[]) raw);
+        }
+        return raw;
+    }
+
+    /**
+     * Return the array base class of the given BITPIX
+     * @param bitPix BITPIX (8, 16, 32, -32 or -64)
+     * @return array base class
+     */
+    private static Class<?> getBaseClass(final int bitPix) {
+        switch (bitPix) {
+            case BasicHDU.BITPIX_BYTE:
+                return byte.class;
+            case BasicHDU.BITPIX_SHORT:
+                return short.class;
+            case BasicHDU.BITPIX_INT:
+                return int.class;
+            case BasicHDU.BITPIX_FLOAT:
+                return float.class;
+            default:
+                return double.class;
+        }
+    }
+
+    /**
+     * GZIP the given bytes
+     * @param data bytes
+     * @return compressed bytes
+     * @throws FitsException if any IO failure occurred
+     */
+    private static byte[] gzip(final byte[] data) throws FitsException {
+        try {
+            final ByteArrayOutputStream bos = new ByteArrayOutputStream(data.length / 2 + 64);
+            final GZIPOutputStream out = new GZIPOutputStream(bos, 8192);
+            out.write(data);
+            out.close();
+            return bos.toByteArray();
+        } catch (IOException ioe) {
+            throw new FitsException("GZIP compression failure: " + ioe.getMessage());
+        }
+    }
+
+    /**
+     * GUNZIP the given bytes
+     * @param data compressed bytes
+     * @return bytes
+     * @throws FitsException if the compressed data are invalid
+     */
+    private static byte[] gunzip(final byte[] data) throws FitsException {
+        try {
+            final InputStream in = new GZIPInputStream(new ByteArrayInputStream(data), 8192);
+            final ByteArrayOutputStream bos = new ByteArrayOutputStream(data.length * 4);
+            final byte[] buffer = new byte[8192];
+            try {
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    bos.write(buffer, 0, n);
+                }
+            } finally {
+                in.close();
+            }
+            return bos.toByteArray();
+        } catch (IOException ioe) {
+            throw new FitsException("GZIP decompression failure: " + ioe.getMessage());
+        }
+    }
+
+    /**
+     * Return the values of the given variable length column
+     * @param hdu binary table HDU
+     * @param name column name
+     * @return column values (one array per row) or null if missing
+     * @throws FitsException if the column is not a byte column
+     */
+    private static Object[] getVaryingColumn(final BinaryTableHDU hdu, final String name) throws FitsException {
+        final int idx = hdu.findColumn(name);
+        if (idx == -1) {
+            return null;
+        }
+        final Object values = hdu.getColumn(idx);
+        if (!(values instanceof byte[][])) {
+            throw new FitsException("Unsupported format for the column " + name + ": " + hdu.getColumnFormat(idx));
+        }
+        return (Object[]) values;
+    }
+
+    /**
+     * Return the data of the given tile
+     * @param column variable length column values or null
+     * @param index tile index
+     * @return tile bytes or null if missing or empty
+     */
+    private static byte[] getTileData(final Object[] column, final int index) {
+        if (column != null) {
+            final byte[] data = (byte[]) column[index];
+            if (data != null && data.length != 0) {
+                return data;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Return the per-tile scaling values from the given column or keyword
+     * @param hdu binary table HDU
+     * @param name column or keyword name (ZSCALE or ZZERO)
+     * @return scaling values per tile or null if undefined
+     * @throws FitsException if any FITS error occurred
+     */
+    private static double[] getScaling(final BinaryTableHDU hdu, final String name) throws FitsException {
+        final int nRows = hdu.getNRows();
+        final int idx = hdu.findColumn(name);
+        if (idx != -1) {
+            final Object values = ArrayFuncs.flatten(hdu.getColumn(idx));
+            if (values instanceof double[]) {
+                return (double[]) values;
+            }
+            if (values instanceof float[]) {
+                final float[] f = (float[]) values;
+                final double[] scaling = new double[nRows];
+                for (int i = 0; i < nRows; i++) {
+                    scaling[i] = f[i];
+                }
+                return scaling;
+            }
+            throw new FitsException("Unsupported format for the column " + name + ": " + hdu.getColumnFormat(idx));
+        }
+        final Header header = hdu.getHeader();
+        if (header.containsKey(name)) {
+            final double[] scaling = new double[nRows];
+            Arrays.fill(scaling, header.getDoubleValue(name));
+            return scaling;
+        }
+        return null;
+    }
+
+    /**
+     * Copy the non structural header cards from the source header to the destination header
+     * @param src source header
+     * @param dest destination header
+     * @param compress true if the destination is a compressed image header
+     */
+    private static void copyHeaderCards(final Header src, final Header dest, final boolean compress) {
+        HeaderCard card;
+        String key;
+        for (Iterator<?> it = src.iterator(); it.hasNext();) {
+            card = (HeaderCard) it.next();
+            key = card.getKey();
+
+            if (FitsConstants.KEYWORD_EXT_NAME.equals(key)) {
+                // EXTNAME is set once in the compressed header:
+                if (compress || DEFAULT_EXT_NAME.equals(src.getTrimmedStringValue(key))) {
+                    continue;
+                }
+            } else if (isStructuralKeyword(key)) {
+                continue;
+            }
+            dest.addLine(card);
+        }
+    }
+
+    /**
+     * Return true if the given keyword describes the HDU structure or its compression
+     * @param key keyword name
+     * @return true if the given keyword describes the HDU structure or its compression
+     */
+    private static boolean isStructuralKeyword(final String key) {
+        if (key == null || STRUCTURAL_KEYWORDS.contains(key)) {
+            return true;
+        }
+        for (String prefix : STRUCTURAL_PREFIXES) {
+            if (key.length() > prefix.length() && key.startsWith(prefix)) {
+                boolean digits = true;
+                for (int i = prefix.length(); i < key.length(); i++) {
+                    if (!Character.isDigit(key.charAt(i))) {
+                        digits = false;
+                        break;
+                    }
+                }
+                if (digits) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tile processor
+     */
+    private static abstract class TileProcessor {
+
+        /**
+         * Process the given tile
+         * @param index tile index
+         * @param td tile descriptor
+         * @throws FitsException if any FITS error occurred
+         */
+        abstract void process(final int index, final TileDescriptor td) throws FitsException;
+    }
+
+    /**
+     * Fork-join task processing a range of tiles
+     */
+    private final static class TileTask extends RecursiveAction {
+
+        /** default serial UID for Serializable interface */
+        private static final long serialVersionUID = 1L;
+        /* members */
+        private final List<TileDescriptor> tiles;
+        private final TileProcessor processor;
+        private final int fromTile;
+        private final int toTile;
+        private final int tilesPerTask;
+
+        TileTask(final List<TileDescriptor> tiles, final TileProcessor processor,
+                 final int fromTile, final int toTile, final int tilesPerTask) {
+            this.tiles = tiles;
+            this.processor = processor;
+            this.fromTile = fromTile;
+            this.toTile = toTile;
+            this.tilesPerTask = tilesPerTask;
+        }
+
+        @Override
+        protected void compute() {
+            if (toTile - fromTile <= tilesPerTask) {
+                try {
+                    for (int i = fromTile; i < toTile; i++) {
+                        processor.process(i, tiles.get(i));
+                    }
+                } catch (FitsException fe) {
+                    throw new TileException(fe);
+                }
+            } else {
+                final int mid = (fromTile + toTile) >>> 1;
+                invokeAll(
+                        new TileTask(tiles, processor, fromTile, mid, tilesPerTask),
+                        new TileTask(tiles, processor, mid, toTile, tilesPerTask)
+                );
+            }
+        }
+    }
+
+    /**
+     * Unchecked exception wrapping any FITS failure in a fork-join task
+     */
+    private final static class TileException extends RuntimeException {
+
+        /** default serial UID for Serializable interface */
+        private static final long serialVersionUID = 1L;
+
+        TileException(final FitsException fe) {
+            super(fe);
+        }
+
+        @Override
+        public synchronized FitsException getCause() {
+            return (FitsException) super.getCause();
+        }
+    }
+}
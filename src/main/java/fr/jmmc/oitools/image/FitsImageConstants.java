@@ -53,6 +53,48 @@ public interface FitsImageConstants {
     /** CROTA2 keyword = angle between the North and the second axis of the image counted positive to the East */
     public final static String KEYWORD_CROTA2 = "CROTA2";
 
+    /* Tiled image compression convention */
+    /** ZIMAGE keyword = true if the binary table extension contains a compressed image */
+    public final static String KEYWORD_ZIMAGE = "ZIMAGE";
+    /** ZCMPTYPE keyword = name of the compression algorithm */
+    public final static String KEYWORD_ZCMPTYPE = "ZCMPTYPE";
+    /** ZBITPIX keyword = BITPIX value of the uncompressed image */
+    public final static String KEYWORD_ZBITPIX = "ZBITPIX";
+    /** ZNAXIS keyword = NAXIS value of the uncompressed image (ZNAXISn for axis sizes) */
+    public final static String KEYWORD_ZNAXIS = "ZNAXIS";
+    /** ZTILEn keyword prefix = size of the tiles along the axis n */
+    public final static String KEYWORD_ZTILE = "ZTILE";
+    /** ZNAMEi keyword prefix = name of the compression parameter i */
+    public final static String KEYWORD_ZNAME = "ZNAME";
+    /** ZVALi keyword prefix = value of the compression parameter i */
+    public final static String KEYWORD_ZVAL = "ZVAL";
+    /** ZQUANTIZ keyword = quantization method of floating-point images */
+    public final static String KEYWORD_ZQUANTIZ = "ZQUANTIZ";
+    /** ZDITHER0 keyword = seed of the random dithering sequence */
+    public final static String KEYWORD_ZDITHER0 = "ZDITHER0";
+    /** ZBLANK keyword = integer value of undefined (NaN) quantized pixels */
+    public final static String KEYWORD_ZBLANK = "ZBLANK";
+    /** ZSCALE keyword or column = linear factor of quantized pixels */
+    public final static String KEYWORD_ZSCALE = "ZSCALE";
+    /** ZZERO keyword or column = zero point of quantized pixels */
+    public final static String KEYWORD_ZZERO = "ZZERO";
+    /** COMPRESSED_DATA column = compressed tile data */
+    public final static String COLUMN_COMPRESSED_DATA = "COMPRESSED_DATA";
+    /** GZIP_COMPRESSED_DATA column = losslessly compressed tile data (not quantized) */
+    public final static String COLUMN_GZIP_COMPRESSED_DATA = "GZIP_COMPRESSED_DATA";
+    /** RICE_1 compression algorithm */
+    public final static String ZCMPTYPE_RICE_1 = "RICE_1";
+    /** RICE_ONE compression algorithm (alias of RICE_1) */
+    public final static String ZCMPTYPE_RICE_ONE = "RICE_ONE";
+    /** GZIP_1 compression algorithm */
+    public final static String ZCMPTYPE_GZIP_1 = "GZIP_1";
+    /** NO_DITHER quantization method */
+    public final static String ZQUANTIZ_NO_DITHER = "NO_DITHER";
+    /** SUBTRACTIVE_DITHER_1 quantization method */
+    public final static String ZQUANTIZ_SUBTRACTIVE_DITHER_1 = "SUBTRACTIVE_DITHER_1";
+    /** SUBTRACTIVE_DITHER_2 quantization method (preserving zero values) */
+    public final static String ZQUANTIZ_SUBTRACTIVE_DITHER_2 = "SUBTRACTIVE_DITHER_2";
+
     /* default values for missing keywords */
     /** default value (1.0) for CRPIXn keywords */
     public final static double DEFAULT_CRPIX = 1.0;
@@ -33,6 +33,7 @@ import fr.jmmc.oitools.model.OIFitsChecker;
 import fr.jmmc.oitools.model.Rule;
 import fr.jmmc.oitools.util.ArrayConvert;
 import fr.nom.tam.fits.BasicHDU;
+import fr.nom.tam.fits.BinaryTableHDU;
 import fr.nom.tam.fits.Data;
 import fr.nom.tam.fits.Fits;
 import fr.nom.tam.fits.FitsException;
@@ -177,6 +178,27 @@ public final class FitsImageLoader {
      * @return FitsImageFile structure on success
      */
     public static FitsImageFile load(final String absFilePath, final boolean firstOnly, final boolean requireCdeltKeywords) throws FitsException, IOException, IllegalArgumentException {
+        return load(absFilePath, firstOnly, requireCdeltKeywords, false, 0);
+    }
+
+    /**
+     * Load the given file and return a FitsImageFile structure.
+     * In lazy mode, image planes are only read (and converted) when FitsImage.getData() is called
+     * and then cached (soft references or at most maxResidentPlanes planes per image HDU).
+     * Note: lazy mode is ignored for compressed files (data read at once)
+     *
+     * @param absFilePath absolute File path on file system (not URL)
+     * @param firstOnly load only the first valid Image HDU
+     * @param requireCdeltKeywords throw an exception if CDELT keywords are missing
+     * @param lazy true to read image planes on demand
+     * @param maxResidentPlanes maximum number of cached planes per image HDU (lazy mode) or 0 to use soft references
+     * @throws FitsException if any FITS error occurred
+     * @throws IOException IO failure
+     * @throws IllegalArgumentException if unsupported unit or unit conversion is not allowed or missing CDELT keyword
+     * @return FitsImageFile structure on success
+     */
+    public static FitsImageFile load(final String absFilePath, final boolean firstOnly, final boolean requireCdeltKeywords,
+                                     final boolean lazy, final int maxResidentPlanes) throws FitsException, IOException, IllegalArgumentException {
 
         if (logger.isLoggable(Level.FINE)) {
             logger.log(Level.FINE, "loading {0}", absFilePath);
@@ -201,9 +223,13 @@ public final class FitsImageLoader {
             // TODO: unify the readHDU with OIFitsLoader
             final List<BasicHDU> hduList = read(fitsFile);
 
+            // image data are deferred if the file is random access (uncompressed):
+            final String lazyFilePath = (lazy && (fitsFile.getStream() instanceof RandomAccess)) ? absFilePath : null;
+
             // processHDUnit all HD units :
             if (!hduList.isEmpty()) {
-                processHDUnits(imgFitsFile, hduList, firstOnly, requireCdeltKeywords);
+                imgFitsFile.getFitsImageHDUs().addAll(processHDUnits(imgFitsFile.getFileName(), hduList,
+                        firstOnly, requireCdeltKeywords, lazyFilePath, maxResidentPlanes));
             }
 
             if (logger.isLoggable(Level.INFO)) {
@@ -348,19 +374,17 @@ public final class FitsImageLoader {
     }
 
     /**
-     * Process all Fits HD units to load Fits images (skip other HDU) into the given FitsImageFile structure
-     * @param imgFitsFile FitsImageFile structure to use
+     * Process all Fits HD units and build a FitsImageHDU list (skip other HDU).
+     * @param filename name of related fits file
      * @param hdus list of HD units
      * @param firstOnly load only the first valid Image HDU
-     * @param requireCdeltKeywords throw an exception if CDELT keywords are missing
+     * @return List(FitsImageHDU) is list for all imageHDU find
      * @throws FitsException if any FITS error occurred
      * @throws IOException IO failure
-     * @throws IllegalArgumentException if unsupported unit or unit conversion is not allowed or missing CDELT keyword
+     * @throws IllegalArgumentException if unsupported unit or unit conversion is not allowed
      */
-    private static void processHDUnits(final FitsImageFile imgFitsFile, final List<BasicHDU> hdus,
-                                       final boolean firstOnly, final boolean requireCdeltKeywords) throws FitsException, IOException, IllegalArgumentException {
-
-        imgFitsFile.getFitsImageHDUs().addAll(processHDUnits(imgFitsFile.getFileName(), hdus, firstOnly, requireCdeltKeywords));
+    public static List<FitsImageHDU> processHDUnits(final String filename, final Collection<BasicHDU> hdus, final boolean firstOnly) throws FitsException, IOException, IllegalArgumentException {
+        return processHDUnits(filename, hdus, firstOnly, false);
     }
 
     /**
@@ -368,13 +392,15 @@ public final class FitsImageLoader {
      * @param filename name of related fits file
      * @param hdus list of HD units
      * @param firstOnly load only the first valid Image HDU
+     * @param requireCdeltKeywords throw an exception if CDELT keywords are missing
      * @return List(FitsImageHDU) is list for all imageHDU find
      * @throws FitsException if any FITS error occurred
      * @throws IOException IO failure
-     * @throws IllegalArgumentException if unsupported unit or unit conversion is not allowed
+     * @throws IllegalArgumentException if unsupported unit or unit conversion is not allowed or missing CDELT keyword
      */
-    public static List<FitsImageHDU> processHDUnits(final String filename, final Collection<BasicHDU> hdus, final boolean firstOnly) throws FitsException, IOException, IllegalArgumentException {
-        return processHDUnits(filename, hdus, firstOnly, false);
+    public static List<FitsImageHDU> processHDUnits(final String filename, final Collection<BasicHDU> hdus,
+                                                    final boolean firstOnly, final boolean requireCdeltKeywords) throws FitsException, IOException, IllegalArgumentException {
+        return processHDUnits(filename, hdus, firstOnly, requireCdeltKeywords, null, 0);
     }
 
     /**
@@ -383,13 +409,16 @@ public final class FitsImageLoader {
      * @param hdus list of HD units
      * @param firstOnly load only the first valid Image HDU
      * @param requireCdeltKeywords throw an exception if CDELT keywords are missing
+     * @param lazyFilePath absolute file path to read image planes on demand (deferred data) or null to read images at once
+     * @param maxResidentPlanes maximum number of cached planes per image HDU (lazy mode) or 0 to use soft references
      * @return List(FitsImageHDU) is list for all imageHDU find
      * @throws FitsException if any FITS error occurred
      * @throws IOException IO failure
      * @throws IllegalArgumentException if unsupported unit or unit conversion is not allowed or missing CDELT keyword
      */
-    public static List<FitsImageHDU> processHDUnits(final String filename, final Collection<BasicHDU> hdus,
-                                                    final boolean firstOnly, final boolean requireCdeltKeywords) throws FitsException, IOException, IllegalArgumentException {
+    private static List<FitsImageHDU> processHDUnits(final String filename, final Collection<BasicHDU> hdus,
+                                                     final boolean firstOnly, final boolean requireCdeltKeywords,
+                                                     final String lazyFilePath, final int maxResidentPlanes) throws FitsException, IOException, IllegalArgumentException {
 
         final int nbHDU = hdus.size();
         if (logger.isLoggable(Level.FINE)) {
@@ -401,11 +430,14 @@ public final class FitsImageLoader {
         // start from Primary HDU
         int i = 0;
         for (BasicHDU hdu : hdus) {
+            final boolean compressed = FitsImageCompression.isCompressedImage(hdu);
 
-            if (hdu instanceof ImageHDU) {
-                final ImageHDU imgHdu = (ImageHDU) hdu;
+            if (hdu instanceof ImageHDU || compressed) {
+                // tile-compressed images are decompressed at once (no lazy loading):
+                final ImageHDU imgHdu = (compressed) ? FitsImageCompression.decompress((BinaryTableHDU) hdu) : (ImageHDU) hdu;
 
-                final FitsImageHDU imageHDU = processHDUnit(null, filename, imgHdu, requireCdeltKeywords, i, FitsImageHDUFactory.DEFAULT_FACTORY);
+                final FitsImageHDU imageHDU = processHDUnit(null, filename, imgHdu, requireCdeltKeywords, i, FitsImageHDUFactory.DEFAULT_FACTORY,
+                        (compressed) ? null : createPlaneLoader(lazyFilePath, imgHdu, maxResidentPlanes));
 
                 // TODO: imageHDU should be returned even if no image to hold keywords
                 //          -> could rely on the firstOnly flag ?
@@ -451,6 +483,42 @@ public final class FitsImageLoader {
     public static FitsImageHDU processHDUnit(final OIFitsChecker checker, final String filename,
                                              final ImageHDU imgHdu, final boolean requireCdeltKeywords,
                                              final int hduIndex, final FitsImageHDUFactory factory) throws FitsException, IOException {
+        return processHDUnit(checker, filename, imgHdu, requireCdeltKeywords, hduIndex, factory, null);
+    }
+
+    /**
+     * Return a new plane loader for the given image HDU if its data are deferred (lazy mode)
+     * @param lazyFilePath absolute file path or null if lazy mode is disabled
+     * @param imgHdu image HDU
+     * @param maxResidentPlanes maximum number of cached planes or 0 to use soft references
+     * @return new plane loader or null if lazy mode is disabled or no image data
+     * @throws FitsException if any FITS error occurred
+     */
+    private static FitsImagePlaneLoader createPlaneLoader(final String lazyFilePath, final ImageHDU imgHdu, final int maxResidentPlanes) throws FitsException {
+        if (lazyFilePath == null || imgHdu.getData().getFileOffset() < 0L) {
+            return null;
+        }
+        return new FitsImagePlaneLoader(lazyFilePath, imgHdu, maxResidentPlanes);
+    }
+
+    /**
+     * Process the given image HDU and build a FitsImageHDU.
+     * @param checker OIFitsChecker
+     * @param filename name of related fits file
+     * @param imgHdu Fits image
+     * @param requireCdeltKeywords throw an exception if CDELT keywords are missing
+     * @param hduIndex load only the first valid Image HDU
+     * @param factory Create an object FitsImageHDU
+     * @param planeLoader optional plane loader to read image planes on demand (lazy mode)
+     * @return FitsImageHDU is the imageHDU find
+     * @throws FitsException if any FITS error occurred
+     * @throws IOException IO failure
+     * @throws IllegalArgumentException if unsupported unit or unit conversion is not allowed or missing CDELT keyword
+     */
+    private static FitsImageHDU processHDUnit(final OIFitsChecker checker, final String filename,
+                                              final ImageHDU imgHdu, final boolean requireCdeltKeywords,
+                                              final int hduIndex, final FitsImageHDUFactory factory,
+                                              final FitsImagePlaneLoader planeLoader) throws FitsException, IOException {
 
         final int nAxis = getNAxis(imgHdu);
 
@@ -483,12 +551,12 @@ public final class FitsImageLoader {
         }
 
         // Load images:
-        final FitsImageHDU imageHDU = createImageHDU(checker, filename, imgHdu, requireCdeltKeywords, hduIndex, factory, imgCount);
+        final FitsImageHDU imageHDU = createImageHDU(checker, filename, imgHdu, requireCdeltKeywords, hduIndex, factory, imgCount, planeLoader);
 
         if (imageHDU.hasImages()) {
             try {
-                // update checksum:
-                imageHDU.setChecksum(ChecksumHelper.updateChecksum(imgHdu));
+                // update checksum (raw data read from the file in lazy mode):
+                imageHDU.setChecksum((planeLoader != null) ? planeLoader.updateChecksum(imgHdu) : ChecksumHelper.updateChecksum(imgHdu));
             } catch (FitsException fe) {
                 logger.log(Level.SEVERE, "Checksum failure on HDU: {0}", imageHDU.toString(true));
                 throw fe;
@@ -506,13 +574,15 @@ public final class FitsImageLoader {
      * @param hduIndex load only the first valid Image HDU
      * @param factory Create an object FitsImageHDU
      * @param imgCount nb of image
+     * @param planeLoader optional plane loader to read image planes on demand (lazy mode)
      * @return FitsImageHDU is the imageHDU find
      * @throws FitsException if any FITS error occurred
      * @throws IllegalArgumentException if unsupported unit or unit conversion is not allowed or missing CDELT keyword
      */
     private static FitsImageHDU createImageHDU(final OIFitsChecker checker, final String filename,
                                                final ImageHDU imgHdu, final boolean requireCdeltKeywords, final int hduIndex,
-                                               final FitsImageHDUFactory factory, final int imgCount) throws FitsException {
+                                               final FitsImageHDUFactory factory, final int imgCount,
+                                               final FitsImagePlaneLoader planeLoader) throws FitsException {
 
         // Create Image HDU:
         final FitsImageHDU imageHDU = factory.create();
@@ -530,7 +600,7 @@ public final class FitsImageLoader {
 
             // load image:
             //if nb image > 1 we don't have a index
-            processImage(imgHdu, image, (imgCount != 1) ? imageIndex : UNDEFINED_INDEX, requireCdeltKeywords);
+            processImage(imgHdu, image, (imgCount != 1) ? imageIndex : UNDEFINED_INDEX, requireCdeltKeywords, planeLoader);
 
             // skip empty images:
             if (image.getNbRows() <= 0 || image.getNbCols() <= 0) {
@@ -566,17 +636,24 @@ public final class FitsImageLoader {
      * @param image Fits image
      * @param imageIndex image plane index [1..n] for Fits cube or -1 for Fits image
      * @param requireCdeltKeywords throw an exception if CDELT keywords are missing
+     * @param planeLoader optional plane loader to read image planes on demand (lazy mode)
      * @throws FitsException if any FITS error occurred
      * @throws IllegalArgumentException if unsupported unit or unit conversion is not allowed or missing CDELT keyword
      */
-    private static void processImage(final ImageHDU imgHdu, final FitsImage image, final int imageIndex, final boolean requireCdeltKeywords) throws FitsException, IllegalArgumentException {
+    private static void processImage(final ImageHDU imgHdu, final FitsImage image, final int imageIndex, final boolean requireCdeltKeywords,
+                                     final FitsImagePlaneLoader planeLoader) throws FitsException, IllegalArgumentException {
         if (logger.isLoggable(Level.FINE)) {
             logger.log(Level.FINE, "processImage: {0}", image);
         }
 
         processImageKeywords(imgHdu.getHeader(), image, imageIndex, requireCdeltKeywords);
 
-        processData(imgHdu, image, imageIndex);
+        if (planeLoader != null) {
+            // image plane read on demand:
+            image.setPlaneLoader(planeLoader, (imageIndex != UNDEFINED_INDEX) ? imageIndex : 1, image.getNbRows(), image.getNbCols());
+        } else {
+            processData(imgHdu, image, imageIndex);
+        }
     }
 
     /**
@@ -607,7 +684,7 @@ public final class FitsImageLoader {
             final boolean hasKeyword = header.containsKey(keywordName);
 
             // check mandatory keywords:
-            if (!hasKeyword || OIFitsChecker.isInspectRules()) {
+            if (!hasKeyword || ((checker != null) && checker.isInspectRules())) {
                 if (!keyword.isOptional()) {
                     /* No keyword with keywordName name */
                     if (checker != null) {
@@ -616,7 +693,7 @@ public final class FitsImageLoader {
                     }
                 }
             }
-            if (hasKeyword || OIFitsChecker.isInspectRules()) {
+            if (hasKeyword || ((checker != null) && checker.isInspectRules())) {
                 // parse keyword value:
                 final Object keywordValue = parseKeyword(checker, hduFits, keyword, header.getValue(keywordName));
 
@@ -951,7 +1028,7 @@ public final class FitsImageLoader {
      * @param bScale linear factor in scaling equation
      * @return float[][]
      */
-    private static float[][] getImageData(final int rows, final int cols, final int bitpix, final Object array2D,
+    static float[][] getImageData(final int rows, final int cols, final int bitpix, final Object array2D,
                                           final double bZero, final double bScale) {
 
         if (array2D == null) {
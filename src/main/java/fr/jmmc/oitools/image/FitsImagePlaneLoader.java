@@ -0,0 +1,240 @@
+/* 
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools.image;
+
+import fr.jmmc.oitools.fits.FitsConstants;
+import fr.nom.tam.fits.BasicHDU;
+import fr.nom.tam.fits.Fits;
+import fr.nom.tam.fits.FitsException;
+import fr.nom.tam.fits.ImageHDU;
+import fr.nom.tam.image.StandardImageTiler;
+import fr.nom.tam.util.ArrayFuncs;
+import fr.nom.tam.util.BufferedFile;
+import fr.nom.tam.util.RandomAccess;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+
+/**
+ * This class reads the planes of a Fits image (or cube) on demand from its (uncompressed) file (lazy loading)
+ * using a StandardImageTiler: each plane is read, converted to float[][] (BSCALE / BZERO) and cached.
+ *
+ * Cached planes are either kept by soft references (released by the GC if memory is low)
+ * or bounded to the given number of resident planes (LRU).
+ *
+ * @author bourgesl
+ */
+final class FitsImagePlaneLoader {
+
+    /** Logger associated to image classes */
+    private final static java.util.logging.Logger logger = java.util.logging.Logger.getLogger(FitsImagePlaneLoader.class.getName());
+
+    /* members */
+    /** absolute file path */
+    private final String absFilePath;
+    /** file offset of the image data */
+    private final long dataOffset;
+    /** bit per pixels */
+    private final int bitPix;
+    /** zero point in scaling equation */
+    private final double bZero;
+    /** linear factor in scaling equation */
+    private final double bScale;
+    /** number of rows */
+    private final int nbRows;
+    /** number of columns */
+    private final int nbCols;
+    /** number of planes */
+    private final int nbPlanes;
+    /** resident planes (LRU) keyed by image index if bounded */
+    private final Map<Integer, float[][]> residentPlanes;
+    /** soft references on planes keyed by image index if unbounded */
+    private final Map<Integer, SoftReference<float[][]>> softPlanes;
+
+    /**
+     * Protected constructor
+     * @param absFilePath absolute file path
+     * @param imgHdu image HDU (deferred data read from the given file)
+     * @param maxResidentPlanes maximum number of resident planes or 0 to use soft references
+     * @throws FitsException if any FITS error occurred
+     */
+    FitsImagePlaneLoader(final String absFilePath, final ImageHDU imgHdu, final int maxResidentPlanes) throws FitsException {
+        this.absFilePath = absFilePath;
+        this.dataOffset = imgHdu.getData().getFileOffset();
+        this.bitPix = imgHdu.getBitPix();
+        this.bZero = imgHdu.getBZero();
+        this.bScale = imgHdu.getBScale();
+
+        final int[] axes = getAxes(imgHdu);
+        this.nbCols = axes[0];
+        this.nbRows = axes[1];
+        this.nbPlanes = axes[2];
+
+        if (maxResidentPlanes > 0) {
+            this.residentPlanes = new LinkedHashMap<Integer, float[][]>(16, 0.75f, true) {
+                /** default serial UID for Serializable interface */
+                private static final long serialVersionUID = 1;
+
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<Integer, float[][]> eldest) {
+                    return size() > maxResidentPlanes;
+                }
+            };
+            this.softPlanes = null;
+        } else {
+            this.residentPlanes = null;
+            this.softPlanes = new HashMap<Integer, SoftReference<float[][]>>();
+        }
+    }
+
+    /**
+     * Return the image plane at the given index as float[nbRows][nbCols] ie [Y][X]
+     * @param imageIndex image plane index [1..n]
+     * @return image plane as float[nbRows][nbCols] ie [Y][X]
+     * @throws IOException IO failure
+     * @throws FitsException if any FITS error occurred
+     */
+    synchronized float[][] getPlane(final int imageIndex) throws IOException, FitsException {
+        final Integer key = Integer.valueOf(imageIndex);
+
+        float[][] plane;
+        if (residentPlanes != null) {
+            plane = residentPlanes.get(key);
+        } else {
+            final SoftReference<float[][]> ref = softPlanes.get(key);
+            plane = (ref != null) ? ref.get() : null;
+        }
+        if (plane == null) {
+            plane = readPlane(imageIndex);
+
+            if (residentPlanes != null) {
+                residentPlanes.put(key, plane);
+            } else {
+                softPlanes.put(key, new SoftReference<float[][]>(plane));
+            }
+        }
+        return plane;
+    }
+
+    /**
+     * Compute the checksum of the given image HDU from the raw data bytes (data are not loaded)
+     * @param imgHdu image HDU (deferred data read from the file)
+     * @return checksum as long value
+     * @throws IOException IO failure
+     * @throws FitsException if any FITS error occurred
+     */
+    long updateChecksum(final ImageHDU imgHdu) throws IOException, FitsException {
+        final BufferedFile input = new BufferedFile(absFilePath, "r");
+        try {
+            return Fits.setChecksum(imgHdu, false, input);
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * Read the image plane at the given index from the file
+     * @param imageIndex image plane index [1..n]
+     * @return image plane as float[nbRows][nbCols] ie [Y][X]
+     * @throws IOException IO failure
+     * @throws FitsException if any FITS error occurred
+     */
+    private float[][] readPlane(final int imageIndex) throws IOException, FitsException {
+        if (imageIndex < 1 || imageIndex > nbPlanes) {
+            throw new FitsException("Invalid image index " + imageIndex + " [1.." + nbPlanes + "]");
+        }
+        if (logger.isLoggable(Level.FINE)) {
+            logger.log(Level.FINE, "readPlane: {0} [{1}]", new Object[]{imageIndex, absFilePath});
+        }
+        final int planeLength = nbRows * nbCols;
+        final long planeOffset = dataOffset + (imageIndex - 1) * ((long) planeLength) * (Math.abs(bitPix) / 8);
+
+        final Object tile;
+        final BufferedFile input = new BufferedFile(absFilePath, "r");
+        try {
+            // plane as 1D tile (long offset):
+            tile = new PlaneTiler(input, planeOffset, planeLength, getBaseClass(bitPix))
+                    .getTile(new int[]{0}, new int[]{planeLength});
+        } finally {
+            input.close();
+        }
+
+        // convert any data to float[][]:
+        return FitsImageLoader.getImageData(nbRows, nbCols, bitPix,
+                ArrayFuncs.curl(tile, new int[]{nbRows, nbCols}), bZero, bScale);
+    }
+
+    /**
+     * Return the image axes [NAXIS1, NAXIS2, NAXIS3] (NAXIS3 = 1 for an image)
+     * @param imgHdu image HDU
+     * @return image axes
+     */
+    private static int[] getAxes(final ImageHDU imgHdu) {
+        final int[] axes = new int[]{0, 0, 1};
+        final int nAxis = imgHdu.getHeader().getIntValue(FitsConstants.KEYWORD_NAXIS, 0);
+        for (int i = 0; i < nAxis && i < axes.length; i++) {
+            axes[i] = imgHdu.getHeader().getIntValue(FitsConstants.KEYWORD_NAXIS + (i + 1), 0);
+        }
+        return axes;
+    }
+
+    /**
+     * Return the primitive type corresponding to the given bit per pixels
+     * @param bitPix bit per pixels
+     * @return primitive type
+     * @throws FitsException if invalid bitpix
+     */
+    private static Class<?> getBaseClass(final int bitPix) throws FitsException {
+        switch (bitPix) {
+            case BasicHDU.BITPIX_BYTE:
+                return byte.class;
+            case BasicHDU.BITPIX_SHORT:
+                return short.class;
+            case BasicHDU.BITPIX_INT:
+                return int.class;
+            case BasicHDU.BITPIX_LONG:
+                return long.class;
+            case BasicHDU.BITPIX_FLOAT:
+                return float.class;
+            case BasicHDU.BITPIX_DOUBLE:
+                return double.class;
+            default:
+                throw new FitsException("Invalid BITPIX: " + bitPix);
+        }
+    }
+
+    /**
+     * Tiler reading an image plane from the file only
+     */
+    private static final class PlaneTiler extends StandardImageTiler {
+
+        PlaneTiler(final RandomAccess input, final long planeOffset, final int planeLength, final Class<?> base) {
+            super(input, planeOffset, new int[]{planeLength}, base);
+        }
+
+        @Override
+        protected Object getMemoryImage() {
+            return null;
+        }
+    }
+}
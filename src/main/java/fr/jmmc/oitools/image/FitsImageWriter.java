@@ -122,6 +122,34 @@ public final class FitsImageWriter {
      * @throws IOException IO failure
      */
     public static void write(final String absFilePath, final FitsImageFile imgFitsFile) throws IOException, FitsException {
+        write(absFilePath, imgFitsFile, false);
+    }
+
+    /**
+     * Main method to write an FitsImageFile structure
+     * @param absFilePath absolute File path on file system (not URL)
+     * @param imgFitsFile FitsImageFile structure to write
+     * @param doChecksum true to add CHECKSUM and DATASUM keywords in all HDUs (computed while writing)
+     * and update the checksum of FitsImageHDUs
+     * @throws FitsException if the fits can not be written
+     * @throws IOException IO failure
+     */
+    public static void write(final String absFilePath, final FitsImageFile imgFitsFile, final boolean doChecksum) throws IOException, FitsException {
+        write(absFilePath, imgFitsFile, doChecksum, null);
+    }
+
+    /**
+     * Main method to write an FitsImageFile structure
+     * @param absFilePath absolute File path on file system (not URL)
+     * @param imgFitsFile FitsImageFile structure to write
+     * @param doChecksum true to add CHECKSUM and DATASUM keywords in all HDUs (computed while writing)
+     * and update the checksum of FitsImageHDUs (uncompressed images only)
+     * @param compression optional tile compression to write images as compressed binary tables or null
+     * @throws FitsException if the fits can not be written
+     * @throws IOException IO failure
+     */
+    public static void write(final String absFilePath, final FitsImageFile imgFitsFile, final boolean doChecksum,
+                             final FitsImageCompression compression) throws IOException, FitsException {
         imgFitsFile.setAbsoluteFilePath(absFilePath);
 
         if (logger.isLoggable(Level.FINE)) {
@@ -136,11 +164,25 @@ public final class FitsImageWriter {
             final Fits fitsFile = new Fits();
 
             // process all fitsImageHDUs :
-            createHDUnits(imgFitsFile, fitsFile);
+            createHDUnits(fitsFile, imgFitsFile.getFitsImageHDUs(), imgFitsFile.getFileName(), 0, compression);
 
             // write the fits file :
             bf = new BufferedFile(absFilePath, "rw");
-            fitsFile.write(bf);
+            if (doChecksum) {
+                // single pass: checksums are computed while writing data:
+                final long[] checksums = fitsFile.writeWithChecksum(bf, true);
+
+                // compressed HDUs do not match image data checksums:
+                final List<FitsImageHDU> imageHDUs = imgFitsFile.getFitsImageHDUs();
+                for (int i = 0, len = (compression == null) ? checksums.length : 0; i < len; i++) {
+                    final FitsImageHDU imageHDU = imageHDUs.get(i);
+                    if (imageHDU.hasImages()) {
+                        imageHDU.setChecksum(checksums[i]);
+                    }
+                }
+            } else {
+                fitsFile.write(bf);
+            }
 
             // flush and close :
             bf.close();
@@ -170,7 +212,7 @@ public final class FitsImageWriter {
      * @throws IOException IO failure
      */
     public static void createHDUnits(final FitsImageFile imgFitsFile, final Fits fitsFile) throws FitsException, IOException {
-        createHDUnits(fitsFile, imgFitsFile.getFitsImageHDUs(), imgFitsFile.getFileName(), 0);
+        createHDUnits(fitsFile, imgFitsFile.getFitsImageHDUs(), imgFitsFile.getFileName(), 0, null);
     }
 
     /**
@@ -179,16 +221,25 @@ public final class FitsImageWriter {
      * @param imageHDUs list of FitsImageHDU to process
      * @param fileName optional filename used to update FitsImageIdentifier
      * @param startIdx optional starting hdu index used to update FitsImageIdentifier
+     * @param compression optional tile compression to write images as compressed binary tables or null
      * @throws FitsException if any FITS error occurred
      * @throws IOException IO failure
      */
     private static void createHDUnits(final Fits fitsFile, final List<FitsImageHDU> imageHDUs,
-                                      final String fileName, final int startIdx) throws FitsException, IOException {
+                                      final String fileName, final int startIdx,
+                                      final FitsImageCompression compression) throws FitsException, IOException {
 
         int i = startIdx;
 
         for (FitsImageHDU imageHDU : imageHDUs) {
-            fitsFile.addHDU(createHDUnit(imageHDU, fileName, i));
+            final BasicHDU hdu = createHDUnit(imageHDU, fileName, i);
+
+            if (compression != null && imageHDU.hasImages()) {
+                // note: a dummy primary HDU is added before the first compressed HDU:
+                fitsFile.addHDU(compression.compress((ImageHDU) hdu));
+            } else {
+                fitsFile.addHDU(hdu);
+            }
             i++;
         }
     }
@@ -0,0 +1,314 @@
+/* 
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools.image;
+
+import fr.nom.tam.fits.FitsException;
+
+/**
+ * This stateless class implements the Rice compression algorithm (RICE_1) of the FITS tiled image
+ * compression convention (port of cfitsio ricecomp.c) for 1, 2 or 4 bytes per pixel.
+ *
+ * Pixel differences are computed in the pixel width (wrapped) so any integer tile is compressed losslessly.
+ *
+ * @author bourgesl
+ */
+final class RiceCodec {
+
+    /** default number of pixels per block (ZVAL1 BLOCKSIZE) */
+    final static int DEFAULT_BLOCK_SIZE = 32;
+
+    /**
+     * Private constructor
+     */
+    private RiceCodec() {
+        super();
+    }
+
+    /**
+     * Return the number of bits of the split code (fs) for the given number of bytes per pixel
+     * @param bytePix number of bytes per pixel (1, 2 or 4)
+     * @return number of bits of the split code
+     */
+    private static int getFsBits(final int bytePix) {
+        switch (bytePix) {
+            case 1:
+                return 3;
+            case 2:
+                return 4;
+            case 4:
+                return 5;
+            default:
+                throw new IllegalArgumentException("Unsupported number of bytes per pixel: " + bytePix);
+        }
+    }
+
+    /**
+     * Compress the given pixels
+     * @param pixels pixel values (truncated to the pixel width)
+     * @param length number of pixels
+     * @param blockSize number of pixels per block
+     * @param bytePix number of bytes per pixel (1, 2 or 4)
+     * @return compressed bytes
+     */
+    static byte[] compress(final int[] pixels, final int length, final int blockSize, final int bytePix) {
+        final int fsBits = getFsBits(bytePix);
+        final int bBits = bytePix << 3;
+        final int fsMax = (bytePix == 1) ? 6 : (bytePix == 2) ? 14 : 25;
+        final int shift = 32 - bBits;
+
+        final BitWriter out = new BitWriter(bytePix * length / 2 + 16);
+
+        if (length == 0) {
+            return out.toByteArray();
+        }
+
+        // first pixel value is written raw:
+        int lastPix = pixels[0];
+        out.write(lastPix, bBits);
+
+        final long[] diff = new long[blockSize];
+
+        for (int i = 0, thisBlock = blockSize; i < length; i += blockSize) {
+            if (length - i < blockSize) {
+                thisBlock = length - i;
+            }
+            long pixelSum = 0L;
+
+            for (int j = 0; j < thisBlock; j++) {
+                final int nextPix = pixels[i + j];
+                // difference wrapped to the pixel width (signed):
+                final int pdiff = ((nextPix - lastPix) << shift) >> shift;
+                // map to non negative values (zig-zag):
+                diff[j] = (((pdiff << 1) ^ (pdiff >> 31)) & 0xFFFFFFFFL) & ((1L << bBits) - 1L);
+                pixelSum += diff[j];
+                lastPix = nextPix;
+            }
+
+            // compute the number of bits to split from the sum:
+            double dpsum = (pixelSum - (thisBlock / 2) - 1.0) / thisBlock;
+            if (dpsum < 0.0) {
+                dpsum = 0.0;
+            }
+            long psum = ((long) dpsum) >> 1;
+            int fs = 0;
+            while (psum > 0L) {
+                psum >>= 1;
+                fs++;
+            }
+
+            if (fs >= fsMax) {
+                // high entropy: write raw differences
+                out.write(fsMax + 1, fsBits);
+                for (int j = 0; j < thisBlock; j++) {
+                    out.write((int) diff[j], bBits);
+                }
+            } else if (fs == 0 && pixelSum == 0L) {
+                // low entropy: constant block
+                out.write(0, fsBits);
+            } else {
+                // normal case: (top) zeros + 1 + fs bottom bits
+                out.write(fs + 1, fsBits);
+                final long fsMask = (1L << fs) - 1L;
+                for (int j = 0; j < thisBlock; j++) {
+                    final long v = diff[j];
+                    out.writeZeros(v >>> fs);
+                    out.write(1, 1);
+                    if (fs != 0) {
+                        out.write((int) (v & fsMask), fs);
+                    }
+                }
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decompress the given bytes
+     * @param input compressed bytes
+     * @param pixels output pixel values (signed for 2 and 4 bytes per pixel, unsigned for 1 byte per pixel)
+     * @param length number of pixels
+     * @param blockSize number of pixels per block
+     * @param bytePix number of bytes per pixel (1, 2 or 4)
+     * @throws FitsException if the compressed data are truncated
+     */
+    static void decompress(final byte[] input, final int[] pixels, final int length, final int blockSize,
+                           final int bytePix) throws FitsException {
+        final int fsBits = getFsBits(bytePix);
+        final int bBits = bytePix << 3;
+        final int fsMax = (bytePix == 1) ? 6 : (bytePix == 2) ? 14 : 25;
+        final int shift = 32 - bBits;
+
+        if (length == 0) {
+            return;
+        }
+        final BitReader in = new BitReader(input);
+
+        // first pixel value is written raw:
+        int lastPix = in.read(bBits);
+
+        for (int i = 0; i < length;) {
+            final int fs = in.read(fsBits) - 1;
+            final int iMax = Math.min(i + blockSize, length);
+
+            if (fs < 0) {
+                // low entropy: constant block
+                for (; i < iMax; i++) {
+                    pixels[i] = toPixel(lastPix, shift, bytePix);
+                }
+            } else if (fs == fsMax) {
+                // high entropy: raw differences
+                for (; i < iMax; i++) {
+                    final int diff = in.read(bBits);
+                    lastPix += ((diff & 1) == 0) ? (diff >>> 1) : ~(diff >>> 1);
+                    pixels[i] = toPixel(lastPix, shift, bytePix);
+                }
+            } else {
+                for (; i < iMax; i++) {
+                    final long top = in.readZeros();
+                    final long diff = (fs == 0) ? top : (top << fs) | in.read(fs);
+                    final int d = (int) (diff >>> 1);
+                    lastPix += ((diff & 1L) == 0L) ? d : ~d;
+                    pixels[i] = toPixel(lastPix, shift, bytePix);
+                }
+            }
+        }
+    }
+
+    /**
+     * Truncate the given value to the pixel width
+     * @param value value
+     * @param shift 32 - number of bits per pixel
+     * @param bytePix number of bytes per pixel
+     * @return signed value (unsigned for 1 byte per pixel)
+     */
+    private static int toPixel(final int value, final int shift, final int bytePix) {
+        return (bytePix == 1) ? (value & 0xFF) : (value << shift) >> shift;
+    }
+
+    /**
+     * Bit output (big endian) into a growing byte array
+     */
+    private static final class BitWriter {
+
+        /** output buffer */
+        private byte[] buffer;
+        /** number of bytes written */
+        private int pos = 0;
+        /** pending bits (lowest bits) */
+        private long acc = 0L;
+        /** number of pending bits */
+        private int nBits = 0;
+
+        BitWriter(final int capacity) {
+            this.buffer = new byte[Math.max(16, capacity)];
+        }
+
+        void write(final int value, final int n) {
+            acc = (acc << n) | (value & ((1L << n) - 1L));
+            nBits += n;
+            while (nBits >= 8) {
+                nBits -= 8;
+                put((byte) (acc >>> nBits));
+            }
+        }
+
+        void writeZeros(long n) {
+            while (n > 0L) {
+                final int k = (int) Math.min(n, 32L);
+                write(0, k);
+                n -= k;
+            }
+        }
+
+        private void put(final byte b) {
+            if (pos == buffer.length) {
+                final byte[] larger = new byte[buffer.length << 1];
+                System.arraycopy(buffer, 0, larger, 0, pos);
+                buffer = larger;
+            }
+            buffer[pos++] = b;
+        }
+
+        byte[] toByteArray() {
+            if (nBits != 0) {
+                // pad the last byte with zeros:
+                put((byte) (acc << (8 - nBits)));
+                nBits = 0;
+            }
+            final byte[] result = new byte[pos];
+            System.arraycopy(buffer, 0, result, 0, pos);
+            return result;
+        }
+    }
+
+    /**
+     * Bit input (big endian) from a byte array
+     */
+    private static final class BitReader {
+
+        /** input buffer */
+        private final byte[] buffer;
+        /** number of bytes read */
+        private int pos = 0;
+        /** pending bits (lowest bits) */
+        private long acc = 0L;
+        /** number of pending bits */
+        private int nBits = 0;
+
+        BitReader(final byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        private int next() throws FitsException {
+            if (pos == buffer.length) {
+                throw new FitsException("Truncated RICE_1 compressed data");
+            }
+            return buffer[pos++] & 0xFF;
+        }
+
+        int read(final int n) throws FitsException {
+            while (nBits < n) {
+                acc = (acc << 8) | next();
+                nBits += 8;
+            }
+            nBits -= n;
+            return (int) ((acc >>> nBits) & ((1L << n) - 1L));
+        }
+
+        long readZeros() throws FitsException {
+            long zeros = 0L;
+            for (;;) {
+                if (nBits == 0) {
+                    acc = next();
+                    nBits = 8;
+                }
+                final int pending = (int) (acc & ((1 << nBits) - 1));
+                if (pending == 0) {
+                    zeros += nBits;
+                    nBits = 0;
+                } else {
+                    final int lz = Integer.numberOfLeadingZeros(pending) - (32 - nBits);
+                    nBits -= lz + 1;
+                    return zeros + lz;
+                }
+            }
+        }
+    }
+}
@@ -63,17 +63,28 @@ public class CellMeta {
     private final short[] acceptedValuesInteger;
     /** Stored string possible values for column/keyword */
     private final String[] acceptedValuesString;
-    /** Set to use when in the situation to harvest the rules. It is not created if one is not in isInspectRules() */
-    private final Set<Rule> applyRules = OIFitsChecker.isInspectRules() ? new HashSet<Rule>() : null;
+    /** Set to use when in the situation to harvest the rules. It is only created by checkers having isInspectRules() enabled */
+    private Set<Rule> applyRules = null;
 
     /**
      * Get the applyRules for DataModel
      * @return applyRules
      */
-    public Set<Rule> getApplyRules() {
+    public synchronized Set<Rule> getApplyRules() {
         return applyRules;
     }
 
+    /**
+     * Add the given rule to the applyRules (created if needed)
+     * @param rule rule to add
+     */
+    public synchronized void addApplyRule(final Rule rule) {
+        if (applyRules == null) {
+            applyRules = new HashSet<Rule>();
+        }
+        applyRules.add(rule);
+    }
+
     /** 
      * CellMeta class protected constructor
      *
@@ -21,6 +21,7 @@ package fr.jmmc.oitools.meta;
 
 import fr.jmmc.jmcs.util.NumberUtils;
 import fr.jmmc.oitools.fits.FitsTable;
+import fr.jmmc.oitools.fits.FlatColumn;
 import fr.jmmc.oitools.model.ModelBase;
 import fr.jmmc.oitools.model.OIFitsChecker;
 import fr.jmmc.oitools.model.Rule;
@@ -214,6 +215,25 @@ public class ColumnMeta extends CellMeta {
         return is3D;
     }
 
+    /**
+     * Return true if the column values can be stored as a flat array (see FlatColumn)
+     * i.e. 2D double, real or complex values without any range check on values
+     * @return true if the column values can be stored as a flat array
+     */
+    public final boolean isFlatStorage() {
+        if (!isArray() || is3D() || (getDataRange() == DataRange.RANGE_POSITIVE_STRICT)) {
+            return false;
+        }
+        switch (getDataType()) {
+            case TYPE_DBL:
+            case TYPE_REAL:
+            case TYPE_COMPLEX:
+                return true;
+            default:
+                return false;
+        }
+    }
+
     /**
      * Return the repeat value i.e. cardinality
      * Can be overriden to represent cross - references
@@ -287,15 +307,23 @@ public class ColumnMeta extends CellMeta {
         }
 
         // Check type and cardinality
-        final Class<?> baseClass = ArrayFuncs.getBaseClass(value);
+        final Class<?> baseClass;
+        final int[] dims;
+        if (value instanceof FlatColumn) {
+            final FlatColumn flat = (FlatColumn) value;
+            baseClass = flat.getBaseClass();
+            dims = flat.getDimensions();
+        } else {
+            baseClass = ArrayFuncs.getBaseClass(value);
+            dims = ArrayFuncs.getDimensions(value);
+        }
         char columnType = Types.getDataType(baseClass).getRepresentation();
 
-        final int[] dims = ArrayFuncs.getDimensions(value);
         final int ndims = dims.length;
 
         // check rows
         final int columnRows = dims[0];
-        if ((columnRows != nbRows) || OIFitsChecker.isInspectRules()) {
+        if ((columnRows != nbRows) || checker.isInspectRules()) {
             // rule [GENERIC_COL_NBROWS] check if the column length matches the expected number of rows
             checker.ruleFailed(Rule.GENERIC_COL_NBROWS, table, colName).addKeywordValue(columnRows, nbRows);
         }
@@ -370,7 +398,7 @@ public class ColumnMeta extends CellMeta {
         final char descType = this.getType();
         int descRepeat = this.getRepeat();
 
-        if ((descRepeat == 0) || OIFitsChecker.isInspectRules()) {
+        if ((descRepeat == 0) || checker.isInspectRules()) {
             // May happen if bad reference (wavelength table):
             // rule [GENERIC_COL_DIM] check if the dimension of column values >= 1
             checker.ruleFailed(Rule.GENERIC_COL_DIM, table, colName);
@@ -380,7 +408,7 @@ public class ColumnMeta extends CellMeta {
                 checker.ruleFailed(Rule.GENERIC_COL_FORMAT, table, colName).addKeywordValue(columnType, descType);
             }
         }
-        if ((descRepeat != 0) || OIFitsChecker.isInspectRules()) {
+        if ((descRepeat != 0) || checker.isInspectRules()) {
             boolean severe = false;
 
             if (columnType != descType) {
@@ -407,7 +435,7 @@ public class ColumnMeta extends CellMeta {
                 }
             }
 
-            if (severe || OIFitsChecker.isInspectRules()) {
+            if (severe || checker.isInspectRules()) {
                 checker.ruleFailed(Rule.GENERIC_COL_FORMAT, table, colName).addKeywordValue(columnRepeat + "" + columnType, descRepeat + "" + descType);
             }
         }
@@ -433,7 +461,7 @@ public class ColumnMeta extends CellMeta {
             // OIData: STA_INDEX (2D but nCols=[1,2 or 3]) or TARGET_ID (1D)
 
             // Skip checks if the column is missing (from file):
-            if (!checker.hasRule(Rule.GENERIC_COL_MANDATORY, table, colName) || OIFitsChecker.isInspectRules()) {
+            if (!checker.hasRule(Rule.GENERIC_COL_MANDATORY, table, colName) || checker.isInspectRules()) {
                 final boolean isArray = isArray();
 
                 if (!isArray) {
@@ -444,7 +472,7 @@ public class ColumnMeta extends CellMeta {
                     for (int r = 0; r < columnRows; r++) {
                         val = sValues[r];
 
-                        if (!ModelBase.isUndefined(val) || OIFitsChecker.isInspectRules()) {
+                        if (!ModelBase.isUndefined(val) || checker.isInspectRules()) {
                             error = true;
 
                             for (int i = 0, len = intAcceptedValues.length; i < len; i++) {
@@ -454,7 +482,7 @@ public class ColumnMeta extends CellMeta {
                                 }
                             }
 
-                            if (error || OIFitsChecker.isInspectRules()) {
+                            if (error || checker.isInspectRules()) {
                                 // rule [GENERIC_COL_VAL_ACCEPTED_INT] check if column values match the 'accepted' values (integer)
                                 checker.ruleFailed(Rule.GENERIC_COL_VAL_ACCEPTED_INT, table, colName).addValueAt(val, getIntAcceptedValuesAsString(), r);
                             }
@@ -472,7 +500,7 @@ public class ColumnMeta extends CellMeta {
                         for (int c = 0, rlen = values.length; c < rlen; c++) {
                             val = values[c];
 
-                            if (!ModelBase.isUndefined(val) || OIFitsChecker.isInspectRules()) {
+                            if (!ModelBase.isUndefined(val) || checker.isInspectRules()) {
                                 error = true;
 
                                 for (int i = 0, len = intAcceptedValues.length; i < len; i++) {
@@ -482,7 +510,7 @@ public class ColumnMeta extends CellMeta {
                                     }
                                 }
 
-                                if (error || OIFitsChecker.isInspectRules()) {
+                                if (error || checker.isInspectRules()) {
                                     // rule [GENERIC_COL_VAL_ACCEPTED_INT] check if column values match the 'accepted' values (integer)
                                     checker.ruleFailed(Rule.GENERIC_COL_VAL_ACCEPTED_INT, table, colName).addColValueAt(val, getIntAcceptedValuesAsString(), r, c);
                                 }
@@ -501,7 +529,7 @@ public class ColumnMeta extends CellMeta {
             // OIInspol: INSNAME ...
 
             // Skip checks if the column is missing (from file):
-            if (!checker.hasRule(Rule.GENERIC_COL_MANDATORY, table, colName) || OIFitsChecker.isInspectRules()) {
+            if (!checker.hasRule(Rule.GENERIC_COL_MANDATORY, table, colName) || checker.isInspectRules()) {
                 final String[] sValues = (String[]) value;
 
                 String val;
@@ -521,7 +549,7 @@ public class ColumnMeta extends CellMeta {
                         }
                     }
 
-                    if (error || OIFitsChecker.isInspectRules()) {
+                    if (error || checker.isInspectRules()) {
                         // rule [GENERIC_COL_VAL_ACCEPTED_STR] check if column values match the 'accepted' values (string)
                         checker.ruleFailed(Rule.GENERIC_COL_VAL_ACCEPTED_STR, table, colName).addValueAt(val, getStringAcceptedValuesAsString(), rowNb);
                     }
@@ -543,7 +571,7 @@ public class ColumnMeta extends CellMeta {
                         val = fValues[r];
                         error = !isPositiveValueValid(val);
 
-                        if (error || OIFitsChecker.isInspectRules()) {
+                        if (error || checker.isInspectRules()) {
                             // rule [GENERIC_COL_VAL_POSITIVE] check if column values are finite and positive
                             checker.ruleFailed(Rule.GENERIC_COL_VAL_POSITIVE, table, colName).addValueAt(val, r);
                         }
@@ -562,7 +590,7 @@ public class ColumnMeta extends CellMeta {
                             val = values[c];
                             error = !isPositiveValueValid(val);
 
-                            if (error || OIFitsChecker.isInspectRules()) {
+                            if (error || checker.isInspectRules()) {
                                 // rule [GENERIC_COL_VAL_POSITIVE] check if column values are finite and positive
                                 checker.ruleFailed(Rule.GENERIC_COL_VAL_POSITIVE, table, colName).addColValueAt(val, r, c);
                             }
@@ -582,7 +610,7 @@ public class ColumnMeta extends CellMeta {
                         val = fValues[r];
                         error = !isPositiveValueValid(val);
 
-                        if (error || OIFitsChecker.isInspectRules()) {
+                        if (error || checker.isInspectRules()) {
                             // rule [GENERIC_COL_VAL_POSITIVE] check if column values are finite and positive
                             checker.ruleFailed(Rule.GENERIC_COL_VAL_POSITIVE, table, colName).addValueAt(val, r);
                         }
@@ -601,7 +629,7 @@ public class ColumnMeta extends CellMeta {
                             val = values[c];
                             error = !isPositiveValueValid(val);
 
-                            if (error || OIFitsChecker.isInspectRules()) {
+                            if (error || checker.isInspectRules()) {
                                 // rule [GENERIC_COL_VAL_POSITIVE] check if column values are finite and positive
                                 checker.ruleFailed(Rule.GENERIC_COL_VAL_POSITIVE, table, colName).addColValueAt(val, r, c);
                             }
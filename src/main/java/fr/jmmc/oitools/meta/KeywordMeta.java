@@ -127,7 +127,7 @@ public class KeywordMeta extends CellMeta {
         }
 
         // Check accepted value
-        if (kDataType == this.getDataType() || OIFitsChecker.isInspectRules()) {
+        if (kDataType == this.getDataType() || checker.isInspectRules()) {
             checkAcceptedValues(checker, hdu, value);
         }
     }
@@ -145,7 +145,7 @@ public class KeywordMeta extends CellMeta {
         if (intAcceptedValues.length != 0) {
             final short val = ((Number) value).shortValue();
 
-            if (!OIFitsChecker.isInspectRules()) {
+            if (!checker.isInspectRules()) {
                 for (int i = 0, len = intAcceptedValues.length; i < len; i++) {
                     if (val == intAcceptedValues[i]) {
                         return;
@@ -158,7 +158,7 @@ public class KeywordMeta extends CellMeta {
         if (stringAcceptedValues.length != 0) {
             final String val = (String) value;
 
-            if (!OIFitsChecker.isInspectRules()) {
+            if (!checker.isInspectRules()) {
                 for (int i = 0, len = stringAcceptedValues.length; i < len; i++) {
                     if (val.equals(stringAcceptedValues[i])) {
                         return;
@@ -21,6 +21,7 @@ package fr.jmmc.oitools.model;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -83,13 +84,7 @@ public abstract class AbstractMapper<K> {
 
     public final void register(final K local) {
         if (local != null) {
-            K match = null;
-            for (K global : localsPerGlobal.keySet()) {
-                if (matcher.match(global, local)) {
-                    match = global;
-                    break;
-                }
-            }
+            K match = findMatch(local);
 
             final List<K> locals;
             if (match == null) {
@@ -103,6 +98,9 @@ public abstract class AbstractMapper<K> {
 
                 locals = new ArrayList<K>(2);
                 localsPerGlobal.put(match, locals);
+
+                // index the new global:
+                addGlobal(match);
             } else {
                 locals = localsPerGlobal.get(match);
             }
@@ -117,6 +115,57 @@ public abstract class AbstractMapper<K> {
         }
     }
 
+    /**
+     * Return the global item matching the given local item
+     * @param local local item
+     * @return matching global item or null if no match
+     */
+    private K findMatch(final K local) {
+        final Collection<K> candidates = getCandidateGlobals(local);
+        if (candidates == null) {
+            return findFirstMatch(localsPerGlobal.keySet(), local);
+        }
+        K match = null;
+        for (K global : candidates) {
+            if (matcher.match(global, local)) {
+                if (match != null) {
+                    // several matches: use the first one in the globals order (same result as the full scan):
+                    return findFirstMatch(localsPerGlobal.keySet(), local);
+                }
+                match = global;
+            }
+        }
+        return match;
+    }
+
+    private K findFirstMatch(final Collection<K> globals, final K local) {
+        for (K global : globals) {
+            if (matcher.match(global, local)) {
+                return global;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Return the global items that may match the given local item (index)
+     * May be overriden
+     * @param local local item
+     * @return candidate global items or null to test all global items
+     */
+    protected Collection<K> getCandidateGlobals(final K local) {
+        return null;
+    }
+
+    /**
+     * Called when a new global item is created (index)
+     * May be overriden
+     * @param global new global item
+     */
+    protected void addGlobal(final K global) {
+        // no-op
+    }
+
     private String generateUid(final String name) {
         String newName = name;
         int idx = 0;
@@ -34,10 +34,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 
 /**
  * This class visit the table for a given oifits file to process some computation on them. 
+ * This singleton is stateless (except its thread-safe caches) so it can analyze different OIFits files concurrently.
  */
 public final class Analyzer implements ModelVisitor {
 
@@ -49,8 +52,8 @@ public final class Analyzer implements ModelVisitor {
 
     /** cached log debug flag */
     private final boolean isLogDebug = logger.isLoggable(Level.FINE);
-    /** cached combinations for baselines (staLen, combLen, combinations) */
-    private final Map<Integer, Map<Integer, List<int[]>>> combsCache = new HashMap<Integer, Map<Integer, List<int[]>>>(8);
+    /** cached combinations for baselines (staLen, combLen, combinations) shared by all threads */
+    private final ConcurrentMap<Integer, ConcurrentMap<Integer, List<int[]>>> combsCache = new ConcurrentHashMap<Integer, ConcurrentMap<Integer, List<int[]>>>(8);
 
     /**
      * Return the Manager singleton
@@ -386,6 +389,7 @@ public final class Analyzer implements ModelVisitor {
         // Target indexes:
         final Map<Short, Target> targetIdToTarget = oiTarget.getTargetIdToTarget();
         final Map<Target, Short> targetObjToTargetId = oiTarget.getTargetObjToTargetId();
+        final List<Target> targetList = oiTarget.getTargetList();
         // Columns
         final short[] targetIds = oiTarget.getTargetId();
 
@@ -400,6 +404,7 @@ public final class Analyzer implements ModelVisitor {
             // Mapping between target id <-> Target instance (locally)
             targetIdToTarget.put(targetId, target);
             targetObjToTargetId.put(target, targetId);
+            targetList.add(target);
         }
 
         if (isLogDebug) {
@@ -1075,10 +1080,13 @@ public final class Analyzer implements ModelVisitor {
 
         final Integer staKey = NumberUtils.valueOf(staLen);
 
-        Map<Integer, List<int[]>> combsByConfLen = combsCache.get(staKey);
+        ConcurrentMap<Integer, List<int[]>> combsByConfLen = combsCache.get(staKey);
         if (combsByConfLen == null) {
-            combsByConfLen = new HashMap<Integer, List<int[]>>(8);
-            combsCache.put(staKey, combsByConfLen);
+            combsByConfLen = new ConcurrentHashMap<Integer, List<int[]>>(8);
+            final ConcurrentMap<Integer, List<int[]>> previous = combsCache.putIfAbsent(staKey, combsByConfLen);
+            if (previous != null) {
+                combsByConfLen = previous;
+            }
         }
 
         final Integer confKey = NumberUtils.valueOf(confLen);
@@ -1086,8 +1094,12 @@ public final class Analyzer implements ModelVisitor {
         List<int[]> iCombs = combsByConfLen.get(confKey);
 
         if (iCombs == null) {
-            iCombs = CombUtils.generateCombinations(confKey.intValue(), staLen); // 1T or 2T or 3T
-            combsByConfLen.put(confKey, iCombs);
+            // combinations are read-only once cached:
+            iCombs = Collections.unmodifiableList(CombUtils.generateCombinations(confKey.intValue(), staLen)); // 1T or 2T or 3T
+            final List<int[]> previous = combsByConfLen.putIfAbsent(confKey, iCombs);
+            if (previous != null) {
+                iCombs = previous;
+            }
         }
 
         if (logger.isLoggable(Level.FINE)) {
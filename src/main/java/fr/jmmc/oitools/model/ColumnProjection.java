@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools.model;
+
+import fr.jmmc.oitools.OIFitsConstants;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * This class defines the columns to load per table (EXTNAME) by OIFitsLoader.
+ * Only the given columns of projected tables are read; other columns remain undefined (null).
+ * Columns needed by the data analysis (TARGET_ID, STA_INDEX, MJD, FLAG ...) and the error columns (*ERR)
+ * of kept data columns are always read so OIFitsFile.analyze() works and invalid errors are fixed.
+ * Tables not given to this projection are loaded completely.
+ * The validation of projected tables only checks their keywords and loaded columns
+ * (rules depending on other columns are skipped) but invalid *ERR values are fixed as usual.
+ *
+ * Example: new ColumnProjection().keep(OIFitsConstants.TABLE_OI_VIS2, "VIS2DATA", "VIS2ERR", "FLAG", "UCOORD", "VCOORD", "MJD")
+ *
+ * @author bourgesl
+ */
+public final class ColumnProjection {
+
+    /** columns always kept in projected tables (data analysis) */
+    private final static String[] REQUIRED_COLUMNS = new String[]{
+        OIFitsConstants.COLUMN_TARGET_ID, OIFitsConstants.COLUMN_TARGET,
+        OIFitsConstants.COLUMN_TEL_NAME, OIFitsConstants.COLUMN_STA_NAME, OIFitsConstants.COLUMN_STA_INDEX,
+        OIFitsConstants.COLUMN_EFF_WAVE, OIFitsConstants.COLUMN_EFF_BAND,
+        OIFitsConstants.COLUMN_MJD, OIFitsConstants.COLUMN_FLAG
+    };
+    /** error columns (*ERR) keyed by data column name */
+    private final static Map<String, String> ERROR_COLUMNS = new HashMap<String, String>(16);
+
+    static {
+        ERROR_COLUMNS.put(OIFitsConstants.COLUMN_VISAMP, OIFitsConstants.COLUMN_VISAMPERR);
+        ERROR_COLUMNS.put(OIFitsConstants.COLUMN_VISPHI, OIFitsConstants.COLUMN_VISPHIERR);
+        ERROR_COLUMNS.put(OIFitsConstants.COLUMN_RVIS, OIFitsConstants.COLUMN_RVISERR);
+        ERROR_COLUMNS.put(OIFitsConstants.COLUMN_IVIS, OIFitsConstants.COLUMN_IVISERR);
+        ERROR_COLUMNS.put(OIFitsConstants.COLUMN_VIS2DATA, OIFitsConstants.COLUMN_VIS2ERR);
+        ERROR_COLUMNS.put(OIFitsConstants.COLUMN_T3AMP, OIFitsConstants.COLUMN_T3AMPERR);
+        ERROR_COLUMNS.put(OIFitsConstants.COLUMN_T3PHI, OIFitsConstants.COLUMN_T3PHIERR);
+        ERROR_COLUMNS.put(OIFitsConstants.COLUMN_FLUXDATA, OIFitsConstants.COLUMN_FLUXERR);
+    }
+
+    /* members */
+    /** column names to keep keyed by table name (EXTNAME) */
+    private final Map<String, Set<String>> columnsPerTable = new HashMap<String, Set<String>>();
+
+    /**
+     * Public constructor
+     */
+    public ColumnProjection() {
+        super();
+    }
+
+    /**
+     * Keep the given columns of the given table (may be called several times)
+     * and the columns needed by the data analysis and the error columns of the given data columns.
+     * If no column is given, only the table keywords are loaded (no column at all).
+     * @param extName table name (EXTNAME) ie OI_VIS2
+     * @param columnNames column names to keep
+     * @return this instance
+     */
+    public ColumnProjection keep(final String extName, final String... columnNames) {
+        Set<String> columns = columnsPerTable.get(extName);
+        if (columns == null) {
+            columns = new HashSet<String>();
+            columnsPerTable.put(extName, columns);
+        }
+        if (columnNames.length != 0) {
+            columns.addAll(Arrays.asList(REQUIRED_COLUMNS));
+
+            for (String columnName : columnNames) {
+                columns.add(columnName);
+
+                final String errorName = ERROR_COLUMNS.get(columnName);
+                if (errorName != null) {
+                    columns.add(errorName);
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Return true if the given table is projected (only some columns are loaded)
+     * @param extName table name (EXTNAME)
+     * @return true if the given table is projected
+     */
+    public boolean isProjected(final String extName) {
+        return columnsPerTable.containsKey(extName);
+    }
+
+    /**
+     * Return true if the given column of the given table must be loaded
+     * @param extName table name (EXTNAME)
+     * @param columnName column name
+     * @return true if the given table is not projected or the given column is kept
+     */
+    public boolean isKept(final String extName, final String columnName) {
+        final Set<String> columns = columnsPerTable.get(extName);
+        return (columns == null) || columns.contains(columnName);
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnProjection" + columnsPerTable;
+    }
+}
@@ -78,7 +78,7 @@ public final class CsvOutputVisitor extends OutputVisitor {
 
     /**
      * Process the given OIFitsFile element with this visitor implementation :
-     * fill the internal buffer with file information
+     * fill the internal buffer (or the output writer) with file information
      * @param oiFitsFile OIFitsFile element to visit
      */
     @Override
@@ -93,6 +93,8 @@ public final class CsvOutputVisitor extends OutputVisitor {
         }
 
         exitOIFitsFile();
+
+        flush();
     }
 
     /**
@@ -174,6 +176,8 @@ public final class CsvOutputVisitor extends OutputVisitor {
                 .append(nbT3).append(SEP)
                 .append(nbChannels).append(SEP)
                 .append('\n');
+
+        checkFlush();
     }
 
 }
@@ -22,33 +22,76 @@ package fr.jmmc.oitools.model;
 import fr.jmmc.jmcs.util.NumberUtils;
 import static fr.jmmc.oitools.model.XmlOutputVisitor.encodeTagContent;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * Management of datas related to the creation of the error (toString/XML)
  * this class is a value for hash maps
+ *
+ * Values are stored in primitive growable arrays (no boxing) up to the given maximum number of entries:
+ * other entries are only counted (overflow).
  * @author kempsc
  */
 public final class DataLocation {
 
+    /* constants */
+    /** undefined row / column */
+    private final static int NONE = Integer.MIN_VALUE;
+    /** initial capacity */
+    private final static int INITIAL_CAPACITY = 10;
+    /** value types */
+    private final static byte TYPE_NONE = 0;
+    private final static byte TYPE_STRING = 1;
+    private final static byte TYPE_SHORT = 2;
+    private final static byte TYPE_INT = 3;
+    private final static byte TYPE_FLOAT = 4;
+    private final static byte TYPE_DOUBLE = 5;
+
     /* members */
     /** associated Rule */
     private final Rule rule;
-    /** values */
-    private ArrayList<Object> values = null;
-    /** limits */
-    private ArrayList<Object> limits = null;
-    /** expecteds */
-    private ArrayList<String> expecteds = null;
-    /** rows */
-    private ArrayList<Integer> rows = null;
-    /** column */
-    private ArrayList<Integer> cols = null;
-    /** extra details */
-    private ArrayList<String> details = null;
-
-    DataLocation(final Rule rule) {
+    /** flag to check the rule data type (inspect rules enabled) */
+    private final boolean checkDataType;
+    /** maximum number of stored entries */
+    private final int maxSize;
+    /** number of stored entries */
+    private int size = 0;
+    /** number of entries not stored (maximum number of entries reached) */
+    private long overflow = 0L;
+    /** value types */
+    private byte[] valueTypes = null;
+    /** numeric values */
+    private double[] valueNums = null;
+    /** string values (optional) */
+    private String[] valueStrs = null;
+    /** limit types (optional) */
+    private byte[] limitTypes = null;
+    /** numeric limits (optional) */
+    private double[] limitNums = null;
+    /** expecteds (optional) */
+    private String[] expecteds = null;
+    /** rows (optional) */
+    private int[] rows = null;
+    /** columns (optional) */
+    private int[] cols = null;
+    /** extra details (optional) */
+    private String[] details = null;
+
+    DataLocation(final Rule rule, final boolean checkDataType) {
+        this(rule, checkDataType, Integer.MAX_VALUE);
+    }
+
+    DataLocation(final Rule rule, final boolean checkDataType, final int maxSize) {
         // null table
         this.rule = rule;
+        this.checkDataType = checkDataType;
+        this.maxSize = maxSize;
+    }
+
+    private void checkDataType(final RuleDataType expected) {
+        if (checkDataType) {
+            rule.checkDataType(expected);
+        }
     }
 
     /* ------------  ALL HELPER FOR DIFFERENT ARGUMENTS  --------------- */
@@ -59,8 +102,8 @@ public final class DataLocation {
      * @param value int
      */
     public void addFixedValue(int value) {
-        rule.checkDataType(RuleDataType.VALUE);
-        setValues(NumberUtils.valueOf(value), null, null, null, null, null);
+        checkDataType(RuleDataType.VALUE);
+        add(TYPE_INT, value, null, TYPE_NONE, 0.0, null, NONE, NONE, null);
     }
 
     // 3
@@ -69,8 +112,8 @@ public final class DataLocation {
      * @param value String
      */
     public void addFixedValue(String value) {
-        rule.checkDataType(RuleDataType.VALUE);
-        setValues(value, null, null, null, null, null);
+        checkDataType(RuleDataType.VALUE);
+        add(TYPE_STRING, 0.0, value, TYPE_NONE, 0.0, null, NONE, NONE, null);
     }
 
     // 12
@@ -79,8 +122,8 @@ public final class DataLocation {
      * @param value String
      */
     public void addKeywordValue(String value) {
-        rule.checkDataType(RuleDataType.VALUE);
-        setValues(value, null, null, null, null, null);
+        checkDataType(RuleDataType.VALUE);
+        add(TYPE_STRING, 0.0, value, TYPE_NONE, 0.0, null, NONE, NONE, null);
     }
 
     // 3
@@ -89,8 +132,8 @@ public final class DataLocation {
      * @param value double
      */
     public void addKeywordValue(double value) {
-        rule.checkDataType(RuleDataType.VALUE);
-        setValues(Double.valueOf(value), null, null, null, null, null);
+        checkDataType(RuleDataType.VALUE);
+        add(TYPE_DOUBLE, value, null, TYPE_NONE, 0.0, null, NONE, NONE, null);
     }
 
     // 6
@@ -100,8 +143,8 @@ public final class DataLocation {
      * @param expected String
      */
     public void addKeywordValue(String value, String expected) {
-        rule.checkDataType(RuleDataType.VALUE_EXPECTED);
-        setValues(value, null, expected, null, null, null);
+        checkDataType(RuleDataType.VALUE_EXPECTED);
+        add(TYPE_STRING, 0.0, value, TYPE_NONE, 0.0, expected, NONE, NONE, null);
     }
 
     // 4
@@ -111,8 +154,8 @@ public final class DataLocation {
      * @param expected char
      */
     public void addKeywordValue(char value, char expected) {
-        rule.checkDataType(RuleDataType.VALUE_EXPECTED);
-        setValues(String.valueOf(value), null, String.valueOf(expected), null, null, null);
+        checkDataType(RuleDataType.VALUE_EXPECTED);
+        add(TYPE_STRING, 0.0, String.valueOf(value), TYPE_NONE, 0.0, String.valueOf(expected), NONE, NONE, null);
     }
 
     // 1
@@ -122,8 +165,8 @@ public final class DataLocation {
      * @param expected String
      */
     public void addKeywordValue(short value, String expected) {
-        rule.checkDataType(RuleDataType.VALUE_EXPECTED);
-        setValues(Short.valueOf(value), null, expected, null, null, null);
+        checkDataType(RuleDataType.VALUE_EXPECTED);
+        add(TYPE_SHORT, value, null, TYPE_NONE, 0.0, expected, NONE, NONE, null);
     }
 
     // 1
@@ -133,8 +176,8 @@ public final class DataLocation {
      * @param expected int
      */
     public void addKeywordValue(int value, int expected) {
-        rule.checkDataType(RuleDataType.VALUE_EXPECTED);
-        setValues(NumberUtils.valueOf(value), null, String.valueOf(expected), null, null, null);
+        checkDataType(RuleDataType.VALUE_EXPECTED);
+        add(TYPE_INT, value, null, TYPE_NONE, 0.0, String.valueOf(expected), NONE, NONE, null);
     }
 
     // 1
@@ -144,8 +187,8 @@ public final class DataLocation {
      * @param expected String
      */
     public void addKeywordValue(double value, String expected) {
-        rule.checkDataType(RuleDataType.VALUE_EXPECTED);
-        setValues(Double.valueOf(value), null, expected, null, null, null);
+        checkDataType(RuleDataType.VALUE_EXPECTED);
+        add(TYPE_DOUBLE, value, null, TYPE_NONE, 0.0, expected, NONE, NONE, null);
     }
 
     // Value / row
@@ -156,8 +199,8 @@ public final class DataLocation {
      * @param row int
      */
     public void addValueAt(String value, int row) {
-        rule.checkDataType(RuleDataType.VALUE_ROW);
-        setValues(value, null, null, NumberUtils.valueOf(row), null, null);
+        checkDataType(RuleDataType.VALUE_ROW);
+        add(TYPE_STRING, 0.0, value, TYPE_NONE, 0.0, null, row, NONE, null);
     }
 
     // 2
@@ -167,8 +210,8 @@ public final class DataLocation {
      * @param row int
      */
     public void addValueAt(short value, int row) {
-        rule.checkDataType(RuleDataType.VALUE_ROW);
-        setValues(Short.valueOf(value), null, null, NumberUtils.valueOf(row), null, null);
+        checkDataType(RuleDataType.VALUE_ROW);
+        add(TYPE_SHORT, value, null, TYPE_NONE, 0.0, null, row, NONE, null);
     }
 
     // 2
@@ -178,8 +221,8 @@ public final class DataLocation {
      * @param row int
      */
     public void addValueAt(int value, int row) {
-        rule.checkDataType(RuleDataType.VALUE_ROW);
-        setValues(NumberUtils.valueOf(value), null, null, NumberUtils.valueOf(row), null, null);
+        checkDataType(RuleDataType.VALUE_ROW);
+        add(TYPE_INT, value, null, TYPE_NONE, 0.0, null, row, NONE, null);
     }
 
     // 2
@@ -189,8 +232,8 @@ public final class DataLocation {
      * @param row int
      */
     public void addValueAt(float value, int row) {
-        rule.checkDataType(RuleDataType.VALUE_ROW);
-        setValues(Float.valueOf(value), null, null, NumberUtils.valueOf(row), null, null);
+        checkDataType(RuleDataType.VALUE_ROW);
+        add(TYPE_FLOAT, value, null, TYPE_NONE, 0.0, null, row, NONE, null);
     }
 
     // 7
@@ -200,8 +243,8 @@ public final class DataLocation {
      * @param row int
      */
     public void addValueAt(double value, int row) {
-        rule.checkDataType(RuleDataType.VALUE_ROW);
-        setValues(Double.valueOf(value), null, null, NumberUtils.valueOf(row), null, null);
+        checkDataType(RuleDataType.VALUE_ROW);
+        add(TYPE_DOUBLE, value, null, TYPE_NONE, 0.0, null, row, NONE, null);
     }
 
     // 1
@@ -212,8 +255,8 @@ public final class DataLocation {
      * @param row int
      */
     public void addValueAt(short value, String expected, int row) {
-        rule.checkDataType(RuleDataType.VALUE_EXPECTED_ROW);
-        setValues(Short.valueOf(value), null, expected, NumberUtils.valueOf(row), null, null);
+        checkDataType(RuleDataType.VALUE_EXPECTED_ROW);
+        add(TYPE_SHORT, value, null, TYPE_NONE, 0.0, expected, row, NONE, null);
     }
 
     // 1
@@ -224,8 +267,8 @@ public final class DataLocation {
      * @param row int
      */
     public void addValueAt(String value, String expected, int row) {
-        rule.checkDataType(RuleDataType.VALUE_EXPECTED_ROW);
-        setValues(value, null, expected, NumberUtils.valueOf(row), null, null);
+        checkDataType(RuleDataType.VALUE_EXPECTED_ROW);
+        add(TYPE_STRING, 0.0, value, TYPE_NONE, 0.0, expected, row, NONE, null);
     }
 
     // 4
@@ -236,8 +279,8 @@ public final class DataLocation {
      * @param row int
      */
     public void addValuesAt(int value, int limit, int row) {
-        rule.checkDataType(RuleDataType.VALUE_LIMIT_ROW);
-        setValues(NumberUtils.valueOf(value), NumberUtils.valueOf(limit), null, NumberUtils.valueOf(row), null, null);
+        checkDataType(RuleDataType.VALUE_LIMIT_ROW);
+        add(TYPE_INT, value, null, TYPE_INT, limit, null, row, NONE, null);
     }
 
     // 1
@@ -248,8 +291,8 @@ public final class DataLocation {
      * @param row int
      */
     public void addValuesAt(double value, double limit, int row) {
-        rule.checkDataType(RuleDataType.VALUE_LIMIT_ROW);
-        setValues(Double.valueOf(value), Double.valueOf(limit), null, NumberUtils.valueOf(row), null, null);
+        checkDataType(RuleDataType.VALUE_LIMIT_ROW);
+        add(TYPE_DOUBLE, value, null, TYPE_DOUBLE, limit, null, row, NONE, null);
     }
 
     // 2
@@ -260,8 +303,8 @@ public final class DataLocation {
      * @param row2 int
      */
     public void addValueAtRows(short value, int row1, int row2) {
-        rule.checkDataType(RuleDataType.VALUE_ROW1_ROW2);
-        setValues(Short.valueOf(value), null, null, null, null, "" + row1 + " | " + row2);
+        checkDataType(RuleDataType.VALUE_ROW1_ROW2);
+        add(TYPE_SHORT, value, null, TYPE_NONE, 0.0, null, NONE, NONE, "" + row1 + " | " + row2);
     }
 
     // 2
@@ -272,8 +315,8 @@ public final class DataLocation {
      * @param row2 int
      */
     public void addValueAtRows(String value, int row1, int row2) {
-        rule.checkDataType(RuleDataType.VALUE_ROW1_ROW2);
-        setValues(value, null, null, null, null, "" + row1 + " | " + row2);
+        checkDataType(RuleDataType.VALUE_ROW1_ROW2);
+        add(TYPE_STRING, 0.0, value, TYPE_NONE, 0.0, null, NONE, NONE, "" + row1 + " | " + row2);
     }
 
     // Value / row / col    
@@ -285,8 +328,8 @@ public final class DataLocation {
      * @param col int
      */
     public void addColValueAt(String value, int row, int col) {
-        rule.checkDataType(RuleDataType.VALUE_ROW_COL);
-        setValues(value, null, null, NumberUtils.valueOf(row), NumberUtils.valueOf(col), null);
+        checkDataType(RuleDataType.VALUE_ROW_COL);
+        add(TYPE_STRING, 0.0, value, TYPE_NONE, 0.0, null, row, col, null);
     }
 
     // 2
@@ -297,8 +340,8 @@ public final class DataLocation {
      * @param col int
      */
     public void addColValueAt(short value, int row, int col) {
-        rule.checkDataType(RuleDataType.VALUE_ROW_COL);
-        setValues(Short.valueOf(value), null, null, NumberUtils.valueOf(row), NumberUtils.valueOf(col), null);
+        checkDataType(RuleDataType.VALUE_ROW_COL);
+        add(TYPE_SHORT, value, null, TYPE_NONE, 0.0, null, row, col, null);
     }
 
     // 1
@@ -309,8 +352,8 @@ public final class DataLocation {
      * @param col int
      */
     public void addColValueAt(float value, int row, int col) {
-        rule.checkDataType(RuleDataType.VALUE_ROW_COL);
-        setValues(Float.valueOf(value), null, null, NumberUtils.valueOf(row), NumberUtils.valueOf(col), null);
+        checkDataType(RuleDataType.VALUE_ROW_COL);
+        add(TYPE_FLOAT, value, null, TYPE_NONE, 0.0, null, row, col, null);
     }
 
     // 2
@@ -321,8 +364,8 @@ public final class DataLocation {
      * @param col int
      */
     public void addColValueAt(double value, int row, int col) {
-        rule.checkDataType(RuleDataType.VALUE_ROW_COL);
-        setValues(Double.valueOf(value), null, null, NumberUtils.valueOf(row), NumberUtils.valueOf(col), null);
+        checkDataType(RuleDataType.VALUE_ROW_COL);
+        add(TYPE_DOUBLE, value, null, TYPE_NONE, 0.0, null, row, col, null);
     }
 
     // 1
@@ -334,8 +377,8 @@ public final class DataLocation {
      * @param col int
      */
     public void addColValueAt(short value, String expected, int row, int col) {
-        rule.checkDataType(RuleDataType.VALUE_EXPECTED_ROW_COL);
-        setValues(Short.valueOf(value), null, expected, NumberUtils.valueOf(row), NumberUtils.valueOf(col), null);
+        checkDataType(RuleDataType.VALUE_EXPECTED_ROW_COL);
+        add(TYPE_SHORT, value, null, TYPE_NONE, 0.0, expected, row, col, null);
     }
 
     // 1
@@ -347,8 +390,8 @@ public final class DataLocation {
      * @param col2 int
      */
     public void addValueAtCols(short value, int row, int col1, int col2) {
-        rule.checkDataType(RuleDataType.VALUE_ROW_COL1_COL2);
-        setValues(Short.valueOf(value), null, null, NumberUtils.valueOf(row), null, "" + col1 + " | " + col2);
+        checkDataType(RuleDataType.VALUE_ROW_COL1_COL2);
+        add(TYPE_SHORT, value, null, TYPE_NONE, 0.0, null, row, NONE, "" + col1 + " | " + col2);
     }
 
     // 1
@@ -360,132 +403,363 @@ public final class DataLocation {
      * @param details String
      */
     public void addColValueAt(int value, int row, int col, String details) {
-        rule.checkDataType(RuleDataType.VALUE_ROW_COL_DETAILS);
-        setValues(NumberUtils.valueOf(value), null, null, NumberUtils.valueOf(row), NumberUtils.valueOf(col), details);
+        checkDataType(RuleDataType.VALUE_ROW_COL_DETAILS);
+        add(TYPE_INT, value, null, TYPE_NONE, 0.0, null, row, col, details);
     }
 
     /**
-     * Private constructor and ensureCapacity for all ArrayLists
-     * @param value value Object 
-     * @param limit limit values (optional)
-     * @param expected expected values (optional)
+     * Store the given entry (or count it if the maximum number of entries is reached)
+     * @param valueType value type
+     * @param valueNum numeric value
+     * @param valueStr string value
+     * @param limitType limit type (optional)
+     * @param limitNum numeric limit
+     * @param expected expected value (optional)
      * @param row row's failures information (optional)
      * @param col column's failures information (optional)
-     * @param details more details information on failures (optional)
-     */
-    private void setValues(Object value, Object limit, String expected, Integer row, Integer col, String details) {
-        ensureCapacity();
-        this.values.add(value);
-        this.limits.add(limit);
-        this.expecteds.add(expected);
-        this.rows.add(row);
-        this.cols.add(col);
-        this.details.add(details);
-    }
-
-    private void ensureCapacity() {
-        if (isEmpty()) {
-            values = new ArrayList<Object>(10);
-            limits = new ArrayList<Object>(10);
-            expecteds = new ArrayList<String>(10);
-            rows = new ArrayList<Integer>(10);
-            cols = new ArrayList<Integer>(10);
-            details = new ArrayList<String>(10);
-        } else {
-            final int newSize = values.size() + 1;
-            values.ensureCapacity(newSize);
-            limits.ensureCapacity(newSize);
-            expecteds.ensureCapacity(newSize);
-            rows.ensureCapacity(newSize);
-            cols.ensureCapacity(newSize);
-            details.ensureCapacity(newSize);
+     * @param detail more details information on failures (optional)
+     */
+    private void add(final byte valueType, final double valueNum, final String valueStr,
+                     final byte limitType, final double limitNum, final String expected,
+                     final int row, final int col, final String detail) {
+        if (size >= maxSize) {
+            overflow++;
+            return;
+        }
+        ensureCapacity(size + 1);
+        final int i = size++;
+
+        valueTypes[i] = valueType;
+        valueNums[i] = valueNum;
+        if (valueStr != null) {
+            if (valueStrs == null) {
+                valueStrs = new String[valueTypes.length];
+            }
+            valueStrs[i] = valueStr;
+        }
+        if (limitType != TYPE_NONE) {
+            if (limitTypes == null) {
+                limitTypes = new byte[valueTypes.length];
+                limitNums = new double[valueTypes.length];
+            }
+            limitTypes[i] = limitType;
+            limitNums[i] = limitNum;
+        }
+        if (expected != null) {
+            if (expecteds == null) {
+                expecteds = new String[valueTypes.length];
+            }
+            expecteds[i] = expected;
+        }
+        if (row != NONE) {
+            if (rows == null) {
+                rows = newIndexArray(valueTypes.length);
+            }
+            rows[i] = row;
+        }
+        if (col != NONE) {
+            if (cols == null) {
+                cols = newIndexArray(valueTypes.length);
+            }
+            cols[i] = col;
+        }
+        if (detail != null) {
+            if (details == null) {
+                details = new String[valueTypes.length];
+            }
+            details[i] = detail;
         }
     }
 
     /**
-     * Check Array values is null or empty
-     * @return boolean true if array values isEmpty
+     * Append all data of the given DataLocation
+     * @param other DataLocation to append
+     */
+    void addAll(final DataLocation other) {
+        for (int i = 0; i < other.size; i++) {
+            add(other.valueTypes[i], other.valueNums[i], (other.valueStrs != null) ? other.valueStrs[i] : null,
+                    (other.limitTypes != null) ? other.limitTypes[i] : TYPE_NONE,
+                    (other.limitNums != null) ? other.limitNums[i] : 0.0,
+                    (other.expecteds != null) ? other.expecteds[i] : null,
+                    (other.rows != null) ? other.rows[i] : NONE,
+                    (other.cols != null) ? other.cols[i] : NONE,
+                    (other.details != null) ? other.details[i] : null);
+        }
+        overflow += other.overflow;
+    }
+
+    private void ensureCapacity(final int minCapacity) {
+        if (valueTypes == null) {
+            final int capacity = Math.max(INITIAL_CAPACITY, minCapacity);
+            valueTypes = new byte[capacity];
+            valueNums = new double[capacity];
+        } else if (minCapacity > valueTypes.length) {
+            // grow by 50% (like ArrayList):
+            final int capacity = Math.max(minCapacity, valueTypes.length + (valueTypes.length >> 1));
+            valueTypes = Arrays.copyOf(valueTypes, capacity);
+            valueNums = Arrays.copyOf(valueNums, capacity);
+            if (valueStrs != null) {
+                valueStrs = Arrays.copyOf(valueStrs, capacity);
+            }
+            if (limitTypes != null) {
+                limitTypes = Arrays.copyOf(limitTypes, capacity);
+                limitNums = Arrays.copyOf(limitNums, capacity);
+            }
+            if (expecteds != null) {
+                expecteds = Arrays.copyOf(expecteds, capacity);
+            }
+            if (rows != null) {
+                rows = copyIndexArray(rows, capacity);
+            }
+            if (cols != null) {
+                cols = copyIndexArray(cols, capacity);
+            }
+            if (details != null) {
+                details = Arrays.copyOf(details, capacity);
+            }
+        }
+    }
+
+    private static int[] newIndexArray(final int capacity) {
+        final int[] array = new int[capacity];
+        Arrays.fill(array, NONE);
+        return array;
+    }
+
+    private static int[] copyIndexArray(final int[] array, final int capacity) {
+        final int[] copy = Arrays.copyOf(array, capacity);
+        Arrays.fill(copy, array.length, capacity, NONE);
+        return copy;
+    }
+
+    private static Object toObject(final byte type, final double num, final String str) {
+        switch (type) {
+            case TYPE_SHORT:
+                return Short.valueOf((short) num);
+            case TYPE_INT:
+                return NumberUtils.valueOf((int) num);
+            case TYPE_FLOAT:
+                return Float.valueOf((float) num);
+            case TYPE_DOUBLE:
+                return Double.valueOf(num);
+            case TYPE_STRING:
+                return str;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Check no data was added (stored or not)
+     * @return boolean true if no data was added
      */
     public boolean isEmpty() {
-        return values == null;
+        return (size == 0) && (overflow == 0L);
     }
 
     /* --------------- GETTER --------------------*/
     /**
-     * Return the values
-     * @return values
+     * Return the number of stored entries
+     * @return number of stored entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return the number of entries not stored (maximum number of entries reached)
+     * @return number of entries not stored
+     */
+    public long getOverflow() {
+        return overflow;
+    }
+
+    /**
+     * Return the value at the given index
+     * @param index entry index
+     * @return value (String, Short, Integer, Float or Double)
+     */
+    public Object getValue(final int index) {
+        return toObject(valueTypes[index], valueNums[index], (valueStrs != null) ? valueStrs[index] : null);
+    }
+
+    /**
+     * Return the limit at the given index
+     * @param index entry index
+     * @return limit (Integer or Double) or null
+     */
+    public Object getLimit(final int index) {
+        return (limitTypes != null) ? toObject(limitTypes[index], limitNums[index], null) : null;
+    }
+
+    /**
+     * Return the expected value at the given index
+     * @param index entry index
+     * @return expected value or null
+     */
+    public String getExpected(final int index) {
+        return (expecteds != null) ? expecteds[index] : null;
+    }
+
+    /**
+     * Return the row at the given index
+     * @param index entry index
+     * @return row or null
+     */
+    public Integer getRow(final int index) {
+        return ((rows != null) && (rows[index] != NONE)) ? NumberUtils.valueOf(rows[index]) : null;
+    }
+
+    /**
+     * Return the column at the given index
+     * @param index entry index
+     * @return column or null
+     */
+    public Integer getCol(final int index) {
+        return ((cols != null) && (cols[index] != NONE)) ? NumberUtils.valueOf(cols[index]) : null;
+    }
+
+    /**
+     * Return the details at the given index
+     * @param index entry index
+     * @return details or null
+     */
+    public String getDetail(final int index) {
+        return (details != null) ? details[index] : null;
+    }
+
+    /**
+     * Return the values (copy)
+     * @return values or null if empty
      */
     public ArrayList<Object> getValues() {
-        return values;
+        if (size == 0) {
+            return null;
+        }
+        final ArrayList<Object> list = new ArrayList<Object>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(getValue(i));
+        }
+        return list;
     }
 
     /**
-     * Return the limits
-     * @return limits
+     * Return the limits (copy)
+     * @return limits or null if empty
      */
     public ArrayList<Object> getLimits() {
-        return limits;
+        if (size == 0) {
+            return null;
+        }
+        final ArrayList<Object> list = new ArrayList<Object>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(getLimit(i));
+        }
+        return list;
     }
 
     /**
-     * Return the expecteds values
-     * @return expecteds
+     * Return the expecteds values (copy)
+     * @return expecteds or null if empty
      */
     public ArrayList<String> getExpecteds() {
-        return expecteds;
+        if (size == 0) {
+            return null;
+        }
+        final ArrayList<String> list = new ArrayList<String>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(getExpected(i));
+        }
+        return list;
     }
 
     /**
-     * Return the rows
-     * @return rows
+     * Return the rows (copy)
+     * @return rows or null if empty
      */
     public ArrayList<Integer> getRows() {
-        return rows;
+        if (size == 0) {
+            return null;
+        }
+        final ArrayList<Integer> list = new ArrayList<Integer>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(getRow(i));
+        }
+        return list;
     }
 
     /**
-     * Return the cols
-     * @return cols
+     * Return the cols (copy)
+     * @return cols or null if empty
      */
     public ArrayList<Integer> getCols() {
-        return cols;
+        if (size == 0) {
+            return null;
+        }
+        final ArrayList<Integer> list = new ArrayList<Integer>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(getCol(i));
+        }
+        return list;
     }
 
     /**
-     * Return the details
-     * @return details
+     * Return the details (copy)
+     * @return details or null if empty
      */
     public ArrayList<String> getDetails() {
-        return details;
+        if (size == 0) {
+            return null;
+        }
+        final ArrayList<String> list = new ArrayList<String>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(getDetail(i));
+        }
+        return list;
     }
 
     String formatMessage(final String ruleMessage, final int index) {
-        if (isEmpty()) {
+        if (size == 0) {
             // rule message should be complete:
             return ruleMessage;
         }
+        final Object value = getValue(index);
+        final Object limit = getLimit(index);
+        final String expected = getExpected(index);
+        final Integer row = getRow(index);
+        final Integer col = getCol(index);
+        final String detail = getDetail(index);
+
         String msg = ruleMessage;
         msg = msg.replaceAll("\\{\\{VALUE\\}\\}",
-                (getValues().get(index) != null) ? getValues().get(index).toString() : ""
+                (value != null) ? value.toString() : ""
         );
         msg = msg.replaceAll("\\{\\{LIMIT\\}\\}",
-                (getLimits().get(index) != null) ? getLimits().get(index).toString() : ""
+                (limit != null) ? limit.toString() : ""
         );
         msg = msg.replaceAll("\\{\\{EXPECTED\\}\\}",
-                (getExpecteds().get(index) != null) ? getExpecteds().get(index) : ""
+                (expected != null) ? expected : ""
         );
         msg = msg.replaceAll("\\{\\{ROW\\}\\}",
-                (getRows().get(index) != null) ? getRows().get(index).toString() : ""
+                (row != null) ? row.toString() : ""
         );
         msg = msg.replaceAll("\\{\\{COL\\}\\}",
-                (getCols().get(index) != null) ? getCols().get(index).toString() : ""
+                (col != null) ? col.toString() : ""
         );
         msg = msg.replaceAll("\\{\\{DETAILS\\}\\}",
-                (getDetails().get(index) != null) ? getDetails().get(index) : ""
+                (detail != null) ? detail : ""
         );
         return msg;
     }
 
+    /**
+     * Return the message giving the number of entries not stored
+     * @return message giving the number of entries not stored
+     */
+    String formatOverflowMessage() {
+        return rule.name() + ": " + overflow + ((size != 0) ? " more" : "") + " occurrences (not stored)";
+    }
+
     /**
      * Returns a string representation of this class
      * @return a string representation of this class
@@ -501,41 +775,45 @@ public final class DataLocation {
      * @return a string representation of this class
      */
     public StringBuilder toString(final StringBuilder sb) {
-        if (!isEmpty()) {
-            // TODO FIX: message
-            for (int i = 0, len = getValues().size(); i < len; i++) {
-                sb.append('\n');
-                sb.append('[');
-                sb.append(getValues().get(i));
-                sb.append('\t');
-
-                if (!getLimits().isEmpty() && getLimits().get(i) != null) {
-                    sb.append(getLimits().get(i));
-                }
-                sb.append('\t');
-
-                if (!getExpecteds().isEmpty() && getExpecteds().get(i) != null) {
-                    sb.append(getExpecteds().get(i));
-                }
-                sb.append('\t');
-
-                if (!getRows().isEmpty() && getRows().get(i) != null) {
-                    sb.append(getRows().get(i));
-                }
-                sb.append('\t');
-
-                if (!getCols().isEmpty() && getCols().get(i) != null) {
-                    sb.append(getCols().get(i));
-
-                }
-                sb.append('\t');
-
-                if (!getDetails().isEmpty() && getDetails().get(i) != null) {
-                    sb.append(getDetails().get(i));
-
-                }
-                sb.append(']');
+        // TODO FIX: message
+        for (int i = 0; i < size; i++) {
+            sb.append('\n');
+            sb.append('[');
+            sb.append(getValue(i));
+            sb.append('\t');
+
+            final Object limit = getLimit(i);
+            if (limit != null) {
+                sb.append(limit);
             }
+            sb.append('\t');
+
+            final String expected = getExpected(i);
+            if (expected != null) {
+                sb.append(expected);
+            }
+            sb.append('\t');
+
+            final Integer row = getRow(i);
+            if (row != null) {
+                sb.append(row);
+            }
+            sb.append('\t');
+
+            final Integer col = getCol(i);
+            if (col != null) {
+                sb.append(col);
+            }
+            sb.append('\t');
+
+            final String detail = getDetail(i);
+            if (detail != null) {
+                sb.append(detail);
+            }
+            sb.append(']');
+        }
+        if (overflow != 0L) {
+            sb.append("\n[").append(formatOverflowMessage()).append(']');
         }
         return sb;
     }
@@ -548,42 +826,46 @@ public final class DataLocation {
      * @return a XML representation of this class
      */
     public StringBuilder toXML(final StringBuilder sb, final String ruleMessage, final DataLocation data) {
-        if (!isEmpty()) {
-            for (int i = 0, len = getValues().size(); i < len; i++) {
-                sb.append("    <data>\n");
-                sb.append("      <value>").append(getValues().get(i)).append("</value>\n");
-
-                Object limit = getLimits().get(i);
-                if (limit != null) {
-                    sb.append("      <limit>").append(limit).append("</limit>\n");
-                }
-
-                String expected = getExpecteds().get(i);
-                if (expected != null) {
-                    sb.append("      <expected>").append(expected).append("</expected>\n");
-                }
-
-                Integer row = getRows().get(i);
-                if (row != null) {
-                    sb.append("      <row>").append(row).append("</row>\n");
-                }
-
-                Integer col = getCols().get(i);
-                if (col != null) {
-                    sb.append("      <col>").append(col).append("</col>\n");
-                }
-
-                String detail = getDetails().get(i);
-                if (detail != null) {
-                    sb.append("      <detail>").append(detail).append("</detail>\n");
-                }
-
-                sb.append("      <message>");
-                sb.append(encodeTagContent(data.formatMessage(ruleMessage, i)));
-                sb.append("</message>\n");
-
-                sb.append("    </data>\n");
+        for (int i = 0; i < size; i++) {
+            sb.append("    <data>\n");
+            sb.append("      <value>").append(getValue(i)).append("</value>\n");
+
+            final Object limit = getLimit(i);
+            if (limit != null) {
+                sb.append("      <limit>").append(limit).append("</limit>\n");
+            }
+
+            final String expected = getExpected(i);
+            if (expected != null) {
+                sb.append("      <expected>").append(expected).append("</expected>\n");
+            }
+
+            final Integer row = getRow(i);
+            if (row != null) {
+                sb.append("      <row>").append(row).append("</row>\n");
+            }
+
+            final Integer col = getCol(i);
+            if (col != null) {
+                sb.append("      <col>").append(col).append("</col>\n");
+            }
+
+            final String detail = getDetail(i);
+            if (detail != null) {
+                sb.append("      <detail>").append(detail).append("</detail>\n");
             }
+
+            sb.append("      <message>");
+            sb.append(encodeTagContent(data.formatMessage(ruleMessage, i)));
+            sb.append("</message>\n");
+
+            sb.append("    </data>\n");
+        }
+        if (overflow != 0L) {
+            sb.append("    <overflow>").append(overflow).append("</overflow>\n");
+            sb.append("    <message>");
+            sb.append(encodeTagContent(formatOverflowMessage()));
+            sb.append("</message>\n");
         }
         return sb;
     }
@@ -164,12 +164,12 @@ public final class DataModel {
         OIFitsLoader.loadOIFits(checker, absFilePath);
 
         // load file V1 with V2 table (catch failures)
-        OIFitsChecker.setInspectMode(InspectMode.CASE_V2_IN_V1);
+        checker.setInspectMode(InspectMode.CASE_V2_IN_V1);
         try {
             absFilePath = TEST_DIR + "corrupted/V1_with_V2_Tables.fits";
             OIFitsLoader.loadOIFits(checker, absFilePath);
         } finally {
-            OIFitsChecker.setInspectMode(InspectMode.NORMAL);
+            checker.setInspectMode(InspectMode.NORMAL);
         }
 
         // fake data model (catch V1 structure failures):
@@ -527,7 +527,7 @@ public final class DataModel {
                     logger.log(Level.WARNING, "Missing standard set for {0}", rule);
                 }
             } else if (rule.getStandard().contains(oiFitsFile.getVersion())) {
-                rule.toXml(sb, ignore);
+                rule.toXml(sb, ignore, true);
             }
         }
         sb.append("</rules>\n");
@@ -547,10 +547,9 @@ public final class DataModel {
         setOiVisComplexSupport(all);
         setOiVis2ExtraSupport(false); // ASPRO2 only
 
-        OIFitsChecker.setInspectRules(true);
         try {
             // create once, collect all rules & failures:
-            final OIFitsChecker checker = new OIFitsChecker();
+            final OIFitsChecker checker = new OIFitsChecker(true);
 
             dumpCorrupted(checker);
 
@@ -562,8 +561,6 @@ public final class DataModel {
             logger.log(Level.SEVERE, "IO failure", ioe);
         } catch (FitsException ex) {
             logger.log(Level.SEVERE, "Fits File failure", ex);
-        } finally {
-            OIFitsChecker.setInspectRules(false);
         }
     }
 
@@ -0,0 +1,339 @@
+/* 
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools.model;
+
+import fr.jmmc.oitools.model.range.Range;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Index of the (sorted) granules of an OIFits collection:
+ * - posting lists by target, instrument mode and night (granules having an undefined field are always candidates)
+ * - static interval trees on MJD ranges and wavelength ranges
+ *
+ * Index queries return candidates (in sorted order) to be checked by the GranuleMatcher,
+ * so the query cost scales with the result size instead of the collection size.
+ *
+ * @author bourgesl
+ */
+final class GranuleIndex {
+
+    /* members */
+    /** sorted granules */
+    private final List<Granule> granules;
+    /** granule positions keyed by target */
+    private final Map<Target, int[]> perTarget;
+    /** granule positions keyed by instrument mode */
+    private final Map<InstrumentMode, int[]> perInsMode;
+    /** granule positions keyed by night */
+    private final Map<NightId, int[]> perNight;
+    /** interval tree on MJD ranges */
+    private final IntervalTree mjdTree;
+    /** interval tree on wavelength ranges */
+    private final IntervalTree wavelengthTree;
+
+    /**
+     * Create the index of the given sorted granules
+     * @param granules sorted granules
+     */
+    GranuleIndex(final List<Granule> granules) {
+        this.granules = granules;
+
+        final int len = granules.size();
+        final Map<Target, IntList> targets = new HashMap<Target, IntList>();
+        final Map<InstrumentMode, IntList> insModes = new HashMap<InstrumentMode, IntList>();
+        final Map<NightId, IntList> nights = new HashMap<NightId, IntList>();
+        final IntList noTarget = new IntList();
+        final IntList noInsMode = new IntList();
+        final IntList noNight = new IntList();
+
+        final Range[] mjdRanges = new Range[len];
+        final Range[] wavelengthRanges = new Range[len];
+
+        for (int i = 0; i < len; i++) {
+            final Granule g = granules.get(i);
+
+            add(targets, g.getTarget(), noTarget, i);
+            add(insModes, g.getInsMode(), noInsMode, i);
+            add(nights, g.getNight(), noNight, i);
+
+            // undefined ranges are always candidates (see GranuleMatcher):
+            mjdRanges[i] = (g.hasMjdRange()) ? g.getMjdRange() : null;
+            wavelengthRanges[i] = (g.getInsMode() != null) ? g.getInsMode().getWavelengthRange() : null;
+        }
+        this.perTarget = toPostings(targets, noTarget);
+        this.perInsMode = toPostings(insModes, noInsMode);
+        this.perNight = toPostings(nights, noNight);
+        this.mjdTree = new IntervalTree(mjdRanges);
+        this.wavelengthTree = new IntervalTree(wavelengthRanges);
+    }
+
+    /**
+     * Return the sorted granules
+     * @return sorted granules
+     */
+    List<Granule> getGranules() {
+        return granules;
+    }
+
+    /**
+     * Return the candidate granules (sorted) that may match the given criteria
+     * @param pattern granule pattern (target, instrument mode, night: null means any)
+     * @param mjdRanges selected MJD ranges (null means any)
+     * @param wavelengthRanges selected wavelength ranges (null means any)
+     * @return candidate granules (new list)
+     */
+    List<Granule> getCandidates(final Granule pattern, final Collection<Range> mjdRanges, final Collection<Range> wavelengthRanges) {
+        // use the smallest posting list:
+        int[] positions = null;
+        if (pattern.getTarget() != null) {
+            positions = smallest(positions, perTarget, pattern.getTarget(), perTarget.get(null));
+        }
+        if (pattern.getInsMode() != null) {
+            positions = smallest(positions, perInsMode, pattern.getInsMode(), perInsMode.get(null));
+        }
+        if (pattern.getNight() != null) {
+            positions = smallest(positions, perNight, pattern.getNight(), perNight.get(null));
+        }
+        if (positions == null) {
+            if ((mjdRanges != null) && !mjdRanges.isEmpty()) {
+                positions = mjdTree.query(mjdRanges);
+            } else if ((wavelengthRanges != null) && !wavelengthRanges.isEmpty()) {
+                positions = wavelengthTree.query(wavelengthRanges);
+            }
+        }
+        if (positions == null) {
+            return new ArrayList<Granule>(granules);
+        }
+        final List<Granule> candidates = new ArrayList<Granule>(positions.length);
+        for (int pos : positions) {
+            candidates.add(granules.get(pos));
+        }
+        return candidates;
+    }
+
+    private static <K> int[] smallest(final int[] current, final Map<K, int[]> postings, final K key, final int[] undefined) {
+        int[] positions = postings.get(key);
+        if (positions == null) {
+            // only granules having an undefined field:
+            positions = undefined;
+        }
+        return ((current == null) || (positions.length < current.length)) ? positions : current;
+    }
+
+    private static <K> void add(final Map<K, IntList> map, final K key, final IntList undefined, final int pos) {
+        if (key == null) {
+            undefined.add(pos);
+        } else {
+            IntList list = map.get(key);
+            if (list == null) {
+                list = new IntList();
+                map.put(key, list);
+            }
+            list.add(pos);
+        }
+    }
+
+    private static <K> Map<K, int[]> toPostings(final Map<K, IntList> map, final IntList undefined) {
+        final Map<K, int[]> postings = new HashMap<K, int[]>(map.size() * 2);
+        for (Map.Entry<K, IntList> e : map.entrySet()) {
+            // merge granules having an undefined field (sorted positions):
+            postings.put(e.getKey(), IntList.merge(e.getValue(), undefined));
+        }
+        // null key: only granules having an undefined field:
+        postings.put(null, undefined.toArray());
+        return postings;
+    }
+
+    /**
+     * Static interval tree (sorted by range minimum, augmented with subtree maximums)
+     */
+    private static final class IntervalTree {
+
+        /** granule positions sorted by range minimum */
+        private final int[] positions;
+        /** range minimums (sorted) */
+        private final double[] mins;
+        /** range maximums */
+        private final double[] maxs;
+        /** maximum of range maximums in each subtree (implicit tree over the sorted arrays) */
+        private final double[] subtreeMax;
+        /** positions of granules having undefined ranges (always candidates) */
+        private final int[] others;
+
+        IntervalTree(final Range[] ranges) {
+            final IntList defined = new IntList();
+            final IntList undefined = new IntList();
+
+            for (int i = 0; i < ranges.length; i++) {
+                final Range r = ranges[i];
+                if ((r != null) && Range.isFinite(r.getMin(), r.getMax())) {
+                    defined.add(i);
+                } else {
+                    undefined.add(i);
+                }
+            }
+            final int len = defined.size();
+            final Integer[] order = new Integer[len];
+            for (int i = 0; i < len; i++) {
+                order[i] = Integer.valueOf(defined.get(i));
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(final Integer p1, final Integer p2) {
+                    return Double.compare(ranges[p1.intValue()].getMin(), ranges[p2.intValue()].getMin());
+                }
+            });
+
+            this.positions = new int[len];
+            this.mins = new double[len];
+            this.maxs = new double[len];
+            for (int i = 0; i < len; i++) {
+                final Range r = ranges[order[i].intValue()];
+                positions[i] = order[i].intValue();
+                mins[i] = r.getMin();
+                maxs[i] = r.getMax();
+            }
+            this.subtreeMax = new double[len];
+            if (len != 0) {
+                buildMax(0, len - 1);
+            }
+            this.others = undefined.toArray();
+        }
+
+        private double buildMax(final int lo, final int hi) {
+            final int mid = (lo + hi) >>> 1;
+            double max = maxs[mid];
+            if (lo < mid) {
+                max = Math.max(max, buildMax(lo, mid - 1));
+            }
+            if (mid < hi) {
+                max = Math.max(max, buildMax(mid + 1, hi));
+            }
+            subtreeMax[mid] = max;
+            return max;
+        }
+
+        /**
+         * Return the sorted positions of granules whose range may overlap any given range
+         * (see Range.overlap: undefined bounds mean unbounded)
+         * @param ranges selected ranges
+         * @return sorted positions
+         */
+        int[] query(final Collection<Range> ranges) {
+            final IntList result = new IntList();
+            for (int i = 0; i < others.length; i++) {
+                result.add(others[i]);
+            }
+            if (mins.length != 0) {
+                for (Range r : ranges) {
+                    final double min = Double.isNaN(r.getMin()) ? Double.NEGATIVE_INFINITY : r.getMin();
+                    final double max = Double.isNaN(r.getMax()) ? Double.POSITIVE_INFINITY : r.getMax();
+                    query(0, mins.length - 1, min, max, result);
+                }
+            }
+            return result.toSortedDistinctArray();
+        }
+
+        private void query(final int lo, final int hi, final double min, final double max, final IntList result) {
+            final int mid = (lo + hi) >>> 1;
+            if (subtreeMax[mid] < min) {
+                // no range in this subtree ends after min:
+                return;
+            }
+            if (lo < mid) {
+                query(lo, mid - 1, min, max, result);
+            }
+            if (mins[mid] > max) {
+                // ranges on the right start after max:
+                return;
+            }
+            if (maxs[mid] >= min) {
+                result.add(positions[mid]);
+            }
+            if (mid < hi) {
+                query(mid + 1, hi, min, max, result);
+            }
+        }
+    }
+
+    /**
+     * Growable int array
+     */
+    private static final class IntList {
+
+        private int[] values = new int[4];
+        private int size = 0;
+
+        void add(final int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(final int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+
+        int[] toSortedDistinctArray() {
+            final int[] sorted = toArray();
+            Arrays.sort(sorted);
+            int len = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                if ((len == 0) || (sorted[len - 1] != sorted[i])) {
+                    sorted[len++] = sorted[i];
+                }
+            }
+            return Arrays.copyOf(sorted, len);
+        }
+
+        /**
+         * Merge two sorted lists
+         */
+        static int[] merge(final IntList l1, final IntList l2) {
+            final int[] merged = new int[l1.size + l2.size];
+            int i = 0, j = 0, k = 0;
+            while (i < l1.size && j < l2.size) {
+                merged[k++] = (l1.values[i] <= l2.values[j]) ? l1.values[i++] : l2.values[j++];
+            }
+            while (i < l1.size) {
+                merged[k++] = l1.values[i++];
+            }
+            while (j < l2.size) {
+                merged[k++] = l2.values[j++];
+            }
+            return merged;
+        }
+    }
+}
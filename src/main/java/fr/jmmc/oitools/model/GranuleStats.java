@@ -0,0 +1,153 @@
+/* 
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools.model;
+
+/**
+ * Statistics of one granule (target + night) gathered from OIData rows:
+ * number of rows per data type, minimal integration time and facility name (ARRNAME).
+ * Used by listings and stored in the OIFitsCatalog.
+ *
+ * @author bourgesl
+ */
+public final class GranuleStats {
+
+    /* members */
+    /** number of OI_VIS rows */
+    private int nbVis = 0;
+    /** number of OI_VIS2 rows */
+    private int nbVis2 = 0;
+    /** number of OI_T3 rows */
+    private int nbT3 = 0;
+    /** minimal INT_TIME */
+    private double intTime = Double.POSITIVE_INFINITY;
+    /** first facility name (ARRNAME) */
+    private String facilityName = "";
+
+    /**
+     * Public constructor (empty statistics)
+     */
+    public GranuleStats() {
+        super();
+    }
+
+    /**
+     * Package constructor (catalog)
+     * @param nbVis number of OI_VIS rows
+     * @param nbVis2 number of OI_VIS2 rows
+     * @param nbT3 number of OI_T3 rows
+     * @param intTime minimal INT_TIME
+     * @param facilityName facility name
+     */
+    GranuleStats(final int nbVis, final int nbVis2, final int nbT3, final double intTime, final String facilityName) {
+        this.nbVis = nbVis;
+        this.nbVis2 = nbVis2;
+        this.nbT3 = nbT3;
+        this.intTime = intTime;
+        this.facilityName = facilityName;
+    }
+
+    /**
+     * Add the rows of the given table matching the given target ids and night
+     * @param oiData OIData table
+     * @param targetIdMatcher target id matcher (null means no match)
+     * @param nightId night id
+     */
+    public void add(final OIData oiData, final TargetIdMatcher targetIdMatcher, final int nightId) {
+        if (targetIdMatcher != null) {
+            /* one oiData table, search for target by targetid (and nightid) */
+            final int nbRows = oiData.getNbRows();
+            final short[] targetIds = oiData.getTargetId();
+            final int[] nightIds = oiData.getNightId();
+            final double[] intTimes = oiData.getIntTime();
+
+            boolean match = false;
+
+            for (int i = 0; i < nbRows; i++) {
+                // same target and same night:
+                if (targetIdMatcher.match(targetIds[i]) && (nightId == nightIds[i])) {
+                    // TODO: count flag? what to do with flagged measures?
+                    // TODO: check for NaN values ?
+                    // number of rows in data tables:
+                    if (oiData instanceof OIVis) {
+                        nbVis += 1;
+                    } else if (oiData instanceof OIVis2) {
+                        nbVis2 += 1;
+                    } else if (oiData instanceof OIT3) {
+                        nbT3 += 1;
+                    }
+                    // TODO: add OIFlux ?
+
+                    /* search for minimal (?) INT_TIME for target */
+                    final double t = intTimes[i];
+                    if (t < intTime) {
+                        intTime = t;
+                    }
+
+                    match = true;
+                }
+            } // rows
+            if (match && facilityName.isEmpty() && oiData.getArrName() != null) {
+                facilityName = oiData.getArrName(); // potential multiple ARRNAME values !
+            }
+        }
+    }
+
+    /**
+     * Merge the given statistics into this instance
+     * @param other statistics to merge
+     */
+    public void add(final GranuleStats other) {
+        nbVis += other.getNbVis();
+        nbVis2 += other.getNbVis2();
+        nbT3 += other.getNbT3();
+        if (other.getIntTime() < intTime) {
+            intTime = other.getIntTime();
+        }
+        if (facilityName.isEmpty()) {
+            facilityName = other.getFacilityName();
+        }
+    }
+
+    public int getNbVis() {
+        return nbVis;
+    }
+
+    public int getNbVis2() {
+        return nbVis2;
+    }
+
+    public int getNbT3() {
+        return nbT3;
+    }
+
+    public double getIntTime() {
+        return intTime;
+    }
+
+    public String getFacilityName() {
+        return facilityName;
+    }
+
+    @Override
+    public String toString() {
+        return "GranuleStats{" + "nbVis=" + nbVis + ", nbVis2=" + nbVis2 + ", nbT3=" + nbT3
+                + ", intTime=" + intTime + ", facilityName=" + facilityName + '}';
+    }
+}
@@ -19,17 +19,25 @@
  ******************************************************************************/
 package fr.jmmc.oitools.model;
 
+import fr.jmmc.oitools.fits.FlatColumn;
 import fr.jmmc.oitools.meta.ColumnMeta;
+import fr.jmmc.oitools.meta.Types;
 import static fr.jmmc.oitools.model.ModelBase.UNDEFINED_DBL;
 import gnu.jel.CompilationException;
 import gnu.jel.CompiledExpression;
 import gnu.jel.DVMap;
 import gnu.jel.Evaluator;
 import gnu.jel.Library;
+import java.lang.reflect.Member;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -41,6 +49,29 @@ public class JELEval extends ExpressionEvaluator {
 
     /** logger */
     private final static Logger _logger = Logger.getLogger(JELEval.class.getName());
+    /** maximum number of compiled expressions kept in the cache */
+    private final static int MAX_CACHE_SIZE = 256;
+    /** minimum number of cells (rows x waves) to evaluate in parallel */
+    private final static int PARALLEL_THRESHOLD = 64 * 1024;
+    /** state dependent function (Math.random) */
+    private final static String FUNC_RANDOM = "random";
+
+    /* members */
+    /** LRU cache of compiled expressions keyed by expression and column names (access order, guarded by itself) */
+    private final Map<String, CompiledHolder> cache = new LinkedHashMap<String, CompiledHolder>(64, 0.75f, true) {
+        /** default serial UID for Serializable interface */
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, CompiledHolder> eldest) {
+            // evict the least recently used entry:
+            return size() > MAX_CACHE_SIZE;
+        }
+    };
+    /** number of cache lookups */
+    private final AtomicLong cacheLookups = new AtomicLong();
+    /** number of cache misses (compilations) */
+    private final AtomicLong cacheMisses = new AtomicLong();
 
     public JELEval() {
     }
@@ -90,33 +121,15 @@ public class JELEval extends ExpressionEvaluator {
             }
         }
 
-        // Prepare the variable resolver used by compilation only:
-        final VariableResolver resolver = new VariableResolver(jelNames);
-
         // Output: always 2D array returned
         final double[][] result = new double[nRows][nWaves];
 
         try {
-            // Setup JEL!
-            final Class<?>[] staticLib = new Class<?>[2];
-            staticLib[0] = Math.class;
-            staticLib[1] = JELFunctions.class;
-
-            final Class<?>[] dynamicLib = new Class<?>[2];
-
-            // Both dynamicLib and context arrays must be consistent:
-            dynamicLib[0] = VariableResolver.class;
-            dynamicLib[1] = VariableProvider.class;
-
-            final Library lib = new Library(staticLib, dynamicLib, null, resolver, null);
-
-            // Math.random():
-            lib.markStateDependent("random", null);
-
-            // Compile expression
-            _logger.fine("Compilation ...");
+            // Compile expression (cached):
+            final CompiledEntry compiled = getCompiledExpression(expression, jelNames, n);
 
-            final CompiledExpression expr_c = Evaluator.compile(expression, lib);
+            final VariableResolver resolver = compiled.resolver;
+            final CompiledExpression expr_c = compiled.expression;
 
             // Retrieve values:
             // Uniquement les colonnes utilisées => VariableResolver.usedNames
@@ -145,8 +158,12 @@ public class JELEval extends ExpressionEvaluator {
                     if (usedNames.contains(colName)) {
                         // only names with double[][] or double[] values:
                         if (colMeta.isArray()) {
-                            // 2D column
-                            col = new JELColumn(colName, oiData.getColumnAsDoubles(colName));
+                            // 2D column (flat arrays are not converted):
+                            final FlatColumn flat = (colMeta.getDataType() == Types.TYPE_DBL)
+                                    ? oiData.getColumnFlat(colName) : null;
+
+                            col = (flat != null) ? new JELColumn(colName, flat)
+                                    : new JELColumn(colName, oiData.getColumnAsDoubles(colName));
                         } else {
                             // 1D column
                             col = new JELColumn(colName, oiData.getColumnAsDouble(colName));
@@ -162,27 +179,30 @@ public class JELEval extends ExpressionEvaluator {
                 }
             }
 
-            // Prepare the variable resolver used by evaluation only:
-            final VariableProvider varProvider = new VariableProvider(jelColums);
-
-            final Object[] context = new Object[2];
-            context[0] = resolver;
-            context[1] = varProvider;
+            // Used columns are known: if none is a 2D column, the expression only depends on the row
+            // so it is evaluated once per row and its result broadcasted along wavelengths:
+            boolean broadcast = !compiled.stateDependent;
+            for (JELColumn col : jelColums) {
+                if ((col != null) && col.is2D()) {
+                    broadcast = false;
+                    break;
+                }
+            }
+            if (_logger.isLoggable(Level.FINE)) {
+                _logger.log(Level.FINE, "broadcast: {0}", broadcast);
+            }
 
             // Execute compiled expression:
-            double[] row;
-
-            // On connait les JELColumns utilisées
-            // Donc on peut déduire si la boucle est en 1D ou en 2D ?
-            for (int i = 0; i < nRows; i++) {
-                varProvider.i = i;
-                row = result[i];
-
-                for (int j = 0; j < nWaves; j++) {
-                    varProvider.j = j;
-
-                    row[j] = expr_c.evaluate_double(context);
-                }
+            if ((nRows > 1) && ((long) nRows * (broadcast ? 1 : nWaves) >= PARALLEL_THRESHOLD)) {
+                // split rows across the fork-join pool (one VariableProvider per task):
+                final int nTasks = 4 * ForkJoinPool.getCommonPoolParallelism();
+                final int rowsPerTask = Math.max(1, (nRows + nTasks - 1) / nTasks);
+
+                ForkJoinPool.commonPool().invoke(
+                        new EvalTask(expr_c, resolver, jelColums, broadcast, result, 0, nRows, nWaves, rowsPerTask)
+                );
+            } else {
+                evaluate(expr_c, resolver, jelColums, broadcast, result, 0, nRows, nWaves);
             }
         } catch (CompilationException ce) {
             if (testOnly) {
@@ -197,6 +217,10 @@ public class JELEval extends ExpressionEvaluator {
                 Arrays.fill(result[i], UNDEFINED_DBL);
             }
         } catch (Throwable th) {
+            if (th instanceof EvalException) {
+                // evaluation failure in a parallel task:
+                th = th.getCause();
+            }
             // impossible case
             throw new IllegalStateException("JEL error: expression compilation or evaluation failure"
                     + " [" + th.getMessage() + "]", th);
@@ -208,6 +232,315 @@ public class JELEval extends ExpressionEvaluator {
         return result;
     }
 
+    /**
+     * Evaluate the compiled expression on the given rows
+     * @param expr_c compiled expression
+     * @param resolver variable resolver
+     * @param jelColums input columns
+     * @param broadcast true to evaluate the expression once per row (no 2D column used)
+     * @param result output array
+     * @param fromRow first row (inclusive)
+     * @param toRow last row (exclusive)
+     * @param nWaves number of wavelengths
+     * @throws Throwable if any evaluation failure
+     */
+    private static void evaluate(final CompiledExpression expr_c, final VariableResolver resolver,
+                                 final JELColumn[] jelColums, final boolean broadcast, final double[][] result,
+                                 final int fromRow, final int toRow, final int nWaves) throws Throwable {
+
+        // Prepare the variable resolver used by evaluation only:
+        final VariableProvider varProvider = new VariableProvider(jelColums);
+
+        final Object[] context = new Object[2];
+        context[0] = resolver;
+        context[1] = varProvider;
+
+        double[] row;
+
+        if (broadcast) {
+            varProvider.j = 0;
+
+            for (int i = fromRow; i < toRow; i++) {
+                varProvider.i = i;
+                row = result[i];
+
+                if (nWaves != 0) {
+                    Arrays.fill(row, expr_c.evaluate_double(context));
+                }
+            }
+        } else {
+            for (int i = fromRow; i < toRow; i++) {
+                varProvider.i = i;
+                row = result[i];
+
+                for (int j = 0; j < nWaves; j++) {
+                    varProvider.j = j;
+
+                    row[j] = expr_c.evaluate_double(context);
+                }
+            }
+        }
+    }
+
+    /**
+     * Fork-join task evaluating the compiled expression on a range of rows
+     */
+    private final static class EvalTask extends RecursiveAction {
+
+        /** default serial UID for Serializable interface */
+        private static final long serialVersionUID = 1L;
+        /* members */
+        private final CompiledExpression expr_c;
+        private final VariableResolver resolver;
+        private final JELColumn[] jelColums;
+        private final boolean broadcast;
+        private final double[][] result;
+        private final int fromRow;
+        private final int toRow;
+        private final int nWaves;
+        private final int rowsPerTask;
+
+        EvalTask(final CompiledExpression expr_c, final VariableResolver resolver,
+                 final JELColumn[] jelColums, final boolean broadcast, final double[][] result,
+                 final int fromRow, final int toRow, final int nWaves, final int rowsPerTask) {
+            this.expr_c = expr_c;
+            this.resolver = resolver;
+            this.jelColums = jelColums;
+            this.broadcast = broadcast;
+            this.result = result;
+            this.fromRow = fromRow;
+            this.toRow = toRow;
+            this.nWaves = nWaves;
+            this.rowsPerTask = rowsPerTask;
+        }
+
+        @Override
+        protected void compute() {
+            if (toRow - fromRow <= rowsPerTask) {
+                try {
+                    evaluate(expr_c, resolver, jelColums, broadcast, result, fromRow, toRow, nWaves);
+                } catch (Throwable th) {
+                    throw new EvalException(th);
+                }
+            } else {
+                final int mid = (fromRow + toRow) >>> 1;
+                invokeAll(
+                        new EvalTask(expr_c, resolver, jelColums, broadcast, result, fromRow, mid, nWaves, rowsPerTask),
+                        new EvalTask(expr_c, resolver, jelColums, broadcast, result, mid, toRow, nWaves, rowsPerTask)
+                );
+            }
+        }
+    }
+
+    /**
+     * Unchecked exception wrapping any evaluation failure in a fork-join task
+     */
+    private final static class EvalException extends RuntimeException {
+
+        /** default serial UID for Serializable interface */
+        private static final long serialVersionUID = 1L;
+
+        EvalException(final Throwable cause) {
+            super(cause);
+        }
+    }
+
+    /**
+     * Return the compiled expression for the given expression and column names from the cache
+     * or compile it once (not cached if the compilation fails).
+     * When the cache is full, the least recently used entry is evicted.
+     * @param expression expression entered by the user
+     * @param jelNames input column names
+     * @param nNames number of input column names
+     * @return compiled expression and its variable resolver
+     * @throws CompilationException if the expression is invalid
+     */
+    private CompiledEntry getCompiledExpression(final String expression, final String[] jelNames,
+                                                final int nNames) throws CompilationException {
+        // key = expression + column name signature:
+        final StringBuilder sb = new StringBuilder(expression.length() + 16 * nNames);
+        sb.append(expression).append('\n');
+        for (int i = 0; i < nNames; i++) {
+            sb.append(jelNames[i]).append(',');
+        }
+        final String key = sb.toString();
+
+        cacheLookups.incrementAndGet();
+
+        CompiledHolder holder;
+        synchronized (cache) {
+            // get() updates the access order:
+            holder = cache.get(key);
+            if (holder == null) {
+                holder = new CompiledHolder();
+                cache.put(key, holder);
+            }
+        }
+        try {
+            // compiled at most once per key (concurrent callers wait for it outside the cache lock):
+            return holder.get(expression, jelNames, nNames);
+        } catch (CompilationException ce) {
+            synchronized (cache) {
+                // do not cache invalid expressions:
+                if (cache.get(key) == holder) {
+                    cache.remove(key);
+                }
+            }
+            throw ce;
+        }
+    }
+
+    /**
+     * Compile the given expression for the given column names
+     * @param expression expression entered by the user
+     * @param jelNames input column names
+     * @param nNames number of input column names
+     * @return compiled expression and its variable resolver
+     * @throws CompilationException if the expression is invalid
+     */
+    private static CompiledEntry compile(final String expression, final String[] jelNames,
+                                         final int nNames) throws CompilationException {
+        // Prepare the variable resolver used by compilation only:
+        final VariableResolver resolver = new VariableResolver(Arrays.copyOf(jelNames, nNames));
+
+        // Setup JEL!
+        final Class<?>[] staticLib = new Class<?>[2];
+        staticLib[0] = Math.class;
+        staticLib[1] = JELFunctions.class;
+
+        final Class<?>[] dynamicLib = new Class<?>[2];
+
+        // Both dynamicLib and context arrays must be consistent:
+        dynamicLib[0] = VariableResolver.class;
+        dynamicLib[1] = VariableProvider.class;
+
+        final MemberLibrary lib = new MemberLibrary(staticLib, dynamicLib, resolver);
+
+        // Math.random():
+        lib.markStateDependent(FUNC_RANDOM, null);
+
+        // Compile expression
+        _logger.fine("Compilation ...");
+
+        final CompiledExpression expr_c = Evaluator.compile(expression, lib);
+
+        if (_logger.isLoggable(Level.FINE)) {
+            _logger.log(Level.FINE, "stateDependent: {0}", lib.stateDependent);
+        }
+        return new CompiledEntry(resolver, expr_c, lib.stateDependent);
+    }
+
+    /**
+     * JEL library recording if the compiled expression calls any state dependent function (Math.random)
+     */
+    private final static class MemberLibrary extends Library {
+
+        /** true if a state dependent function is used */
+        boolean stateDependent = false;
+
+        MemberLibrary(final Class<?>[] staticLib, final Class<?>[] dynamicLib, final VariableResolver resolver) {
+            super(staticLib, dynamicLib, null, resolver, null);
+        }
+
+        @Override
+        public Member getMember(final Class<?> container, final String name, final Class<?>[] params) throws CompilationException {
+            final Member member = super.getMember(container, name, params);
+
+            // column values (dynamic library) only depend on the current cell:
+            if ((member != null) && (member.getDeclaringClass() != VariableProvider.class)
+                    && (member.getDeclaringClass() != VariableResolver.class) && !isStateless(member)) {
+                stateDependent = true;
+            }
+            return member;
+        }
+    }
+
+    /**
+     * Return the number of compiled expressions found in the cache
+     * @return number of cache hits
+     */
+    public long getCacheHits() {
+        return cacheLookups.get() - cacheMisses.get();
+    }
+
+    /**
+     * Return the number of expressions compiled (not found in the cache)
+     * @return number of cache misses
+     */
+    public long getCacheMisses() {
+        return cacheMisses.get();
+    }
+
+    /**
+     * Clear the cache of compiled expressions and its counters
+     */
+    public void clearCache() {
+        synchronized (cache) {
+            cache.clear();
+        }
+        cacheLookups.set(0L);
+        cacheMisses.set(0L);
+    }
+
+    /**
+     * Cache entry compiling its expression once (on first access)
+     */
+    private final class CompiledHolder {
+
+        /** compiled expression (guarded by this) */
+        private CompiledEntry entry = null;
+        /** compilation failure (guarded by this) */
+        private CompilationException failure = null;
+
+        CompiledHolder() {
+            super();
+        }
+
+        /**
+         * Return the compiled expression or compile it (once)
+         * @param expression expression entered by the user
+         * @param jelNames input column names
+         * @param nNames number of input column names
+         * @return compiled expression and its variable resolver
+         * @throws CompilationException if the expression is invalid
+         */
+        synchronized CompiledEntry get(final String expression, final String[] jelNames,
+                                       final int nNames) throws CompilationException {
+            if (entry == null) {
+                if (failure != null) {
+                    throw failure;
+                }
+                cacheMisses.incrementAndGet();
+                try {
+                    entry = compile(expression, jelNames, nNames);
+                } catch (CompilationException ce) {
+                    failure = ce;
+                    throw ce;
+                }
+            }
+            return entry;
+        }
+    }
+
+    /**
+     * Compiled expression with its variable resolver (immutable once compiled)
+     */
+    private final static class CompiledEntry {
+
+        /** variable resolver giving the used column names */
+        final VariableResolver resolver;
+        /** compiled expression */
+        final CompiledExpression expression;
+        /** true if the expression calls a state dependent function (random) */
+        final boolean stateDependent;
+
+        CompiledEntry(final VariableResolver resolver, final CompiledExpression expression, final boolean stateDependent) {
+            this.resolver = resolver;
+            this.expression = expression;
+            this.stateDependent = stateDependent;
+        }
+    }
+
     /**
      * This class is public and overridden public methods are required by JEL
      */
@@ -271,8 +604,9 @@ public class JELEval extends ExpressionEvaluator {
         public double getDoubleProperty(final int index) {
             final JELColumn col = columns[index];
 
-            return (col.values2D != null) ? col.values2D[i][j]
-                    : (col.values1D != null) ? col.values1D[i] : UNDEFINED_DBL;
+            return (col.flatValues != null) ? col.flatValues[i * col.stride + j]
+                    : (col.values2D != null) ? col.values2D[i][j]
+                            : (col.values1D != null) ? col.values1D[i] : UNDEFINED_DBL;
         }
     }
 
@@ -281,22 +615,43 @@ public class JELEval extends ExpressionEvaluator {
         final String name;
         final double[] values1D;
         final double[][] values2D;
+        /** flat 2D values (row-major) */
+        final double[] flatValues;
+        /** number of values per row in flatValues */
+        final int stride;
 
         JELColumn(final String name, final double[] values1D) {
             this.name = name;
             this.values1D = values1D;
             this.values2D = null;
+            this.flatValues = null;
+            this.stride = 0;
         }
 
         JELColumn(final String name, final double[][] values2D) {
             this.name = name;
             this.values1D = null;
             this.values2D = values2D;
+            this.flatValues = null;
+            this.stride = 0;
+        }
+
+        JELColumn(final String name, final FlatColumn flat) {
+            this.name = name;
+            this.values1D = null;
+            this.values2D = null;
+            this.flatValues = flat.getDoubles();
+            this.stride = flat.getStride();
+        }
+
+        boolean is2D() {
+            return (values2D != null) || (flatValues != null);
         }
 
         @Override
         public String toString() {
-            return "JELColumn{" + "name=" + name + ", values1D=" + Arrays.toString(values1D) + ", values2D=" + Arrays.toString(values2D) + '}';
+            return "JELColumn{" + "name=" + name + ", values1D=" + Arrays.toString(values1D) + ", values2D=" + Arrays.toString(values2D)
+                    + ", flatValues=" + Arrays.toString(flatValues) + ", stride=" + stride + '}';
         }
     }
 }
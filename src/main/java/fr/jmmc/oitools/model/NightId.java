@@ -21,8 +21,8 @@ package fr.jmmc.oitools.model;
 
 import fr.jmmc.jmcs.util.NumberUtils;
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * A value-type (immutable) representing a single night in any OI_Data table
@@ -39,8 +39,8 @@ public final class NightId {
         }
     };
 
-    /** cached NightId instances */
-    private final static Map<NightId, NightId> CACHE = new HashMap<NightId, NightId>(64);
+    /** cached NightId instances (thread-safe) */
+    private final static ConcurrentMap<NightId, NightId> CACHE = new ConcurrentHashMap<NightId, NightId>(64);
 
     public static NightId getCachedInstance(final int nightId) {
         NightId n = new NightId(nightId);
@@ -55,9 +55,15 @@ public final class NightId {
         return CACHE.get(nightId);
     }
 
+    /**
+     * Store the given NightId in the cache if absent
+     * Warning: never alter the given instance once cached !
+     * @param nightId NightId instance
+     * @return the cached instance (the given one or the one cached concurrently)
+     */
     public static NightId putCachedInstance(final NightId nightId) {
-        CACHE.put(nightId, nightId);
-        return nightId;
+        final NightId previous = CACHE.putIfAbsent(nightId, nightId);
+        return (previous != null) ? previous : nightId;
     }
 
     /* members */
@@ -215,7 +215,7 @@ public abstract class OIAbstractData extends OITable {
     public void checkKeywords(final OIFitsChecker checker) {
         super.checkKeywords(checker);
 
-        if (OIFitsChecker.isInspectRules() || ((getArrName() != null) && (getOiArray() == null))) {
+        if (checker.isInspectRules() || ((getArrName() != null) && (getOiArray() == null))) {
             // rule [ARRNAME_REF] check if an OI_ARRAY table matches the ARRNAME keyword
             checker.ruleFailed(Rule.ARRNAME_REF, this, OIFitsConstants.KEYWORD_ARRNAME).addKeywordValue(getArrName());
         }
@@ -227,6 +227,10 @@ public abstract class OIAbstractData extends OITable {
      * @param name column name
      */
     protected void checkMJDColumn(final OIFitsChecker checker, final String name) {
+        if (checker.isSkippedColumn(this, name) || checker.isSkipData()) {
+            // column not loaded (column projection) or not read (lazy loading):
+            return;
+        }
         final Range mjdRange = getColumnRange(name);
         checkMJD(checker, name, mjdRange.getMin());
         checkMJD(checker, name, mjdRange.getMax());
@@ -20,6 +20,7 @@
 package fr.jmmc.oitools.model;
 
 import fr.jmmc.oitools.OIFitsConstants;
+import fr.jmmc.oitools.fits.FlatColumn;
 import fr.jmmc.oitools.meta.ColumnMeta;
 import fr.jmmc.oitools.meta.DataRange;
 import fr.jmmc.oitools.meta.KeywordMeta;
@@ -329,6 +330,16 @@ public final class OIArray extends OITable {
      * @param z value 3 of SATXYZ
      */
     public void setStaXYZ(final int row, final double x, final double y, final double z) {
+        final FlatColumn flat = getColumnFlat(OIFitsConstants.COLUMN_STA_XYZ);
+        if (flat != null) {
+            // update the flat storage (getStaXYZ() returns a copy):
+            final double[] values = flat.getDoubles();
+            final int offset = flat.getOffset(row);
+            values[offset] = x;
+            values[offset + 1] = y;
+            values[offset + 2] = z;
+            return;
+        }
         final double[] staXYZ = getStaXYZ()[row];
         staXYZ[0] = x;
         staXYZ[1] = y;
@@ -390,17 +401,17 @@ public final class OIArray extends OITable {
         super.checkSyntax(checker);
 
         // rule [OI_ARRAY_ARRNAME] check the ARRNAME keyword has a not null or empty value
-        if (((getArrName() != null) && (getArrName().length() == 0)) || OIFitsChecker.isInspectRules()) {
+        if (((getArrName() != null) && (getArrName().length() == 0)) || checker.isInspectRules()) {
             checker.ruleFailed(Rule.OI_ARRAY_ARRNAME, this, OIFitsConstants.KEYWORD_ARRNAME);
         }
 
-        if (OIFitsConstants.KEYWORD_FRAME_GEOCENTRIC.equalsIgnoreCase(getFrame()) || OIFitsChecker.isInspectRules()) {
+        if (OIFitsConstants.KEYWORD_FRAME_GEOCENTRIC.equalsIgnoreCase(getFrame()) || checker.isInspectRules()) {
             final double[] arrayXYZ = getArrayXYZ();
 
             // ensure coordinates != 0 (not undefined; expected correctly set)
             final double norm = MathUtils.carthesianNorm(arrayXYZ[0], arrayXYZ[1], arrayXYZ[2]);
             // rule [OI_ARRAY_XYZ] check if the ARRAY_XYZ keyword values corresponds to a proper coordinate on earth
-            if ((Double.isNaN(norm) || (norm <= MIN_EARTH_RADIUS)) || OIFitsChecker.isInspectRules()) {
+            if ((Double.isNaN(norm) || (norm <= MIN_EARTH_RADIUS)) || checker.isInspectRules()) {
                 checker.ruleFailed(Rule.OI_ARRAY_XYZ, this, OIFitsConstants.KEYWORD_ARRAY_X).addKeywordValue(arrayXYZ[0]);
                 checker.ruleFailed(Rule.OI_ARRAY_XYZ, this, OIFitsConstants.KEYWORD_ARRAY_Y).addKeywordValue(arrayXYZ[1]);
                 checker.ruleFailed(Rule.OI_ARRAY_XYZ, this, OIFitsConstants.KEYWORD_ARRAY_Z).addKeywordValue(arrayXYZ[2]);
@@ -420,7 +431,7 @@ public final class OIArray extends OITable {
                         // other interferometers ?
                         fixed = null;
                     }
-                    if ((fixed != null) || OIFitsChecker.isInspectRules()) {
+                    if ((fixed != null) || checker.isInspectRules()) {
                         checker.ruleFailed(Rule.OI_ARRAY_XYZ_FIX, this).addFixedValue(fixed);
                     }
                 }
@@ -431,24 +442,24 @@ public final class OIArray extends OITable {
         final String[] staNames = getStaName();
 
         for (int i = 0; i < staIndexes.length; i++) {
-            if ((staNames[i] == null) || OIFitsChecker.isInspectRules()) {
+            if ((staNames[i] == null) || checker.isInspectRules()) {
                 // rule [OI_ARRAY_STA_NAME] check if the STA_NAME column values have a not null or empty value
                 checker.ruleFailed(Rule.OI_ARRAY_STA_NAME, this, OIFitsConstants.COLUMN_STA_NAME).addValueAt(staNames[i], i);
             }
-            if ((staNames[i] != null) || OIFitsChecker.isInspectRules()) {
+            if ((staNames[i] != null) || checker.isInspectRules()) {
                 final short refId = staIndexes[i];
                 final String refName = staNames[i];
                 // rule [OI_ARRAY_STA_INDEX_MIN] check if the STA_INDEX values >= 1
-                if ((refId < 1) || OIFitsChecker.isInspectRules()) {
+                if ((refId < 1) || checker.isInspectRules()) {
                     checker.ruleFailed(Rule.OI_ARRAY_STA_INDEX_MIN, this, OIFitsConstants.COLUMN_STA_INDEX).addValueAt(refId, i);
                 }
                 for (int j = i + 1; j < staIndexes.length; j++) {
                     // rule [OI_ARRAY_STA_INDEX_UNIQ] check duplicated indexes in the STA_INDEX column of the OI_ARRAY table
-                    if ((refId == staIndexes[j]) || OIFitsChecker.isInspectRules()) {
+                    if ((refId == staIndexes[j]) || checker.isInspectRules()) {
                         checker.ruleFailed(Rule.OI_ARRAY_STA_INDEX_UNIQ, this, OIFitsConstants.COLUMN_STA_INDEX).addValueAtRows(refId, i, j);
                     }
                     // rule [OI_ARRAY_STA_NAME_UNIQ] check duplicated values in the STA_NAME column of the OI_ARRAY table
-                    if (refName.equals(staNames[j]) || OIFitsChecker.isInspectRules()) {
+                    if (refName.equals(staNames[j]) || checker.isInspectRules()) {
                         checker.ruleFailed(Rule.OI_ARRAY_STA_NAME_UNIQ, this, OIFitsConstants.COLUMN_STA_NAME).addValueAtRows(refName, i, j);
                     }
                 }
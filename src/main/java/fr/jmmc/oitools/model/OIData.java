@@ -23,6 +23,7 @@ import fr.jmmc.jmcs.util.NumberUtils;
 import fr.jmmc.oitools.OIFitsConstants;
 import fr.jmmc.oitools.fits.FitsConstants;
 import fr.jmmc.oitools.fits.FitsHDU;
+import fr.jmmc.oitools.fits.FlatColumn;
 import static fr.jmmc.oitools.meta.CellMeta.NO_STR_VALUES;
 import fr.jmmc.oitools.meta.ColumnMeta;
 import fr.jmmc.oitools.meta.DataRange;
@@ -791,7 +792,7 @@ public abstract class OIData extends OIAbstractData {
 
                 for (int j = k + 1; j < indexes.length; j++) {
                     // rule [GENERIC_STA_INDEX_UNIQ] check duplicated indexes inside each STA_INDEX column values (data table)
-                    if ((refId == indexes[j]) || OIFitsChecker.isInspectRules()) {
+                    if ((refId == indexes[j]) || checker.isInspectRules()) {
                         checker.ruleFailed(Rule.GENERIC_STA_INDEX_UNIQ, oiData, OIFitsConstants.COLUMN_STA_INDEX).addValueAtCols(refId, i, k, j);
                     }
                 }
@@ -822,11 +823,11 @@ public abstract class OIData extends OIAbstractData {
             final int idxI = corrindx[row];
 
             // rule [GENERIC_CORRINDX_MIN] check if the CORRINDX values >= 1
-            if ((idxI < 1) || OIFitsChecker.isInspectRules()) {
+            if ((idxI < 1) || checker.isInspectRules()) {
                 checker.ruleFailed(Rule.GENERIC_CORRINDX_MIN, oidata, colName).addValueAt(idxI, row);
             }
             // rule [GENERIC_CORRINDX_MAX] check if the CORRINDX values <= NDATA
-            if ((idxI > ndata) || OIFitsChecker.isInspectRules()) {
+            if ((idxI > ndata) || checker.isInspectRules()) {
                 checker.ruleFailed(Rule.GENERIC_CORRINDX_MAX, oidata, colName).addValuesAt(idxI, ndata, row);
             }
 
@@ -834,8 +835,8 @@ public abstract class OIData extends OIAbstractData {
                 final Integer index = NumberUtils.valueOf(idxI + l);
 
                 // rule [GENERIC_CORRINDX_UNIQ] check duplicates or overlaps within correlation indexes (CORRINDX)
-                if (corrChecker.contains(index) || OIFitsChecker.isInspectRules()) {
-                    checker.ruleFailed(Rule.GENERIC_CORRINDX_UNIQ, oidata, colName).addColValueAt(index, row, l, ((OIFitsChecker.isInspectRules()) ? "[[ORIGIN]]" : corrChecker.getOriginAsString(index)));
+                if (corrChecker.contains(index) || checker.isInspectRules()) {
+                    checker.ruleFailed(Rule.GENERIC_CORRINDX_UNIQ, oidata, colName).addColValueAt(index, row, l, ((checker.isInspectRules()) ? "[[ORIGIN]]" : corrChecker.getOriginAsString(index)));
                 } else {
                     corrChecker.put(index, oidata.getExtName(), oidata.getExtNb(), colName, row, l);
                 }
@@ -909,6 +910,42 @@ public abstract class OIData extends OIAbstractData {
         distinctStaConf.clear();
     }
 
+    /**
+     * Return a new table of the same type without any column sharing the keyword values and column units of this table
+     * (used by OIDataChunkReader)
+     * @return new OIData instance
+     */
+    final OIData createChunkTable() {
+        final OIFitsFile oifitsFile = getOIFitsFile();
+        final OIData chunk;
+
+        if (this instanceof OIVis) {
+            chunk = new OIVis(oifitsFile);
+        } else if (this instanceof OIVis2) {
+            chunk = new OIVis2(oifitsFile);
+        } else if (this instanceof OIT3) {
+            chunk = new OIT3(oifitsFile);
+        } else if (this instanceof OIFlux) {
+            chunk = new OIFlux(oifitsFile);
+        } else {
+            throw new IllegalStateException("Unsupported table: " + idToString());
+        }
+        chunk.copyHdu(this);
+        // column units (FLUXDATA / FLUXERR ...) are not copied by copyHdu():
+        chunk.copyCustomUnits(this);
+        chunk.setExtNb(getExtNb());
+        return chunk;
+    }
+
+    /**
+     * Define the number of rows of the current chunk and clear any cached value (used by OIDataChunkReader)
+     * @param nbRows number of rows
+     */
+    final void setChunkRows(final int nbRows) {
+        setNbRows(nbRows);
+        setChanged();
+    }
+
     /**
      * Get number of data flagged out
      * @return nFlagged
@@ -992,9 +1029,122 @@ public abstract class OIData extends OIAbstractData {
     }
 
     /**
-     * Return true if the given error value is valid ie. NaN or is positive or equals to 0
+     * Return the error columns (*ERR) checked by checkSyntax() whose invalid values are fixed (set to NaN)
+     * @return error column names
+     */
+    protected String[] getCheckedErrorColumnNames() {
+        return EMPTY_STRING;
+    }
+
+    /**
+     * Check the error columns (*ERR) returned by getCheckedErrorColumnNames() and fix their invalid values (set to NaN)
+     * @param checker checker component
+     */
+    protected final void checkColumnErrors(final OIFitsChecker checker) {
+        for (String colName : getCheckedErrorColumnNames()) {
+            checkColumnError(checker, getFlag(), this, colName);
+        }
+    }
+
+    /**
+     * Fix the given column value (flat or jagged arrays) like checkSyntax() if it is a checked error column (*ERR):
+     * invalid errors are set to NaN.
+     * Used when column values are read without the data validation (lazy loading, column projection, chunks)
+     * @param colName column name
+     * @param value column value (FlatColumn or double[][]) to fix in place
+     * @param flags the FLAG column (null means unflagged)
+     */
+    public final void fixColumnValue(final String colName, final Object value, final boolean[][] flags) {
+        if (isCheckedErrorColumn(colName)) {
+            checkColumnError(null, flags, value, this, colName);
+        }
+    }
+
+    /**
+     * Return true if the given column is a checked error column (*ERR) fixed by checkSyntax()
+     * @param colName column name
+     * @return true if the given column is a checked error column
+     */
+    public final boolean isCheckedErrorColumn(final String colName) {
+        for (String name : getCheckedErrorColumnNames()) {
+            if (name.equals(colName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Check the given error column (flat or jagged arrays) if present: see checkColumnError(checker, flags, errors, oidata, colName)
      * @param checker checker component
      * @param flags the FLAG column
+     * @param oidata oiData table
+     * @param colName column name
+     */
+    public static void checkColumnError(final OIFitsChecker checker, final boolean[][] flags,
+                                        final OIData oidata, final String colName) {
+        checkColumnError(checker, flags, oidata.getColumnStoredValue(colName), oidata, colName);
+    }
+
+    /**
+     * Check the given error column value (flat or jagged arrays) if present
+     * @param checker checker component (null to only fix values)
+     * @param flags the FLAG column (null means unflagged)
+     * @param value column value (FlatColumn or double[][])
+     * @param oidata oiData table
+     * @param colName column name
+     */
+    private static void checkColumnError(final OIFitsChecker checker, final boolean[][] flags, final Object value,
+                                         final OIData oidata, final String colName) {
+        if (value instanceof FlatColumn) {
+            checkColumnError(checker, flags, (FlatColumn) value, oidata, colName);
+        } else if (value instanceof double[][]) {
+            checkColumnError(checker, flags, (double[][]) value, oidata, colName);
+        }
+    }
+
+    /**
+     * Check the given error values (flat arrays) and set invalid values to NaN
+     * @param checker checker component (null to only fix values)
+     * @param flags the FLAG column (null means unflagged)
+     * @param flat error values (flat arrays)
+     * @param oidata oiData table
+     * @param colName column name
+     */
+    private static void checkColumnError(final OIFitsChecker checker, final boolean[][] flags, final FlatColumn flat,
+                                         final OIData oidata, final String colName) {
+        final double[] errors = flat.getDoubles();
+        if (errors == null) {
+            return;
+        }
+        final int stride = flat.getStride();
+        boolean[] rowFlag;
+
+        for (int i = 0, nRows = flat.getNbRows(), j, offset; i < nRows; i++) {
+            rowFlag = (flags != null) ? flags[i] : null;
+            offset = flat.getOffset(i);
+
+            for (j = 0; j < stride; j++) {
+                final double err = errors[offset + j];
+                boolean fixed = false;
+
+                if (!ColumnMeta.isPositiveValueValid(err)) {
+                    errors[offset + j] = UNDEFINED_DBL;
+                    fixed = true;
+                }
+                // Not flagged ?
+                if ((checker != null) && ((((rowFlag == null) || !rowFlag[j]) && fixed) || checker.isInspectRules())) {
+                    // rule [GENERIC_COL_ERR] check if the UNFLAGGED *ERR column values are valid (positive or NULL)
+                    checker.ruleFailed(Rule.GENERIC_COL_ERR_FIX, oidata, colName).addColValueAt(err, i, j);
+                }
+            }
+        }
+    }
+
+    /**
+     * Return true if the given error value is valid ie. NaN or is positive or equals to 0
+     * @param checker checker component (null to only fix values)
+     * @param flags the FLAG column (null means unflagged)
      * @param errors error value
      * @param oidata oiData table
      * @param colName column name
@@ -1005,7 +1155,7 @@ public abstract class OIData extends OIAbstractData {
         double[] rowErr;
 
         for (int i = 0, j; i < errors.length; i++) {
-            rowFlag = flags[i];
+            rowFlag = (flags != null) ? flags[i] : null;
             rowErr = errors[i];
 
             for (j = 0; j < rowErr.length; j++) {
@@ -1017,7 +1167,7 @@ public abstract class OIData extends OIAbstractData {
                     fixed = true;
                 }
                 // Not flagged ?
-                if ((!rowFlag[j] && fixed) || OIFitsChecker.isInspectRules()) {
+                if ((checker != null) && ((((rowFlag == null) || !rowFlag[j]) && fixed) || checker.isInspectRules())) {
                     // rule [GENERIC_COL_ERR] check if the UNFLAGGED *ERR column values are valid (positive or NULL)
                     checker.ruleFailed(Rule.GENERIC_COL_ERR_FIX, oidata, colName).addColValueAt(err, i, j);
                 }
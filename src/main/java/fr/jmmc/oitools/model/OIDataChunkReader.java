@@ -0,0 +1,320 @@
+/*
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools.model;
+
+import fr.jmmc.oitools.OIFitsConstants;
+import fr.jmmc.oitools.fits.FitsConstants;
+import fr.jmmc.oitools.fits.FlatColumn;
+import fr.jmmc.oitools.meta.ColumnMeta;
+import fr.nom.tam.fits.BasicHDU;
+import fr.nom.tam.fits.BinaryTable;
+import fr.nom.tam.fits.BinaryTableHDU;
+import fr.nom.tam.fits.Fits;
+import fr.nom.tam.fits.FitsException;
+import fr.nom.tam.fits.FitsUtil;
+import fr.nom.tam.util.BufferedFile;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class reads the rows of an OI_DATA table (OI_VIS, OI_VIS2, OI_T3, OI_FLUX) by fixed-size chunks
+ * directly from its (uncompressed) local file so huge tables can be processed in bounded memory.
+ *
+ * The current chunk is given as an OIData table of the same type (OIVis2 ...) providing the usual
+ * typed accessors (getVis2Data(), getSpatialFreq() ...) on the chunk rows only.
+ * Numeric array columns (VIS2DATA, VIS2ERR ...) are read into flat buffers: use getColumnFlat() to read them directly
+ * as typed accessors convert them to new jagged arrays on every chunk.
+ * Column buffers are reused between chunks: copy values to keep them.
+ * Invalid error values (*ERR) are fixed like the data validation (set to NaN).
+ *
+ * Usage:
+ * <pre>
+ * final OIFitsFile oiFitsFile = OIDataChunkReader.loadOIFits(fileLocation);
+ * for (OIData oiData : oiFitsFile.getOiDataList()) {
+ *     final OIDataChunkReader reader = new OIDataChunkReader(oiData, 10000);
+ *     try {
+ *         while (reader.next()) {
+ *             final OIData chunk = reader.getChunk();
+ *             ...
+ *         }
+ *     } finally {
+ *         reader.close();
+ *     }
+ * }
+ * </pre>
+ *
+ * @author bourgesl
+ */
+public final class OIDataChunkReader implements Closeable {
+
+    /** logger */
+    private final static Logger logger = Logger.getLogger(OIDataChunkReader.class.getName());
+
+    /**
+     * Load the given OIFits file without reading any OI_DATA column (only keywords and other tables)
+     * to prepare chunk readers on its OI_DATA tables.
+     * Note: the returned OI_DATA tables have no column value (all columns are undefined i.e. null)
+     * so their column accessors and OIFitsFile.analyze() can not be used: use OIDataChunkReader to read their rows.
+     * @param fileLocation absolute File Path
+     * @return OIFits data model
+     * @throws FitsException if the fits can not be opened
+     * @throws IOException IO failure
+     */
+    public static OIFitsFile loadOIFits(final String fileLocation) throws IOException, FitsException {
+        final ColumnProjection projection = new ColumnProjection()
+                .keep(OIFitsConstants.TABLE_OI_VIS)
+                .keep(OIFitsConstants.TABLE_OI_VIS2)
+                .keep(OIFitsConstants.TABLE_OI_T3)
+                .keep(OIFitsConstants.TABLE_OI_FLUX);
+
+        return OIFitsLoader.loadOIFits(null, new OIFitsChecker(), fileLocation, projection);
+    }
+
+    /* members */
+    /** number of rows per chunk */
+    private final int chunkSize;
+    /** total number of rows */
+    private final int nbRows;
+    /** file input */
+    private final BufferedFile input;
+    /** deferred binary table (data not read) */
+    private final BinaryTable data;
+    /** current chunk table */
+    private final OIData chunk;
+    /** column readers */
+    private final List<ChunkColumn> columns = new ArrayList<ChunkColumn>();
+    /** first row of the next chunk */
+    private int nextRow = 0;
+    /** first row of the current chunk */
+    private int firstRow = -1;
+
+    /**
+     * Public constructor opening the file of the given OI_DATA table
+     * @param oiData OI_DATA table (keywords only is enough) loaded from an uncompressed local file
+     * @param chunkSize number of rows per chunk
+     * @throws IllegalArgumentException if the chunk size is less than 1
+     * @throws FitsException if the table can not be found or read
+     * @throws IOException IO failure
+     */
+    public OIDataChunkReader(final OIData oiData, final int chunkSize) throws IllegalArgumentException, IOException, FitsException {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Invalid chunk size: " + chunkSize);
+        }
+        final String absFilePath = oiData.getOIFitsFile().getAbsoluteFilePath();
+        if (absFilePath == null) {
+            throw new IOException("Undefined file for table: " + oiData.idToString());
+        }
+        final File file = new File(absFilePath);
+        if (FitsUtil.isCompressed(file)) {
+            throw new IOException("Unsupported compressed file: " + absFilePath);
+        }
+
+        this.chunkSize = chunkSize;
+        this.input = new BufferedFile(file, "r");
+
+        boolean ok = false;
+        try {
+            // binary table data are deferred (random access):
+            final Fits fitsFile = new Fits();
+            fitsFile.setStream(this.input);
+
+            final BasicHDU hdu = fitsFile.getHDU(oiData.getExtNb());
+
+            if (!(hdu instanceof BinaryTableHDU)
+                    || !oiData.getExtName().equals(hdu.getTrimmedString(FitsConstants.KEYWORD_EXT_NAME))) {
+                throw new FitsException("Table not found: " + oiData.idToString());
+            }
+            final BinaryTableHDU bh = (BinaryTableHDU) hdu;
+
+            this.data = (BinaryTable) bh.getData();
+            this.nbRows = bh.getNRows();
+            this.chunk = oiData.createChunkTable();
+
+            // private checker (column formats are already checked by the loader):
+            final OIFitsChecker checker = new OIFitsChecker();
+            checker.setFileRef(oiData.getOIFitsFile().getFileRef(), null);
+
+            for (ColumnMeta column : this.chunk.getColumnDescCollection()) {
+                int idx = bh.findColumn(column.getName());
+
+                // alias support if any:
+                if ((idx == -1) && (column.getAlias() != null)) {
+                    idx = bh.findColumn(column.getAlias());
+                }
+                if (idx != -1) {
+                    final char type = bh.getColumnType(idx);
+                    final int length = bh.getColumnLength(idx);
+
+                    if ((type != 'P') && (type != 'Q') && !column.checkColumnFormat(checker, this.chunk, type, length)) {
+                        this.columns.add(new ChunkColumn(column, idx, type, length));
+                        continue;
+                    }
+                }
+                if (!column.isOptional()) {
+                    // undefined column (empty values):
+                    this.columns.add(new ChunkColumn(column, -1, column.getType(), column.getRepeat()));
+                }
+            }
+            ok = true;
+        } finally {
+            if (!ok) {
+                this.input.close();
+            }
+        }
+        if (logger.isLoggable(Level.FINE)) {
+            logger.log(Level.FINE, "OIDataChunkReader[{0}]: {1} rows, {2} columns",
+                    new Object[]{this.chunk.idToString(), this.nbRows, this.columns.size()});
+        }
+    }
+
+    /**
+     * Read the next chunk of rows
+     * @return true if a chunk was read; false if all rows were already read
+     * @throws FitsException if any FITS error occurred
+     */
+    public boolean next() throws FitsException {
+        if (this.nextRow >= this.nbRows) {
+            return false;
+        }
+        final int first = this.nextRow;
+        final int nRows = Math.min(this.chunkSize, this.nbRows - first);
+
+        this.chunk.setChunkRows(nRows);
+
+        for (ChunkColumn col : this.columns) {
+            final String name = col.column.getName();
+            final Object value = col.read(this.chunk, this.data, this.input, first, nRows);
+
+            // Fix values (*ERR) like the data validation (flags only matter for the validation report):
+            this.chunk.fixColumnValue(name, value, null);
+
+            this.chunk.setColumnValue(name, value);
+        }
+
+        this.firstRow = first;
+        this.nextRow = first + nRows;
+        return true;
+    }
+
+    /**
+     * Return the current chunk as an OIData table (OIVis2 ...) containing only the rows of the current chunk
+     * @return current chunk or null if next() was not called
+     */
+    public OIData getChunk() {
+        return (this.firstRow != -1) ? this.chunk : null;
+    }
+
+    /**
+     * Return the flat values (buffer reused by the next chunk) of the given array column in the current chunk
+     * @param name column name
+     * @return FlatColumn or null if undefined, not an array column or next() was not called
+     */
+    public FlatColumn getColumnFlat(final String name) {
+        return (this.firstRow != -1) ? this.chunk.getColumnFlat(name) : null;
+    }
+
+    /**
+     * Return the index of the first row of the current chunk in the complete table
+     * @return index of the first row of the current chunk or -1 if next() was not called
+     */
+    public int getFirstRow() {
+        return this.firstRow;
+    }
+
+    /**
+     * Return the number of rows of the complete table
+     * @return number of rows of the complete table
+     */
+    public int getNbRows() {
+        return this.nbRows;
+    }
+
+    /**
+     * Return the number of rows per chunk
+     * @return number of rows per chunk
+     */
+    public int getChunkSize() {
+        return this.chunkSize;
+    }
+
+    /**
+     * Close the file input
+     * @throws IOException IO failure
+     */
+    @Override
+    public void close() throws IOException {
+        this.input.close();
+    }
+
+    /**
+     * Column reader keeping the buffer of the previous chunk
+     */
+    private static final class ChunkColumn {
+
+        /** column descriptor */
+        final ColumnMeta column;
+        /** column index (-1 means undefined column) */
+        final int idx;
+        /** fits column type */
+        final char type;
+        /** fits column repeat */
+        final int repeat;
+        /** last column value */
+        Object value = null;
+        /** number of rows of the last column value */
+        int valueRows = -1;
+
+        ChunkColumn(final ColumnMeta column, final int idx, final char type, final int repeat) {
+            this.column = column;
+            this.idx = idx;
+            this.type = type;
+            this.repeat = repeat;
+        }
+
+        Object read(final OIData table, final BinaryTable data, final BufferedFile input,
+                    final int firstRow, final int nRows) throws FitsException {
+
+            if (idx == -1) {
+                if (valueRows != nRows) {
+                    value = table.createColumnArray(column, nRows);
+                    valueRows = nRows;
+                }
+            } else {
+                // reuse the flat array of the previous chunk (same number of rows):
+                final Object buffer = (value instanceof FlatColumn) ? ((FlatColumn) value).getData() : null;
+
+                value = OIFitsLoader.convertColumn(column, type, repeat,
+                        OIFitsLoader.getColumnValues(data, input, idx, column, type, repeat, firstRow, nRows, buffer));
+
+                if (value == null) {
+                    // incompatible types:
+                    value = table.createColumnArray(column, nRows);
+                }
+                valueRows = nRows;
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,592 @@
+/* 
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools.model;
+
+import fr.jmmc.oitools.fits.ChecksumHelper;
+import fr.jmmc.oitools.model.range.Range;
+import fr.nom.tam.fits.FitsException;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persistent catalog of OIFits file analysis results stored in a sidecar directory (one binary entry per file).
+ * Each entry gives the file granules (target, instrument mode, night, MJD range, distinct StaNames),
+ * their statistics (GranuleStats) and the Target / InstrumentMode definitions to build an OIFitsCollection
+ * without loading unchanged files (listing use cases: OI_DATA tables are not available).
+ *
+ * Entries are invalidated by the file size and last modification date;
+ * if only the date differs, the MD5 sum of the file is compared (touched file).
+ * Remote files (URL) are always loaded and never stored.
+ *
+ * @author bourgesl
+ */
+public final class OIFitsCatalog {
+
+    /** logger */
+    private final static Logger logger = Logger.getLogger(OIFitsCatalog.class.getName());
+    /** entry file extension */
+    public final static String ENTRY_EXTENSION = ".oicat";
+    /** entry magic number ('OICT') */
+    private final static int MAGIC = 0x4F494354;
+    /** entry format version */
+    private final static int VERSION = 1;
+    /** index of undefined Target / InstrumentMode */
+    private final static int UNDEFINED_INDEX = -1;
+
+    /* members */
+    /** sidecar directory */
+    private final File directory;
+    /** number of entries reused by the last createCollection() call */
+    private int nbReused = 0;
+    /** number of files loaded by the last createCollection() call */
+    private int nbLoaded = 0;
+
+    /**
+     * Public constructor
+     * @param directory sidecar directory (created if missing)
+     */
+    public OIFitsCatalog(final File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Return the sidecar directory
+     * @return sidecar directory
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Return the number of entries reused by the last createCollection() call
+     * @return number of entries reused
+     */
+    public int getNbReused() {
+        return nbReused;
+    }
+
+    /**
+     * Return the number of files loaded by the last createCollection() call
+     * @return number of files loaded
+     */
+    public int getNbLoaded() {
+        return nbLoaded;
+    }
+
+    /**
+     * Create the OIFits collection from the catalog entries of the given files:
+     * only new or changed files are loaded (lazy mode), analyzed and stored in the catalog.
+     *
+     * @param checker checker component (may be null) used to load new or changed files
+     * @param fileLocations file locations (absolute File Path or URL)
+     * @param nThreads number of loader threads (1 means serial loading)
+     * @return new OIFits collection containing only catalog entries (no OIFitsFile)
+     * @throws FitsException if any fits file can not be opened
+     * @throws IOException IO failure
+     */
+    public OIFitsCollection createCollection(final OIFitsChecker checker, final List<String> fileLocations,
+                                             final int nThreads) throws IOException, FitsException {
+        final long start = System.nanoTime();
+
+        final OIFitsCollection oiFitsCollection = new OIFitsCollection();
+
+        final List<String> missingLocations = new ArrayList<String>();
+
+        for (String fileLocation : fileLocations) {
+            final Entry entry = getEntry(fileLocation);
+            if (entry != null) {
+                oiFitsCollection.addCatalogEntry(entry);
+            } else {
+                missingLocations.add(fileLocation);
+            }
+        }
+        this.nbReused = fileLocations.size() - missingLocations.size();
+        this.nbLoaded = missingLocations.size();
+
+        if (!missingLocations.isEmpty()) {
+            final List<OIFitsFile> oiFitsFiles;
+            if ((nThreads <= 1) || (missingLocations.size() <= 1)) {
+                oiFitsFiles = new ArrayList<OIFitsFile>(missingLocations.size());
+                for (String fileLocation : missingLocations) {
+                    oiFitsFiles.add(OIFitsLoader.loadOIFits(null, checker, fileLocation, false, false, true));
+                }
+            } else {
+                oiFitsFiles = OIFitsLoader.loadOIFits(checker, missingLocations, nThreads, true);
+            }
+
+            for (OIFitsFile oiFitsFile : oiFitsFiles) {
+                oiFitsFile.analyze();
+
+                final Entry entry = createEntry(oiFitsFile);
+                oiFitsCollection.addCatalogEntry(entry);
+
+                if (oiFitsFile.getSourceURI() == null) {
+                    putEntry(entry);
+                }
+            }
+        }
+        oiFitsCollection.analyzeCollection();
+
+        logger.log(Level.INFO, "createCollection: {0} entries reused, {1} files loaded in {2} ms.",
+                new Object[]{nbReused, nbLoaded, 1e-6d * (System.nanoTime() - start)});
+
+        return oiFitsCollection;
+    }
+
+    /**
+     * Return the valid catalog entry of the given file
+     * @param fileLocation file location (absolute File Path or URL)
+     * @return catalog entry or null if missing, invalid or outdated
+     */
+    public Entry getEntry(final String fileLocation) {
+        if (fileLocation.contains(":/")) {
+            // remote files are not cached:
+            return null;
+        }
+        final File file = new File(fileLocation);
+        final File entryFile = getEntryFile(file.getAbsolutePath());
+
+        if (!file.isFile() || !entryFile.isFile()) {
+            return null;
+        }
+        final Entry entry;
+        try {
+            entry = readEntry(entryFile);
+        } catch (IOException ioe) {
+            logger.log(Level.INFO, "Ignoring invalid catalog entry: " + entryFile, ioe);
+            return null;
+        }
+        if (!file.getAbsolutePath().equals(entry.getFilePath()) || (file.length() != entry.getFileSize())) {
+            return null;
+        }
+        final long lastModified = file.lastModified();
+
+        if (lastModified != entry.getLastModified()) {
+            // touched file: compare its content:
+            if (!entry.getMd5sum().equals(ChecksumHelper.computeMD5(file))) {
+                return null;
+            }
+            entry.lastModified = lastModified;
+            putEntry(entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Store the given entry in the catalog (failures are only logged)
+     * @param entry catalog entry
+     * @return true if the entry was stored
+     */
+    public boolean putEntry(final Entry entry) {
+        final File entryFile = getEntryFile(entry.getFilePath());
+        final File tmpFile = new File(directory, entryFile.getName() + ".tmp");
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Can not create the catalog directory: " + directory);
+            }
+            writeEntry(tmpFile, entry);
+
+            // replace the previous entry:
+            if (!tmpFile.renameTo(entryFile) && !(entryFile.delete() && tmpFile.renameTo(entryFile))) {
+                throw new IOException("Can not rename the catalog entry: " + tmpFile);
+            }
+            logger.log(Level.FINE, "putEntry: {0}", entryFile);
+            return true;
+        } catch (IOException ioe) {
+            logger.log(Level.WARNING, "Unable to store the catalog entry: " + entryFile, ioe);
+            tmpFile.delete();
+        }
+        return false;
+    }
+
+    /**
+     * Return the entry file of the given file (MD5 of its absolute path)
+     * @param absFilePath absolute file path
+     * @return entry file
+     */
+    File getEntryFile(final String absFilePath) {
+        final MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException nsae) {
+            throw new IllegalStateException("MD5 not available", nsae);
+        }
+        final byte[] digest = md.digest(absFilePath.getBytes(StandardCharsets.UTF_8));
+
+        final StringBuilder sb = new StringBuilder(2 * digest.length + ENTRY_EXTENSION.length());
+        for (byte b : digest) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return new File(directory, sb.append(ENTRY_EXTENSION).toString());
+    }
+
+    /**
+     * Create the catalog entry of the given (analyzed) OIFits file
+     * @param oiFitsFile analyzed OIFits file
+     * @return catalog entry
+     */
+    public static Entry createEntry(final OIFitsFile oiFitsFile) {
+        final String absFilePath = OIFitsCollection.getFilePath(oiFitsFile);
+        final File file = new File(absFilePath);
+
+        final Entry entry;
+        if (oiFitsFile.getSourceURI() != null) {
+            // remote file (temporary file already deleted):
+            entry = new Entry(absFilePath, oiFitsFile.getFileName(), -1L, -1L, "");
+        } else {
+            entry = new Entry(absFilePath, oiFitsFile.getFileName(), file.length(), file.lastModified(),
+                    (oiFitsFile.getMd5sum() != null) ? oiFitsFile.getMd5sum() : ChecksumHelper.computeMD5(file));
+        }
+
+        // use row order (deterministic) as OIFitsCollection.analyzeCollection():
+        for (OIWavelength oiTable : oiFitsFile.getOiWavelengths()) {
+            entry.getInstrumentModes().add(oiTable.getInstrumentMode());
+        }
+        if (oiFitsFile.hasOiTarget()) {
+            entry.getTargets().addAll(oiFitsFile.getOiTarget().getTargetList());
+        }
+
+        for (Map.Entry<Granule, Set<OIData>> e : oiFitsFile.getOiDataPerGranule().entrySet()) {
+            final Granule g = e.getKey();
+            final int nightId = g.getNight().getNightId();
+
+            final GranuleStats stats = new GranuleStats();
+
+            for (OIData oiData : e.getValue()) {
+                stats.add(oiData, getTargetIdMatcher(oiData, g.getTarget()), nightId);
+            }
+            entry.getGranules().add(g);
+            entry.getGranuleStats().add(stats);
+        }
+        return entry;
+    }
+
+    /**
+     * Return the targetId Matcher corresponding to the given Target (local) or null if missing
+     * @param oiData OIData table
+     * @param target target (local)
+     * @return targetId Matcher or null if missing
+     */
+    private static TargetIdMatcher getTargetIdMatcher(final OIData oiData, final Target target) {
+        final OITarget oiTarget = oiData.getOiTarget();
+        if ((oiTarget == null) || (target == Target.UNDEFINED)) {
+            return null;
+        }
+        // all target ids having the same target definition:
+        final Set<Short> ids = new HashSet<Short>();
+        for (Map.Entry<Short, Target> e : oiTarget.getTargetIdToTarget().entrySet()) {
+            if (target.equals(e.getValue())) {
+                ids.add(e.getKey());
+            }
+        }
+        return (ids.isEmpty()) ? null : new TargetIdMatcher(ids);
+    }
+
+    // --- I/O ---
+    static Entry readEntry(final File entryFile) throws IOException {
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(entryFile)));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unsupported catalog entry format: " + entryFile);
+            }
+            final Entry entry = new Entry(in.readUTF(), in.readUTF(), in.readLong(), in.readLong(), in.readUTF());
+
+            final List<Target> targets = entry.getTargets();
+            for (int i = 0, len = in.readInt(); i < len; i++) {
+                targets.add(readTarget(in));
+            }
+            final List<InstrumentMode> insModes = entry.getInstrumentModes();
+            for (int i = 0, len = in.readInt(); i < len; i++) {
+                insModes.add(readInstrumentMode(in));
+            }
+
+            // reused NightId:
+            NightId n = new NightId();
+
+            for (int i = 0, len = in.readInt(); i < len; i++) {
+                final int targetIdx = in.readInt();
+                final int insModeIdx = in.readInt();
+
+                n.set(in.readInt());
+                NightId night = NightId.getCachedInstance(n);
+                if (night == null) {
+                    night = NightId.putCachedInstance(n);
+                    n = new NightId();
+                }
+
+                final Granule g = new Granule((targetIdx == UNDEFINED_INDEX) ? Target.UNDEFINED : targets.get(targetIdx),
+                        (insModeIdx == UNDEFINED_INDEX) ? InstrumentMode.UNDEFINED : insModes.get(insModeIdx),
+                        night);
+
+                final double mjdMin = in.readDouble();
+                final double mjdMax = in.readDouble();
+                if (mjdMin <= mjdMax) {
+                    g.updateMjdRange(mjdMin);
+                    g.updateMjdRange(mjdMax);
+                }
+                for (int j = 0, nStaNames = in.readInt(); j < nStaNames; j++) {
+                    g.getDistinctStaNames().add(in.readUTF());
+                }
+                entry.getGranules().add(g);
+                entry.getGranuleStats().add(new GranuleStats(in.readInt(), in.readInt(), in.readInt(), in.readDouble(), in.readUTF()));
+            }
+            return entry;
+        } catch (IndexOutOfBoundsException ioobe) {
+            throw new IOException("Invalid catalog entry: " + entryFile, ioobe);
+        } finally {
+            in.close();
+        }
+    }
+
+    static void writeEntry(final File entryFile, final Entry entry) throws IOException {
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(entryFile)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(entry.getFilePath());
+            out.writeUTF(entry.getFileName());
+            out.writeLong(entry.getFileSize());
+            out.writeLong(entry.getLastModified());
+            out.writeUTF(entry.getMd5sum());
+
+            // granules refer to definitions by index (identity):
+            final List<Target> targets = new ArrayList<Target>(entry.getTargets());
+            final List<InstrumentMode> insModes = new ArrayList<InstrumentMode>(entry.getInstrumentModes());
+            final Map<Target, Integer> targetIndex = new IdentityHashMap<Target, Integer>();
+            final Map<InstrumentMode, Integer> insModeIndex = new IdentityHashMap<InstrumentMode, Integer>();
+
+            for (Granule g : entry.getGranules()) {
+                addIndex(targetIndex, targets, g.getTarget(), Target.UNDEFINED);
+                addIndex(insModeIndex, insModes, g.getInsMode(), InstrumentMode.UNDEFINED);
+            }
+
+            out.writeInt(targets.size());
+            for (Target target : targets) {
+                writeTarget(out, target);
+            }
+            out.writeInt(insModes.size());
+            for (InstrumentMode insMode : insModes) {
+                writeInstrumentMode(out, insMode);
+            }
+
+            final List<Granule> granules = entry.getGranules();
+            final List<GranuleStats> stats = entry.getGranuleStats();
+
+            out.writeInt(granules.size());
+            for (int i = 0, len = granules.size(); i < len; i++) {
+                final Granule g = granules.get(i);
+
+                out.writeInt(getIndex(targetIndex, targets, g.getTarget(), Target.UNDEFINED));
+                out.writeInt(getIndex(insModeIndex, insModes, g.getInsMode(), InstrumentMode.UNDEFINED));
+                out.writeInt(g.getNight().getNightId());
+
+                final Range mjdRange = g.getMjdRange();
+                out.writeDouble(mjdRange.getMin());
+                out.writeDouble(mjdRange.getMax());
+
+                out.writeInt(g.getDistinctStaNames().size());
+                for (String staNames : g.getDistinctStaNames()) {
+                    out.writeUTF(staNames);
+                }
+
+                final GranuleStats s = stats.get(i);
+                out.writeInt(s.getNbVis());
+                out.writeInt(s.getNbVis2());
+                out.writeInt(s.getNbT3());
+                out.writeDouble(s.getIntTime());
+                out.writeUTF(s.getFacilityName());
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private static <K> void addIndex(final Map<K, Integer> index, final List<K> values, final K value, final K undefined) {
+        if ((value != undefined) && (getIndex(index, values, value, undefined) == UNDEFINED_INDEX)) {
+            // not a registered definition (unexpected):
+            values.add(value);
+            index.put(value, Integer.valueOf(values.size() - 1));
+        }
+    }
+
+    private static <K> int getIndex(final Map<K, Integer> index, final List<K> values, final K value, final K undefined) {
+        if (value == undefined) {
+            return UNDEFINED_INDEX;
+        }
+        Integer idx = index.get(value);
+        if (idx == null) {
+            for (int i = 0, len = values.size(); i < len; i++) {
+                if (values.get(i) == value) {
+                    idx = Integer.valueOf(i);
+                    index.put(value, idx);
+                    break;
+                }
+            }
+        }
+        return (idx != null) ? idx.intValue() : UNDEFINED_INDEX;
+    }
+
+    private static Target readTarget(final DataInputStream in) throws IOException {
+        return new Target(readString(in), in.readDouble(), in.readDouble(), in.readFloat(),
+                in.readDouble(), in.readDouble(), in.readDouble(), readString(in), readString(in),
+                in.readDouble(), in.readDouble(), in.readDouble(), in.readDouble(),
+                in.readFloat(), in.readFloat(), readString(in), readString(in));
+    }
+
+    private static void writeTarget(final DataOutputStream out, final Target t) throws IOException {
+        writeString(out, t.getTarget());
+        out.writeDouble(t.getRaEp0());
+        out.writeDouble(t.getDecEp0());
+        out.writeFloat(t.getEquinox());
+        out.writeDouble(t.getRaErr());
+        out.writeDouble(t.getDecErr());
+        out.writeDouble(t.getSysVel());
+        writeString(out, t.getVelTyp());
+        writeString(out, t.getVelDef());
+        out.writeDouble(t.getPmRa());
+        out.writeDouble(t.getPmDec());
+        out.writeDouble(t.getPmRaErr());
+        out.writeDouble(t.getPmDecErr());
+        out.writeFloat(t.getParallax());
+        out.writeFloat(t.getParaErr());
+        writeString(out, t.getSpecTyp());
+        writeString(out, t.getCategory());
+    }
+
+    private static InstrumentMode readInstrumentMode(final DataInputStream in) throws IOException {
+        final String insName = readString(in);
+        final int nbChannels = in.readInt();
+        final Range wavelengthRange = new Range(in.readDouble(), in.readDouble());
+        return new InstrumentMode(insName, nbChannels, wavelengthRange, in.readDouble(), in.readDouble());
+    }
+
+    private static void writeInstrumentMode(final DataOutputStream out, final InstrumentMode im) throws IOException {
+        writeString(out, im.getInsName());
+        out.writeInt(im.getNbChannels());
+        out.writeDouble(im.getLambdaMin());
+        out.writeDouble(im.getLambdaMax());
+        out.writeDouble(im.getResPower());
+        out.writeDouble(im.getBandMin());
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        return (in.readBoolean()) ? in.readUTF() : null;
+    }
+
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    /**
+     * Catalog entry = analysis results of one OIFits file
+     */
+    public static final class Entry {
+
+        /* members */
+        /** absolute file path */
+        private final String filePath;
+        /** file name */
+        private final String fileName;
+        /** file size in bytes */
+        private final long fileSize;
+        /** last modification date */
+        long lastModified;
+        /** MD5 sum of the file */
+        private final String md5sum;
+        /** Target definitions (OI_TARGET rows) */
+        private final List<Target> targets = new ArrayList<Target>();
+        /** InstrumentMode definitions (OI_WAVELENGTH tables) */
+        private final List<InstrumentMode> insModes = new ArrayList<InstrumentMode>();
+        /** granules (local Target / InstrumentMode) */
+        private final List<Granule> granules = new ArrayList<Granule>();
+        /** statistics per granule */
+        private final List<GranuleStats> granuleStats = new ArrayList<GranuleStats>();
+
+        Entry(final String filePath, final String fileName, final long fileSize, final long lastModified, final String md5sum) {
+            this.filePath = filePath;
+            this.fileName = fileName;
+            this.fileSize = fileSize;
+            this.lastModified = lastModified;
+            this.md5sum = md5sum;
+        }
+
+        public String getFilePath() {
+            return filePath;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public long getFileSize() {
+            return fileSize;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public String getMd5sum() {
+            return md5sum;
+        }
+
+        public List<Target> getTargets() {
+            return targets;
+        }
+
+        public List<InstrumentMode> getInstrumentModes() {
+            return insModes;
+        }
+
+        public List<Granule> getGranules() {
+            return granules;
+        }
+
+        public List<GranuleStats> getGranuleStats() {
+            return granuleStats;
+        }
+
+        @Override
+        public String toString() {
+            return "Entry{" + "filePath=" + filePath + ", fileSize=" + fileSize + ", lastModified=" + lastModified
+                    + ", md5sum=" + md5sum + ", granules=" + granules.size() + '}';
+        }
+    }
+}
@@ -39,7 +39,9 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * This class contains several static methods to validate the OIFits structure (keywords, columns).
+ * This class collects the rule failures while validating the OIFits structure (keywords, columns).
+ * Its configuration (inspect rules, inspect mode) is defined per instance:
+ * use one checker per thread and merge them if needed.
  * @author bourgesl
  */
 public final class OIFitsChecker {
@@ -52,82 +54,168 @@ public final class OIFitsChecker {
         CASE_V2_IN_V1;
     }
 
-    /** Inspect rule flag */
-    private static boolean INSPECT_RULES = false;
+    /** logger */
+    private final static Logger logger = Logger.getLogger(OIFitsChecker.class.getName());
+
+    /* members */
+    /** Inspect rule flag (per checker configuration) */
+    private final boolean inspectRules;
     /** Inspect mode value */
-    private static InspectMode INSPECT_MODE = InspectMode.NORMAL;
+    private InspectMode inspectMode = InspectMode.NORMAL;
+    /** current FileRef */
+    private FileRef fileRef = null;
+
+    /** flag to skip keyword / column format checks (loading OIFITS) */
+    private boolean skipFormat = false;
+    /** flag to skip checks reading column values of data tables (lazy loading) */
+    private boolean skipData = false;
+    /** column projection used to load the current OIFITS (null means all columns loaded) */
+    private ColumnProjection columnProjection = null;
+    /** maximum number of data stored per rule failure (other occurrences are only counted) */
+    private int maxFailuresPerRule = Integer.MAX_VALUE;
+    /** flag to only count rule failure occurrences (no data stored) */
+    private boolean summaryMode = false;
+    /** flag to check OI tables in parallel (OIFitsFile.check) */
+    private boolean parallelCheck = false;
+    /** parent checker (read-only while checking OI tables in parallel) giving failures found before */
+    private OIFitsChecker parent = null;
+
+    /** DataLocation mapping keyed by RuleFailure */
+    private final Map<RuleFailure, DataLocation> failures;
+
+    /** OIFitsStandard mapping keyed by FileRef */
+    private final Map<FileRef, OIFitsStandard> fileRefStandards = new HashMap<FileRef, OIFitsStandard>();
+
+    /** OIFITS2: temporary state to check correlation indexes (OIFitsCorrChecker) keyed by CORRNAME */
+    private final Map<String, OIFitsCorrChecker> corrCheckers = new HashMap<String, OIFitsCorrChecker>();
 
     /**
-     * Return the Inspect rule flag
-     * @return Inspect rule flag
+     * Public constructor
      */
-    public static boolean isInspectRules() {
-        return INSPECT_RULES;
+    public OIFitsChecker() {
+        this(false);
     }
 
     /**
-     * Define the Inspect rule flag: true to collect rules and their applyTo (DataModel)
-     * @param inspectRules Inspect rule flag
+     * Public constructor
+     * @param inspectRules true to collect rules and their applyTo (DataModel)
      */
-    public static void setInspectRules(final boolean inspectRules) {
-        INSPECT_RULES = inspectRules;
+    public OIFitsChecker(final boolean inspectRules) {
+        this.inspectRules = inspectRules;
+        this.failures = new LinkedHashMap<RuleFailure, DataLocation>();
+    }
+
+    /**
+     * Return the Inspect rule flag
+     * @return Inspect rule flag
+     */
+    public boolean isInspectRules() {
+        return inspectRules;
     }
 
     /**
      * Return the Inspect mode value
      * @return Inspect mode value
      */
-    public static InspectMode getInspectMode() {
-        return INSPECT_MODE;
+    public InspectMode getInspectMode() {
+        return inspectMode;
     }
 
     /**
      * Define the Inspect mode value
-     * @param InspectMode Inspect mode value
+     * @param inspectMode Inspect mode value
      */
-    public static void setInspectMode(final InspectMode InspectMode) {
-        INSPECT_MODE = InspectMode;
+    public void setInspectMode(final InspectMode inspectMode) {
+        this.inspectMode = inspectMode;
     }
 
     /**
-     * Return true if the given rule should be ignored by ruleFailed(Rule)
-     * @param rule Rule to check
-     * @return true if the given rule should be ignored
+     * Return the maximum number of data stored per rule failure
+     * @return maximum number of data stored per rule failure
      */
-    private static boolean shouldSkipRule(final Rule rule) {
-        switch (INSPECT_MODE) {
-            case CASE_V2_IN_V1:
-                return (rule != Rule.OIFITS_TABLE_NOT_V2);
-            default:
-            case NORMAL:
-                return false;
+    public int getMaxFailuresPerRule() {
+        return maxFailuresPerRule;
+    }
+
+    /**
+     * Define the maximum number of data stored per rule failure: other occurrences are only counted
+     * and reported as a single line.
+     * Note: it only applies to rule failures created after this call
+     * @param maxFailuresPerRule maximum number of data stored per rule failure (Integer.MAX_VALUE means unlimited)
+     * @throws IllegalArgumentException if the given value is negative
+     */
+    public void setMaxFailuresPerRule(final int maxFailuresPerRule) throws IllegalArgumentException {
+        if (maxFailuresPerRule < 0) {
+            throw new IllegalArgumentException("Invalid maximum number of failures per rule: " + maxFailuresPerRule);
         }
+        this.maxFailuresPerRule = maxFailuresPerRule;
     }
 
-    /** logger */
-    private final static Logger logger = Logger.getLogger(OIFitsChecker.class.getName());
+    /**
+     * Return the summary mode flag
+     * @return true if only rule failure occurrences are counted (no data stored)
+     */
+    public boolean isSummaryMode() {
+        return summaryMode;
+    }
 
-    /* members */
-    /** current FileRef */
-    private FileRef fileRef = null;
+    /**
+     * Define the summary mode flag: if true, only rule failure occurrences are counted (no data stored)
+     * Note: it only applies to rule failures created after this call
+     * @param summaryMode true to only count rule failure occurrences
+     */
+    public void setSummaryMode(final boolean summaryMode) {
+        this.summaryMode = summaryMode;
+    }
 
-    /** flag to skip keyword / column format checks (loading OIFITS) */
-    private boolean skipFormat = false;
+    /**
+     * Return the parallel check flag
+     * @return true if OI tables are checked in parallel by OIFitsFile.check(checker) (and the loader)
+     */
+    public boolean isParallelCheck() {
+        return parallelCheck;
+    }
 
-    /** DataLocation mapping keyed by RuleFailure */
-    private final Map<RuleFailure, DataLocation> failures;
+    /**
+     * Define the parallel check flag: if true, OI tables are checked in parallel by OIFitsFile.check(checker)
+     * (and so while loading OIFits files with this checker); the report is identical to the serial mode
+     * @param parallelCheck true to check OI tables in parallel
+     */
+    public void setParallelCheck(final boolean parallelCheck) {
+        this.parallelCheck = parallelCheck;
+    }
 
-    /** OIFitsStandard mapping keyed by FileRef */
-    private final Map<FileRef, OIFitsStandard> fileRefStandards = new HashMap<FileRef, OIFitsStandard>();
+    /**
+     * Copy the settings (inspect mode, failure limits) of the given checker into this checker
+     * @param other checker to copy settings from
+     */
+    void copySettings(final OIFitsChecker other) {
+        this.inspectMode = other.inspectMode;
+        this.maxFailuresPerRule = other.maxFailuresPerRule;
+        this.summaryMode = other.summaryMode;
+    }
 
-    /** OIFITS2: temporary state to check correlation indexes (OIFitsCorrChecker) keyed by CORRNAME */
-    private final Map<String, OIFitsCorrChecker> corrCheckers = new HashMap<String, OIFitsCorrChecker>();
+    /**
+     * Return the maximum number of data stored per new DataLocation
+     * @return maximum number of data stored
+     */
+    private int getDataLocationMaxSize() {
+        return (summaryMode) ? 0 : maxFailuresPerRule;
+    }
 
     /**
-     * Public constructor
+     * Return true if the given rule should be ignored by ruleFailed(Rule)
+     * @param rule Rule to check
+     * @return true if the given rule should be ignored
      */
-    public OIFitsChecker() {
-        this.failures = new LinkedHashMap<RuleFailure, DataLocation>();
+    private boolean shouldSkipRule(final Rule rule) {
+        switch (inspectMode) {
+            case CASE_V2_IN_V1:
+                return (rule != Rule.OIFITS_TABLE_NOT_V2);
+            default:
+            case NORMAL:
+                return false;
+        }
     }
 
     /**
@@ -137,11 +225,13 @@ public final class OIFitsChecker {
     void defineSeverity(final SeverityProfile profile) {
         logger.log(java.util.logging.Level.FINE, "defineSeverity: {0}", profile);
 
-        // first check rule is complete:
-        for (Map.Entry<RuleFailure, DataLocation> entry : failures.entrySet()) {
-            if (entry.getValue().isEmpty()) {
-                // ensure data is non empty:
-                entry.getKey().getRule().checkDataType(RuleDataType.NONE);
+        if (isInspectRules()) {
+            // first check rule is complete:
+            for (Map.Entry<RuleFailure, DataLocation> entry : failures.entrySet()) {
+                if (entry.getValue().isEmpty()) {
+                    // ensure data is non empty:
+                    entry.getKey().getRule().checkDataType(RuleDataType.NONE);
+                }
             }
         }
 
@@ -157,6 +247,32 @@ public final class OIFitsChecker {
         logger.fine("defineSeverity: done");
     }
 
+    /**
+     * Define the parent checker whose failures (read-only) are also considered by hasRule()
+     * @param parent parent checker or null
+     */
+    void setParent(final OIFitsChecker parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Merge the failures of the given checker into this checker (keeping its insertion order).
+     * Used to gather the reports of per-file checkers in a deterministic order.
+     * @param other checker to merge
+     */
+    void merge(final OIFitsChecker other) {
+        for (Map.Entry<RuleFailure, DataLocation> entry : other.failures.entrySet()) {
+            final DataLocation datas = failures.get(entry.getKey());
+
+            // exist ?
+            if (datas == null) {
+                failures.put(entry.getKey(), entry.getValue());
+            } else {
+                datas.addAll(entry.getValue());
+            }
+        }
+    }
+
     /**
      * Clear the failures
      */
@@ -170,6 +286,8 @@ public final class OIFitsChecker {
     void cleanup() {
         setFileRef(null, null);
         setSkipFormat(false);
+        setSkipData(false);
+        setColumnProjection(null);
         fileRefStandards.clear();
         corrCheckers.clear();
     }
@@ -213,9 +331,9 @@ public final class OIFitsChecker {
 
                 // Update meta data to indicate rules:
                 if (meta != null) {
-                    meta.getApplyRules().add(rule);
+                    meta.addApplyRule(rule);
                 } else {
-                    hdu.getApplyRules().add(rule);
+                    hdu.addApplyRule(rule);
                 }
             } else {
                 /* Special case when the hdu has not been defined yet. 
@@ -264,7 +382,8 @@ public final class OIFitsChecker {
      */
     public DataLocation ruleFailed(final Rule rule, final FitsHDU hdu, final String member) {
         if (shouldSkipRule(rule)) {
-            return new DataLocation(rule);
+            // throwaway data (nothing stored):
+            return new DataLocation(rule, inspectRules, 0);
         }
 
         final RuleFailure failure = createFailure(rule, hdu, member);
@@ -277,7 +396,7 @@ public final class OIFitsChecker {
             if (isInspectRules()) {
                 inspectRuleFailed(rule, hdu, member);
             }
-            datas = new DataLocation(rule);
+            datas = new DataLocation(rule, inspectRules, getDataLocationMaxSize());
             failures.put(failure, datas);
         }
         return datas;
@@ -293,7 +412,8 @@ public final class OIFitsChecker {
      */
     public DataLocation ruleFailed(final Rule rule, final String extName, final int extNb) {
         if (shouldSkipRule(rule)) {
-            return new DataLocation(rule);
+            // throwaway data (nothing stored):
+            return new DataLocation(rule, inspectRules, 0);
         }
         final RuleFailure ruleFail = new RuleFailure(rule, fileRef, extName, extNb, null);
 
@@ -307,7 +427,7 @@ public final class OIFitsChecker {
                 inspectRuleFailed(rule, hdu, member);
             }
              */
-            datas = new DataLocation(rule);
+            datas = new DataLocation(rule, inspectRules, getDataLocationMaxSize());
             failures.put(ruleFail, datas);
         }
         return datas;
@@ -323,7 +443,7 @@ public final class OIFitsChecker {
     public boolean hasRule(final Rule rule, final FitsHDU hdu, final String member) {
         final RuleFailure failure = createFailure(rule, hdu, member);
 
-        return (failures.get(failure) != null);
+        return (failures.get(failure) != null) || ((parent != null) && parent.hasRule(rule, hdu, member));
     }
 
     private RuleFailure createFailure(final Rule rule, final FitsHDU hdu, final String member) {
@@ -473,9 +593,15 @@ public final class OIFitsChecker {
                 sb.append(failure.getSeverity()).append('\t');
                 sb.append(ruleMessage).append('\n');
             } else {
-                for (int i = 0, len = entry.getValue().getValues().size(); i < len; i++) {
+                final DataLocation datas = entry.getValue();
+
+                for (int i = 0, len = datas.size(); i < len; i++) {
                     sb.append(failure.getSeverity()).append('\t');
-                    sb.append(entry.getValue().formatMessage(ruleMessage, i)).append('\n');
+                    sb.append(datas.formatMessage(ruleMessage, i)).append('\n');
+                }
+                if (datas.getOverflow() != 0L) {
+                    sb.append(failure.getSeverity()).append('\t');
+                    sb.append(datas.formatOverflowMessage()).append('\n');
                 }
             }
         }
@@ -559,7 +685,7 @@ public final class OIFitsChecker {
 
         sb.append("<rules>\n");
         for (Rule rule : rules) {
-            rule.toXml(sb, null);
+            rule.toXml(sb, null, isInspectRules());
         }
         sb.append("</rules>\n");
     }
@@ -610,4 +736,49 @@ public final class OIFitsChecker {
         this.skipFormat = skipFormat;
     }
 
+    /**
+     * Return the flag to skip checks reading column values of data tables (lazy loading):
+     * only keywords, table presence and cross references are checked
+     * @return flag to skip checks reading column values of data tables
+     */
+    public boolean isSkipData() {
+        return skipData;
+    }
+
+    void setSkipData(boolean skipData) {
+        this.skipData = skipData;
+    }
+
+    /**
+     * Return the column projection used to load the current OIFITS
+     * @return column projection or null if all columns are loaded
+     */
+    public ColumnProjection getColumnProjection() {
+        return columnProjection;
+    }
+
+    void setColumnProjection(final ColumnProjection columnProjection) {
+        this.columnProjection = columnProjection;
+    }
+
+    /**
+     * Return true if only some columns of the given table were loaded (column projection):
+     * rules depending on several columns can not be checked on such table
+     * @param extName table name (EXTNAME)
+     * @return true if the given table is projected
+     */
+    public boolean isProjected(final String extName) {
+        return (columnProjection != null) && columnProjection.isProjected(extName);
+    }
+
+    /**
+     * Return true if the given column was not loaded (column projection) so its rules must be skipped
+     * @param table table
+     * @param columnName column name
+     * @return true if the given column was skipped by the column projection
+     */
+    public boolean isSkippedColumn(final FitsTable table, final String columnName) {
+        return (columnProjection != null) && !columnProjection.isKept(table.getExtName(), columnName);
+    }
+
 }
@@ -76,6 +76,8 @@ public final class OIFitsCollection implements ToStringable {
     private final TargetManager tm;
     /** OIFits file collection keyed by absolute file path (unordered) */
     private final Map<String, OIFitsFile> oiFitsPerPath = new HashMap<String, OIFitsFile>();
+    /** catalog entries (files not loaded) keyed by file path */
+    private final Map<String, OIFitsCatalog.Entry> entriesPerPath = new HashMap<String, OIFitsCatalog.Entry>();
     /** Set of all OIData tables */
     private final Set<OIData> allOiDatas = new LinkedHashSet<OIData>();
     /** Distinct Granules */
@@ -84,17 +86,65 @@ public final class OIFitsCollection implements ToStringable {
     private final Map<Granule, Set<OIData>> oiDataPerGranule = new HashMap<Granule, Set<OIData>>();
     /** Map of used staNames to StaNamesDir (reference StaNames / orientation) */
     private final Map<String, StaNamesDir> usedStaNamesMap = new LinkedHashMap<String, StaNamesDir>();
+    /** Statistics keyed by Granule (catalog entries only) */
+    private final Map<Granule, GranuleStats> statsPerGranule = new HashMap<Granule, GranuleStats>();
     /** cached values */
+    /** index of sorted granules (lazy) */
+    private GranuleIndex granuleIndex = null;
     private List<String> distinctStaNames = null;
     private List<String> distinctStaConfs = null;
     private final Map<String, Range> columnRanges = new HashMap<>(32);
 
     public static OIFitsCollection create(final OIFitsChecker checker, final List<String> fileLocations) throws IOException, MalformedURLException, FitsException {
+        return create(checker, fileLocations, 1);
+    }
+
+    /**
+     * Load the given files (in parallel if nThreads &gt; 1) and create the OIFits collection.
+     * In parallel mode, each file is validated by its own OIFitsChecker and all checker reports
+     * are merged at the end into the given checker following the file order,
+     * so the result is identical to the serial mode.
+     *
+     * @param checker checker component (may be null)
+     * @param fileLocations file locations (absolute File Path or URL)
+     * @param nThreads number of loader threads (1 means serial loading)
+     * @return new OIFits collection
+     * @throws MalformedURLException invalid url format
+     * @throws FitsException if any fits file can not be opened
+     * @throws IOException IO failure
+     */
+    public static OIFitsCollection create(final OIFitsChecker checker, final List<String> fileLocations,
+                                          final int nThreads) throws IOException, MalformedURLException, FitsException {
+        return create(checker, fileLocations, nThreads, false);
+    }
+
+    /**
+     * Load the given files (in parallel if nThreads &gt; 1) and create the OIFits collection.
+     * In lazy mode, column values are only read when needed and the data validation of data tables is skipped
+     * (listing / indexing / merge use cases).
+     *
+     * @param checker checker component (may be null)
+     * @param fileLocations file locations (absolute File Path or URL)
+     * @param nThreads number of loader threads (1 means serial loading)
+     * @param lazy true to read column values on demand
+     * @return new OIFits collection
+     * @throws MalformedURLException invalid url format
+     * @throws FitsException if any fits file can not be opened
+     * @throws IOException IO failure
+     */
+    public static OIFitsCollection create(final OIFitsChecker checker, final List<String> fileLocations,
+                                          final int nThreads, final boolean lazy) throws IOException, MalformedURLException, FitsException {
         final OIFitsCollection oiFitsCollection = new OIFitsCollection();
 
         // load files:
-        for (String fileLocation : fileLocations) {
-            oiFitsCollection.addOIFitsFile(OIFitsLoader.loadOIFits(checker, fileLocation));
+        if ((nThreads <= 1) || (fileLocations.size() <= 1)) {
+            for (String fileLocation : fileLocations) {
+                oiFitsCollection.addOIFitsFile(OIFitsLoader.loadOIFits(null, checker, fileLocation, false, false, lazy));
+            }
+        } else {
+            for (OIFitsFile oiFitsFile : OIFitsLoader.loadOIFits(checker, fileLocations, nThreads, lazy)) {
+                oiFitsCollection.addOIFitsFile(oiFitsFile);
+            }
         }
         oiFitsCollection.analyzeCollection();
 
@@ -143,6 +193,7 @@ public final class OIFitsCollection implements ToStringable {
     public void clear() {
         // clear all loaded OIFitsFile (in memory):
         oiFitsPerPath.clear();
+        entriesPerPath.clear();
 
         clearCache();
     }
@@ -160,7 +211,9 @@ public final class OIFitsCollection implements ToStringable {
         distinctGranules.clear();
         oiDataPerGranule.clear();
         usedStaNamesMap.clear();
+        statsPerGranule.clear();
 
+        granuleIndex = null;
         distinctStaNames = null;
         distinctStaConfs = null;
         columnRanges.clear();
@@ -228,6 +281,36 @@ public final class OIFitsCollection implements ToStringable {
         return null;
     }
 
+    /**
+     * Add or replace the given catalog entry (file analysis results without any loaded table) given its file path
+     * @param entry catalog entry
+     * @return previous catalog entry or null if not present
+     */
+    public OIFitsCatalog.Entry addCatalogEntry(final OIFitsCatalog.Entry entry) {
+        if (entry != null) {
+            logger.log(Level.FINE, "addCatalogEntry: {0}", entry);
+
+            return entriesPerPath.put(entry.getFilePath(), entry);
+        }
+        return null;
+    }
+
+    public Collection<OIFitsCatalog.Entry> getCatalogEntries() {
+        return entriesPerPath.values();
+    }
+
+    public List<OIFitsCatalog.Entry> getSortedCatalogEntries() {
+        final List<OIFitsCatalog.Entry> entries = new ArrayList<OIFitsCatalog.Entry>(getCatalogEntries());
+        Collections.sort(entries, new Comparator<OIFitsCatalog.Entry>() {
+            @Override
+            public int compare(final OIFitsCatalog.Entry e1, final OIFitsCatalog.Entry e2) {
+                // same order as OIFitsFileComparator:
+                return String.CASE_INSENSITIVE_ORDER.compare(e1.getFileName(), e2.getFileName());
+            }
+        });
+        return entries;
+    }
+
     public static String getFilePath(final OIFitsFile oifitsFile) {
         if (oifitsFile.getAbsoluteFilePath() == null) {
             // TODO: remove asap
@@ -260,6 +343,10 @@ public final class OIFitsCollection implements ToStringable {
 
         sb.append("{files= ").append(this.oiFitsPerPath.keySet());
 
+        if (!this.entriesPerPath.isEmpty()) {
+            sb.append(", catalog entries= ").append(this.entriesPerPath.keySet());
+        }
+
         if (full) {
             if (this.oiDataPerGranule != null) {
                 sb.append(", oiFitsPerGranule= ");
@@ -285,7 +372,8 @@ public final class OIFitsCollection implements ToStringable {
             }
 
             if (oiFitsFile.hasOiTarget()) {
-                for (Target target : oiFitsFile.getOiTarget().getTargetSet()) {
+                // use row order (deterministic):
+                for (Target target : oiFitsFile.getOiTarget().getTargetList()) {
                     tm.register(target);
                 }
             }
@@ -294,37 +382,27 @@ public final class OIFitsCollection implements ToStringable {
             usedStaNamesMap.putAll(oiFitsFile.getUsedStaNamesMap());
         }
 
+        final List<OIFitsCatalog.Entry> entries = getSortedCatalogEntries();
+
+        // analyze instrument modes & targets of catalog entries (after loaded files):
+        for (OIFitsCatalog.Entry entry : entries) {
+            for (InstrumentMode insMode : entry.getInstrumentModes()) {
+                imm.register(insMode);
+            }
+            for (Target target : entry.getTargets()) {
+                tm.register(target);
+            }
+        }
+
         imm.dump();
         tm.dump();
 
         // Build the index between global Granule and a fake OIFitsFile structure (to gather OIData) 
         for (OIFitsFile oiFitsFile : oiFitsFiles) {
-            // reused Granule:
-            Granule gg = new Granule();
-
             for (Map.Entry<Granule, Set<OIData>> entry : oiFitsFile.getOiDataPerGranule().entrySet()) {
 
                 // Relations between global Granule and OIFits Granules ?
-                final Granule g = entry.getKey();
-
-                // create global granule with matching global target & instrument mode:
-                final Target globalTarget = tm.getGlobal(g.getTarget());
-                final InstrumentMode globalInsMode = imm.getGlobal(g.getInsMode());
-
-                gg.set(globalTarget, globalInsMode, g.getNight());
-
-                Granule globalGranule = distinctGranules.get(gg);
-                if (globalGranule == null) {
-                    distinctGranules.put(gg, gg);
-                    globalGranule = gg;
-                    gg = new Granule();
-                }
-
-                // Update distinct StaNames on shared granule:
-                globalGranule.getDistinctStaNames().addAll(g.getDistinctStaNames());
-
-                // Update MJD Range on shared granule:
-                globalGranule.updateMjdRange(g.getMjdRange());
+                final Granule globalGranule = registerGranule(entry.getKey());
 
                 // keep mapping between global granule and OIData tables:
                 Set<OIData> oiDataTables = oiDataPerGranule.get(globalGranule);
@@ -340,6 +418,23 @@ public final class OIFitsCollection implements ToStringable {
             }
         }
 
+        // Merge granules and their statistics from catalog entries:
+        for (OIFitsCatalog.Entry entry : entries) {
+            final List<Granule> granules = entry.getGranules();
+            final List<GranuleStats> stats = entry.getGranuleStats();
+
+            for (int i = 0, len = granules.size(); i < len; i++) {
+                final Granule globalGranule = registerGranule(granules.get(i));
+
+                GranuleStats globalStats = statsPerGranule.get(globalGranule);
+                if (globalStats == null) {
+                    globalStats = new GranuleStats();
+                    statsPerGranule.put(globalGranule, globalStats);
+                }
+                globalStats.add(stats.get(i));
+            }
+        }
+
         if (logger.isLoggable(Level.FINE)) {
             logger.log(Level.FINE, "analyzeCollection: allOiDatas: {0}", allOiDatas);
             logger.log(Level.FINE, "analyzeCollection: usedStaNamesMap: {0}", usedStaNamesMap);
@@ -352,6 +447,31 @@ public final class OIFitsCollection implements ToStringable {
         }
     }
 
+    /**
+     * Return the global granule (shared) matching the given local granule (global target & instrument mode)
+     * and update its distinct StaNames and MJD range
+     * @param g local granule
+     * @return global granule
+     */
+    private Granule registerGranule(final Granule g) {
+        // create global granule with matching global target & instrument mode:
+        final Granule gg = new Granule(tm.getGlobal(g.getTarget()), imm.getGlobal(g.getInsMode()), g.getNight());
+
+        Granule globalGranule = distinctGranules.get(gg);
+        if (globalGranule == null) {
+            distinctGranules.put(gg, gg);
+            globalGranule = gg;
+        }
+
+        // Update distinct StaNames on shared granule:
+        globalGranule.getDistinctStaNames().addAll(g.getDistinctStaNames());
+
+        // Update MJD Range on shared granule:
+        globalGranule.updateMjdRange(g.getMjdRange());
+
+        return globalGranule;
+    }
+
     public String detailedGranuletoString(Granule granule) {
         return "Granule{target=" + granule.getTarget()
                 + " [aliases: " + tm.getSortedUniqueAliases(granule.getTarget()) + "]"
@@ -395,10 +515,30 @@ public final class OIFitsCollection implements ToStringable {
         return usedStaNamesMap;
     }
 
+    /**
+     * Return the statistics of the given granule gathered from catalog entries
+     * @param granule global granule
+     * @return statistics or null if the granule does not come from catalog entries
+     */
+    public GranuleStats getGranuleStats(final Granule granule) {
+        return statsPerGranule.get(granule);
+    }
+
     public List<Granule> getSortedGranules() {
         return getSortedGranules(GranuleComparator.DEFAULT);
     }
 
+    /**
+     * Return the index of granules sorted by GranuleComparator.DEFAULT (built once)
+     * @return index of granules
+     */
+    private GranuleIndex getGranuleIndex() {
+        if (granuleIndex == null) {
+            granuleIndex = new GranuleIndex(getSortedGranules());
+        }
+        return granuleIndex;
+    }
+
     public List<Granule> getSortedGranules(final Comparator<Granule> comparator) {
         final List<Granule> granules = new ArrayList<Granule>(distinctGranules.keySet());
         Collections.sort(granules, comparator);
@@ -756,9 +896,13 @@ public final class OIFitsCollection implements ToStringable {
     }
 
     private List<Granule> findGranules(final Selector selector) {
-        final List<Granule> granules = getSortedGranules();
+        final GranuleIndex index = getGranuleIndex();
 
-        if (selector != null && !selector.isEmpty()) {
+        if (selector == null || selector.isEmpty()) {
+            return new ArrayList<Granule>(index.getGranules());
+        }
+        final List<Granule> granules;
+        {
             boolean badTargetUID = false;
             boolean badInsModeUID = false;
 
@@ -818,6 +962,9 @@ public final class OIFitsCollection implements ToStringable {
                     ? new LinkedHashSet<Range>(selector.getFilter(Selector.FILTER_EFFWAVE)) : null
             );
 
+            // Get candidates from indexes (sorted):
+            granules = index.getCandidates(pattern, granuleMatcher.getDistinctMjdRanges(), granuleMatcher.getDistinctWavelengthRanges());
+
             if (!pattern.isEmpty() || !granuleMatcher.isEmpty()) {
                 // Match Granules:
                 for (Iterator<Granule> it = granules.iterator(); it.hasNext();) {
@@ -26,10 +26,12 @@ import fr.jmmc.oitools.image.FileRef;
 import fr.jmmc.oitools.image.FitsImageFile;
 import fr.jmmc.oitools.image.FitsImageHDU;
 import fr.jmmc.oitools.image.ImageOiData;
+import fr.jmmc.oitools.meta.ColumnMeta;
 import fr.jmmc.oitools.meta.OIFitsStandard;
-import static fr.jmmc.oitools.model.OIFitsChecker.isInspectRules;
 import fr.jmmc.oitools.model.range.Range;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -39,6 +41,10 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 
 /**
@@ -183,6 +189,58 @@ public final class OIFitsFile extends FitsImageFile {
         return null;
     }
 
+    /**
+     * Copy the given OITable with this oiFitsFile as parent keeping only the given rows and wavelengths:
+     * column values are filtered while copying into arrays allocated at their final size
+     * (source column values are never copied completely).
+     * @param oiTable table to copy
+     * @param nbKeepRows number of rows to keep
+     * @param maskRows bit set indicating which rows to keep (null means keep all rows)
+     * @param maskWavelengths bit set indicating which wavelength to keep (null means keep all wavelengths)
+     * @return copied OITable instance
+     * @throws IllegalArgumentException if the number of rows to keep is less than 1
+     */
+    public OITable copyTable(final OITable oiTable, final int nbKeepRows,
+                             final BitSet maskRows, final BitSet maskWavelengths) throws IllegalArgumentException {
+        if ((maskRows == null) && (maskWavelengths == null)) {
+            // shallow copy (column values are shared with the source table):
+            return copyTable(oiTable);
+        }
+        final OITable newOiTable = createTable(oiTable);
+        if (newOiTable != null) {
+            newOiTable.copyFilteredTable(oiTable, nbKeepRows, maskRows, maskWavelengths);
+        }
+        return newOiTable;
+    }
+
+    /**
+     * Create an empty OITable of the same type as the given table with this oiFitsFile as parent
+     * @param oiTable table to get its type
+     * @return new OITable instance (no keyword or column value)
+     */
+    private OITable createTable(final OITable oiTable) {
+        if (oiTable instanceof OITarget) {
+            return new OITarget(this);
+        } else if (oiTable instanceof OIWavelength) {
+            return new OIWavelength(this);
+        } else if (oiTable instanceof OIArray) {
+            return new OIArray(this);
+        } else if (oiTable instanceof OICorr) {
+            return new OICorr(this);
+        } else if (oiTable instanceof OIInspol) {
+            return new OIInspol(this);
+        } else if (oiTable instanceof OIVis) {
+            return new OIVis(this);
+        } else if (oiTable instanceof OIVis2) {
+            return new OIVis2(this);
+        } else if (oiTable instanceof OIT3) {
+            return new OIT3(this);
+        } else if (oiTable instanceof OIFlux) {
+            return new OIFlux(this);
+        }
+        return null;
+    }
+
     /**
      * Add the given OI_* tables to this OIFitsFile structure
      * @param oiTable new OI_* table
@@ -513,7 +571,9 @@ public final class OIFitsFile extends FitsImageFile {
             return EMPTY_SHORT_ARRAY;
         }
 
-        return oiTarget.getTargetId();
+        final short[] targetIds = oiTarget.getTargetId();
+        // TARGET_ID may be undefined (column projection):
+        return (targetIds != null) ? targetIds : EMPTY_SHORT_ARRAY;
     }
 
     /**
@@ -551,9 +611,24 @@ public final class OIFitsFile extends FitsImageFile {
     /**
      * Check the global structure of oifits file, including table presence and
      * syntax correction.
+     * OI tables are checked in parallel if the checker's parallel check flag is set.
      * @param checker checker component
      */
     public void check(final OIFitsChecker checker) {
+        check(checker, checker.isParallelCheck());
+    }
+
+    /**
+     * Check the global structure of oifits file, including table presence and
+     * syntax correction.
+     * In parallel mode, OI tables are checked concurrently (one checker per table) and their failures
+     * are merged in the table order so the report is identical to the serial mode.
+     * Note: the serial mode is used when rules are inspected, data checks are skipped (lazy loading)
+     * or OI_CORR tables are present (correlation indexes are checked across tables).
+     * @param checker checker component
+     * @param parallel true to check OI tables in parallel
+     */
+    public void check(final OIFitsChecker checker, final boolean parallel) {
         try {
             // Initialize FileRef in OIFitsChecker
             checker.setFileRef(getFileRef(), getVersion());
@@ -564,7 +639,7 @@ public final class OIFitsFile extends FitsImageFile {
 
             /* Checking primary HDU */
             if (isOIFits2()) {
-                if ((getPrimaryImageHDU() == null) || OIFitsChecker.isInspectRules()) {
+                if ((getPrimaryImageHDU() == null) || checker.isInspectRules()) {
                     // rule [OIFITS_MAIN_HEADER_EXIST_V2] check if the main header (PRIMARY HDU) exists in the OIFITS 2 file
                     checker.ruleFailed(Rule.OIFITS_MAIN_HEADER_EXIST_V2);
                 }
@@ -573,13 +648,13 @@ public final class OIFitsFile extends FitsImageFile {
             logger.finest("Checking mandatory tables");
 
             /* Checking presence of one and only one OI_TARGET table */
-            if (!hasOiTarget() || OIFitsChecker.isInspectRules()) {
+            if (!hasOiTarget() || checker.isInspectRules()) {
                 // rule [OIFITS_OI_TARGET_EXIST] check if only one OI_TARGET table exists in the OIFITS file
                 checker.ruleFailed(Rule.OIFITS_OI_TARGET_EXIST);
             }
 
             /* Checking presence of at least one OI_WAVELENGTH table */
-            if (this.insNameToOiWavelength.isEmpty() || OIFitsChecker.isInspectRules()) {
+            if (this.insNameToOiWavelength.isEmpty() || checker.isInspectRules()) {
                 // rule [OIFITS_OI_WAVELENGTH_EXIST] check if at least one OI_WAVELENGTH table exists in the OIFITS file
                 checker.ruleFailed(Rule.OIFITS_OI_WAVELENGTH_EXIST);
             }
@@ -606,25 +681,27 @@ public final class OIFitsFile extends FitsImageFile {
                     final int targets = getAcceptedTargetIds().length;
 
                     /* rule [MAIN_HEADER_TYPE_MULTI] check if main header keywords are set to 'MULTI' for heterogeneous content */
-                    if (((nbArrNames > 1) || multiInstruments || (targets > 1)) || OIFitsChecker.isInspectRules()) {
+                    if (((nbArrNames > 1) || multiInstruments || (targets > 1)) || checker.isInspectRules()) {
                         primaryHDU.checkMultiKeywords(checker, nbArrNames, multiInstruments, targets);
                     }
                 }
 
                 /* Checking presence of at least one OI_ARRAY table in OIFITS V2 */
-                if (this.arrNameToOiArray.isEmpty() || OIFitsChecker.isInspectRules()) {
+                if (this.arrNameToOiArray.isEmpty() || checker.isInspectRules()) {
                     // rule [OIFITS_OI_ARRAY_EXIST_V2] check if at least one OI_ARRAY table exists in the OIFITS 2 file
                     checker.ruleFailed(Rule.OIFITS_OI_ARRAY_EXIST_V2);
                 }
 
-                checkOIInspols(checker);
+                if (!checker.isProjected(OIFitsConstants.TABLE_OI_INSPOL) && !checker.isSkipData()) {
+                    checkOIInspols(checker);
+                }
             }
 
             /* Starting syntactical analysis */
             logger.finest("Building list of table for keywords analysis");
 
             if (isOIFits2()) {
-                if ((getPrimaryImageHDU() != null) || OIFitsChecker.isInspectRules()) {
+                if ((getPrimaryImageHDU() != null) || checker.isInspectRules()) {
                     getPrimaryImageHDU().checkSyntax(checker);
                 }
             }
@@ -643,8 +720,13 @@ public final class OIFitsFile extends FitsImageFile {
 
             // NOTE: may check twice the loaded OIFits: how to avoid duplications ?
             // Only 1 case: column format => use OIFitsChecker.skipFormat flag to avoid duplicated failures
-            for (OITable oiTable : getOITableList()) {
-                oiTable.checkSyntax(checker);
+            if (parallel && !checker.isInspectRules() && !checker.isSkipData()
+                    && this.corrNameToOiCorr.isEmpty() && (getNbOiTables() > 1)) {
+                checkOITablesParallel(checker);
+            } else {
+                for (OITable oiTable : getOITableList()) {
+                    checkOITable(oiTable, checker);
+                }
             }
 
             if (getExistingImageOiData() != null) {
@@ -663,6 +745,114 @@ public final class OIFitsFile extends FitsImageFile {
         }
     }
 
+    /**
+     * Check the given OI table
+     * @param oiTable OI table to check
+     * @param checker checker component
+     */
+    private static void checkOITable(final OITable oiTable, final OIFitsChecker checker) {
+        if (checker.isSkipData() && !isReferenceTable(oiTable)) {
+            // column values not read (lazy loading): only check keywords and cross references
+            oiTable.checkKeywords(checker);
+
+            if (oiTable instanceof OICorr) {
+                oiTable.getOIFitsFile().checkCrossReference(oiTable, checker);
+            }
+        } else if (checker.isProjected(oiTable.getExtName())) {
+            // only some columns loaded (column projection): skip rules depending on other columns
+            oiTable.checkKeywords(checker);
+            oiTable.checkColumns(checker);
+
+            if (oiTable instanceof OIData) {
+                // but fix invalid values (*ERR) like checkSyntax():
+                ((OIData) oiTable).checkColumnErrors(checker);
+            }
+        } else {
+            oiTable.checkSyntax(checker);
+        }
+    }
+
+    /**
+     * Return true if the given table is a reference table (OI_TARGET, OI_WAVELENGTH or OI_ARRAY)
+     * always checked as its (small) columns are read by any data table
+     * @param oiTable OI table
+     * @return true if the given table is a reference table
+     */
+    private static boolean isReferenceTable(final OITable oiTable) {
+        return (oiTable instanceof OITarget) || (oiTable instanceof OIWavelength) || (oiTable instanceof OIArray);
+    }
+
+    /**
+     * Check all OI tables in parallel (one checker per table) and merge failures in the table order
+     * @param checker checker component
+     */
+    private void checkOITablesParallel(final OIFitsChecker checker) {
+        final List<OITable> tables = getOITableList();
+        final int nTables = tables.size();
+
+        // Resolve shared state before checking tables concurrently (cached references, lazy columns)
+        // so OI_DATA checks only read the other tables:
+        for (OITable oiTable : tables) {
+            if (oiTable instanceof OIData) {
+                final OIData oiData = (OIData) oiTable;
+                oiData.getOiArray();
+                oiData.getOiTarget();
+                final OIWavelength oiWavelength = oiData.getOiWavelength();
+                if (oiWavelength != null) {
+                    oiWavelength.getEffWaveAsDouble();
+                    oiWavelength.getEffBandAsDouble();
+                }
+            } else {
+                // load all columns of shared tables (lazy mode):
+                for (ColumnMeta column : oiTable.getColumnDescCollection()) {
+                    oiTable.getColumnStoredValue(column.getName());
+                }
+            }
+        }
+
+        final List<Callable<OIFitsChecker>> tasks = new ArrayList<Callable<OIFitsChecker>>(nTables);
+
+        for (final OITable oiTable : tables) {
+            // same configuration as the given checker:
+            final OIFitsChecker tableChecker = new OIFitsChecker();
+            tableChecker.copySettings(checker);
+            tableChecker.setFileRef(getFileRef(), getVersion());
+            tableChecker.setSkipFormat(checker.isSkipFormat());
+            tableChecker.setColumnProjection(checker.getColumnProjection());
+            // failures found while loading (missing columns ...) are not reported twice:
+            tableChecker.setParent(checker);
+
+            tasks.add(new Callable<OIFitsChecker>() {
+                @Override
+                public OIFitsChecker call() {
+                    checkOITable(oiTable, tableChecker);
+                    return tableChecker;
+                }
+            });
+        }
+
+        final List<Future<OIFitsChecker>> futures = ForkJoinPool.commonPool().invokeAll(tasks);
+
+        // merge failures in the table order (deterministic report):
+        for (Future<OIFitsChecker> future : futures) {
+            try {
+                checker.merge(future.get());
+            } catch (ExecutionException ee) {
+                final Throwable cause = ee.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IllegalStateException("Unable to check the OIFits file: " + getAbsoluteFilePath(), cause);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while checking the OIFits file: " + getAbsoluteFilePath(), ie);
+            }
+        }
+    }
+
     /**
      * Check validity of cross references of non-data tables, ie check both
      * tables have different identifiers, or no mandatory identifier is not
@@ -675,7 +865,7 @@ public final class OIFitsFile extends FitsImageFile {
         if (oiTable instanceof OITarget) {
             final OITarget oitarget = (OITarget) oiTable;
 
-            if (oitarget.getNbTargets() < 1 || OIFitsChecker.isInspectRules()) {
+            if (oitarget.getNbTargets() < 1 || checker.isInspectRules()) {
                 // rule [OI_TARGET_TARGET_EXIST] check if the OI_TARGET table have at least one target
                 checker.ruleFailed(Rule.OI_TARGET_TARGET_EXIST, oitarget);
             }
@@ -687,14 +877,14 @@ public final class OIFitsFile extends FitsImageFile {
                 /* Get OiWavelength associated to INSNAME value */
                 final List<OIWavelength> oiWlTables = insNameToOiWavelength.get(insName);
 
-                if ((oiWlTables == null) || isInspectRules()) {
+                if ((oiWlTables == null) || checker.isInspectRules()) {
                     /* Problem: INSNAME value has not been encoutered during
                      * building step, that should be impossible */
                     // Problem: OI_WAVELENGTH.INSNAME can be modified without fixing cross-references 
                     // rule [INSNAME_REF] check if an OI_WAVELENGTH table matches the INSNAME keyword
                     checker.ruleFailed(Rule.INSNAME_REF, oiWavelength, OIFitsConstants.KEYWORD_INSNAME).addKeywordValue(insName);
                 }
-                if (((oiWlTables != null) && (oiWlTables.size() > 1)) || isInspectRules()) {
+                if (((oiWlTables != null) && (oiWlTables.size() > 1)) || checker.isInspectRules()) {
                     /* Problem: more that one OiWavelength table associated to INSNAME value, that is strictly forbidden */
                     final StringBuilder sb = new StringBuilder();
 
@@ -714,16 +904,16 @@ public final class OIFitsFile extends FitsImageFile {
             final OIArray oiArray = (OIArray) oiTable;
             final String arrName = oiArray.getArrName();
 
-            if (arrName != null || isInspectRules()) {
+            if (arrName != null || checker.isInspectRules()) {
                 /* Get OiArray associated to ARRNAME value */
                 final List<OIArray> oiArrTables = arrNameToOiArray.get(arrName);
 
-                if ((oiArrTables == null) || isInspectRules()) {
+                if ((oiArrTables == null) || checker.isInspectRules()) {
                     /* Problem: OI_ARRAY.ARRNAME can be modified without fixing cross-references */
                     // rule [ARRNAME_REF] check if an OI_ARRAY table matches the ARRNAME keyword
                     checker.ruleFailed(Rule.ARRNAME_REF, oiArray, OIFitsConstants.KEYWORD_ARRNAME).addKeywordValue(arrName);
                 }
-                if (((oiArrTables != null) && (oiArrTables.size() > 1)) || isInspectRules()) {
+                if (((oiArrTables != null) && (oiArrTables.size() > 1)) || checker.isInspectRules()) {
                     /* Problem: more that one OiArray table associated to ARRNAME value, that is strictly forbiden */
                     final StringBuilder sb = new StringBuilder();
 
@@ -747,14 +937,14 @@ public final class OIFitsFile extends FitsImageFile {
                 /* Get OICorr associated to CORRNAME value */
                 final List<OICorr> oiCorrTables = corrNameToOiCorr.get(corrName);
 
-                if ((oiCorrTables == null) || isInspectRules()) {
+                if ((oiCorrTables == null) || checker.isInspectRules()) {
                     /* Problem: CORRNAME value has not been encoutered during
                      * building step, that should be impossible */
                     // Problem: OI_CORR.CORRNAME can be modified without fixing cross-references 
                     // rule [CORRNAME_REF] check if an OI_CORR table matches the CORRNAME keyword
                     checker.ruleFailed(Rule.CORRNAME_REF, oiCorr, OIFitsConstants.KEYWORD_CORRNAME).addKeywordValue(corrName);
                 }
-                if (((oiCorrTables != null) && (oiCorrTables.size() > 1)) || isInspectRules()) {
+                if (((oiCorrTables != null) && (oiCorrTables.size() > 1)) || checker.isInspectRules()) {
                     /* Problem: more that one OICorr table associated to CORRNAME value, that is strictly forbiden */
                     final StringBuilder sb = new StringBuilder();
 
@@ -797,7 +987,7 @@ public final class OIFitsFile extends FitsImageFile {
 
                 // if there are several OI_INSPOL for this INSNAME
                 // And the OI_INSPOL being validated is present in the set 
-                if (((oiInspolSet.size() > 1) && oiInspolSet.contains(oiInspol)) || isInspectRules()) {
+                if (((oiInspolSet.size() > 1) && oiInspolSet.contains(oiInspol)) || checker.isInspectRules()) {
                     final String insName = entry.getKey();
                     final StringBuilder sb = new StringBuilder();
 
@@ -24,6 +24,8 @@ import fr.jmmc.oitools.fits.ChecksumHelper;
 import fr.jmmc.oitools.fits.FitsConstants;
 import fr.jmmc.oitools.fits.FitsHDU;
 import fr.jmmc.oitools.fits.FitsUtils;
+import fr.jmmc.oitools.fits.FlatColumn;
+import fr.jmmc.oitools.fits.LazyColumn;
 import fr.jmmc.oitools.image.FileRef;
 import fr.jmmc.oitools.image.FitsImageHDU;
 import fr.jmmc.oitools.image.FitsImageHDUFactory;
@@ -38,20 +40,38 @@ import fr.jmmc.oitools.meta.Types;
 import fr.jmmc.oitools.meta.Units;
 import fr.jmmc.oitools.util.FileUtils;
 import fr.nom.tam.fits.BasicHDU;
+import fr.nom.tam.fits.BinaryTable;
 import fr.nom.tam.fits.BinaryTableHDU;
 import fr.nom.tam.fits.Fits;
 import fr.nom.tam.fits.FitsException;
+import fr.nom.tam.fits.FitsUtil;
 import fr.nom.tam.fits.Header;
 import fr.nom.tam.fits.ImageHDU;
 import fr.nom.tam.util.ArrayFuncs;
+import fr.nom.tam.util.BufferedFile;
+import fr.nom.tam.util.MappedFile;
+import fr.nom.tam.util.RandomAccess;
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.lang.reflect.Array;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 
 /**
@@ -64,6 +84,21 @@ public class OIFitsLoader {
     /** Logger associated to meta model classes */
     protected final static java.util.logging.Logger logger = java.util.logging.Logger.getLogger(OIFitsLoader.class.getName());
 
+    /** thread factory for parallel loading (daemon threads) */
+    private final static ThreadFactory LOADER_THREAD_FACTORY = new ThreadFactory() {
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            final Thread t = new Thread(r, "OIFitsLoader-" + threadNumber.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        }
+    };
+
+    /** executor computing file checksums in parallel with the load pass (daemon threads) */
+    private final static ExecutorService CHECKSUM_EXECUTOR = Executors.newCachedThreadPool(LOADER_THREAD_FACTORY);
+
     static {
         FitsUtils.setup();
     }
@@ -73,10 +108,18 @@ public class OIFitsLoader {
     private final boolean logCheckerReport;
     /** flag to compute the file checksum */
     private final boolean doChecksum;
+    /** flag to read the file using memory mapped I/O */
+    private final boolean useMappedIO;
+    /** flag to read column values on demand (lazy) */
+    private final boolean lazy;
+    /** optional column projection (null means all columns) */
+    private final ColumnProjection projection;
     /** checker */
     private final OIFitsChecker checker;
     /** OIFits data model */
     private OIFitsFile oiFitsFile = null;
+    /** file source used by lazy columns (lazy mode only) */
+    private LazySource lazySource = null;
 
     /**
      * Main method to load an OI Fits File
@@ -153,6 +196,94 @@ public class OIFitsLoader {
      */
     public static OIFitsFile loadOIFits(final OIFitsStandard std, final OIFitsChecker checker,
                                         final String fileLocation, final boolean doChecksum) throws IOException, FitsException {
+        return loadOIFits(std, checker, fileLocation, doChecksum, false);
+    }
+
+    /**
+     * Main method to load an OI Fits File with the given checker component
+     * @param std OIFITS standard to force loading in V1 or V2 (null means automatic version)
+     * @param checker checker component
+     * @param fileLocation absolute File Path or URL (file:// or http://)
+     * @param doChecksum true to compute the file checksum
+     * @param useMappedIO true to read the file using memory mapped I/O (ignored for compressed files)
+     * @return OIFits data model
+     * @throws FitsException if the fits can not be opened
+     * @throws IOException IO failure
+     */
+    public static OIFitsFile loadOIFits(final OIFitsStandard std, final OIFitsChecker checker,
+                                        final String fileLocation, final boolean doChecksum,
+                                        final boolean useMappedIO) throws IOException, FitsException {
+        return loadOIFits(std, checker, fileLocation, doChecksum, useMappedIO, false);
+    }
+
+    /**
+     * Main method to load an OI Fits File with the given checker component
+     *
+     * In lazy mode, column values are read from the file only when first accessed (FitsTable.getColumnValue)
+     * and the data validation of data tables is skipped (only keywords, table presence, cross references,
+     * column formats and reference tables are checked) but column values are fixed like the data validation
+     * (invalid *ERR values set to NaN) when read.
+     * Lazy mode is ignored for remote or compressed files and when the checker inspects rules.
+     *
+     * @param std OIFITS standard to force loading in V1 or V2 (null means automatic version)
+     * @param checker checker component
+     * @param fileLocation absolute File Path or URL (file:// or http://)
+     * @param doChecksum true to compute the file checksum
+     * @param useMappedIO true to read the file using memory mapped I/O (ignored for compressed files)
+     * @param lazy true to read column values on demand
+     * @return OIFits data model
+     * @throws FitsException if the fits can not be opened
+     * @throws IOException IO failure
+     */
+    public static OIFitsFile loadOIFits(final OIFitsStandard std, final OIFitsChecker checker,
+                                        final String fileLocation, final boolean doChecksum,
+                                        final boolean useMappedIO, final boolean lazy) throws IOException, FitsException {
+        return loadOIFits(std, checker, fileLocation, doChecksum, useMappedIO, lazy, null);
+    }
+
+    /**
+     * Load an OI Fits File with the given checker component reading only the columns given by the column projection.
+     * Other columns of projected tables remain undefined (null) and the validation skips rules depending on them.
+     * Columns needed by the data analysis (TARGET_ID, STA_INDEX, MJD, FLAG) are always read
+     * and invalid *ERR values are fixed like the full validation.
+     *
+     * @param std OIFITS standard to force loading in V1 or V2 (null means automatic version)
+     * @param checker checker component
+     * @param fileLocation absolute File Path or URL (file:// or http://)
+     * @param projection column projection (null means all columns)
+     * @return OIFits data model
+     * @throws FitsException if the fits can not be opened
+     * @throws IOException IO failure
+     */
+    public static OIFitsFile loadOIFits(final OIFitsStandard std, final OIFitsChecker checker,
+                                        final String fileLocation, final ColumnProjection projection) throws IOException, FitsException {
+        return loadOIFits(std, checker, fileLocation, false, false, false, projection);
+    }
+
+    /**
+     * Main method to load an OI Fits File with the given checker component
+     *
+     * In lazy mode, column values are read from the file only when first accessed (FitsTable.getColumnValue)
+     * and the data validation of data tables is skipped (only keywords, table presence, cross references,
+     * column formats and reference tables are checked) but column values are fixed like the data validation
+     * (invalid *ERR values set to NaN) when read.
+     * Lazy mode is ignored for remote or compressed files and when the checker inspects rules.
+     *
+     * @param std OIFITS standard to force loading in V1 or V2 (null means automatic version)
+     * @param checker checker component
+     * @param fileLocation absolute File Path or URL (file:// or http://)
+     * @param doChecksum true to compute the file checksum
+     * @param useMappedIO true to read the file using memory mapped I/O (ignored for compressed files)
+     * @param lazy true to read column values on demand
+     * @param projection column projection (null means all columns); ignored when the checker inspects rules
+     * @return OIFits data model
+     * @throws FitsException if the fits can not be opened
+     * @throws IOException IO failure
+     */
+    public static OIFitsFile loadOIFits(final OIFitsStandard std, final OIFitsChecker checker,
+                                        final String fileLocation, final boolean doChecksum,
+                                        final boolean useMappedIO, final boolean lazy,
+                                        final ColumnProjection projection) throws IOException, FitsException {
         boolean remote = false;
         final String absFilePath;
         final URI fileURI;
@@ -181,7 +312,8 @@ public class OIFitsLoader {
             fileURI = null;
         }
 
-        final OIFitsLoader loader = new OIFitsLoader(checker, doChecksum);
+        // the temporary file of remote files is deleted after loading:
+        final OIFitsLoader loader = new OIFitsLoader(checker, doChecksum, useMappedIO, lazy && !remote, projection);
         try {
             loader.load(std, absFilePath);
         } finally {
@@ -199,12 +331,115 @@ public class OIFitsLoader {
         return oiFitsFile;
     }
 
+    /**
+     * Load several OI Fits Files in parallel using a fixed thread pool.
+     * Each file is validated by its own OIFitsChecker instance whose failures are merged
+     * into the given checker following the file order (deterministic report).
+     * @param checker checker component (null means one checker per file logging its report)
+     * @param fileLocations absolute File Paths or URLs (file:// or http://)
+     * @param nThreads number of loader threads
+     * @return list of OIFits data models (same order as the given file locations)
+     * @throws FitsException if any fits file can not be opened
+     * @throws IOException IO failure
+     */
+    public static List<OIFitsFile> loadOIFits(final OIFitsChecker checker, final List<String> fileLocations,
+                                              final int nThreads) throws IOException, FitsException {
+        return loadOIFits(checker, fileLocations, nThreads, false);
+    }
+
+    /**
+     * Load several OI Fits Files in parallel using a fixed thread pool.
+     * Each file is validated by its own OIFitsChecker instance whose failures are merged
+     * into the given checker following the file order (deterministic report).
+     * @param checker checker component (null means one checker per file logging its report)
+     * @param fileLocations absolute File Paths or URLs (file:// or http://)
+     * @param nThreads number of loader threads
+     * @param lazy true to read column values on demand (see loadOIFits(std, checker, fileLocation, doChecksum, useMappedIO, lazy))
+     * @return list of OIFits data models (same order as the given file locations)
+     * @throws FitsException if any fits file can not be opened
+     * @throws IOException IO failure
+     */
+    public static List<OIFitsFile> loadOIFits(final OIFitsChecker checker, final List<String> fileLocations,
+                                              final int nThreads, final boolean lazy) throws IOException, FitsException {
+        final int nFiles = fileLocations.size();
+        final List<OIFitsFile> oiFitsFiles = new ArrayList<OIFitsFile>(nFiles);
+
+        if (nFiles != 0) {
+            final OIFitsChecker[] checkers = new OIFitsChecker[nFiles];
+            final List<Future<OIFitsFile>> futures = new ArrayList<Future<OIFitsFile>>(nFiles);
+
+            final ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(nThreads, nFiles)), LOADER_THREAD_FACTORY);
+            try {
+                for (int i = 0; i < nFiles; i++) {
+                    final String fileLocation = fileLocations.get(i);
+                    final OIFitsChecker fileChecker;
+                    if (checker != null) {
+                        // same configuration as the given checker:
+                        fileChecker = new OIFitsChecker(checker.isInspectRules());
+                        fileChecker.copySettings(checker);
+                    } else {
+                        fileChecker = null;
+                    }
+                    checkers[i] = fileChecker;
+
+                    futures.add(executor.submit(new Callable<OIFitsFile>() {
+                        @Override
+                        public OIFitsFile call() throws IOException, FitsException {
+                            return loadOIFits(null, fileChecker, fileLocation, false, false, lazy);
+                        }
+                    }));
+                }
+
+                // gather results in the file order:
+                for (int i = 0; i < nFiles; i++) {
+                    OIFitsFile oiFitsFile = null;
+                    Throwable failure = null;
+                    try {
+                        oiFitsFile = futures.get(i).get();
+                    } catch (ExecutionException ee) {
+                        failure = ee.getCause();
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while loading: " + fileLocations.get(i));
+                    }
+                    if (checker != null) {
+                        // merge the file report (even on failure like the serial mode):
+                        checker.merge(checkers[i]);
+                    }
+                    if (failure != null) {
+                        if (failure instanceof IOException) {
+                            throw (IOException) failure;
+                        }
+                        if (failure instanceof FitsException) {
+                            throw (FitsException) failure;
+                        }
+                        if (failure instanceof RuntimeException) {
+                            throw (RuntimeException) failure;
+                        }
+                        if (failure instanceof Error) {
+                            throw (Error) failure;
+                        }
+                        throw new IOException("Unable to load the file: " + fileLocations.get(i), failure);
+                    }
+                    oiFitsFiles.add(oiFitsFile);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        return oiFitsFiles;
+    }
+
     /**
      * Custom constructor to give a checker instance (multiple file load / validation)
      * @param checker checker component
      * @param doChecksum flag to compute the file checksum
+     * @param useMappedIO flag to read the file using memory mapped I/O
+     * @param lazy flag to read column values on demand
+     * @param projection optional column projection
      */
-    private OIFitsLoader(final OIFitsChecker checker, final boolean doChecksum) {
+    private OIFitsLoader(final OIFitsChecker checker, final boolean doChecksum, final boolean useMappedIO, final boolean lazy,
+                         final ColumnProjection projection) {
         super();
         if (checker != null) {
             this.checker = checker;
@@ -214,6 +449,9 @@ public class OIFitsLoader {
             this.logCheckerReport = true;
         }
         this.doChecksum = doChecksum;
+        this.useMappedIO = useMappedIO;
+        this.lazy = lazy && !this.checker.isInspectRules();
+        this.projection = (this.checker.isInspectRules()) ? null : projection;
     }
 
     /**
@@ -248,7 +486,7 @@ public class OIFitsLoader {
             final File file = new File(absFilePath);
             final boolean missing = !file.exists();
 
-            if (missing || OIFitsChecker.isInspectRules()) {
+            if (missing || checker.isInspectRules()) {
                 // rule [FILE_EXIST] check if the file exist
                 checker.ruleFailed(Rule.FILE_EXIST);
 
@@ -260,12 +498,31 @@ public class OIFitsLoader {
 
             final long fileSize = file.length();
 
+            // compute the md5sum while loading (the file is read once from disk, then from the OS cache):
+            final Future<String> md5Future = (this.doChecksum) ? CHECKSUM_EXECUTOR.submit(new Callable<String>() {
+                @Override
+                public String call() {
+                    return ChecksumHelper.computeMD5(file);
+                }
+            }) : null;
+
             Fits fitsFile = null;
+            boolean ok = false;
             try {
                 final long start = System.nanoTime();
 
                 // open the fits file:
-                fitsFile = new Fits(absFilePath);
+                if (this.useMappedIO && !FitsUtil.isCompressed(file)) {
+                    // decode data directly from the mapped file:
+                    fitsFile = new Fits();
+                    fitsFile.setStream(new MappedFile(file));
+                } else {
+                    fitsFile = new Fits(absFilePath);
+                }
+                if (this.lazy && (fitsFile.getStream() instanceof RandomAccess)) {
+                    // binary table data are deferred (random access):
+                    this.lazySource = new LazySource(absFilePath, this.useMappedIO);
+                }
 
                 // read the complete file structure:
                 // TODO: unify the readHDU with FitsImageLoader
@@ -281,6 +538,7 @@ public class OIFitsLoader {
                 if (logger.isLoggable(Level.INFO)) {
                     logger.log(Level.INFO, "load: duration = {0} ms.", 1e-6d * (System.nanoTime() - start));
                 }
+                ok = true;
 
             } catch (FitsException fe) {
                 logger.log(Level.SEVERE, "Unable to load the file: " + absFilePath, fe);
@@ -288,6 +546,9 @@ public class OIFitsLoader {
                 checker.ruleFailed(Rule.FILE_LOAD);
                 throw fe;
             } finally {
+                if (!ok && (md5Future != null)) {
+                    md5Future.cancel(true);
+                }
                 if (fitsFile != null && fitsFile.getStream() != null) {
                     try {
                         fitsFile.getStream().close();
@@ -305,17 +566,19 @@ public class OIFitsLoader {
             // Update file properties:
             this.oiFitsFile.setSize(fileSize);
 
-            if (this.doChecksum) {
-                final String md5sum = ChecksumHelper.computeMD5(file);
+            if (md5Future != null) {
+                final String md5sum = getChecksum(md5Future, absFilePath);
                 if (logger.isLoggable(Level.INFO)) {
                     logger.log(Level.INFO, "md5sum = {0}", md5sum);
                 }
                 this.oiFitsFile.setMd5sum(md5sum);
             }
 
-            // Always perform validation:
+            // Always perform validation (only keywords, table presence and cross references in lazy mode):
             // ENABLE before second OIFits validation
             this.checker.setSkipFormat(true);
+            this.checker.setSkipData(this.lazy);
+            this.checker.setColumnProjection(this.projection);
 
             this.oiFitsFile.check(this.checker);
 
@@ -328,6 +591,28 @@ public class OIFitsLoader {
         }
     }
 
+    /**
+     * Wait for the checksum computed in parallel
+     * @param future checksum task
+     * @param absFilePath absolute File path on file system (not URL)
+     * @return checksum
+     * @throws IOException IO failure or interrupted
+     */
+    private static String getChecksum(final Future<String> future, final String absFilePath) throws IOException {
+        try {
+            return future.get();
+        } catch (ExecutionException ee) {
+            final Throwable cause = ee.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException("Unable to compute the checksum: " + absFilePath, cause);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while computing the checksum: " + absFilePath);
+        }
+    }
+
     /**
      * Process all Fits HD units to load OI_* tables (skip other tables)
      * and check at least one data table is present.
@@ -515,7 +800,7 @@ public class OIFitsLoader {
 
         // report any non-standard OIFits binary tables:
         for (int i = 0; i < nbHDU; i++) {
-            if (!processed[i] || OIFitsChecker.isInspectRules()) {
+            if (!processed[i] || checker.isInspectRules()) {
                 hdu = hdus[i];
 
                 extName = hdu.getTrimmedString(FitsConstants.KEYWORD_EXT_NAME);
@@ -543,7 +828,7 @@ public class OIFitsLoader {
                     }
                 }
 
-                if (!processed[i] || OIFitsChecker.isInspectRules()) {
+                if (!processed[i] || checker.isInspectRules()) {
                     // rule [UNKNOWN_TABLE] check if the table belongs to the OIFITS standard and version
                     checker.inspectRuleFailed(Rule.UNKNOWN_TABLE, OIFitsChecker.FILE_RULE, oiFitsFile.getVersion());
 
@@ -561,7 +846,7 @@ public class OIFitsLoader {
         }
 
         // Add a severe error without any OI_ table
-        if (!hasDataHdu || OIFitsChecker.isInspectRules()) {
+        if (!hasDataHdu || checker.isInspectRules()) {
             // rule [OIFITS_OIDATA] check if at least one data table exists in the OIFITS file
             checker.ruleFailed(Rule.OIFITS_OIDATA);
         }
@@ -582,6 +867,11 @@ public class OIFitsLoader {
         FitsImageLoader.processKeywords(checker, hdu.getHeader(), table);
 
         this.processData(hdu, table);
+
+        if (this.lazySource != null) {
+            // release the (closed) input kept by the deferred table referenced by lazy columns:
+            ((BinaryTable) hdu.getData()).releaseInput();
+        }
     }
 
     /**
@@ -616,9 +906,17 @@ public class OIFitsLoader {
             name = column.getName();
             value = null;
 
+            if ((this.projection != null) && !this.projection.isKept(table.getExtName(), name)) {
+                // column not projected: skip decoding (undefined) but keep its custom units (header only):
+                if (column.isCustomUnits()) {
+                    processCustomUnits(hdu, column);
+                }
+                continue;
+            }
+
             idx = hdu.findColumn(name);
 
-            if (idx == -1 || OIFitsChecker.isInspectRules()) {
+            if (idx == -1 || checker.isInspectRules()) {
                 if (!column.isOptional()) {
                     /* No column with columnName name */
                     // rule [GENERIC_COL_MANDATORY] check if the required column is present
@@ -631,32 +929,38 @@ public class OIFitsLoader {
                 idx = hdu.findColumn(column.getAlias());
             }
 
-            if (idx != -1 || OIFitsChecker.isInspectRules()) {
+            if (idx != -1 || checker.isInspectRules()) {
 
                 final char type;
                 final int length;
                 final String unit;
                 final Object values;
 
-                if (OIFitsChecker.isInspectRules() && idx == -1) {
+                if (checker.isInspectRules() && idx == -1) {
                     type = Types.TYPE_CHAR.getRepresentation();
                     length = 1;
                     unit = "TUNIT";
-                    values = null;
                 } else {
                     type = hdu.getColumnType(idx);
                     length = hdu.getColumnLength(idx);
                     unit = hdu.getColumnUnit(idx);
-                    values = hdu.getColumn(idx);
                 }
                 if (logger.isLoggable(Level.FINE)) {
                     logger.log(Level.FINE, "COLUMN [{0}] [{1} {2}]",
                             new Object[]{name, length, type});
                 }
 
-                // read all data and convert them to arrays[][]:
-                // parse column value:
-                value = parseColumn(table, column, type, length, unit, values);
+                // check column format (data type, repeat, units):
+                if (checkColumn(table, column, type, length, unit) && (idx != -1)) {
+                    if ((this.lazySource != null) && (type != 'P') && (type != 'Q')) {
+                        // read data on demand:
+                        value = new LoaderLazyColumn(this.lazySource, table, (BinaryTable) hdu.getData(), idx, column, type, length, nbRows);
+                    } else {
+                        // read all data and convert them to arrays[][]:
+                        value = convertColumn(column, type, length,
+                                getColumnValues((BinaryTable) hdu.getData(), null, idx, column, type, length, nbRows));
+                    }
+                }
             }
 
             // Fix undefined columns:
@@ -685,7 +989,7 @@ public class OIFitsLoader {
 
             // Separation of the displays for the collection of the Rules from that of the Failures 
             // (we do not wish to have all the details of unknown column during the collection of the rules)
-            if (OIFitsChecker.isInspectRules()) {
+            if (checker.isInspectRules()) {
                 final DataLocation data = checker.ruleFailed(Rule.UNKNOWN_COLUMN, table, "[[UNKNOWN]]");
                 if (data.isEmpty()) {
                     data.addKeywordValue("[FORMAT]");
@@ -699,51 +1003,134 @@ public class OIFitsLoader {
     }
 
     /**
-     * Parse the column value and check its format (data type, repeat, units)
-     * @param table Fits table
+     * Return the column values as a flat array (FlatColumn) if possible or as jagged arrays
+     * @param data binary table data
+     * @param input random access input to read only this column from the deferred table or null to use the table data
+     * @param idx column index
      * @param column column descriptor
      * @param columnType fits column type
      * @param columnRepeat fits column repeat (cardinality)
-     * @param columnUnit fits column unit
-     * @param columnValue column raw value
-     * @return converted column value or null
+     * @param nbRows number of rows
+     * @return FlatColumn or jagged arrays
+     * @throws FitsException if any FITS error occurred
      */
-    private Object parseColumn(final OITable table, final ColumnMeta column, final char columnType,
-                               final int columnRepeat, final String columnUnit, final Object columnValue) {
+    private static Object getColumnValues(final BinaryTable data, final RandomAccess input, final int idx, final ColumnMeta column,
+                                          final char columnType, final int columnRepeat, final int nbRows) throws FitsException {
+        return getColumnValues(data, input, idx, column, columnType, columnRepeat, -1, nbRows, null);
+    }
 
-        if (logger.isLoggable(Level.FINE)) {
-            logger.log(Level.FINE, "parseColumn: {0} = {1}",
-                    new Object[]{column.getName(), ArrayFuncs.arrayDescription(columnValue)});
+    /**
+     * Return the column values (or only the given rows) as a flat array (FlatColumn) if possible or as jagged arrays
+     * @param data binary table data
+     * @param input random access input to read only this column from the deferred table or null to use the table data
+     * @param idx column index
+     * @param column column descriptor
+     * @param columnType fits column type
+     * @param columnRepeat fits column repeat (cardinality)
+     * @param firstRow first row to read from the given input (-1 means all rows)
+     * @param nbRows number of rows
+     * @param buffer optional flat array to reuse (ranged read only)
+     * @return FlatColumn or jagged arrays
+     * @throws FitsException if any FITS error occurred
+     */
+    static Object getColumnValues(final BinaryTable data, final RandomAccess input, final int idx, final ColumnMeta column,
+                                  final char columnType, final int columnRepeat, final int firstRow, final int nbRows,
+                                  final Object buffer) throws FitsException {
+
+        // only flat arrays without type conversion:
+        if (column.isFlatStorage() && (columnType == column.getType())) {
+            final Object flatValues = (input == null) ? data.getFlattenedColumn(idx)
+                    : (firstRow < 0) ? data.readColumn(input, idx, true)
+                            : data.readColumn(input, idx, firstRow, nbRows, buffer, true);
+
+            final int[] rowDims = (column.getDataType() == Types.TYPE_COMPLEX)
+                    ? new int[]{columnRepeat, 2} : new int[]{columnRepeat};
+
+            if ((flatValues != null) && (Array.getLength(flatValues) == nbRows * columnRepeat * ((rowDims.length == 2) ? 2 : 1))) {
+                return new FlatColumn(flatValues, nbRows, rowDims);
+            }
         }
+        return (input == null) ? data.getColumn(idx)
+                : (firstRow < 0) ? data.readColumn(input, idx, false)
+                        : data.readColumn(input, idx, firstRow, nbRows, null, false);
+    }
 
-        // final column value:
-        Object value = columnValue;
+    /**
+     * Check the column format (data type, repeat, units)
+     * @param table Fits table
+     * @param column column descriptor
+     * @param columnType fits column type
+     * @param columnRepeat fits column repeat (cardinality)
+     * @param columnUnit fits column unit
+     * @return true if the column values can be used; false if the column format is incompatible
+     */
+    private boolean checkColumn(final OITable table, final ColumnMeta column, final char columnType,
+                                final int columnRepeat, final String columnUnit) {
 
         // Check type and cardinality
-        if (column.checkColumnFormat(checker, table, columnType, columnRepeat)) {
-            // incompatible array size = ignore totally values:
-            value = null;
-        }
+        // incompatible array size = ignore totally values:
+        final boolean valid = !column.checkColumnFormat(checker, table, columnType, columnRepeat);
 
         // Check unit
         final Units parsedUnit = Units.parseUnit(columnUnit);
 
-        if (column.getUnits() != parsedUnit || OIFitsChecker.isInspectRules()) {
-            if (((parsedUnit == Units.NO_UNIT) && (!column.isCustomUnits() || column.getCustomUnits().isRequired())) || OIFitsChecker.isInspectRules()) {
+        if (column.getUnits() != parsedUnit || checker.isInspectRules()) {
+            if (((parsedUnit == Units.NO_UNIT) && (!column.isCustomUnits() || column.getCustomUnits().isRequired())) || checker.isInspectRules()) {
                 // rule [GENERIC_COL_UNIT_EXIST] check if the column unit exist
                 checker.ruleFailed(Rule.GENERIC_COL_UNIT_EXIST, table, column.getName()).addKeywordValue(column.getUnit());
             }
-            if ((parsedUnit != Units.NO_UNIT) || OIFitsChecker.isInspectRules()) {
+            if ((parsedUnit != Units.NO_UNIT) || checker.isInspectRules()) {
                 // Parse the user unit into CustomUnits
                 if (column.isCustomUnits()) {
                     column.getCustomUnits().setRepresentation((parsedUnit != null) ? parsedUnit.getStandardRepresentation() : columnUnit);
                 }
-                if (!column.isCustomUnits() || OIFitsChecker.isInspectRules()) {
+                if (!column.isCustomUnits() || checker.isInspectRules()) {
                     // rule [GENERIC_COL_UNIT] check if the column unit matches the expected unit
                     checker.ruleFailed(Rule.GENERIC_COL_UNIT, table, column.getName()).addKeywordValue(columnUnit, column.getUnit());
                 }
             }
         }
+        return valid;
+    }
+
+    /**
+     * Parse the column unit into the CustomUnits of the given column (column not projected i.e. not checked)
+     * @param hdu binary table
+     * @param column column descriptor having custom units
+     */
+    private static void processCustomUnits(final BinaryTableHDU hdu, final ColumnMeta column) {
+        int idx = hdu.findColumn(column.getName());
+        if ((idx == -1) && (column.getAlias() != null)) {
+            idx = hdu.findColumn(column.getAlias());
+        }
+        if (idx != -1) {
+            final String columnUnit = hdu.getColumnUnit(idx);
+            final Units parsedUnit = Units.parseUnit(columnUnit);
+
+            if (parsedUnit != Units.NO_UNIT) {
+                column.getCustomUnits().setRepresentation((parsedUnit != null) ? parsedUnit.getStandardRepresentation() : columnUnit);
+            }
+        }
+    }
+
+    /**
+     * Convert the column value to the expected data model type
+     * @param column column descriptor
+     * @param columnType fits column type
+     * @param columnRepeat fits column repeat (cardinality)
+     * @param columnValue column raw value
+     * @return converted column value or null
+     */
+    static Object convertColumn(final ColumnMeta column, final char columnType,
+                                final int columnRepeat, final Object columnValue) {
+
+        if (logger.isLoggable(Level.FINE)) {
+            logger.log(Level.FINE, "convertColumn: {0} = {1}",
+                    new Object[]{column.getName(), ArrayFuncs.arrayDescription(columnValue)});
+        }
+
+        // final column value:
+        Object value = columnValue;
 
         if (value == null) {
             // fast fail:
@@ -791,7 +1178,7 @@ public class OIFitsLoader {
             return null;
         }
 
-        if ((column instanceof ArrayColumnMeta) && (columnRepeat == 1)) {
+        if ((column instanceof ArrayColumnMeta) && (columnRepeat == 1) && !(value instanceof FlatColumn)) {
             // Note: If TDIM keyword is present, the value is already a 2D array except for complex column.
 
             final int[] dims = ArrayFuncs.getDimensions(value);
@@ -827,4 +1214,183 @@ public class OIFitsLoader {
         return oiFitsFile;
     }
 
+    /**
+     * File source shared by lazy columns of the same file:
+     * a single input is opened on the first read and closed once all lazy columns are read.
+     * To bound the number of open files, the least recently used idle inputs are closed
+     * when more than MAX_OPEN_INPUTS inputs are open (reopened on demand).
+     */
+    private static final class LazySource {
+
+        /** maximum number of inputs kept open by all lazy sources */
+        private final static int MAX_OPEN_INPUTS = 32;
+        /** lazy sources having an open input in access order (guarded by itself) */
+        private final static Map<LazySource, Boolean> OPEN_SOURCES = new LinkedHashMap<LazySource, Boolean>(64, 0.75f, true);
+
+        /** absolute File path */
+        private final String absFilePath;
+        /** flag to read the file using memory mapped I/O */
+        private final boolean useMappedIO;
+        /** lock guarding input and pending (never acquired while holding OPEN_SOURCES) */
+        private final ReentrantLock lock = new ReentrantLock();
+        /** shared random access input (guarded by lock) */
+        private RandomAccess input = null;
+        /** number of lazy columns not read yet (guarded by lock) */
+        private int pending = 0;
+
+        LazySource(final String absFilePath, final boolean useMappedIO) {
+            this.absFilePath = absFilePath;
+            this.useMappedIO = useMappedIO;
+        }
+
+        /**
+         * Register a new lazy column to read
+         */
+        void register() {
+            lock.lock();
+            try {
+                pending++;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Read the given lazy column using the shared input (opened if needed)
+         * @param column lazy column to read
+         * @return column value (jagged arrays or FlatColumn) or null if undefined
+         * @throws IOException IO failure
+         * @throws FitsException if any FITS error occurred
+         */
+        Object read(final LoaderLazyColumn column) throws IOException, FitsException {
+            lock.lock();
+            try {
+                if (input == null) {
+                    input = (useMappedIO) ? new MappedFile(absFilePath) : new BufferedFile(absFilePath, "r");
+                }
+                touch();
+
+                final Object value = column.read(input);
+
+                if (--pending <= 0) {
+                    // all lazy columns are read:
+                    closeInput();
+                }
+                return value;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Mark this source as recently used and close the least recently used idle inputs if too many are open
+         */
+        private void touch() {
+            synchronized (OPEN_SOURCES) {
+                OPEN_SOURCES.put(this, Boolean.TRUE);
+
+                if (OPEN_SOURCES.size() > MAX_OPEN_INPUTS) {
+                    for (final Iterator<LazySource> it = OPEN_SOURCES.keySet().iterator();
+                            it.hasNext() && (OPEN_SOURCES.size() > MAX_OPEN_INPUTS);) {
+                        final LazySource source = it.next();
+                        // never wait for another source (busy sources are skipped):
+                        if ((source != this) && source.lock.tryLock()) {
+                            try {
+                                it.remove();
+                                source.closeInput();
+                            } finally {
+                                source.lock.unlock();
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Close the shared input (lock must be held)
+         */
+        private void closeInput() {
+            if (input != null) {
+                try {
+                    input.close();
+                } catch (IOException ioe) {
+                    logger.log(Level.FINE, "Closing lazy input", ioe);
+                }
+                input = null;
+            }
+            synchronized (OPEN_SOURCES) {
+                OPEN_SOURCES.remove(this);
+            }
+        }
+    }
+
+    /**
+     * Column value read from the file on first access.
+     * Values are fixed like the data validation (invalid *ERR values set to NaN) as it is skipped in lazy mode.
+     */
+    private static final class LoaderLazyColumn implements LazyColumn {
+
+        /** file source */
+        private final LazySource source;
+        /** OI table */
+        private final OITable table;
+        /** binary table data (deferred) */
+        private final BinaryTable data;
+        /** column index */
+        private final int idx;
+        /** column descriptor */
+        private final ColumnMeta column;
+        /** fits column type */
+        private final char columnType;
+        /** fits column repeat (cardinality) */
+        private final int columnRepeat;
+        /** number of rows */
+        private final int nbRows;
+
+        LoaderLazyColumn(final LazySource source, final OITable table, final BinaryTable data, final int idx,
+                         final ColumnMeta column, final char columnType, final int columnRepeat, final int nbRows) {
+            this.source = source;
+            this.table = table;
+            this.data = data;
+            this.idx = idx;
+            this.column = column;
+            this.columnType = columnType;
+            this.columnRepeat = columnRepeat;
+            this.nbRows = nbRows;
+
+            source.register();
+        }
+
+        @Override
+        public Object load() throws IOException, FitsException {
+            if (logger.isLoggable(Level.FINE)) {
+                logger.log(Level.FINE, "loading column {0} from {1}", new Object[]{column.getName(), source.absFilePath});
+            }
+            Object value = source.read(this);
+
+            // Fix undefined columns:
+            if ((value == null) && !column.isOptional()) {
+                value = table.createColumnArray(column, nbRows);
+            } else if ((value != null) && (table instanceof OIData)) {
+                final OIData oiData = (OIData) table;
+                if (oiData.isCheckedErrorColumn(column.getName())) {
+                    // Fix values (*ERR) like the data validation (FLAG column may be read first):
+                    oiData.fixColumnValue(column.getName(), value, oiData.getFlag());
+                }
+            }
+            return value;
+        }
+
+        /**
+         * Read the column values from the given input
+         * @param input shared random access input
+         * @return column value (jagged arrays or FlatColumn) or null if undefined
+         * @throws FitsException if any FITS error occurred
+         */
+        Object read(final RandomAccess input) throws FitsException {
+            return convertColumn(column, columnType, columnRepeat,
+                    getColumnValues(data, input, idx, column, columnType, columnRepeat, nbRows));
+        }
+    }
 }
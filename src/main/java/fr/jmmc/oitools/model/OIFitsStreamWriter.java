@@ -0,0 +1,156 @@
+/* 
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools.model;
+
+import fr.jmmc.oitools.fits.FitsTable;
+import fr.jmmc.oitools.fits.FitsUtils;
+import fr.jmmc.oitools.image.FitsImageWriter;
+import fr.nom.tam.fits.BasicHDU;
+import fr.nom.tam.fits.Fits;
+import fr.nom.tam.fits.FitsException;
+import fr.nom.tam.util.BufferedFile;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * This class writes an OIFits file HDU per HDU (streaming mode) so tables can be released as soon as written:
+ * the primary HDU and the tables of the given OIFitsFile (OI_TARGET, OI_WAVELENGTH ...) are written first,
+ * then any table (OI_DATA) can be appended.
+ *
+ * Note: additional image HDUs and IMAGE-OI tables are not supported (use OIFitsWriter)
+ *
+ * @author bourgesl
+ */
+public final class OIFitsStreamWriter implements Closeable {
+
+    /** logger */
+    private final static Logger logger = Logger.getLogger(OIFitsStreamWriter.class.getName());
+
+    static {
+        FitsUtils.setup();
+    }
+
+    /* members */
+    /** absolute file path */
+    private final String absFilePath;
+    /** true to add CHECKSUM and DATASUM keywords in all HDUs */
+    private final boolean doChecksum;
+    /** file output */
+    private BufferedFile bf;
+    /** number of written HDUs */
+    private int nbHDUs = 0;
+
+    /**
+     * Public constructor creating the given file
+     * @param absFilePath absolute File path on file system (not URL)
+     * @param doChecksum true to add CHECKSUM and DATASUM keywords in all HDUs (computed while writing)
+     * @throws IOException IO failure
+     */
+    public OIFitsStreamWriter(final String absFilePath, final boolean doChecksum) throws IOException {
+        if (logger.isLoggable(Level.FINE)) {
+            logger.log(Level.FINE, "writing {0}", absFilePath);
+        }
+        this.absFilePath = absFilePath;
+        this.doChecksum = doChecksum;
+        this.bf = new BufferedFile(absFilePath, "rw");
+    }
+
+    /**
+     * Write the primary HDU and all OI tables of the given OIFitsFile
+     * @param oiFitsFile OIFits data model (primary HDU and tables to write first)
+     * @throws IllegalStateException if HDUs were already written
+     * @throws FitsException if any FITS error occurred
+     * @throws IOException IO failure
+     */
+    public void writeOIFits(final OIFitsFile oiFitsFile) throws IllegalStateException, FitsException, IOException {
+        if (this.nbHDUs != 0) {
+            throw new IllegalStateException("Primary HDU already written: " + this.absFilePath);
+        }
+        oiFitsFile.setAbsoluteFilePath(this.absFilePath);
+
+        final BasicHDU primaryHDU;
+        if (oiFitsFile.getPrimaryImageHDU() != null) {
+            primaryHDU = FitsImageWriter.createHDUnit(oiFitsFile.getPrimaryImageHDU(), oiFitsFile.getFileName(), 0);
+        } else {
+            primaryHDU = BasicHDU.getDummyHDU();
+        }
+        // fix the primary header (like Fits.addHDU):
+        new Fits().addHDU(primaryHDU);
+
+        writeHDU(primaryHDU);
+
+        for (OITable oiTable : oiFitsFile.getOITableList()) {
+            write(oiTable);
+        }
+    }
+
+    /**
+     * Append the given table
+     * @param table table to write
+     * @throws IllegalStateException if the primary HDU was not written
+     * @throws FitsException if any FITS error occurred
+     * @throws IOException IO failure
+     */
+    public void write(final FitsTable table) throws IllegalStateException, FitsException, IOException {
+        if (this.nbHDUs == 0) {
+            throw new IllegalStateException("Missing primary HDU: " + this.absFilePath);
+        }
+        writeHDU(OIFitsWriter.createBinaryTable(table));
+    }
+
+    private void writeHDU(final BasicHDU hdu) throws IllegalStateException, FitsException {
+        if (this.bf == null) {
+            throw new IllegalStateException("Writer closed: " + this.absFilePath);
+        }
+        if (this.doChecksum) {
+            // single pass: checksums are computed while writing data:
+            Fits.writeWithChecksum(hdu, this.bf, true);
+        } else {
+            hdu.write(this.bf);
+        }
+        this.nbHDUs++;
+    }
+
+    /**
+     * Return the number of written HDUs
+     * @return number of written HDUs
+     */
+    public int getNbHDUs() {
+        return this.nbHDUs;
+    }
+
+    /**
+     * Flush and close the file output
+     * @throws IOException IO failure
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.bf != null) {
+            try {
+                this.bf.setLength(this.bf.getFilePointer());
+            } finally {
+                this.bf.close();
+                this.bf = null;
+            }
+        }
+    }
+}
@@ -22,6 +22,7 @@ package fr.jmmc.oitools.model;
 import fr.jmmc.jmcs.util.NumberUtils;
 import fr.jmmc.oitools.fits.FitsTable;
 import fr.jmmc.oitools.fits.FitsUtils;
+import fr.jmmc.oitools.fits.FlatColumn;
 import fr.jmmc.oitools.image.FitsImageHDU;
 import fr.jmmc.oitools.image.FitsImageWriter;
 import fr.jmmc.oitools.image.ImageOiData;
@@ -67,10 +68,22 @@ public class OIFitsWriter {
      * @throws IOException IO failure
      */
     public static void writeOIFits(final String absFilePath, final OIFitsFile oiFitsFile) throws IOException, FitsException {
+        writeOIFits(absFilePath, oiFitsFile, false);
+    }
+
+    /**
+     * Main method to write an OI Fits File
+     * @param absFilePath absolute File path on file system (not URL)
+     * @param oiFitsFile OIFits data model
+     * @param doChecksum true to add CHECKSUM and DATASUM keywords in all HDUs (computed while writing)
+     * @throws FitsException if the fits can not be written
+     * @throws IOException IO failure
+     */
+    public static void writeOIFits(final String absFilePath, final OIFitsFile oiFitsFile, final boolean doChecksum) throws IOException, FitsException {
         oiFitsFile.setAbsoluteFilePath(absFilePath);
 
         final OIFitsWriter writer = new OIFitsWriter(oiFitsFile);
-        writer.write(absFilePath);
+        writer.write(absFilePath, doChecksum);
     }
     /* members */
     /** OIFits data model */
@@ -91,10 +104,11 @@ public class OIFitsWriter {
      * i.e. no column is null and values respect the OIFits standard (length, cardinality ...)
      *
      * @param absFilePath absolute File path on file system (not URL)
+     * @param doChecksum true to add CHECKSUM and DATASUM keywords in all HDUs (computed while writing)
      * @throws FitsException if any FITS error occurred
      * @throws IOException IO failure
      */
-    private void write(final String absFilePath) throws FitsException, IOException {
+    private void write(final String absFilePath, final boolean doChecksum) throws FitsException, IOException {
         if (logger.isLoggable(Level.FINE)) {
             logger.log(Level.FINE, "writing {0}", absFilePath);
         }
@@ -111,7 +125,12 @@ public class OIFitsWriter {
 
             // write the fits file :
             bf = new BufferedFile(absFilePath, "rw");
-            fitsFile.write(bf);
+            if (doChecksum) {
+                // single pass: checksums are computed while writing data:
+                fitsFile.writeWithChecksum(bf, true);
+            } else {
+                fitsFile.write(bf);
+            }
 
             // flush and close :
             bf.close();
@@ -205,7 +224,7 @@ public class OIFitsWriter {
      * @throws IOException IO failure
      * @return binary table HDU
      */
-    private BasicHDU createBinaryTable(final FitsTable table) throws FitsException, IOException {
+    static BasicHDU createBinaryTable(final FitsTable table) throws FitsException, IOException {
         if (logger.isLoggable(Level.FINE)) {
             logger.log(Level.FINE, "createBinaryTable : {0}", table.toString());
         }
@@ -216,6 +235,8 @@ public class OIFitsWriter {
 
         // data list containing column data (not null) :
         final List<Object> dataList = new ArrayList<Object>(size);
+        // dimensions of one row for flat column data (null for jagged arrays) :
+        final List<int[]> flatDimsList = new ArrayList<int[]>(size);
 
         // index map storing the column index keyed by column name :
         final Map<String, Integer> columnIndex = new HashMap<String, Integer>(size);
@@ -231,7 +252,8 @@ public class OIFitsWriter {
         String val;
         for (ColumnMeta column : columnsDescCollection) {
             name = column.getName();
-            value = table.getColumnValue(name);
+            // stored value (jagged or flat arrays) :
+            value = table.getColumnStoredValue(name);
 
             if (value != null) {
                 // fix string length to have correct header length ('0A' issue) :
@@ -258,7 +280,14 @@ public class OIFitsWriter {
                 }
 
                 // add column value in use :
-                dataList.add(value);
+                if (value instanceof FlatColumn) {
+                    final FlatColumn flat = (FlatColumn) value;
+                    dataList.add(flat.getData());
+                    flatDimsList.add(flat.getRowDims());
+                } else {
+                    dataList.add(value);
+                    flatDimsList.add(null);
+                }
 
                 // column index corresponds to the position in the data list :
                 columnIndex.put(name, NumberUtils.valueOf(i));
@@ -267,7 +296,8 @@ public class OIFitsWriter {
         }
 
         // Prepare the binary table to create HDU :
-        final Data fitsData = (size == 0) ? new BinaryTable() : new BinaryTable(dataList.toArray());
+        final Data fitsData = (size == 0) ? new BinaryTable()
+                : new BinaryTable(dataList.toArray(), flatDimsList.toArray(new int[flatDimsList.size()][]));
 
         // Generate the header from the binary table :
         final Header header = BinaryTableHDU.manufactureHeader(fitsData);
@@ -34,6 +34,9 @@ import fr.jmmc.oitools.meta.WaveColumnMeta;
  */
 public final class OIFlux extends OIData {
 
+    /** error columns checked by checkSyntax() */
+    private final static String[] CHECKED_ERROR_COLUMNS = new String[]{OIFitsConstants.COLUMN_FLUXERR};
+
     /** CORRINDX_FLUXDATA column descriptor */
     private final static ColumnMeta COLUMN_CORRINDX_FLUXDATA = new ColumnMeta(OIFitsConstants.COLUMN_CORRINDX_FLUXDATA,
             "Index into correlation matrix for 1st FLUXDATA element", Types.TYPE_INT, 1, true, false, Units.NO_UNIT);
@@ -240,6 +243,15 @@ public final class OIFlux extends OIData {
     }
 
     /* --- Other methods --- */
+    /**
+     * Return the error columns (*ERR) checked by checkSyntax() whose invalid values are fixed (set to NaN)
+     * @return error column names
+     */
+    @Override
+    protected String[] getCheckedErrorColumnNames() {
+        return CHECKED_ERROR_COLUMNS;
+    }
+
     /** 
      * Do syntactical analysis.
      * @param checker checker component
@@ -248,7 +260,8 @@ public final class OIFlux extends OIData {
     public void checkSyntax(final OIFitsChecker checker) {
         super.checkSyntax(checker);
 
-        checkColumnError(checker, getFlag(), getFluxErr(), this, OIFitsConstants.COLUMN_FLUXERR);
+        // Check that non-flagged data point has valid errors:
+        checkColumnErrors(checker);
 
         // OIFITS2: check OI_CORR indexes
         final OICorr oiCorr = getOiCorr();
@@ -256,7 +269,7 @@ public final class OIFlux extends OIData {
 
         if (corrindx_data != null) {
             // rule [OI_FLUX_CORRINDX] check if the referenced OI_CORR table exists when the column CORRINDX_FLUXDATA is present
-            if ((oiCorr == null) || OIFitsChecker.isInspectRules()) {
+            if ((oiCorr == null) || checker.isInspectRules()) {
                 checker.ruleFailed(Rule.OI_FLUX_CORRINDX, this, OIFitsConstants.COLUMN_CORRINDX_FLUXDATA);
             }
             if (oiCorr != null) {
@@ -875,14 +875,14 @@ public final class OIPrimaryHDU extends FitsImageHDU {
      * @param checker checker component
      */
     void checkMultiKeywords(final OIFitsChecker checker, final int arrnames, final boolean multiInstruments, final int targets) {
-        if ((arrnames > 1) || OIFitsChecker.isInspectRules()) {
+        if ((arrnames > 1) || checker.isInspectRules()) {
             checkKeywordValueIsMulti(checker, FitsConstants.KEYWORD_TELESCOP);
         }
-        if (multiInstruments || OIFitsChecker.isInspectRules()) {
+        if (multiInstruments || checker.isInspectRules()) {
             checkKeywordValueIsMulti(checker, FitsConstants.KEYWORD_INSTRUME);
             checkKeywordValueIsMulti(checker, FitsConstants.KEYWORD_INSMODE);
         }
-        if ((targets > 1) || OIFitsChecker.isInspectRules()) {
+        if ((targets > 1) || checker.isInspectRules()) {
             checkKeywordValueIsMulti(checker, FitsConstants.KEYWORD_OBJECT);
         }
         checkKeywordValueIsMulti(checker, FitsConstants.KEYWORD_OBSERVER);
@@ -894,8 +894,8 @@ public final class OIPrimaryHDU extends FitsImageHDU {
 
     private void checkKeywordValueIsMulti(final OIFitsChecker checker, final String keywordName) {
         final String value = getKeyword(keywordName);
-        if ((value != null) || OIFitsChecker.isInspectRules()) {
-            if (((value != null) && !value.startsWith(VALUE_MULTI)) || OIFitsChecker.isInspectRules()) {
+        if ((value != null) || checker.isInspectRules()) {
+            if (((value != null) && !value.startsWith(VALUE_MULTI)) || checker.isInspectRules()) {
                 checker.ruleFailed(Rule.MAIN_HEADER_TYPE_MULTI, this, keywordName).addKeywordValue(value, VALUE_MULTI);
             }
         }
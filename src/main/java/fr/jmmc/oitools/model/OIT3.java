@@ -34,6 +34,9 @@ import fr.jmmc.oitools.util.MathUtils;
  */
 public final class OIT3 extends OIData {
 
+    /** error columns checked by checkSyntax() */
+    private final static String[] CHECKED_ERROR_COLUMNS = new String[]{OIFitsConstants.COLUMN_T3AMPERR, OIFitsConstants.COLUMN_T3PHIERR};
+
     /* static descriptors */
     /** U1COORD column descriptor */
     private final static ColumnMeta COLUMN_U1COORD = new ColumnMeta(OIFitsConstants.COLUMN_U1COORD,
@@ -485,6 +488,15 @@ public final class OIT3 extends OIData {
     }
 
     /* --- Other methods --- */
+    /**
+     * Return the error columns (*ERR) checked by checkSyntax() whose invalid values are fixed (set to NaN)
+     * @return error column names
+     */
+    @Override
+    protected String[] getCheckedErrorColumnNames() {
+        return CHECKED_ERROR_COLUMNS;
+    }
+
     /**
      * Do syntactical analysis.
      * @param checker checker component
@@ -493,8 +505,8 @@ public final class OIT3 extends OIData {
     public void checkSyntax(final OIFitsChecker checker) {
         super.checkSyntax(checker);
 
-        checkColumnError(checker, getFlag(), getT3AmpErr(), this, OIFitsConstants.COLUMN_T3AMPERR);
-        checkColumnError(checker, getFlag(), getT3PhiErr(), this, OIFitsConstants.COLUMN_T3PHIERR);
+        // Check that non-flagged data point has valid errors:
+        checkColumnErrors(checker);
 
         // check STA_INDEX Unique
         checkStaIndexes(checker, getStaIndex(), this);
@@ -506,7 +518,7 @@ public final class OIT3 extends OIData {
 
         if ((corrindx_T3amp != null) || (corrindx_T3phi != null)) {
             // rule [OI_T3_CORRINDX] check if the referenced OI_CORR exists when the column CORRINDX_T3AMP or CORRINDX_T3PHI is present
-            if ((oiCorr == null) || OIFitsChecker.isInspectRules()) {
+            if ((oiCorr == null) || checker.isInspectRules()) {
                 if (corrindx_T3amp != null) {
                     checker.ruleFailed(Rule.OI_T3_CORRINDX, this, OIFitsConstants.COLUMN_CORRINDX_T3AMP);
                 }
@@ -514,7 +526,7 @@ public final class OIT3 extends OIData {
                     checker.ruleFailed(Rule.OI_T3_CORRINDX, this, OIFitsConstants.COLUMN_CORRINDX_T3PHI);
                 }
             }
-            if ((oiCorr != null) || OIFitsChecker.isInspectRules()) {
+            if ((oiCorr != null) || checker.isInspectRules()) {
                 // column is defined
                 if (corrindx_T3amp != null) {
                     checkCorrIndex(checker, oiCorr, this, OIFitsConstants.COLUMN_CORRINDX_T3AMP, corrindx_T3amp);
@@ -24,6 +24,7 @@ import fr.jmmc.oitools.fits.FitsConstants;
 import fr.jmmc.oitools.fits.FitsTable;
 import fr.jmmc.oitools.meta.KeywordMeta;
 import fr.jmmc.oitools.meta.Types;
+import java.util.BitSet;
 
 /**
  * Base Class for all OI_* tables.
@@ -97,6 +98,19 @@ public abstract class OITable extends FitsTable {
         this.setOiRevn(revision);
     }
 
+    /**
+     * Copy the given table keeping only the given rows and wavelengths (see FitsTable.copyTable)
+     * @param src table to copy (same class)
+     * @param nbKeepRows number of rows to keep
+     * @param maskRows bit set indicating which rows to keep (null means keep all rows)
+     * @param maskWavelengths bit set indicating which wavelength to keep (null means keep all wavelengths)
+     * @throws IllegalArgumentException if the number of rows to keep is less than 1
+     */
+    final void copyFilteredTable(final OITable src, final int nbKeepRows,
+                                 final BitSet maskRows, final BitSet maskWavelengths) throws IllegalArgumentException {
+        copyTable(src, nbKeepRows, maskRows, maskWavelengths);
+    }
+
     /*
      * --- OIFits standard Keywords --------------------------------------------
      */
@@ -143,7 +157,7 @@ public abstract class OITable extends FitsTable {
         super.checkKeywords(checker);
 
         final int revision = computeOiRevn();
-        if (revision != getOiRevn() || OIFitsChecker.isInspectRules()) {
+        if (revision != getOiRevn() || checker.isInspectRules()) {
             // rule [GENERIC_OIREV_FIX] Fix the OI_REV keyword when the table is not in the proper OIFITS version
             checker.ruleFailed(Rule.GENERIC_OIREV_FIX, this).addFixedValue(revision);
             setOiRevn(computeOiRevn());
@@ -24,6 +24,7 @@ import fr.jmmc.oitools.OIFitsConstants;
 import fr.jmmc.oitools.meta.ColumnMeta;
 import fr.jmmc.oitools.meta.Types;
 import fr.jmmc.oitools.meta.Units;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
@@ -110,6 +111,8 @@ public final class OITarget extends OITable {
     private final Map<Short, Target> targetIdToTarget = new HashMap<Short, Target>();
     /** mapping of Target instances (may have duplicates) to targetId values */
     private final Map<Target, Short> targetObjToTargetId = new IdentityHashMap<Target, Short>();
+    /** Target instances (may have duplicates) in row order */
+    private final List<Target> targetList = new ArrayList<Target>();
 
     /**
      * Public OITarget class constructor
@@ -408,37 +411,37 @@ public final class OITarget extends OITable {
         // TODO: check coordinates (crossmatch ?)
         for (int i = 0; i < len; i++) {
 
-            if ((Double.isNaN(coorRa[i]) || Double.isNaN(coorDec[i])) || OIFitsChecker.isInspectRules()) {
+            if ((Double.isNaN(coorRa[i]) || Double.isNaN(coorDec[i])) || checker.isInspectRules()) {
                 // rule [OI_TARGET_COORD_EXIST] check if the TARGET RA or DEC value is not undefined
                 checker.ruleFailed(Rule.OI_TARGET_COORD_EXIST, this, OIFitsConstants.COLUMN_DECEP0).addValueAt(coorDec[i], i);
                 checker.ruleFailed(Rule.OI_TARGET_COORD_EXIST, this, OIFitsConstants.COLUMN_RAEP0).addValueAt(coorRa[i], i);
             }
             if ((NumberUtils.equals(coorRa[i], 0.0, COORD_ZERO_EPSILON)
-                    && NumberUtils.equals(coorDec[i], 0.0, COORD_ZERO_EPSILON)) || OIFitsChecker.isInspectRules()) {
+                    && NumberUtils.equals(coorDec[i], 0.0, COORD_ZERO_EPSILON)) || checker.isInspectRules()) {
                 // note: testing 0.0 here means 0.0 exactly (not a floating-point equality)
                 // rule [OI_TARGET_COORD] check if the TARGET RA and DEC values are not 0.0
                 checker.ruleFailed(Rule.OI_TARGET_COORD, this, OIFitsConstants.COLUMN_RAEP0).addValueAt(coorRa[i], i);
                 checker.ruleFailed(Rule.OI_TARGET_COORD, this, OIFitsConstants.COLUMN_DECEP0).addValueAt(coorDec[i], i);
             }
 
-            if ((targetNames[i] == null) || OIFitsChecker.isInspectRules()) {
+            if ((targetNames[i] == null) || checker.isInspectRules()) {
                 // rule [OI_TARGET_TARGET] check if the TARGET column values have a not null or empty value
                 checker.ruleFailed(Rule.OI_TARGET_TARGET, this, OIFitsConstants.COLUMN_TARGET).addValueAt(targetNames[i], i);
             }
-            if ((targetNames[i] != null) || OIFitsChecker.isInspectRules()) {
+            if ((targetNames[i] != null) || checker.isInspectRules()) {
                 final short refId = targetIds[i];
-                if ((refId < 1) || OIFitsChecker.isInspectRules()) {
+                if ((refId < 1) || checker.isInspectRules()) {
                     // rule [OI_TARGET_TARGETID_MIN] check if the TARGET_ID values >= 1
                     checker.ruleFailed(Rule.OI_TARGET_TARGETID_MIN, this, OIFitsConstants.COLUMN_TARGET).addValueAt(refId, i);
                 }
                 final String refName = targetNames[i];
 
                 for (int j = i + 1; j < len; j++) {
-                    if ((refId == targetIds[j]) || OIFitsChecker.isInspectRules()) {
+                    if ((refId == targetIds[j]) || checker.isInspectRules()) {
                         // rule [OI_TARGET_TARGETID_UNIQ] check duplicated indexes in the TARGET_ID column of the OI_TARGET table
                         checker.ruleFailed(Rule.OI_TARGET_TARGETID_UNIQ, this, OIFitsConstants.COLUMN_TARGET_ID).addValueAtRows(refId, i, j);
                     }
-                    if (refName.equals(targetNames[j]) || OIFitsChecker.isInspectRules()) {
+                    if (refName.equals(targetNames[j]) || checker.isInspectRules()) {
                         // rule [OI_TARGET_TARGET_UNIQ] check duplicated values in the TARGET column of the OI_TARGET table
                         checker.ruleFailed(Rule.OI_TARGET_TARGET_UNIQ, this, OIFitsConstants.COLUMN_TARGET).addValueAtRows(refName, i, j);
                     }
@@ -484,6 +487,7 @@ public final class OITarget extends OITable {
         targetIdToRowIndex.clear();
         targetIdToTarget.clear();
         targetObjToTargetId.clear();
+        targetList.clear();
     }
 
     Map<Short, Integer> getTargetIdToRowIndex() {
@@ -520,6 +524,10 @@ public final class OITarget extends OITable {
         return targetObjToTargetId.keySet();
     }
 
+    List<Target> getTargetList() {
+        return targetList;
+    }
+
     /**
      * Return the targetId corresponding to the given Target or null if missing
      * @param target Target
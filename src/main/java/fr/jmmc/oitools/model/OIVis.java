@@ -36,6 +36,13 @@ import fr.jmmc.oitools.util.MathUtils;
  */
 public final class OIVis extends OIData {
 
+    /** error columns checked by checkSyntax() */
+    private final static String[] CHECKED_ERROR_COLUMNS = new String[]{
+        OIFitsConstants.COLUMN_VISAMPERR, OIFitsConstants.COLUMN_VISPHIERR,
+        // optional columns
+        OIFitsConstants.COLUMN_RVISERR, OIFitsConstants.COLUMN_IVISERR
+    };
+
     /** CORRINDX_VISAMP column descriptor */
     private final static ColumnMeta COLUMN_CORRINDX_VISAMP = new ColumnMeta(OIFitsConstants.COLUMN_CORRINDX_VISAMP,
             "Index into correlation matrix for 1st VISAMP element", Types.TYPE_INT, 1, true, false, Units.NO_UNIT);
@@ -583,6 +590,15 @@ public final class OIVis extends OIData {
     }
 
     /* --- Other methods --- */
+    /**
+     * Return the error columns (*ERR) checked by checkSyntax() whose invalid values are fixed (set to NaN)
+     * @return error column names
+     */
+    @Override
+    protected String[] getCheckedErrorColumnNames() {
+        return CHECKED_ERROR_COLUMNS;
+    }
+
     /**
      * Do syntactical analysis.
      * @param checker checker component
@@ -591,18 +607,8 @@ public final class OIVis extends OIData {
     public void checkSyntax(final OIFitsChecker checker) {
         super.checkSyntax(checker);
 
-        checkColumnError(checker, getFlag(), getVisAmpErr(), this, OIFitsConstants.COLUMN_VISAMPERR);
-        checkColumnError(checker, getFlag(), getVisPhiErr(), this, OIFitsConstants.COLUMN_VISPHIERR);
-
-        // optional columns
-        final double[][] rvisErr = getRVisErr();
-        final double[][] ivisErr = getIVisErr();
-        if (rvisErr != null) {
-            checkColumnError(checker, getFlag(), rvisErr, this, OIFitsConstants.COLUMN_RVISERR);
-        }
-        if (ivisErr != null) {
-            checkColumnError(checker, getFlag(), ivisErr, this, OIFitsConstants.COLUMN_IVISERR);
-        }
+        // Check that non-flagged data point has valid errors (including optional columns):
+        checkColumnErrors(checker);
 
         // check STA_INDEX Unique
         checkStaIndexes(checker, getStaIndex(), this);
@@ -616,7 +622,7 @@ public final class OIVis extends OIData {
 
         if ((corrindx_visAmp != null) || (corrindx_visPhi != null) || (corrindx_visRvis != null) || (corrindx_visIvis != null)) {
 
-            if ((oiCorr == null) || OIFitsChecker.isInspectRules()) {
+            if ((oiCorr == null) || checker.isInspectRules()) {
                 // rule [OI_VIS_CORRINDX] check if the referenced OI_CORR table exists when the column CORRINDX_VISAMP, CORRINDX_VISPHI, CORRINDX_RVIS or CORRINDX_IVIS is present
 
                 // column is defined
@@ -633,7 +639,7 @@ public final class OIVis extends OIData {
                     checker.ruleFailed(Rule.OI_VIS_CORRINDX, this, OIFitsConstants.COLUMN_CORRINDX_IVIS);
                 }
             }
-            if ((oiCorr != null) || OIFitsChecker.isInspectRules()) {
+            if ((oiCorr != null) || checker.isInspectRules()) {
                 // column is defined
                 if (corrindx_visAmp != null) {
                     checkCorrIndex(checker, oiCorr, this, OIFitsConstants.COLUMN_CORRINDX_VISAMP, corrindx_visAmp);
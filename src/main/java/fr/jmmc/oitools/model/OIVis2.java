@@ -35,6 +35,9 @@ import fr.jmmc.oitools.util.MathUtils;
  */
 public final class OIVis2 extends OIData {
 
+    /** error columns checked by checkSyntax() */
+    private final static String[] CHECKED_ERROR_COLUMNS = new String[]{OIFitsConstants.COLUMN_VIS2ERR};
+
     /** CORRINDX_VIS2DATA column descriptor */
     private final static ColumnMeta COLUMN_CORRINDX_VIS2DATA = new ColumnMeta(OIFitsConstants.COLUMN_CORRINDX_VIS2DATA,
             "Index into correlation matrix for 1st VIS2DATA element", Types.TYPE_INT, 1, true, false, Units.NO_UNIT);
@@ -399,6 +402,15 @@ public final class OIVis2 extends OIData {
     }
 
     /* --- Other methods --- */
+    /**
+     * Return the error columns (*ERR) checked by checkSyntax() whose invalid values are fixed (set to NaN)
+     * @return error column names
+     */
+    @Override
+    protected String[] getCheckedErrorColumnNames() {
+        return CHECKED_ERROR_COLUMNS;
+    }
+
     /**
      * Do syntactical analysis.
      * @param checker checker component
@@ -408,7 +420,7 @@ public final class OIVis2 extends OIData {
         super.checkSyntax(checker);
 
         // Check that non-flagged data point has valid errors:
-        checkColumnError(checker, getFlag(), getVis2Err(), this, OIFitsConstants.COLUMN_VIS2ERR);
+        checkColumnErrors(checker);
 
         // check STA_INDEX Unique
         checkStaIndexes(checker, getStaIndex(), this);
@@ -418,11 +430,11 @@ public final class OIVis2 extends OIData {
         final int[] corrindx_vis2data = getCorrIndxVisData();
 
         if (corrindx_vis2data != null) {
-            if ((oiCorr == null) || OIFitsChecker.isInspectRules()) {
+            if ((oiCorr == null) || checker.isInspectRules()) {
                 // rule [OI_VIS2_CORRINDX] check if the referenced OI_CORR table exists when the column CORRINDX_VIS2DATA is present
                 checker.ruleFailed(Rule.OI_VIS2_CORRINDX, this, OIFitsConstants.COLUMN_CORRINDX_VIS2DATA);
             }
-            if ((oiCorr != null) || OIFitsChecker.isInspectRules()) {
+            if ((oiCorr != null) || checker.isInspectRules()) {
                 // column is defined
                 checkCorrIndex(checker, oiCorr, this, OIFitsConstants.COLUMN_CORRINDX_VIS2DATA, corrindx_vis2data);
             }
@@ -279,7 +279,7 @@ public final class OIWavelength extends OITable {
     public void checkSyntax(final OIFitsChecker checker) {
         super.checkSyntax(checker);
 
-        if (((getInsName() != null) && (getInsName().length() == 0)) || OIFitsChecker.isInspectRules()) {
+        if (((getInsName() != null) && (getInsName().length() == 0)) || checker.isInspectRules()) {
             /* Problem: INSNAME keyword has value "", that should not be
              * possible. */
             // rule [OI_WAVELENGTH_INSNAME] check the INSNAME keyword has a not null or empty value
@@ -291,7 +291,7 @@ public final class OIWavelength extends OITable {
 
         for (int i = 0; i < nWaves; i++) {
             final float effWave = effWaves[i];
-            if (((effWave < 0.1E-6f) || (effWave > 20.0E-6f)) || OIFitsChecker.isInspectRules()) {
+            if (((effWave < 0.1E-6f) || (effWave > 20.0E-6f)) || checker.isInspectRules()) {
                 // rule [OI_WAVELENGTH_EFFWAVE] check if the EFF_WAVE column values are within range [0.1x10^-6 - 20x10^-6]
                 checker.ruleFailed(Rule.OI_WAVELENGTH_EFF_WAVE, this, OIFitsConstants.COLUMN_EFF_WAVE).addValueAt(effWave, i);
             }
@@ -5,8 +5,16 @@ package fr.jmmc.oitools.model;
 
 import fr.jmmc.oitools.OIFitsCollectionViewer;
 import fr.jmmc.oitools.OIFitsViewer;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 
 /**
+ * Base class of output visitors filling an internal buffer.
+ * If an output writer is defined (streaming mode), the buffer is written and the writer flushed
+ * after each table or file, and the buffer is written before it exceeds FLUSH_THRESHOLD characters
+ * (checked after each value) so the memory footprint does not grow with the output size.
+ * Writer failures are thrown as UncheckedIOException by visit methods.
  *
  * @author bourgesl
  */
@@ -31,6 +39,11 @@ public abstract class OutputVisitor implements ModelVisitor {
         }
     }
 
+    /** maximum buffer size (characters) in streaming mode */
+    public final static int FLUSH_THRESHOLD = 64 * 1024;
+    /** margin (characters) left for the next value (array value, keyword, record ...) appended before checkFlush() */
+    private final static int FLUSH_MARGIN = 4 * 1024;
+
     /* members */
     /** flag to enable/disable the verbose output */
     private boolean verbose;
@@ -38,6 +51,14 @@ public abstract class OutputVisitor implements ModelVisitor {
     protected final StringBuilder buffer;
     /** target metadata provider */
     private final TargetMetadataProvider metadataProvider;
+    /** optional output writer (streaming mode) */
+    private Writer output = null;
+    /** number of characters written into the output writer since the last reset */
+    private long written = 0L;
+    /** temporary characters to copy the buffer into the output writer */
+    private char[] chars = null;
+    /** maximum buffer length (characters) */
+    private int maxBufferLength = 0;
 
     /**
      * Create a new OutputVisitor with verbose output
@@ -70,16 +91,106 @@ public abstract class OutputVisitor implements ModelVisitor {
         this.verbose = verbose;
     }
 
+    /**
+     * Return the output writer
+     * @return output writer or null if undefined (buffer only)
+     */
+    public final Writer getOutput() {
+        return output;
+    }
+
+    /**
+     * Define the output writer to stream the output (the caller closes it)
+     * @param output output writer or null to only use the internal buffer
+     */
+    public final void setOutput(final Writer output) {
+        this.output = output;
+    }
+
     /**
      * Clear the internal buffer for later reuse
      */
     public final void reset() {
+        updateMaxBufferLength();
         // recycle buffer :
         this.buffer.setLength(0);
+        this.written = 0L;
+    }
+
+    /**
+     * Return the maximum length (characters) reached by the internal buffer (memory footprint)
+     * @return maximum buffer length
+     */
+    public final int getMaxBufferLength() {
+        updateMaxBufferLength();
+        return this.maxBufferLength;
+    }
+
+    private void updateMaxBufferLength() {
+        if (this.buffer.length() > this.maxBufferLength) {
+            this.maxBufferLength = this.buffer.length();
+        }
+    }
+
+    /**
+     * Return true if nothing was output since the last reset (buffer or output writer)
+     * @return true if nothing was output since the last reset
+     */
+    protected final boolean isEmpty() {
+        return (this.buffer.length() == 0) && (this.written == 0L);
+    }
+
+    /**
+     * Write the buffer into the output writer if the buffer is close to FLUSH_THRESHOLD characters (streaming mode)
+     * @throws UncheckedIOException if the output writer failed
+     */
+    protected final void checkFlush() {
+        if ((this.output != null) && (this.buffer.length() >= FLUSH_THRESHOLD - FLUSH_MARGIN)) {
+            writeBuffer(false);
+        }
+    }
+
+    /**
+     * Write the buffer into the output writer and flush it (streaming mode), typically after each table
+     * @throws UncheckedIOException if the output writer failed
+     */
+    public final void flush() {
+        if (this.output != null) {
+            writeBuffer(true);
+        }
+    }
+
+    /**
+     * Write the buffer into the output writer and clear the buffer
+     * @param flush true to flush the output writer
+     * @throws UncheckedIOException if the output writer failed
+     */
+    private void writeBuffer(final boolean flush) {
+        updateMaxBufferLength();
+        final int len = this.buffer.length();
+        try {
+            if (len != 0) {
+                if (this.chars == null) {
+                    this.chars = new char[8 * 1024];
+                }
+                for (int off = 0, n; off < len; off += n) {
+                    n = Math.min(this.chars.length, len - off);
+                    this.buffer.getChars(off, off + n, this.chars, 0);
+                    this.output.write(this.chars, 0, n);
+                }
+                this.buffer.setLength(0);
+                this.written += len;
+            }
+            if (flush) {
+                this.output.flush();
+            }
+        } catch (IOException ioe) {
+            throw new UncheckedIOException(ioe);
+        }
     }
 
     /**
-     * Return the buffer content as a string
+     * Return the buffer content as a string (only remaining content in streaming mode)
      * @return buffer content
      */
     @Override
@@ -24,9 +24,9 @@ import static fr.jmmc.oitools.model.XmlOutputVisitor.encodeTagContent;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashSet;
 import java.util.Set;
-import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 
 /**
  * Enumeration for creating the rules
@@ -381,8 +381,9 @@ public enum Rule {
     private final RuleDataType dataType;
     private final String message;
     // TODO: replace String by ModelSource[String struct, String member]
-    private final Set<String> applyToSet = (OIFitsChecker.isInspectRules()) ? new HashSet<String>() : null;
-    private final Set<OIFitsStandard> standardSet = (OIFitsChecker.isInspectRules()) ? new TreeSet<OIFitsStandard>() : null;
+    /* concurrent sets filled by any checker with inspect rules enabled */
+    private final Set<String> applyToSet = ConcurrentHashMap.newKeySet();
+    private final Set<OIFitsStandard> standardSet = new ConcurrentSkipListSet<OIFitsStandard>();
 
     /**
      * Constructor, use it when we have expression or for Apply To
@@ -411,19 +412,22 @@ public enum Rule {
         this.message = message;
     }
 
+    /**
+     * Check the given data type matches this rule data type (only called by checkers with inspect rules enabled)
+     * @param expected expected data type
+     * @throws IllegalStateException if data types do not match
+     */
     void checkDataType(final RuleDataType expected) {
-        if (OIFitsChecker.isInspectRules()) {
-            if (getDataType() != expected) {
-                // special case GENERIC_COL_VAL_ACCEPTED_INT: RuleDataType.VALUE_EXPECTED_ROW_COL already checked
-                if ((this == Rule.GENERIC_COL_VAL_ACCEPTED_INT) && (expected == RuleDataType.VALUE_EXPECTED_ROW)) {
-                    return;
-                }
-                // special case GENERIC_COL_VAL_POSITIVE: RuleDataType.VALUE_EXPECTED_ROW_COL already checked
-                if ((this == Rule.GENERIC_COL_VAL_POSITIVE) && (expected == RuleDataType.VALUE_ROW_COL)) {
-                    return;
-                }
-                throw new IllegalStateException("Rule " + name() + " type expected: " + expected + " - type found: " + getDataType());
+        if (getDataType() != expected) {
+            // special case GENERIC_COL_VAL_ACCEPTED_INT: RuleDataType.VALUE_EXPECTED_ROW_COL already checked
+            if ((this == Rule.GENERIC_COL_VAL_ACCEPTED_INT) && (expected == RuleDataType.VALUE_EXPECTED_ROW)) {
+                return;
+            }
+            // special case GENERIC_COL_VAL_POSITIVE: RuleDataType.VALUE_EXPECTED_ROW_COL already checked
+            if ((this == Rule.GENERIC_COL_VAL_POSITIVE) && (expected == RuleDataType.VALUE_ROW_COL)) {
+                return;
             }
+            throw new IllegalStateException("Rule " + name() + " type expected: " + expected + " - type found: " + getDataType());
         }
     }
 
@@ -526,14 +530,15 @@ public enum Rule {
      * XML display for Rules
      * @param sb StringBuilder
      * @param ignore if no OIFitsStandard ignore
+     * @param inspect true to dump subjects and standards (collected by checkers having inspect rules enabled)
      */
-    public void toXml(final StringBuilder sb, final OIFitsStandard ignore) {
+    public void toXml(final StringBuilder sb, final OIFitsStandard ignore, final boolean inspect) {
         sb.append("  <rule>\n");
         sb.append("    <name>").append(name()).append("</name>\n");
         sb.append("    <description>").append(encodeTagContent(getDescription())).append("</description>\n");
         sb.append("    <paragraph>").append(getOrigin()).append("</paragraph>\n");
 
-        if (getApplyTo() != null) {
+        if (inspect) {
             sb.append("    <subjects>\n");
 
             final ArrayList<String> sorted = new ArrayList<String>(64);
@@ -548,7 +553,7 @@ public enum Rule {
             sb.append("    </subjects>\n");
         }
 
-        if (getStandard() != null) {
+        if (inspect) {
             sb.append("    <standards>\n");
             for (OIFitsStandard standard : getStandard()) {
                 if (standard != ignore) {
@@ -19,7 +19,11 @@
  ******************************************************************************/
 package fr.jmmc.oitools.model;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  *
@@ -45,6 +49,12 @@ public final class TargetManager extends AbstractMapper<Target> {
         return new TargetManager(Target.MATCHER_LIKE); // based on distance matching
     }
 
+    /* members */
+    /** sky index of global targets (distance matcher only) */
+    private TargetSkyIndex skyIndex = null;
+    /** global targets keyed by name (name matcher only) */
+    private final Map<String, List<Target>> globalsPerName = new HashMap<String, List<Target>>();
+
     private TargetManager(final Matcher<Target> matcher) {
         super(matcher);
     }
@@ -55,10 +65,67 @@ public final class TargetManager extends AbstractMapper<Target> {
     @Override
     public void clear() {
         super.clear();
+        // clear indexes:
+        skyIndex = null;
+        globalsPerName.clear();
         // insert mapping for Undefined:
         register(Target.UNDEFINED);
     }
 
+    @Override
+    protected Collection<Target> getCandidateGlobals(final Target local) {
+        if (matcher == Target.MATCHER_NAME) {
+            final List<Target> globals = globalsPerName.get(local.getTarget());
+            return (globals != null) ? globals : new ArrayList<Target>(0);
+        }
+        if (matcher instanceof TargetMatcherDistance) {
+            return getSkyIndex().getCandidates(local);
+        }
+        return null;
+    }
+
+    @Override
+    protected void addGlobal(final Target global) {
+        if (matcher == Target.MATCHER_NAME) {
+            final String name = global.getTarget();
+            List<Target> globals = globalsPerName.get(name);
+            if (globals == null) {
+                globals = new ArrayList<Target>(1);
+                globalsPerName.put(name, globals);
+            }
+            globals.add(global);
+        } else if (matcher instanceof TargetMatcherDistance) {
+            if (isSkyIndexValid()) {
+                skyIndex.add(global);
+            } else {
+                // build the index (including the new global):
+                getSkyIndex();
+            }
+        }
+    }
+
+    /**
+     * Return the sky index of global targets (re)built for the current matcher separation
+     * @return sky index
+     */
+    private TargetSkyIndex getSkyIndex() {
+        if (!isSkyIndexValid()) {
+            final double separation = ((TargetMatcherDistance) matcher).getSeparation();
+
+            // separation changed: rebuild the index
+            skyIndex = new TargetSkyIndex(separation);
+            for (Target global : localsPerGlobal.keySet()) {
+                skyIndex.add(global);
+            }
+        }
+        return skyIndex;
+    }
+
+    private boolean isSkyIndexValid() {
+        return (skyIndex != null)
+                && (Double.compare(skyIndex.getSeparation(), ((TargetMatcherDistance) matcher).getSeparation()) == 0);
+    }
+
     @Override
     protected Target createGlobal(final Target local, final String uid) {
         return new Target(local, uid);
@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools.model;
+
+import fr.jmmc.oitools.util.CoordUtils;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sky grid index of targets (declination bands divided in RA cells of about the separation size)
+ * giving the targets that may be closer than the separation to a given position (TargetMatcherDistance).
+ *
+ * Candidates are a superset of the matching targets (haversine bounds):
+ * - |dec1 - dec2| &lt;= distance
+ * - sin(|ra1 - ra2| / 2) &lt;= sin(distance / 2) / cos(max(|dec1|, |dec2|))
+ *
+ * Targets with undefined coordinates (NaN) can only match themselves and are always candidates.
+ *
+ * @author bourgesl
+ */
+final class TargetSkyIndex {
+
+    /** minimum cell size in degrees (1 arcsec) */
+    private final static double MIN_CELL_SIZE = CoordUtils.ARCSEC_IN_DEGREES;
+    /** margin in degrees to absorb rounding errors */
+    private final static double EPSILON = 1e-9;
+
+    /* members */
+    /** separation in degrees */
+    private final double separation;
+    /** sin(separation / 2) */
+    private final double sinHalfSep;
+    /** cell size (declination) in degrees */
+    private final double cellSize;
+    /** number of declination bands */
+    private final int nBands;
+    /** targets keyed by cell */
+    private final Map<Long, List<Target>> cells = new HashMap<Long, List<Target>>();
+    /** targets with undefined coordinates */
+    private final List<Target> others = new ArrayList<Target>();
+
+    /**
+     * Create an empty index for the given separation
+     * @param separation separation in degrees
+     */
+    TargetSkyIndex(final double separation) {
+        this.separation = separation;
+        // negative or NaN separation: only identity matches:
+        final double sep = (separation > 0.0) ? separation : 0.0;
+        this.sinHalfSep = Math.sin(Math.toRadians(0.5 * sep));
+        this.cellSize = Math.max(sep, MIN_CELL_SIZE);
+        this.nBands = Math.max(1, (int) Math.ceil(180.0 / cellSize));
+    }
+
+    /**
+     * Return the separation (degrees) used to build this index
+     * @return separation in degrees
+     */
+    double getSeparation() {
+        return separation;
+    }
+
+    /**
+     * Clear this index
+     */
+    void clear() {
+        cells.clear();
+        others.clear();
+    }
+
+    /**
+     * Add the given target in this index
+     * @param target target to add
+     */
+    void add(final Target target) {
+        final double ra = target.getRaEp0();
+        final double dec = target.getDecEp0();
+
+        if (!isIndexable(ra, dec)) {
+            others.add(target);
+        } else {
+            final int band = getBand(dec);
+            final Long key = getKey(band, getRaCell(normalizeRA(ra), getRaCellSize(band), getNbRaCells(band)));
+
+            List<Target> cell = cells.get(key);
+            if (cell == null) {
+                cell = new ArrayList<Target>(2);
+                cells.put(key, cell);
+            }
+            cell.add(target);
+        }
+    }
+
+    /**
+     * Return the targets that may match the given target
+     * @param target target to match
+     * @return candidate targets or null if all targets must be tested
+     */
+    List<Target> getCandidates(final Target target) {
+        if (separation >= 180.0) {
+            return null;
+        }
+        final double ra = target.getRaEp0();
+        final double dec = target.getDecEp0();
+
+        if (!isIndexable(ra, dec)) {
+            if (!Double.isNaN(ra + dec) && !Double.isInfinite(ra + dec)) {
+                // invalid declination (|dec| > 90): test all targets
+                return null;
+            }
+            // undefined coordinates: only identity matches:
+            return others;
+        }
+        final List<Target> candidates = new ArrayList<Target>(others);
+
+        final double delta = Math.max(0.0, separation) + EPSILON;
+        final int bandMin = getBand(dec - delta);
+        final int bandMax = getBand(dec + delta);
+        final double raN = normalizeRA(ra);
+
+        for (int band = bandMin; band <= bandMax; band++) {
+            final int nRa = getNbRaCells(band);
+            final double raCellSize = getRaCellSize(band);
+
+            // farthest declination from the equator (band or target):
+            final double decFar = Math.max(Math.abs(dec), getBandPoleDec(band));
+            final double cosFar = Math.cos(Math.toRadians(decFar));
+
+            int cellMin = 0;
+            int cellMax = nRa - 1;
+
+            if (cosFar > sinHalfSep) {
+                final double deltaRa = 2.0 * Math.toDegrees(Math.asin(sinHalfSep / cosFar)) + EPSILON;
+                final int iMin = (int) Math.floor((raN - deltaRa) / raCellSize);
+                final int iMax = (int) Math.floor((raN + deltaRa) / raCellSize);
+
+                if (iMax - iMin + 1 < nRa) {
+                    cellMin = iMin;
+                    cellMax = iMax;
+                }
+            }
+            for (int i = cellMin; i <= cellMax; i++) {
+                // wrap around RA = 0:
+                final int raCell = ((i % nRa) + nRa) % nRa;
+                final List<Target> cell = cells.get(getKey(band, raCell));
+                if (cell != null) {
+                    candidates.addAll(cell);
+                }
+            }
+        }
+        return candidates;
+    }
+
+    private static boolean isIndexable(final double ra, final double dec) {
+        return !Double.isNaN(ra) && !Double.isInfinite(ra) && (dec >= -90.0) && (dec <= 90.0);
+    }
+
+    private static double normalizeRA(final double ra) {
+        double raN = ra % 360.0;
+        if (raN < 0.0) {
+            raN += 360.0;
+        }
+        return raN;
+    }
+
+    private int getBand(final double dec) {
+        final int band = (int) Math.floor((dec + 90.0) / cellSize);
+        return (band < 0) ? 0 : (band >= nBands) ? nBands - 1 : band;
+    }
+
+    /**
+     * Return the absolute declination of the band edge closest to the pole
+     * @param band band index
+     * @return absolute declination (degrees)
+     */
+    private double getBandPoleDec(final int band) {
+        final double decMin = -90.0 + band * cellSize;
+        final double decMax = Math.min(90.0, decMin + cellSize);
+        return Math.max(Math.abs(decMin), Math.abs(decMax));
+    }
+
+    private int getNbRaCells(final int band) {
+        final double n = Math.floor(360.0 * Math.cos(Math.toRadians(getBandPoleDec(band))) / cellSize);
+        return (n < 1.0) ? 1 : (n > Integer.MAX_VALUE) ? Integer.MAX_VALUE : (int) n;
+    }
+
+    private double getRaCellSize(final int band) {
+        return 360.0 / getNbRaCells(band);
+    }
+
+    private static int getRaCell(final double raN, final double raCellSize, final int nRa) {
+        final int raCell = (int) (raN / raCellSize);
+        return (raCell >= nRa) ? nRa - 1 : raCell;
+    }
+
+    private static Long getKey(final int band, final int raCell) {
+        return Long.valueOf((((long) band) << 32) | raCell);
+    }
+}
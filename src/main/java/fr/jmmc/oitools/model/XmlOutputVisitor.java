@@ -21,6 +21,7 @@ package fr.jmmc.oitools.model;
 
 import fr.jmmc.oitools.fits.FitsHDU;
 import fr.jmmc.oitools.fits.FitsHeaderCard;
+import fr.jmmc.oitools.fits.FlatColumn;
 import fr.jmmc.oitools.meta.ColumnMeta;
 import fr.jmmc.oitools.meta.KeywordMeta;
 import java.text.DecimalFormat;
@@ -167,7 +168,7 @@ public final class XmlOutputVisitor extends OutputVisitor {
 
     /**
      * Process the given OIFitsFile element with this visitor implementation :
-     * fill the internal buffer with file information
+     * fill the internal buffer (or the output writer) with file information
      * @param oiFitsFile OIFitsFile element to visit
      */
     @Override
@@ -246,6 +247,8 @@ public final class XmlOutputVisitor extends OutputVisitor {
         }
 
         exitOIFitsFile();
+
+        flush();
     }
 
     /**
@@ -291,7 +294,7 @@ public final class XmlOutputVisitor extends OutputVisitor {
      */
     @Override
     public void visit(final OITable oiTable) {
-        final boolean doOIFitsFile = (this.buffer.length() == 0);
+        final boolean doOIFitsFile = isEmpty();
 
         if (doOIFitsFile) {
             enterOIFitsFile(oiTable.getOIFitsFile());
@@ -358,6 +361,7 @@ public final class XmlOutputVisitor extends OutputVisitor {
                     }
                 }
                 this.buffer.append("</column>\n");
+                checkFlush();
             }
         }
         this.buffer.append("</columns>\n");
@@ -385,6 +389,9 @@ public final class XmlOutputVisitor extends OutputVisitor {
                     }
                 }
                 this.buffer.append("</tr>\n");
+
+                // bounded buffer (streaming mode):
+                checkFlush();
             }
 
             this.buffer.append("</table>\n");
@@ -394,6 +401,7 @@ public final class XmlOutputVisitor extends OutputVisitor {
         if (doOIFitsFile) {
             exitOIFitsFile();
         }
+        flush();
     }
 
     private void appendKeywords(final FitsHDU hdu) {
@@ -408,12 +416,14 @@ public final class XmlOutputVisitor extends OutputVisitor {
                 this.buffer.append("<keyword><name>").append(keyword.getName()).append("</name><value>").append(encodeTagContent(val.toString()));
                 this.buffer.append("</value><description>").append(encodeTagContent(keyword.getDescription())).append("</description><type>");
                 this.buffer.append(keyword.getType()).append("</type><unit>").append(keyword.getUnit()).append("</unit></keyword>\n");
+                checkFlush();
             }
         }
         // Extra keywords:
         if (hdu.hasHeaderCards()) {
             for (final FitsHeaderCard headerCard : hdu.getHeaderCards()) {
                 dumpFitsHeaderCard(headerCard);
+                checkFlush();
             }
         }
         this.buffer.append("</keywords>\n");
@@ -435,6 +445,7 @@ public final class XmlOutputVisitor extends OutputVisitor {
 
     /**
      * Append the string representation (String or array) of the column value at the given row index
+     * (the buffer is checked between array values to stay bounded in streaming mode)
      * @param oiTable OITable element to use
      * @param column column descriptor
      * @param rowIndex row index
@@ -455,6 +466,7 @@ public final class XmlOutputVisitor extends OutputVisitor {
                     for (int i = 0, len = rowValues.length; i < len; i++) {
                         if (i > 0) {
                             this.buffer.append(' ');
+                            checkFlush();
                         }
                         this.buffer.append(rowValues[i]);
                     }
@@ -473,6 +485,7 @@ public final class XmlOutputVisitor extends OutputVisitor {
                     for (int i = 0, len = rowValues.length; i < len; i++) {
                         if (i > 0) {
                             this.buffer.append(' ');
+                            checkFlush();
                         }
                         this.buffer.append(rowValues[i]);
                     }
@@ -485,12 +498,31 @@ public final class XmlOutputVisitor extends OutputVisitor {
 
             case TYPE_DBL:
                 if (column.isArray()) {
+                    final FlatColumn flat = oiTable.getColumnFlat(column.getName());
+                    if (flat != null) {
+                        // avoid converting flat arrays:
+                        final double[] flatValues = flat.getDoubles();
+                        // append values :
+                        for (int i = 0, offset = flat.getOffset(rowIndex), len = flat.getStride(); i < len; i++) {
+                            if (i > 0) {
+                                this.buffer.append(' ');
+                                checkFlush();
+                            }
+                            if (this.format) {
+                                this.buffer.append(format(flatValues[offset + i]));
+                            } else {
+                                this.buffer.append(flatValues[offset + i]);
+                            }
+                        }
+                        break;
+                    }
                     final double[][] dValues = oiTable.getColumnDoubles(column.getName());
                     final double[] rowValues = dValues[rowIndex];
                     // append values :
                     for (int i = 0, len = rowValues.length; i < len; i++) {
                         if (i > 0) {
                             this.buffer.append(' ');
+                            checkFlush();
                         }
                         if (this.format) {
                             this.buffer.append(format(rowValues[i]));
@@ -527,12 +559,32 @@ public final class XmlOutputVisitor extends OutputVisitor {
             case TYPE_COMPLEX:
                 // Special case for complex visibilities :
                 if (column.isArray()) {
+                    final FlatColumn flat = oiTable.getColumnFlat(column.getName());
+                    if (flat != null) {
+                        // avoid converting flat arrays (re, im pairs):
+                        final float[] flatValues = flat.getFloats();
+                        // append values :
+                        for (int i = 0, offset = flat.getOffset(rowIndex), len = flat.getStride(); i < len; i += 2) {
+                            if (i > 0) {
+                                this.buffer.append(' ');
+                                checkFlush();
+                            }
+                            // real,img pattern for complex values :
+                            if (this.format) {
+                                this.buffer.append(format(flatValues[offset + i])).append(',').append(format(flatValues[offset + i + 1]));
+                            } else {
+                                this.buffer.append(flatValues[offset + i]).append(',').append(flatValues[offset + i + 1]);
+                            }
+                        }
+                        break;
+                    }
                     final float[][][] cValues = oiTable.getColumnComplexes(column.getName());
                     final float[][] rowValues = cValues[rowIndex];
                     // append values :
                     for (int i = 0, len = rowValues.length; i < len; i++) {
                         if (i > 0) {
                             this.buffer.append(' ');
+                            checkFlush();
                         }
                         // real,img pattern for complex values :
                         if (this.format) {
@@ -555,6 +607,7 @@ public final class XmlOutputVisitor extends OutputVisitor {
                     for (int i = 0, lenI = rowValues.length; i < lenI; i++) {
                         if (i > 0) {
                             this.buffer.append(' ');
+                            checkFlush();
                         }
                         final boolean[] cellValues = rowValues[i];
                         for (int j = 0, lenJ = cellValues.length; j < lenJ; j++) {
@@ -580,6 +633,7 @@ public final class XmlOutputVisitor extends OutputVisitor {
                     for (int i = 0, len = rowValues.length; i < len; i++) {
                         if (i > 0) {
                             this.buffer.append(' ');
+                            checkFlush();
                         }
                         if (this.format) {
                             if (rowValues[i]) {
@@ -673,6 +727,8 @@ public final class XmlOutputVisitor extends OutputVisitor {
                 .append("    <nb_t3>").append(nbT3).append("</nb_t3>\n")
                 .append("    <nb_channels>").append(nbChannels).append("</nb_channels>\n")
                 .append("  </target>\n");
+
+        checkFlush();
     }
 
 }
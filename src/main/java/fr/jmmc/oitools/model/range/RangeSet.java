@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2021 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools.model.range;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * Immutable set of ranges stored as a sorted array of merged (disjoint) intervals
+ * to test values using a binary search (same result as Range.contains(Collection, double)).
+ *
+ * Undefined (NaN) bounds mean unbounded and inverted ranges (min &gt; max) are ignored.
+ * 
+ * @author Laurent BOURGES.
+ */
+public final class RangeSet {
+
+    /** comparator on interval minimums */
+    private final static Comparator<double[]> CMP_MIN = new Comparator<double[]>() {
+        @Override
+        public int compare(final double[] b1, final double[] b2) {
+            return Double.compare(b1[0], b2[0]);
+        }
+    };
+
+    /** empty set */
+    public final static RangeSet EMPTY = new RangeSet(new double[0], new double[0], false);
+
+    /**
+     * Create the set of the given ranges
+     * @param ranges ranges (may be null)
+     * @return new set of the given ranges
+     */
+    public static RangeSet create(final Collection<Range> ranges) {
+        if ((ranges == null) || ranges.isEmpty()) {
+            return EMPTY;
+        }
+        final int size = ranges.size();
+        final double[][] bounds = new double[size][];
+        boolean containsNaN = false;
+        int n = 0;
+
+        for (Range r : ranges) {
+            final double min = Double.isNaN(r.getMin()) ? Double.NEGATIVE_INFINITY : r.getMin();
+            final double max = Double.isNaN(r.getMax()) ? Double.POSITIVE_INFINITY : r.getMax();
+
+            if (Double.isNaN(r.getMin()) && Double.isNaN(r.getMax())) {
+                // see Range.contains():
+                containsNaN = true;
+            }
+            if (min <= max) {
+                bounds[n++] = new double[]{min, max};
+            }
+        }
+        Arrays.sort(bounds, 0, n, CMP_MIN);
+
+        // merge overlapping (closed) intervals:
+        final double[] mins = new double[n];
+        final double[] maxs = new double[n];
+        int len = 0;
+
+        for (int i = 0; i < n; i++) {
+            final double min = bounds[i][0];
+            final double max = bounds[i][1];
+
+            if ((len != 0) && (min <= maxs[len - 1])) {
+                if (max > maxs[len - 1]) {
+                    maxs[len - 1] = max;
+                }
+            } else {
+                mins[len] = min;
+                maxs[len] = max;
+                len++;
+            }
+        }
+        return new RangeSet(Arrays.copyOf(mins, len), Arrays.copyOf(maxs, len), containsNaN);
+    }
+
+    /* members */
+    /** sorted interval minimums */
+    private final double[] mins;
+    /** sorted interval maximums */
+    private final double[] maxs;
+    /** true if NaN values are contained (unbounded range) */
+    private final boolean containsNaN;
+
+    private RangeSet(final double[] mins, final double[] maxs, final boolean containsNaN) {
+        this.mins = mins;
+        this.maxs = maxs;
+        this.containsNaN = containsNaN;
+    }
+
+    /**
+     * Return the number of merged intervals
+     * @return number of merged intervals
+     */
+    public int size() {
+        return mins.length;
+    }
+
+    public boolean isEmpty() {
+        return (mins.length == 0);
+    }
+
+    /**
+     * Return true if any range contains the given value (including bounds)
+     * @param value value to check
+     * @return true if any range contains the given value
+     */
+    public boolean contains(final double value) {
+        if (value != value) {
+            return containsNaN;
+        }
+        // last interval having min <= value:
+        int lo = 0;
+        int hi = mins.length - 1;
+        while (lo <= hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (mins[mid] <= value) {
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return (hi >= 0) && (value <= maxs[hi]);
+    }
+
+    /**
+     * Return true if any range overlaps the given (finite) range
+     * @param min minimum value
+     * @param max maximum value
+     * @return true if any range overlaps the given range
+     */
+    public boolean overlap(final double min, final double max) {
+        // first interval having max >= min:
+        int lo = 0;
+        int hi = maxs.length - 1;
+        while (lo <= hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (maxs[mid] < min) {
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return (lo < mins.length) && (mins[lo] <= max);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder(16 * mins.length + 16);
+        sb.append("RangeSet[");
+        for (int i = 0; i < mins.length; i++) {
+            if (i != 0) {
+                sb.append(", ");
+            }
+            sb.append('[').append(mins[i]).append(", ").append(maxs[i]).append(']');
+        }
+        return sb.append(']').toString();
+    }
+}
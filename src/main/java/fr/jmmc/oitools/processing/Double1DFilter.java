@@ -5,6 +5,7 @@ package fr.jmmc.oitools.processing;
 
 import fr.jmmc.oitools.fits.FitsTable;
 import fr.jmmc.oitools.model.range.Range;
+import fr.jmmc.oitools.model.range.RangeSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -19,6 +20,8 @@ public final class Double1DFilter extends FitsTableFilter<Range> {
     // members:
     private double[] tableColumn1D = null;
     private final Set<Range> rangeMatchings = new HashSet<Range>();
+    /** matching ranges as sorted merged intervals (binary search) */
+    private RangeSet rangeSet = RangeSet.EMPTY;
 
     public Double1DFilter(final String columnName, final List<Range> acceptedValues) {
         super(columnName, acceptedValues);
@@ -28,6 +31,7 @@ public final class Double1DFilter extends FitsTableFilter<Range> {
     void reset() {
         this.tableColumn1D = null;
         rangeMatchings.clear();
+        this.rangeSet = RangeSet.EMPTY;
     }
 
     @Override
@@ -58,13 +62,14 @@ public final class Double1DFilter extends FitsTableFilter<Range> {
                 // missing column, ignore filter:
                 return FilterState.FULL;
             }
+            rangeSet = RangeSet.create(rangeMatchings);
             return FilterState.MASK;
         }
         return FilterState.FULL;
     }
 
     public boolean accept(final int row, final int col) {
-        return Range.contains(rangeMatchings, tableColumn1D[row]);
+        return rangeSet.contains(tableColumn1D[row]);
     }
 
 }
@@ -19,6 +19,7 @@ package fr.jmmc.oitools.processing;
 import fr.jmmc.oitools.OIFitsConstants;
 import fr.jmmc.oitools.OIFitsProcessor;
 import fr.jmmc.oitools.fits.FitsConstants;
+import fr.jmmc.oitools.fits.FitsHDU;
 import fr.jmmc.oitools.image.FitsImageHDU;
 import fr.jmmc.oitools.meta.KeywordMeta;
 import fr.jmmc.oitools.meta.OIFitsStandard;
@@ -30,6 +31,7 @@ import fr.jmmc.oitools.model.OICorr;
 import fr.jmmc.oitools.model.OIData;
 import fr.jmmc.oitools.model.OIFitsCollection;
 import fr.jmmc.oitools.model.OIFitsFile;
+import fr.jmmc.oitools.model.OIFitsStreamWriter;
 import fr.jmmc.oitools.model.OIPrimaryHDU;
 import fr.jmmc.oitools.model.OITable;
 import fr.jmmc.oitools.model.OITarget;
@@ -38,6 +40,12 @@ import fr.jmmc.oitools.model.Target;
 import fr.jmmc.oitools.model.TargetManager;
 import fr.jmmc.oitools.util.OITableComparator;
 import fr.nom.tam.fits.FitsDate;
+import fr.nom.tam.fits.FitsException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
@@ -132,60 +140,164 @@ public final class Merger {
     }
 
     public static OIFitsFile process(final SelectorResult result, final OIFitsStandard std) {
-        final OIFitsFile resultFile;
         if (result == null) {
             logger.log(Level.INFO, "Merge: no matching data");
-            resultFile = null;
-        } else {
-            logger.log(Level.INFO, "selected targets:  {0}", result.getDistinctTargets());
-            logger.log(Level.INFO, "selected insModes: {0}", result.getDistinctInstrumentModes());
-            logger.log(Level.INFO, "selected nightIds: {0}", result.getDistinctNightIds());
+            return null;
+        }
+        try {
+            return process(result, std, null, false).resultFile;
+        } catch (IOException ioe) {
+            // impossible case (no output file):
+            throw new IllegalStateException("Merge: unexpected IO failure", ioe);
+        } catch (FitsException fe) {
+            // impossible case (no output file):
+            throw new IllegalStateException("Merge: unexpected FITS failure", fe);
+        }
+    }
 
-            // 1. CreateOIFits anyway
-            resultFile = createOIFits(std, result);
+    /**
+     * Merge the given OIFitsCollection with the given Selector and write the result into the given file
+     * in streaming mode: the primary HDU, OI_TARGET, OI_WAVELENGTH, OI_ARRAY and OI_CORR tables are written first,
+     * then each filtered OI_DATA table is written as soon as it is produced and released
+     * (the complete merged OIFitsFile is never kept in memory).
+     * Column values of source OI_DATA tables read on demand (lazy loading) are released once copied.
+     * Note: no file is created if the result is empty.
+     *
+     * @param oiFitsCollection OIFits collection
+     * @param selector optional Selector instance to filter content
+     * @param std OIFits standard for the output OIFitsFile
+     * @param absFilePath absolute File path on file system (not URL)
+     * @param doChecksum true to add CHECKSUM and DATASUM keywords in all HDUs (computed while writing)
+     * @return true if the file was written; false if the result is empty
+     * @throws IllegalArgumentException
+     * @throws FitsException if the fits can not be written
+     * @throws IOException IO failure
+     */
+    public static boolean processAndWrite(final OIFitsCollection oiFitsCollection, final Selector selector, final OIFitsStandard std,
+                                          final String absFilePath, final boolean doChecksum) throws IllegalArgumentException, IOException, FitsException {
+        if (oiFitsCollection == null || oiFitsCollection.isEmpty()) {
+            throw new IllegalArgumentException("Merge: Missing OIFits inputs");
+        }
 
-            final Context ctx = new Context(result, resultFile);
+        final SelectorResult result = filterData(oiFitsCollection, selector);
 
-            // 2. Get all referenced OIPrimaryHDU, Target, OIWavelength, OIArray and OICorr in data tables
-            collectTables(ctx);
+        return processAndWrite(result, std, absFilePath, doChecksum);
+    }
 
-            // 2.1 Process Primary header
-            processOIPrimaryHDU(ctx);
+    /**
+     * Merge the given selector result and write it into the given file in streaming mode.
+     * Tables are written into a temporary file (same directory) renamed on success,
+     * so the given file is never left truncated on failure nor created if the result is empty.
+     *
+     * @param result selector result
+     * @param std OIFits standard for the output OIFitsFile
+     * @param absFilePath absolute File path on file system (not URL)
+     * @param doChecksum true to add CHECKSUM and DATASUM keywords in all HDUs (computed while writing)
+     * @return true if the file was written; false if the result is empty
+     * @throws FitsException if the fits can not be written
+     * @throws IOException IO failure
+     */
+    public static boolean processAndWrite(final SelectorResult result, final OIFitsStandard std,
+                                          final String absFilePath, final boolean doChecksum) throws IOException, FitsException {
+        if (absFilePath == null) {
+            throw new IllegalArgumentException("Merge: Missing output file");
+        }
+        if (result == null) {
+            logger.log(Level.INFO, "Merge: no matching data");
+            return false;
+        }
+        return (process(result, std, absFilePath, doChecksum).nbWrittenOIData != 0);
+    }
 
-            // 3. process Meta Data to prepare mappings:
-            // Process OI_TARGET:
-            processOITarget(ctx);
+    private static Context process(final SelectorResult result, final OIFitsStandard std,
+                                   final String absFilePath, final boolean doChecksum) throws IOException, FitsException {
 
-            // Process OI_WAVELENGTH tables
-            processOIWavelengths(ctx);
+        logger.log(Level.INFO, "selected targets:  {0}", result.getDistinctTargets());
+        logger.log(Level.INFO, "selected insModes: {0}", result.getDistinctInstrumentModes());
+        logger.log(Level.INFO, "selected nightIds: {0}", result.getDistinctNightIds());
 
-            // Process OI_ARRAY tables 
-            processOIArrays(ctx);
+        // 1. CreateOIFits anyway
+        final OIFitsFile resultFile = createOIFits(std, result);
 
-            // Specific to OIFits V2
-            if (resultFile.isOIFits2()) {
-                // Process OI_CORR tables
-                processOICorrs(ctx);
+        final Context ctx = new Context(result, resultFile, absFilePath, doChecksum);
 
-                // TODO: OIINSPOL ?
-            }
+        // 2. Get all referenced OIPrimaryHDU, Target, OIWavelength, OIArray and OICorr in data tables
+        collectTables(ctx);
 
-            // 4. process Data:
-            processOIData(ctx);
+        // 2.1 Process Primary header
+        processOIPrimaryHDU(ctx);
+
+        // 3. process Meta Data to prepare mappings:
+        // Process OI_TARGET:
+        processOITarget(ctx);
+
+        // Process OI_WAVELENGTH tables
+        processOIWavelengths(ctx);
+
+        // Process OI_ARRAY tables 
+        processOIArrays(ctx);
+
+        // Specific to OIFits V2
+        if (resultFile.isOIFits2()) {
+            // Process OI_CORR tables
+            processOICorrs(ctx);
+
+            // TODO: OIINSPOL ?
+        }
+
+        // Update history (before writing the primary HDU in streaming mode):
+        final FitsImageHDU primaryHdu = ctx.resultFile.getPrimaryImageHDU();
+
+        // Add used oifits files:
+        for (OIFitsFile oiFitsFile : result.getSortedOIFitsFiles()) {
+            primaryHdu.addHeaderHistory("CLI Input: " + oiFitsFile.getFileName());
+        }
 
-            // Update history:
-            final FitsImageHDU primaryHdu = ctx.resultFile.getPrimaryImageHDU();
+        // Add CLI args:
+        final Selector selector = result.getSelector();
+        primaryHdu.addHeaderHistory("CLI args: " + OIFitsProcessor.generateCLIargs(selector));
 
-            // Add used oifits files:
-            for (OIFitsFile oiFitsFile : result.getSortedOIFitsFiles()) {
-                primaryHdu.addHeaderHistory("CLI Input: " + oiFitsFile.getFileName());
+        // 4. process Data:
+        boolean done = false;
+        try {
+            processOIData(ctx);
+            done = true;
+        } finally {
+            if (ctx.writer != null) {
+                closeStreamWriter(ctx, done);
             }
+        }
+        return ctx;
+    }
 
-            // Add CLI args:
-            final Selector selector = result.getSelector();
-            primaryHdu.addHeaderHistory("CLI args: " + OIFitsProcessor.generateCLIargs(selector));
+    /**
+     * Close the stream writer then rename its temporary file to the output file if done, or delete it
+     * @param ctx merge context
+     * @param done true if all tables were written
+     * @throws IOException IO failure
+     */
+    private static void closeStreamWriter(final Context ctx, final boolean done) throws IOException {
+        boolean moved = false;
+        try {
+            ctx.writer.close();
+
+            if (done) {
+                final File outFile = new File(ctx.absFilePath);
+                try {
+                    Files.move(ctx.tmpFile.toPath(), outFile.toPath(),
+                            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException amnse) {
+                    logger.log(Level.FINE, "atomic move not supported: {0}", amnse.getMessage());
+                    Files.move(ctx.tmpFile.toPath(), outFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+                moved = true;
+                ctx.resultFile.setAbsoluteFilePath(ctx.absFilePath);
+            }
+        } finally {
+            if (!moved && !ctx.tmpFile.delete()) {
+                logger.log(Level.WARNING, "Unable to delete temporary file: {0}", ctx.tmpFile);
+            }
         }
-        return resultFile;
     }
 
     private static OIFitsFile createOIFits(final OIFitsStandard std, final SelectorResult result) {
@@ -472,18 +584,20 @@ public final class Merger {
                         // use the previous table
                         newOiWavelength = prevOiWavelength;
                     } else {
-                        // add the new table (copy):
-                        newOiWavelength = (OIWavelength) resultFile.copyTable(oiWavelength);
-                        newOiWavelength.setInsName(newName);
-
                         // get the wavelength mask for this wavelength table:
                         final IndexMask maskWavelength = selectorResult.getWavelengthMaskNotFull(oiWavelength);
 
-                        if (maskWavelength != null) {
-                            final int nKeepRows = maskWavelength.cardinality();
-                            // redim the table to the correct row count to prune invalid rows:
-                            newOiWavelength.resizeTable(nKeepRows, maskWavelength.getBitSet());
+                        // add the new table (copy):
+                        if (maskWavelength == null) {
+                            newOiWavelength = (OIWavelength) resultFile.copyTable(oiWavelength);
+                        } else {
+                            // copy only valid rows:
+                            newOiWavelength = (OIWavelength) resultFile.copyTable(oiWavelength,
+                                    maskWavelength.cardinality(), maskWavelength.getBitSet(), null);
+                        }
+                        newOiWavelength.setInsName(newName);
 
+                        if (maskWavelength != null) {
                             logger.log(Level.INFO, "Table[{0}] filtered from Table[{1}]",
                                     new Object[]{newOiWavelength, oiWavelength});
                         }
@@ -614,7 +728,7 @@ public final class Merger {
      *
      * @param ctx merge context
      */
-    private static void processOIData(final Context ctx) {
+    private static void processOIData(final Context ctx) throws IOException, FitsException {
         final SelectorResult selectorResult = ctx.selectorResult;
         final List<OIData> oiDatas = selectorResult.getSortedOIDatas();
 
@@ -631,149 +745,206 @@ public final class Merger {
 
             // Process selected OIData tables:
             for (OIData oiData : oiDatas) {
-                final String newInsName;
-                final String newArrName;
-                final String newCorrName;
-
-                // INSNAME:
-                final OIWavelength newOiWavelength = mapOIWavelengths.get(oiData.getOiWavelength());
-                if (newOiWavelength == null) {
-                    logger.log(Level.WARNING, "Invalid INSNAME[{0}] found !", oiData.getInsName());
-                    continue;
-                }
-                newInsName = newOiWavelength.getInsName();
-
-                // ARRNAME:
-                final OIArray newOiArray = mapOIArrays.get(oiData.getOiArray());
-                if (newOiArray == null) {
-                    newArrName = UNDEFINED;
-                    logger.log(Level.WARNING, "Invalid ARRNAME[{0}] found ! Using [{1}] instead",
-                            new Object[]{oiData.getArrName(), newArrName});
-                } else {
-                    newArrName = newOiArray.getArrName();
-                }
+                try {
+                    final String newInsName;
+                    final String newArrName;
+                    final String newCorrName;
+
+                    // INSNAME:
+                    final OIWavelength newOiWavelength = mapOIWavelengths.get(oiData.getOiWavelength());
+                    if (newOiWavelength == null) {
+                        logger.log(Level.WARNING, "Invalid INSNAME[{0}] found !", oiData.getInsName());
+                        continue;
+                    }
+                    newInsName = newOiWavelength.getInsName();
+
+                    // ARRNAME:
+                    final OIArray newOiArray = mapOIArrays.get(oiData.getOiArray());
+                    if (newOiArray == null) {
+                        newArrName = UNDEFINED;
+                        logger.log(Level.WARNING, "Invalid ARRNAME[{0}] found ! Using [{1}] instead",
+                                new Object[]{oiData.getArrName(), newArrName});
+                    } else {
+                        newArrName = newOiArray.getArrName();
+                    }
 
-                // Optional CORRNAME:
-                if (oiData.getCorrName() == null) {
-                    newCorrName = null;
-                } else {
-                    final OICorr newOiCorr = mapOICorrs.get(oiData.getOiCorr());
-                    if (newOiCorr == null) {
+                    // Optional CORRNAME:
+                    if (oiData.getCorrName() == null) {
                         newCorrName = null;
-                        logger.log(Level.WARNING, "Invalid CORRNAME[{0}] found !", oiData.getCorrName());
                     } else {
-                        newCorrName = newOiCorr.getCorrName();
+                        final OICorr newOiCorr = mapOICorrs.get(oiData.getOiCorr());
+                        if (newOiCorr == null) {
+                            newCorrName = null;
+                            logger.log(Level.WARNING, "Invalid CORRNAME[{0}] found !", oiData.getCorrName());
+                        } else {
+                            newCorrName = newOiCorr.getCorrName();
+                        }
                     }
-                }
 
-                // check Targets:
-                boolean checkTargetId = false;
-                // Should filter targetId on each data row ?
-                final Map<Short, Short> mapTargetIds = mapOITargetIDs.get(oiData.getOiTarget());
-
-                for (Short id : oiData.getDistinctTargetId()) {
-                    final Short newId = mapTargetIds.get(id);
-                    if (newId != null) {
-                        // targetId value are different between input and output tables:
-                        if (!id.equals(newId)) {
-                            checkTargetId = true;
+                    // check Targets:
+                    boolean checkTargetId = false;
+                    // Should filter targetId on each data row ?
+                    final Map<Short, Short> mapTargetIds = mapOITargetIDs.get(oiData.getOiTarget());
+
+                    for (Short id : oiData.getDistinctTargetId()) {
+                        final Short newId = mapTargetIds.get(id);
+                        if (newId != null) {
+                            // targetId value are different between input and output tables:
+                            if (!id.equals(newId)) {
+                                checkTargetId = true;
+                            }
                         }
                     }
-                }
 
-                logger.log(Level.FINE, "checkTargetId: {0}", checkTargetId);
-                logger.log(Level.FINE, "mapIds:        {0}", mapTargetIds);
+                    logger.log(Level.FINE, "checkTargetId: {0}", checkTargetId);
+                    logger.log(Level.FINE, "mapIds:        {0}", mapTargetIds);
 
-                // get the optional wavelength mask for the OIData's wavelength table:
-                final IndexMask maskWavelength = selectorResult.getWavelengthMaskNotFull(oiData.getOiWavelength());
-                // get the optional masks for this OIData table:
-                final IndexMask maskOIData1D = selectorResult.getDataMask1DNotFull(oiData);
+                    // get the optional wavelength mask for the OIData's wavelength table:
+                    final IndexMask maskWavelength = selectorResult.getWavelengthMaskNotFull(oiData.getOiWavelength());
+                    // get the optional masks for this OIData table:
+                    final IndexMask maskOIData1D = selectorResult.getDataMask1DNotFull(oiData);
 
-                logger.log(Level.INFO, "maskOIData1D:   {0}", maskOIData1D);
-                logger.log(Level.INFO, "maskWavelength: {0}", maskWavelength);
+                    logger.log(Level.INFO, "maskOIData1D:   {0}", maskOIData1D);
+                    logger.log(Level.INFO, "maskWavelength: {0}", maskWavelength);
 
-                // Copy table and filter out useless rows:
-                final OIData newOIData = (OIData) resultFile.copyTable(oiData);
+                    boolean filterRows = false;
 
-                // Change INSNAME, ARRNAME & CORRNAME keywords:
-                newOIData.setArrName(newArrName);
-                newOIData.setInsName(newInsName);
-                newOIData.setCorrName(newCorrName);
+                    // mask to indicate rows to keep in output table (null means all rows):
+                    BitSet maskRows = null;
+                    int nKeepRows = oiData.getNbRows();
 
-                boolean filterRows = false;
+                    if (checkTargetId || (maskWavelength != null) || (maskOIData1D != null)) {
+                        final int nRows = oiData.getNbRows();
 
-                if (checkTargetId || (maskWavelength != null) || (maskOIData1D != null)) {
-                    final int nRows = newOIData.getNbRows();
+                        maskRows = (maskOIData1D != null) ? maskOIData1D.getBitSet() : new BitSet(nRows);
 
-                    // prepare mask to indicate rows to keep in output table:
-                    final BitSet maskRows = (maskOIData1D != null) ? maskOIData1D.getBitSet() : new BitSet(nRows);
+                        final short[] targetIds = oiData.getTargetId();
 
-                    // Update targetId column:
-                    final short[] targetIds = newOIData.getTargetId();
-                    final short[] newTargetIds = new short[nRows];
-
-                    // Iterate on table rows (i):
-                    for (int i = 0; i < nRows; i++) {
-
-                        // check optional data mask 1D:
-                        if ((maskOIData1D != null) && !maskOIData1D.accept(i)) {
-                            // if bit is false for this row, we hide this row
-                            continue;
-                        }
-                        boolean skip = false;
+                        // Iterate on table rows (i):
+                        for (int i = 0; i < nRows; i++) {
 
-                        if (checkTargetId) {
-                            final Short oldTargetId = Short.valueOf(targetIds[i]);
-                            Short newTargetId = mapTargetIds.get(oldTargetId);
-                            if (newTargetId == null) {
-                                newTargetId = UNDEFINED_SHORT; // should never happen
+                            // check optional data mask 1D:
+                            if ((maskOIData1D != null) && !maskOIData1D.accept(i)) {
+                                // if bit is false for this row, we hide this row
+                                continue;
+                            }
+                            final short newTargetId = (checkTargetId) ? getNewTargetId(mapTargetIds, targetIds[i]) : targetIds[i];
+
+                            // update mask:
+                            if (newTargetId == ModelBase.UNDEFINED_SHORT) {
+                                filterRows = true;
+                                if (maskOIData1D != null) {
+                                    maskRows.set(i, false); // to be sure
+                                }
+                            } else {
+                                if (maskOIData1D == null) {
+                                    maskRows.set(i);
+                                }
                             }
-                            newTargetIds[i] = newTargetId.shortValue();
-                        } else {
-                            // preserve id:
-                            newTargetIds[i] = targetIds[i];
-                        }
-                        if (newTargetIds[i] == ModelBase.UNDEFINED_SHORT) {
-                            skip = true;
                         }
 
-                        // update mask:
-                        if (skip) {
-                            filterRows = true;
-                            if (maskOIData1D != null) {
-                                maskRows.set(i, false); // to be sure
+                        if (filterRows || (maskOIData1D != null) || (maskWavelength != null)) {
+                            nKeepRows = maskRows.cardinality();
+
+                            if (nKeepRows <= 0) {
+                                // skip table as no remaining row
+                                continue;
                             }
                         } else {
-                            if (maskOIData1D == null) {
-                                maskRows.set(i);
-                            }
+                            // keep all rows:
+                            maskRows = null;
                         }
                     }
 
-                    // update targetId column before table filter:
-                    newOIData.setTargetId(newTargetIds);
+                    // Copy table and filter out useless rows and wavelengths in one pass:
+                    final OIData newOIData = (OIData) resultFile.copyTable(oiData, nKeepRows, maskRows,
+                            (maskWavelength != null) ? maskWavelength.getBitSet() : null);
 
-                    if (filterRows || (maskOIData1D != null) || (maskWavelength != null)) {
-                        final int nKeepRows = maskRows.cardinality();
+                    // Change INSNAME, ARRNAME & CORRNAME keywords:
+                    newOIData.setArrName(newArrName);
+                    newOIData.setInsName(newInsName);
+                    newOIData.setCorrName(newCorrName);
 
-                        if (nKeepRows <= 0) {
-                            // skip table as no remaining row
-                            continue;
-                        } else {
-                            // redim the table to the correct row count to prune invalid rows:
-                            newOIData.resizeTable(nKeepRows, maskRows,
-                                    (maskWavelength != null) ? maskWavelength.getBitSet() : null);
+                    if (checkTargetId) {
+                        // Update targetId column on kept rows only (column may be shared with the source table):
+                        final short[] targetIds = newOIData.getTargetId();
+                        final short[] newTargetIds = new short[targetIds.length];
+
+                        for (int i = 0; i < targetIds.length; i++) {
+                            newTargetIds[i] = getNewTargetId(mapTargetIds, targetIds[i]);
                         }
+                        newOIData.setTargetId(newTargetIds);
+                    }
+                    addOIData(ctx, newOIData);
+
+                    if (filterRows) {
+                        logger.log(Level.INFO, "Table[{0}] filtered from Table[{1}]",
+                                new Object[]{newOIData, oiData});
+                    }
+                } finally {
+                    if (ctx.absFilePath != null) {
+                        // streaming mode: release the source column values read on demand (lazy loading):
+                        oiData.unloadColumnValues();
                     }
                 }
-                resultFile.addOiTable(newOIData);
+            }
+        }
+    }
 
-                if (filterRows) {
-                    logger.log(Level.INFO, "Table[{0}] filtered from Table[{1}]",
-                            new Object[]{newOIData, oiData});
+    /**
+     * Add the given OIData table to the result file or write it directly in streaming mode
+     * @param ctx merge context
+     * @param oiData OIData table to add
+     * @throws FitsException if the fits can not be written
+     * @throws IOException IO failure
+     */
+    private static void addOIData(final Context ctx, final OIData oiData) throws IOException, FitsException {
+        if (ctx.absFilePath == null) {
+            ctx.resultFile.addOiTable(oiData);
+            return;
+        }
+        if (ctx.writer == null) {
+            // first OI_DATA table: write the primary HDU and all other tables into a temporary file:
+            final File outFile = new File(ctx.absFilePath).getAbsoluteFile();
+            ctx.tmpFile = File.createTempFile(outFile.getName() + '.', ".tmp", outFile.getParentFile());
+            try {
+                ctx.writer = new OIFitsStreamWriter(ctx.tmpFile.getAbsolutePath(), ctx.doChecksum);
+            } finally {
+                if (ctx.writer == null && !ctx.tmpFile.delete()) {
+                    logger.log(Level.WARNING, "Unable to delete temporary file: {0}", ctx.tmpFile);
                 }
             }
+            ctx.writer.writeOIFits(ctx.resultFile);
+        }
+
+        // define ExtNb and ExtVer like OIFitsFile.addOiTable():
+        if (oiData.getExtNb() == FitsHDU.UNDEFINED_EXT_NB) {
+            oiData.setExtNb(ctx.resultFile.getNbOiTables() + ctx.nbWrittenOIData);
+        }
+        if (oiData.getExtVer() == 0) {
+            final Integer extVer = ctx.extVers.get(oiData.getExtName());
+            final int newExtVer = (extVer == null) ? 1 : extVer.intValue() + 1;
+            ctx.extVers.put(oiData.getExtName(), Integer.valueOf(newExtVer));
+            oiData.setExtVer(newExtVer);
+        }
+
+        // write and release the table:
+        ctx.writer.write(oiData);
+        ctx.nbWrittenOIData++;
+    }
+
+    /**
+     * Return the new target id for the given target id
+     * @param mapTargetIds mapping between old and new target ids
+     * @param targetId old target id
+     * @return new target id or UNDEFINED_SHORT if not found
+     */
+    private static short getNewTargetId(final Map<Short, Short> mapTargetIds, final short targetId) {
+        final Short newTargetId = mapTargetIds.get(Short.valueOf(targetId));
+        if (newTargetId == null) {
+            return UNDEFINED_SHORT; // should never happen
         }
+        return newTargetId.shortValue();
     }
 
     private static <K extends OITable> void deduplicateTables(final String keywordName, final Set<K> oiTables,
@@ -841,10 +1012,25 @@ public final class Merger {
         final Map<OIWavelength, OIWavelength> mapOIWavelengths = new IdentityHashMap<OIWavelength, OIWavelength>();
         final Map<OIArray, OIArray> mapOIArrays = new IdentityHashMap<OIArray, OIArray>();
         final Map<OICorr, OICorr> mapOICorrs = new IdentityHashMap<OICorr, OICorr>();
-
-        private Context(final SelectorResult selectorResult, final OIFitsFile resultFile) {
+        /** optional output file (streaming mode) */
+        final String absFilePath;
+        /** true to add CHECKSUM and DATASUM keywords (streaming mode) */
+        final boolean doChecksum;
+        /** temporary file (streaming mode) renamed to absFilePath on success */
+        File tmpFile = null;
+        /** stream writer (streaming mode) created on the first OI_DATA table */
+        OIFitsStreamWriter writer = null;
+        /** number of written OI_DATA tables (streaming mode) */
+        int nbWrittenOIData = 0;
+        /** last EXTVER keyed by EXTNAME of written OI_DATA tables (streaming mode) */
+        final Map<String, Integer> extVers = new HashMap<String, Integer>(8);
+
+        private Context(final SelectorResult selectorResult, final OIFitsFile resultFile,
+                        final String absFilePath, final boolean doChecksum) {
             this.selectorResult = selectorResult;
             this.resultFile = resultFile;
+            this.absFilePath = absFilePath;
+            this.doChecksum = doChecksum;
         }
     }
 
@@ -4,6 +4,10 @@
 package fr.jmmc.oitools.processing;
 
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /*
  * Copyright (c) 2008, Harald Kuhr
@@ -125,6 +129,22 @@ public final class Resampler {
 
     public static final Filter FILTER_DEFAULT = Filter.FILTER_MITCHELL;
 
+    /** maximum number of contributor lists kept in the cache */
+    private final static int MAX_CACHE_SIZE = 64;
+    /** minimum number of destination pixels to resample in parallel */
+    private final static int PARALLEL_THRESHOLD = 64 * 1024;
+
+    /** LRU cache of contributor lists keyed by filter, source and destination lengths (guarded by itself) */
+    private final static Map<String, ContributorList[]> CONTRIBS_CACHE = new LinkedHashMap<String, ContributorList[]>(16, 0.75f, true) {
+        /** default serial UID for Serializable interface */
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, ContributorList[]> eldest) {
+            return size() > MAX_CACHE_SIZE;
+        }
+    };
+
     public enum Filter {
         /**
          * Point interpolation (also known as "nearest neighbour").
@@ -242,6 +262,33 @@ public final class Resampler {
      * @throws NullPointerException if {@code input} is {@code null}
      */
     public static final double[][] filter(final double[][] pSource, final double[][] pDest, final Filter filter, final boolean positive) {
+        checkImages(pSource, pDest);
+
+        resample(pSource, pDest, pSource[0].length, pSource.length, pDest[0].length, pDest.length, filter, positive);
+
+        return pDest;
+    }
+
+    /**
+     * Re-samples (scales) the image (float values as given by FitsImage.getData()) to the size,
+     * and using the algorithm specified in the constructor.
+     * Note: computations are done in double precision
+     *
+     * @param pSource  The image (float[][]) to be filtered
+     * @param pDest    The re-sampled image (float[][]) to fill (width x height)
+     * @param filter interpolation filter algorithm
+     * @return The re-sampled image (float[][]).
+     * @throws NullPointerException if {@code input} is {@code null}
+     */
+    public static final float[][] filter(final float[][] pSource, final float[][] pDest, final Filter filter, final boolean positive) {
+        checkImages(pSource, pDest);
+
+        resample(pSource, pDest, pSource[0].length, pSource.length, pDest[0].length, pDest.length, filter, positive);
+
+        return pDest;
+    }
+
+    private static void checkImages(final Object pSource, final Object pDest) {
         if (pSource == null) {
             throw new NullPointerException("Input == null");
         }
@@ -251,12 +298,6 @@ public final class Resampler {
         if (pSource == pDest) {
             throw new IllegalStateException("Input == Dest");
         }
-
-        final InterpolationFilter filterClass = createFilter(filter);
-
-        resample(pSource, pDest, filterClass, positive);
-
-        return pDest;
     }
 
     private static InterpolationFilter createFilter(Filter filter) {
@@ -815,46 +856,59 @@ public final class Resampler {
         return contribs;
     }
 
-    /*
-        resample()
-
-        Resizes bitmaps while resampling them.
+    /**
+     * Return the contributor lists (shared, read-only) for the given filter and lengths from the cache
+     * or compute them
+     * @param filter interpolation filter algorithm
+     * @param srcLen source length
+     * @param dstLen destination length
+     * @return contributor lists (one per destination pixel)
      */
-    private static double[][] resample(final double[][] pSource, final double[][] pDest, final InterpolationFilter pFilter, final boolean positive) {
-        final int dstWidth = pDest[0].length;
-        final int dstHeight = pDest.length;
+    private static ContributorList[] getContribs(final Filter filter, final int srcLen, final int dstLen) {
+        final String key = filter.name() + ':' + srcLen + ':' + dstLen;
 
-        final int srcWidth = pSource[0].length;
-        final int srcHeight = pSource.length;
+        ContributorList[] contribs;
+        synchronized (CONTRIBS_CACHE) {
+            contribs = CONTRIBS_CACHE.get(key);
+        }
+        if (contribs == null) {
+            final InterpolationFilter pFilter = createFilter(filter);
 
-        final double xscale = (double) dstWidth / (double) srcWidth;
-        final double yscale = (double) dstHeight / (double) srcHeight;
+            // TODO: What to do when fwidth > srcLen or dstLen
+            if (pFilter.support() > srcLen) {
+                throw new IllegalStateException("Input image too small for the given filter: " + pFilter.getClass().getSimpleName());
+            }
 
-        // TODO: What to do when fwidth > srcHeight or dstHeight
-        final double fwidth = pFilter.support();
+            final double scale = (double) dstLen / (double) srcLen;
+
+            contribs = new ContributorList[dstLen];
 
-        if (fwidth > srcWidth || fwidth > srcHeight) {
-            throw new IllegalStateException("Input image too small for the given filter: " + pFilter.getClass().getSimpleName());
+            for (int i = 0; i < dstLen; i++) {
+                contribs[i] = calcContribs(scale, srcLen, pFilter, i);
+            }
+            synchronized (CONTRIBS_CACHE) {
+                CONTRIBS_CACHE.put(key, contribs);
+            }
         }
+        return contribs;
+    }
 
-        // Contribs on the X axis:
-        final ContributorList[] contribsX = new ContributorList[dstWidth];
+    /*
+        resample()
 
-        for (int x = 0; x < dstWidth; x++) {
-            contribsX[x] = calcContribs(xscale, srcWidth, pFilter, x);
-        }
+        Resizes bitmaps while resampling them.
+        pSource and pDest are both double[][] or float[][] arrays.
+     */
+    private static void resample(final Object pSource, final Object pDest,
+                                 final int srcWidth, final int srcHeight,
+                                 final int dstWidth, final int dstHeight,
+                                 final Filter filter, final boolean positive) {
 
-        // Contribs on the Y axis:
-        final ContributorList[] contribsY;
-        if ((xscale == yscale) && (srcWidth == srcHeight)) {
-            contribsY = contribsX;
-        } else {
-            contribsY = new ContributorList[dstHeight];
+        // Contribs on the X axis:
+        final ContributorList[] contribsX = getContribs(filter, srcWidth, dstWidth);
 
-            for (int y = 0; y < dstHeight; y++) {
-                contribsY[y] = calcContribs(yscale, srcHeight, pFilter, y);
-            }
-        }
+        // Contribs on the Y axis:
+        final ContributorList[] contribsY = getContribs(filter, srcHeight, dstHeight);
 
         /*
         // prepare the geometry
@@ -883,13 +937,51 @@ public final class Resampler {
             }
         }
          */
-        // TODO: parallelize loops:
+        if ((dstWidth > 1) && ((long) dstWidth * dstHeight >= PARALLEL_THRESHOLD)) {
+            // split destination columns across the fork-join pool (one work column per task):
+            final int nTasks = 4 * ForkJoinPool.getCommonPoolParallelism();
+            final int colsPerTask = Math.max(1, (dstWidth + nTasks - 1) / nTasks);
+
+            ForkJoinPool.commonPool().invoke(
+                    new ResampleTask(pSource, pDest, contribsX, contribsY, positive, 0, dstWidth, colsPerTask)
+            );
+        } else {
+            resampleColumns(pSource, pDest, contribsX, contribsY, positive, 0, dstWidth);
+        }
+    }
+
+    /**
+     * Resample the given range of destination columns
+     * @param pSource source image (double[][] or float[][])
+     * @param pDest destination image (same type as pSource)
+     * @param contribsX contributor lists on the X axis
+     * @param contribsY contributor lists on the Y axis
+     * @param positive true to set negative values to 0
+     * @param fromX first destination column (inclusive)
+     * @param toX last destination column (exclusive)
+     */
+    private static void resampleColumns(final Object pSource, final Object pDest,
+                                        final ContributorList[] contribsX, final ContributorList[] contribsY,
+                                        final boolean positive, final int fromX, final int toX) {
+        if (pSource instanceof float[][]) {
+            resampleColumns((float[][]) pSource, (float[][]) pDest, contribsX, contribsY, positive, fromX, toX);
+        } else {
+            resampleColumns((double[][]) pSource, (double[][]) pDest, contribsX, contribsY, positive, fromX, toX);
+        }
+    }
+
+    private static void resampleColumns(final double[][] pSource, final double[][] pDest,
+                                        final ContributorList[] contribsX, final ContributorList[] contribsY,
+                                        final boolean positive, final int fromX, final int toX) {
+        final int srcHeight = pSource.length;
+        final int dstHeight = pDest.length;
+
         final double[] work = new double[srcHeight];
         double[] row;
         double weight;
         ContributorList contrib;
 
-        for (int x = 0; x < dstWidth; x++) {
+        for (int x = fromX; x < toX; x++) {
             contrib = contribsX[x];
 
             /* Apply horiz filter to make dst column in work. */
@@ -918,6 +1010,91 @@ public final class Resampler {
                 }
             }
         }
-        return pDest;
+    }
+
+    private static void resampleColumns(final float[][] pSource, final float[][] pDest,
+                                        final ContributorList[] contribsX, final ContributorList[] contribsY,
+                                        final boolean positive, final int fromX, final int toX) {
+        final int srcHeight = pSource.length;
+        final int dstHeight = pDest.length;
+
+        final double[] work = new double[srcHeight];
+        float[] row;
+        double weight;
+        ContributorList contrib;
+
+        for (int x = fromX; x < toX; x++) {
+            contrib = contribsX[x];
+
+            /* Apply horiz filter to make dst column in work. */
+            for (int k = 0; k < srcHeight; k++) {
+                row = pSource[k];
+                weight = 0.0;
+
+                for (int j = 0; j < contrib.n; j++) {
+                    weight += row[contrib.pixels[j]] * contrib.weights[j];
+                }
+                work[k] = weight;
+            }
+
+            /* The temp column has been built. Now stretch it vertically into dst column. */
+            for (int y = 0; y < dstHeight; y++) {
+                contrib = contribsY[y];
+                weight = 0.0;
+
+                for (int j = 0; j < contrib.n; j++) {
+                    weight += work[contrib.pixels[j]] * contrib.weights[j];
+                }
+                if (positive) {
+                    pDest[y][x] = (weight > 0.0) ? (float) weight : 0f;
+                } else {
+                    pDest[y][x] = (float) weight;
+                }
+            }
+        }
+    }
+
+    /**
+     * Fork-join task resampling a range of destination columns
+     */
+    private final static class ResampleTask extends RecursiveAction {
+
+        /** default serial UID for Serializable interface */
+        private static final long serialVersionUID = 1L;
+        /* members */
+        private final Object pSource;
+        private final Object pDest;
+        private final ContributorList[] contribsX;
+        private final ContributorList[] contribsY;
+        private final boolean positive;
+        private final int fromX;
+        private final int toX;
+        private final int colsPerTask;
+
+        ResampleTask(final Object pSource, final Object pDest,
+                     final ContributorList[] contribsX, final ContributorList[] contribsY,
+                     final boolean positive, final int fromX, final int toX, final int colsPerTask) {
+            this.pSource = pSource;
+            this.pDest = pDest;
+            this.contribsX = contribsX;
+            this.contribsY = contribsY;
+            this.positive = positive;
+            this.fromX = fromX;
+            this.toX = toX;
+            this.colsPerTask = colsPerTask;
+        }
+
+        @Override
+        protected void compute() {
+            if (toX - fromX <= colsPerTask) {
+                resampleColumns(pSource, pDest, contribsX, contribsY, positive, fromX, toX);
+            } else {
+                final int mid = (fromX + toX) >>> 1;
+                invokeAll(
+                        new ResampleTask(pSource, pDest, contribsX, contribsY, positive, fromX, mid, colsPerTask),
+                        new ResampleTask(pSource, pDest, contribsX, contribsY, positive, mid, toX, colsPerTask)
+                );
+            }
+        }
     }
 }
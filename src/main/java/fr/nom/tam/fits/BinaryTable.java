@@ -187,6 +187,53 @@ public final class BinaryTable extends Data implements TableData {
         }
     }
 
+    /** Create a binary table from existing data in column order
+     *  where some columns are already flattened (avoid jagged arrays).
+     *
+     * // LAURENT : added constructor
+     *
+     * @param o The column data (flattened or not).
+     * @param flatDims The dimensions of one row for each flattened column (null for other columns).
+     */
+    public BinaryTable(Object[] o, int[][] flatDims) throws FitsException {
+
+        heap = new FitsHeap(0);
+        modelRow = new Object[o.length];
+        extendArrays(o.length);
+
+        for (int i = 0; i < o.length; i += 1) {
+            if (flatDims[i] != null) {
+                addFlattenedColumnAndDims(o[i], flatDims[i]);
+            } else {
+                addColumn(o[i]);
+            }
+        }
+    }
+
+    /** Create a binary table from existing data in column order
+     *  where the given columns are always written as variable length arrays
+     *  (even if all rows have the same length or if the table has a single row).
+     *
+     * // LAURENT : added constructor (tile-compressed images)
+     *
+     * @param o The column data.
+     * @param varying true for columns (two-d primitive arrays) to store in the heap.
+     */
+    public BinaryTable(Object[] o, boolean[] varying) throws FitsException {
+
+        heap = new FitsHeap(0);
+        modelRow = new Object[o.length];
+        extendArrays(o.length);
+
+        for (int i = 0; i < o.length; i += 1) {
+            if (varying[i]) {
+                addVaryingColumn(o[i]);
+            } else {
+                addColumn(o[i]);
+            }
+        }
+    }
+
     /** Create a binary table from an existing ColumnTable */
     public BinaryTable(ColumnTable tab) {
 
@@ -921,6 +968,125 @@ public final class BinaryTable extends Data implements TableData {
         return columnToArray(col, res, nRow);
     }
 
+    // LAURENT : added method
+    /** Read a single column directly from the given input without
+     * reading the table data (deferred read only).
+     * Only the bytes of this column are read (one seek per row).
+     * @param input random access input on the file this table was read from
+     * @param col The index of the column.
+     * @param flattened true to return the column in flattened format (see getFlattenedColumn)
+     */
+    public Object readColumn(RandomAccess input, int col, boolean flattened) throws FitsException {
+
+        if (!validColumn(col)) {
+            throw new FitsException("Invalid column");
+        }
+        if (table != null) {
+            return (flattened) ? getFlattenedColumn(col) : getColumn(col);
+        }
+        return readColumn(input, col, 0, nRow, null, flattened);
+    }
+
+    // LAURENT : added method
+    /** Read a range of rows of a single column directly from the given input
+     * without reading the table data (deferred read only).
+     * @param input random access input on the file this table was read from
+     * @param col The index of the column.
+     * @param firstRow The first row to read.
+     * @param nRows The number of rows to read.
+     * @param buffer optional flat primitive array to reuse (ignored if its type or length does not match)
+     * @param flattened true to return the column in flattened format (see getFlattenedColumn)
+     */
+    public Object readColumn(RandomAccess input, int col, int firstRow, int nRows, Object buffer, boolean flattened) throws FitsException {
+
+        if (!validColumn(col)) {
+            throw new FitsException("Invalid column");
+        }
+        if (table != null) {
+            throw new FitsException("Unsupported ranged read of loaded table data");
+        }
+        if ((firstRow < 0) || (nRows < 0) || (firstRow + nRows > nRow)) {
+            throw new FitsException("Invalid row range: [" + firstRow + " - " + (firstRow + nRows) + "[");
+        }
+        if (isVarCol(col)) {
+            throw new FitsException("Unsupported deferred read of variable length column:" + col);
+        }
+
+        // byte offset of the column within a row:
+        long colOffset = 0;
+        for (int i = 0; i < col; i += 1) {
+            colOffset += (long) sizes[i] * ArrayFuncs.getBaseLength(modelRow[i]);
+        }
+
+        int size = sizes[col];
+        Class<?> base = ArrayFuncs.getBaseClass(modelRow[col]);
+        Object res;
+        if ((buffer != null) && (buffer.getClass().getComponentType() == base)
+                && (Array.getLength(buffer) == nRows * size)) {
+            res = buffer;
+        } else {
+            res = ArrayFuncs.newInstance(base, nRows * size);
+        }
+
+        // LAURENT: number of bytes expected per row (short reads mean a truncated file):
+        final int rowBytes = size * ArrayFuncs.getBaseLength(res);
+
+        try {
+            int n;
+            for (int row = 0; row < nRows; row += 1) {
+                input.seek(fileOffset + (long) (firstRow + row) * rowLen + colOffset);
+                switch (res.getClass().getName().charAt(1)) {
+                    case 'D':
+                        n = input.read((double[]) res, row * size, size);
+                        break;
+                    case 'F':
+                        n = input.read((float[]) res, row * size, size);
+                        break;
+                    case 'I':
+                        n = input.read((int[]) res, row * size, size);
+                        break;
+                    case 'S':
+                        n = input.read((short[]) res, row * size, size);
+                        break;
+                    case 'B':
+                        n = input.read((byte[]) res, row * size, size);
+                        break;
+                    case 'J':
+                        n = input.read((long[]) res, row * size, size);
+                        break;
+                    case 'C':
+                        n = input.read((char[]) res, row * size, size);
+                        break;
+                    case 'Z':
+                        n = input.read((boolean[]) res, row * size, size);
+                        break;
+                    default:
+                        throw new FitsException("Invalid column type:" + res.getClass().getName());
+                }
+                if (n != rowBytes) {
+                    throw new TruncatedFileException("Truncated column " + col + " at row " + (firstRow + row)
+                            + ": read " + n + " bytes / " + rowBytes + " expected");
+                }
+            }
+        } catch (EOFException e) {
+            throw new TruncatedFileException("Truncated column " + col + ": " + e);
+        } catch (IOException e) {
+            throw new FitsException("Error in deferred column read:" + e);
+        }
+
+        res = columnToArray(col, res, nRows);
+        return (flattened) ? res : encurl(res, col, nRows);
+    }
+
+    // LAURENT : added method
+    /** Release the input used for deferred reads
+     * (getData() will fail after this call if the data was not read).
+     */
+    public void releaseInput() {
+        currInput = null;
+        input = null;
+    }
+
     /** Get a particular element from the table.
      * @param i The row of the element.
      * @param j The column of the element.
@@ -1165,6 +1331,48 @@ public final class BinaryTable extends Data implements TableData {
         return varying;
     }
 
+    /** Add a variable length column (like addColumn for varying rows).
+     * @param o The new column data (two-d primitive array).
+     */
+    private int addVaryingColumn(Object o) throws FitsException {
+
+        int primeDim = Array.getLength(o);
+
+        extendArrays(nCol + 1);
+        flags[nCol] |= COL_VARYING;
+        dimens[nCol] = ArrayFuncs.DIM_2;
+
+        addFlattenedColumn(o, dimens[nCol]);
+        if (nRow == 0 && nCol == 0) {
+            nRow = primeDim;
+        }
+        nCol += 1;
+        return getNCols();
+    }
+
+    /** Add a column where the data is already flattened
+     *  and define its dimensions (like addColumn).
+     * @param o      The new column data (one-dimensional primitive array).
+     * @param dims   The dimensions of one row of the column.
+     */
+    private int addFlattenedColumnAndDims(Object o, int[] dims) throws FitsException {
+
+        extendArrays(nCol + 1);
+        dimens[nCol] = dims;
+
+        int size = 1;
+        for (int dim = 0; dim < dims.length; dim += 1) {
+            size *= dims[dim];
+        }
+        addFlattenedColumn(o, dims);
+
+        if (nRow == 0 && nCol == 0 && size != 0) {
+            nRow = Array.getLength(o) / size;
+        }
+        nCol += 1;
+        return getNCols();
+    }
+
     /** Add a column where the data is already flattened.
      * @param o      The new column data.  This should be a one-dimensional
      *               primitive array.
@@ -964,35 +964,112 @@ public final class Fits {
      */
     public static long setChecksum(BasicHDU hdu, final boolean addDataSum)
             throws HeaderCardException, FitsException {
+        // LBO: New checksum computation using a checksum stream (only ~35K buffer allocated instead of the all byte[] !)
+        // DATASUM keyword.
+        final ChecksumOutputStream cs = new ChecksumOutputStream();
+        hdu.getData().write(new BufferedDataOutputStream(cs, 12 * 2880));
+
+        return setChecksum(hdu, addDataSum, cs.getChecksum()); // flush and close streams
+    }
+
+    // LAURENT : added method
+    /**
+     * Add or update the CHECKSUM keyword using the raw data bytes read from the given file
+     * (data are not loaded in memory ie deferred image data)
+     * @param hdu the  HDU to be updated (data read from the given file).
+     * @param addDataSum true to add DATASUM keyword before computing final checksum (header + data)
+     * @param input file containing the HDU data
+     * @return checksum as long value
+     * @throws HeaderCardException
+     * @throws FitsException if the data can not be read
+     */
+    public static long setChecksum(BasicHDU hdu, final boolean addDataSum, final RandomAccess input)
+            throws HeaderCardException, FitsException {
+        final Data data = hdu.getData();
+        final long dataSize = data.getTrueSize();
+
+        final ChecksumOutputStream cs = new ChecksumOutputStream();
+        try {
+            final byte[] buffer = new byte[12 * 2880];
+
+            input.seek(data.getFileOffset());
+            for (long remaining = dataSize; remaining > 0L;) {
+                final int len = (int) Math.min(buffer.length, remaining);
+                input.readFully(buffer, 0, len);
+                cs.write(buffer, 0, len);
+                remaining -= len;
+            }
+            // padding (zeros) as written by Data.write():
+            final int pad = FitsUtil.padding(dataSize);
+            if (pad != 0) {
+                cs.write(new byte[pad], 0, pad);
+            }
+        } catch (IOException ioe) {
+            throw new FitsException("Unable to read data for checksum: " + ioe);
+        }
+        return setChecksum(hdu, addDataSum, cs.getChecksum());
+    }
+
+    /**
+     * Add or update the CHECKSUM keyword given the data checksum
+     * @param hdu the  HDU to be updated.
+     * @param addDataSum true to add DATASUM keyword before computing final checksum (header + data)
+     * @param csd data checksum
+     * @return checksum as long value
+     * @throws HeaderCardException
+     */
+    private static long setChecksum(BasicHDU hdu, final boolean addDataSum, final long csd)
+            throws HeaderCardException, FitsException {
+        final Header hdr = hdu.getHeader();
+        reserveChecksum(hdr, addDataSum);
+        return updateChecksum(hdr, addDataSum, csd);
+    }
+
+    // LAURENT : added method
+    /**
+     * Reserve the CHECKSUM (and DATASUM) keywords (fixed size cards) in the given header
+     * @param hdr header to update
+     * @param addDataSum true to add DATASUM keyword
+     * @throws HeaderCardException
+     */
+    private static void reserveChecksum(final Header hdr, final boolean addDataSum) throws HeaderCardException {
         /* the next line with the delete is needed to avoid some unexpected
          *  problems with non.tam.fits.Header.checkCard() which otherwise says
          *  it expected PCOUNT and found DATE.
          */
-        Header hdr = hdu.getHeader();
         hdr.deleteKey("CHECKSUM");
 
         // LAURENT: DO NOT use date in checksum to be able to validate it (compability issue) ...
         hdr.addValue("CHECKSUM", "0000000000000000", "ntf::fits:checksum:1");
 
-        /* Convert the entire sequence of 2880 byte header cards into a byte array.
-         * The main benefit compared to the C implementations is that we do not need to worry
-         * about the particular byte order on machines (Linux/VAX/MIPS vs Hp-UX, Sparc...) supposed that
-         * the correct implementation is in the write() interface.
-         */
-        // LBO: New checksum computation using a checksum stream (only ~35K buffer allocated instead of the all byte[] !)
-        ChecksumOutputStream cs;
+        if (addDataSum) {
+            hdr.addValue("DATASUM", 0L, "ntf::fits:datasum:1");
+        }
+    }
 
-        // DATASUM keyword.
-        cs = new ChecksumOutputStream();
-        hdu.getData().write(new BufferedDataOutputStream(cs, 12 * 2880));
-        final long csd = cs.getChecksum(); // flush and close streams
+    // LAURENT : added method
+    /**
+     * Update the CHECKSUM (and DATASUM) keywords reserved in the given header given the data checksum
+     * @param hdr header to update
+     * @param addDataSum true to update DATASUM keyword before computing final checksum (header + data)
+     * @param csd data checksum
+     * @return checksum as long value
+     * @throws FitsException if any FITS error occurred
+     */
+    private static long updateChecksum(final Header hdr, final boolean addDataSum, final long csd)
+            throws FitsException {
         if (addDataSum) {
             hdr.addValue("DATASUM", csd, "ntf::fits:datasum:1");
         }
 
         // We already have the checksum of the data.  Lets compute it for
         // the header.
-        cs = new ChecksumOutputStream();
+        /* Convert the entire sequence of 2880 byte header cards into a byte array.
+         * The main benefit compared to the C implementations is that we do not need to worry
+         * about the particular byte order on machines (Linux/VAX/MIPS vs Hp-UX, Sparc...) supposed that
+         * the correct implementation is in the write() interface.
+         */
+        final ChecksumOutputStream cs = new ChecksumOutputStream();
         hdr.write(new BufferedDataOutputStream(cs, 4 * 2880));
         final long csh = cs.getChecksum(); // flush and close streams
 
@@ -1010,6 +1087,80 @@ public final class Fits {
         return cshdu;
     }
 
+    // LAURENT : added method
+    /**
+     * Write the given HDU into the given file and update its CHECKSUM (and DATASUM) keywords in a single pass:
+     * the data checksum is computed while writing data, then the header (same size) is written again in place.
+     * @param hdu the HDU to be written
+     * @param bf file to write into (at its current position)
+     * @param addDataSum true to add DATASUM keyword before computing final checksum (header + data)
+     * @return checksum as long value
+     * @throws FitsException if any FITS error occurred
+     */
+    public static long writeWithChecksum(final BasicHDU hdu, final BufferedFile bf, final boolean addDataSum)
+            throws FitsException {
+        final Header hdr = hdu.getHeader();
+
+        // reserve the CHECKSUM and DATASUM cards (fixed size):
+        reserveChecksum(hdr, addDataSum);
+
+        try {
+            final long headerOffset = bf.getFilePointer();
+            hdr.write(bf);
+            final long dataOffset = bf.getFilePointer();
+
+            // write data and compute its checksum at the same time:
+            long csd = 0L;
+            if (hdu.getData() != null) {
+                final ChecksumOutputStream cs = new ChecksumOutputStream(bf);
+                final BufferedDataOutputStream bdos = new BufferedDataOutputStream(cs, 12 * 2880);
+                hdu.getData().write(bdos);
+                bdos.flush();
+                csd = cs.getChecksum(); // close stream (not the file)
+            }
+            final long endOffset = bf.getFilePointer();
+
+            final long cshdu = updateChecksum(hdr, addDataSum, csd);
+
+            // patch the header in place:
+            bf.seek(headerOffset);
+            hdr.write(bf);
+            bf.flush();
+
+            if (bf.getFilePointer() != dataOffset) {
+                throw new FitsException("Header size changed while updating checksum");
+            }
+            bf.seek(endOffset);
+            return cshdu;
+        } catch (IOException ioe) {
+            throw new FitsException("IO Error writing HDU: " + ioe);
+        }
+    }
+
+    // LAURENT : added method
+    /**
+     * Write this Fits object into the given file and update the CHECKSUM (and DATASUM) keywords in all headers
+     * in a single pass (see writeWithChecksum(BasicHDU, BufferedFile, boolean)).
+     * @param bf file to write into
+     * @param addDataSum true to add DATASUM keyword before computing final checksum (header + data)
+     * @return checksums (long values) per HDU
+     * @throws FitsException if any FITS error occurred
+     */
+    public long[] writeWithChecksum(final BufferedFile bf, final boolean addDataSum) throws FitsException {
+        final int nHDUs = getNumberOfHDUs();
+        final long[] checksums = new long[nHDUs];
+
+        for (int i = 0; i < nHDUs; i++) {
+            checksums[i] = writeWithChecksum((BasicHDU) hduList.elementAt(i), bf, addDataSum);
+        }
+        try {
+            bf.setLength(bf.getFilePointer());
+        } catch (IOException e) {
+            // Ignore problems...
+        }
+        return checksums;
+    }
+
     /**
      * Add or Modify the CHECKSUM keyword in all headers.
      * @throws HeaderCardException
@@ -1100,18 +1251,28 @@ public final class Fits {
 
     /**
      * Compute the Seaman-Pence 32-bit 1's complement checksum over the byte stream EFFICIENTLY.
+     * LAURENT: optionally forward bytes to the given output (compute checksum while writing)
      */
     private static final class ChecksumOutputStream extends OutputStream {
 
         /* members */
+        /** optional output to forward bytes to */
+        private final ArrayDataOutput _out;
         private boolean _open;
         /* partial sums */
         private long _hi;
         private long _lo;
+        /* position in the current 4-byte group */
+        private int _pos;
         /* checksum */
         private long _checksum;
 
         ChecksumOutputStream() {
+            this(null);
+        }
+
+        ChecksumOutputStream(final ArrayDataOutput out) {
+            _out = out;
             reset();
         }
 
@@ -1119,6 +1280,7 @@ public final class Fits {
             _open = true;
             _hi = 0l;
             _lo = 0l;
+            _pos = 0;
             _checksum = 0l;
         }
 
@@ -1129,15 +1291,14 @@ public final class Fits {
         }
 
         @Override
-        public void write(final int b) {
-            throw new UnsupportedOperationException("Not supported: use write(byte b[], int off, int len).");
+        public void write(final int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
         }
 
         @Override
-        public void write(byte data[], int offset, int length) {
-            // check parameters:
-            if (offset != 0) {
-                throw new UnsupportedOperationException("Not supported: offset parameter must be 0.");
+        public void write(byte data[], int offset, int length) throws IOException {
+            if (_out != null) {
+                _out.write(data, offset, length);
             }
 
             /*
@@ -1156,41 +1317,67 @@ public final class Fits {
              * @author R J Mathar
              * @since 2005-10-05
              */
- /* get current state */
+            /* get current state */
             long hi = _hi;
             long lo = _lo;
+            int pos = _pos;
+
+            int i = offset;
+            final int end = offset + length;
+
+            /* leading bytes of an incomplete 4-byte group (previous write) */
+            for (; (pos != 0) && (i < end); i++) {
+                switch (pos) {
+                    case 1:
+                        hi += data[i] & 0xffL;
+                        break;
+                    case 2:
+                        lo += (data[i] << 8) & 0xff00L;
+                        break;
+                    default:
+                        lo += data[i] & 0xffL;
+                }
+                pos = (pos + 1) & 3;
+            }
 
-            final int len = length >> 1; // 2 * (length / 4)
-            // System.out.println(length + " bytes") ;
-            final int remain = length % 4;
             /* a write(2) on Sparc/PA-RISC would write the MSB first, on Linux the LSB; by some kind
              * of coincidence, we can stay with the byte order known from the original C version of
              * the algorithm.
              */
-            for (int i = 0, j; i < len; i += 2) {
-                /* The four bytes in this block handled by a single 'i' are each signed (-128 to 127)
+            for (final int last = end - 3; i < last; i += 4) {
+                /* The four bytes in this block are each signed (-128 to 127)
                  * in Java and need to be masked indivdually to avoid sign extension /propagation.
                  */
-                j = i << 1;
-                hi += (data[j] << 8) & 0xff00L | data[j + 1] & 0xffL;
-                lo += (data[j + 2] << 8) & 0xff00L | data[j + 3] & 0xffL;
+                hi += (data[i] << 8) & 0xff00L | data[i + 1] & 0xffL;
+                lo += (data[i + 2] << 8) & 0xff00L | data[i + 3] & 0xffL;
             }
 
-            /* The following three cases actually cannot happen since FITS records are multiples of 2880 bytes.
-             */
-            if (remain >= 1) {
-                hi += (data[2 * len] << 8) & 0xff00L;
-            }
-            if (remain >= 2) {
-                hi += data[2 * len + 1] & 0xffL;
-            }
-            if (remain >= 3) {
-                lo += (data[2 * len + 2] << 8) & 0xff00L;
+            /* trailing bytes (incomplete 4-byte group) */
+            for (; i < end; i++) {
+                switch (pos) {
+                    case 0:
+                        hi += (data[i] << 8) & 0xff00L;
+                        break;
+                    case 1:
+                        hi += data[i] & 0xffL;
+                        break;
+                    default:
+                        lo += (data[i] << 8) & 0xff00L;
+                }
+                pos++;
             }
 
             /* update current state */
             _hi = hi;
             _lo = lo;
+            _pos = pos;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (_out != null) {
+                _out.flush();
+            }
         }
 
         @Override
@@ -85,6 +85,8 @@ public final class Header implements FitsElement {
 
     /** Do we support long strings when reading/writing keywords */
     private static boolean longStringsEnabled = false;
+    /** LAURENT: FITS block size in bytes */
+    private static final int BLOCK_SIZE = 2880;
 
     /** Specify where long strings are enabled. */
     public static void setLongStringsEnabled(boolean flag) {
@@ -361,16 +363,8 @@ public final class Header implements FitsElement {
         if (fcard == null) {
             return dft;
         }
-
-        try {
-            String v = fcard.getValue();
-            if (v != null) {
-                return Long.parseLong(v);
-            }
-        } catch (NumberFormatException e) {
-        }
-
-        return dft;
+        // LAURENT: parse the card image directly if possible:
+        return fcard.getLongValue(dft);
     }
 
     /** Get the <CODE>float</CODE> value associated with the given key.
@@ -407,16 +401,8 @@ public final class Header implements FitsElement {
         if (fcard == null) {
             return dft;
         }
-
-        try {
-            String v = fcard.getValue();
-            if (v != null) {
-                return Double.parseDouble(v);
-            }
-        } catch (NumberFormatException e) {
-        }
-
-        return dft;
+        // LAURENT: parse the card image directly if possible:
+        return fcard.getDoubleValue(dft);
     }
 
     /** Get the <CODE>boolean</CODE> value associated with the given key.
@@ -439,19 +425,8 @@ public final class Header implements FitsElement {
         if (fcard == null) {
             return dft;
         }
-
-        String val = fcard.getValue();
-        if (val == null) {
-            return dft;
-        }
-
-        if (val.equals("T")) {
-            return true;
-        } else if (val.equals("F")) {
-            return false;
-        } else {
-            return dft;
-        }
+        // LAURENT: parse the card image directly if possible:
+        return fcard.getBooleanValue(dft);
     }
 
     /** Get the <CODE>String</CODE> value associated with the given key.
@@ -579,77 +554,83 @@ public final class Header implements FitsElement {
             fileOffset = -1;
         }
 
-        byte[] buffer = new byte[80];
-
+        // LAURENT: read complete 2880-byte blocks at once and only decode card keys
+        // (values and comments are decoded lazily by HeaderCard):
         boolean firstCard = true;
-        int count = 0;
+        boolean end = false;
 
         try {
-            while (true) {
-
-                int len;
-
-                int need = 80;
+            while (!end) {
+                final byte[] block = new byte[BLOCK_SIZE];
 
+                int nRead = 0;
+                boolean eof = false;
                 try {
-
-                    while (need > 0) {
-                        len = dis.read(buffer, 80 - need, need);
-                        count += 1;
+                    while (nRead < BLOCK_SIZE) {
+                        final int len = dis.read(block, nRead, BLOCK_SIZE - nRead);
                         if (len == 0) {
                             throw new TruncatedFileException();
                         }
-                        need -= len;
+                        nRead += len;
                     }
                 } catch (EOFException e) {
-
                     // Rethrow the EOF if we are at the beginning of the header,
                     // otherwise we have a FITS error.
                     // Added by Booth Hartley:
                     //   If this is an extension HDU, then we may allow
                     //   junk at the end and simply ignore it
                     //
-                    if (firstCard && ((need == 80) || FitsFactory.getAllowTerminalJunk() && (!isRandom || (fileOffset > 0)))) {
+                    if (firstCard && nRead < 80
+                            && ((nRead == 0) || FitsFactory.getAllowTerminalJunk() && (!isRandom || (fileOffset > 0)))) {
                         throw e;
                     }
-                    throw new TruncatedFileException(e.getMessage());
+                    if (nRead < 80) {
+                        throw new TruncatedFileException(e.getMessage());
+                    }
+                    eof = true;
                 }
 
-                String cbuf = AsciiFuncs.asciiString(buffer);
-                HeaderCard fcard = new HeaderCard(cbuf);
+                for (int off = 0; off + 80 <= nRead; off += 80) {
+                    HeaderCard fcard = HeaderCard.create(block, off);
 
-                if (firstCard) {
                     String key = fcard.getKey();
 
-                    if (key == null || (!key.equals("SIMPLE") && !key.equals("XTENSION"))) {
-                        if (FitsFactory.getAllowTerminalJunk() && (!isRandom || (fileOffset > 0))) {
-                            throw new EOFException("Not FITS format at " + fileOffset + ":" + cbuf);
-                        } else {
-                            throw new IOException("Not FITS format at " + fileOffset + ":" + cbuf);
+                    if (firstCard) {
+                        if (key == null || (!key.equals("SIMPLE") && !key.equals("XTENSION"))) {
+                            final String cbuf = AsciiFuncs.asciiString(block, off, 80);
+                            if (FitsFactory.getAllowTerminalJunk() && (!isRandom || (fileOffset > 0))) {
+                                throw new EOFException("Not FITS format at " + fileOffset + ":" + cbuf);
+                            } else {
+                                throw new IOException("Not FITS format at " + fileOffset + ":" + cbuf);
+                            }
                         }
+                        firstCard = false;
                     }
-                    firstCard = false;
-                }
 
-                String key = fcard.getKey();
-                if (key != null && cards.containsKey(key)) {
-                    System.err.println("Warning: multiple occurrences of key:" + key);
-                    addDuplicate((HeaderCard) cards.get(key));
-                }
+                    if (key != null && cards.containsKey(key)) {
+                        System.err.println("Warning: multiple occurrences of key:" + key);
+                        addDuplicate((HeaderCard) cards.get(key));
+                    }
 
-                // We don't check the value here.  If the user
-                // wants to be sure that long strings are disabled,
-                // they can call setLongStringsEnabled(false) after
-                // reading the header.
-                // (Missing null check here fixed thanks to Kevin McAbee).
-                if (key != null && key.equals("LONGSTRN")) {
-                    longStringsEnabled = true;
+                    // We don't check the value here.  If the user
+                    // wants to be sure that long strings are disabled,
+                    // they can call setLongStringsEnabled(false) after
+                    // reading the header.
+                    // (Missing null check here fixed thanks to Kevin McAbee).
+                    if (key != null && key.equals("LONGSTRN")) {
+                        longStringsEnabled = true;
+                    }
+                    // save card
+                    originalCardCount++;  //RBH ADDED
+                    addLine(fcard);
+                    if (isEndCard(block, off)) {
+                        // Out of reading the header (the rest of the block is padding):
+                        end = true;
+                        break;
+                    }
                 }
-                // save card
-                originalCardCount++;  //RBH ADDED
-                addLine(fcard);
-                if (cbuf.substring(0, 8).equals("END     ")) {
-                    break;  // Out of reading the header.
+                if (eof && !end) {
+                    throw new TruncatedFileException("Missing END card");
                 }
             }
 
@@ -667,14 +648,13 @@ public final class Header implements FitsElement {
         if (fileOffset >= 0) {
             input = dis;
         }
+    }
 
-        // Read to the end of the current FITS block.
-        //
-        try {
-            dis.skipBytes(FitsUtil.padding(count * 80));
-        } catch (IOException e) {
-            throw new TruncatedFileException(e.getMessage());
-        }
+    /** LAURENT: Return true if the card image at the given offset is the END card */
+    private static boolean isEndCard(final byte[] buf, final int off) {
+        return buf[off] == 'E' && buf[off + 1] == 'N' && buf[off + 2] == 'D'
+                && buf[off + 3] == ' ' && buf[off + 4] == ' ' && buf[off + 5] == ' '
+                && buf[off + 6] == ' ' && buf[off + 7] == ' ';
     }
 
     private void addDuplicate(HeaderCard dup) {
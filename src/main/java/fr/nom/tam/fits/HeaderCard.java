@@ -17,6 +17,7 @@
  */
 package fr.nom.tam.fits;
 
+import fr.nom.tam.util.AsciiFuncs;
 import java.util.Formatter;
 
 /** This class describes methods to access and manipulate the individual
@@ -40,6 +41,28 @@ public final class HeaderCard {
     public static final int MAX_VALUE_LENGTH = 70;
     /** padding for building card images */
     private static String space80 = "                                                                                ";
+    /** LAURENT: card image length */
+    private static final int CARD_LENGTH = 80;
+    /** LAURENT: powers of ten exactly represented as doubles */
+    private static final double[] POW10 = new double[23];
+
+    static {
+        double p = 1.0;
+        for (int i = 0; i < POW10.length; i++) {
+            POW10[i] = p;
+            p *= 10.0;
+        }
+    }
+    /** LAURENT: undecoded card image (shared header block) or null once the value and comment are decoded */
+    private volatile byte[] raw;
+    /** LAURENT: offset of the card image in the raw buffer */
+    private int rawOffset;
+    /** LAURENT: position of the unquoted value in the raw buffer or -1 */
+    private int rawValueStart = -1;
+    /** LAURENT: true if the raw value is a HIERARCH token (ends at the first blank) */
+    private boolean rawHierarch;
+    /** LAURENT: true if the undecoded card is a key/value pair */
+    private boolean rawKeyValue;
 
     /** Create a HeaderCard from its component parts
      * @param key keyword (null for a comment)
@@ -194,6 +217,435 @@ public final class HeaderCard {
      * @param card the 80 character card image
      */
     public HeaderCard(String card) {
+        parse(card);
+    }
+
+    /** LAURENT: Private constructor for raw card images (see create) */
+    private HeaderCard() {
+        super();
+    }
+
+    /** LAURENT: Create a HeaderCard from the card image at the given offset in a header block.
+     * Only the keyword is decoded: the value and comment are decoded on first use
+     * and numeric values are parsed from the card image without intermediate String.
+     * @param buf header block (not modified afterwards)
+     * @param off offset of the 80 character card image
+     * @return HeaderCard
+     */
+    static HeaderCard create(final byte[] buf, final int off) {
+        final HeaderCard card = new HeaderCard();
+        if (!card.scan(buf, off)) {
+            // uncommon card: decode it now
+            card.parse(AsciiFuncs.asciiString(buf, off, CARD_LENGTH));
+        }
+        return card;
+    }
+
+    /** LAURENT: Decode the keyword of the card image and locate its value
+     * @return false if the card must be decoded immediately (uncommon syntax)
+     */
+    private boolean scan(final byte[] buf, final int off) {
+        final int end = off + CARD_LENGTH;
+        if (FitsFactory.getUseHierarch() && isHierarch(buf, off)) {
+            return scanHierarch(buf, off, end);
+        }
+
+        // extract the key (trimmed):
+        int ks = off;
+        int ke = off + MAX_KEYWORD_LENGTH;
+        while (ks < ke && isBlank(buf[ks])) {
+            ks++;
+        }
+        while (ke > ks && isBlank(buf[ke - 1])) {
+            ke--;
+        }
+        final String k = (ks == ke) ? "" : asciiString(buf, ks, ke);
+        if (k == null) {
+            // not ASCII
+            return false;
+        }
+
+        boolean keyValue = false;
+        int valueStart = -1;
+
+        // Non-key/value pair lines are treated as keyed comments
+        if (k.length() != 0 && !k.equals("COMMENT") && !k.equals("HISTORY")
+                && buf[off + 8] == '=' && buf[off + 9] == ' ') {
+            keyValue = true;
+
+            int vs = off + 10;
+            while (vs < end && isBlank(buf[vs])) {
+                vs++;
+            }
+            if (vs < end) {
+                if (buf[vs] == '\'') {
+                    int ve = end;
+                    while (isBlank(buf[ve - 1])) {
+                        ve--;
+                    }
+                    if (!isQuoteClosed(buf, vs, ve)) {
+                        return false;
+                    }
+                } else {
+                    valueStart = vs;
+                }
+            }
+        }
+        this.key = k;
+        this.rawKeyValue = keyValue;
+        this.rawValueStart = valueStart;
+        this.rawHierarch = false;
+        this.rawOffset = off;
+        this.raw = buf;
+        return true;
+    }
+
+    /** LAURENT: Decode the keyword of the HIERARCH card image and locate its value (see hierarchCard)
+     * @return false if the card must be decoded immediately (uncommon syntax)
+     */
+    private boolean scanHierarch(final byte[] buf, final int off, final int end) {
+        final char[] name = new char[CARD_LENGTH];
+        int len = 0;
+
+        // First get the hierarchy levels
+        int posit = off;
+        while (true) {
+            int i = posit;
+            while (i < end && buf[i] == ' ') {
+                i++;
+            }
+            if (i >= end) {
+                // no value
+                return false;
+            }
+            if (buf[i] == '=') {
+                posit = i + 1;
+                break;
+            }
+            int j = i + 1;
+            while (j < end && buf[j] != ' ' && buf[j] != '=') {
+                j++;
+            }
+            if (len != 0) {
+                name[len++] = '.';
+            }
+            for (int c = i; c < j; c++) {
+                if (buf[c] < 0) {
+                    // not ASCII
+                    return false;
+                }
+                name[len++] = (char) buf[c];
+            }
+            posit = j;
+        }
+
+        // value token:
+        int ts = posit;
+        while (ts < end && buf[ts] == ' ') {
+            ts++;
+        }
+        if (ts >= end || buf[ts] == '=') {
+            return false;
+        }
+        int te = ts + 1;
+        while (te < end && buf[te] != ' ' && buf[te] != '=') {
+            te++;
+        }
+
+        int valueStart = -1;
+        if (buf[ts] == '\'') {
+            if (te - ts > 1 && buf[ts + 1] == '\'' && (te - ts == 2 || buf[ts + 2] != '\'')) {
+                // empty string
+                return false;
+            }
+            boolean closed = false;
+            for (int i = ts + 1; i < end; i++) {
+                if (buf[i] == '\'') {
+                    if (i == end - 1 || buf[i + 1] != '\'') {
+                        closed = true;
+                        break;
+                    }
+                    // Doubled quotes.
+                    i++;
+                }
+            }
+            if (!closed) {
+                return false;
+            }
+        } else {
+            if (buf[ts] == '/') {
+                // no value
+                return false;
+            }
+            valueStart = ts;
+        }
+        this.key = new String(name, 0, len);
+        this.rawKeyValue = true;
+        this.rawValueStart = valueStart;
+        this.rawHierarch = true;
+        this.rawOffset = off;
+        this.raw = buf;
+        return true;
+    }
+
+    /** LAURENT: Return the String of the given bytes in [start, end[ or null if not ASCII (faster than charset decoding) */
+    private static String asciiString(final byte[] buf, final int start, final int end) {
+        final char[] chars = new char[end - start];
+        for (int i = start; i < end; i++) {
+            if (buf[i] < 0) {
+                return null;
+            }
+            chars[i - start] = (char) buf[i];
+        }
+        return new String(chars);
+    }
+
+    /** LAURENT: Return true if the given byte is a blank (see String.trim) */
+    private static boolean isBlank(final byte b) {
+        return (b >= 0) && (b <= ' ');
+    }
+
+    private static boolean isHierarch(final byte[] buf, final int off) {
+        return buf[off] == 'H' && buf[off + 1] == 'I' && buf[off + 2] == 'E' && buf[off + 3] == 'R'
+                && buf[off + 4] == 'A' && buf[off + 5] == 'R' && buf[off + 6] == 'C' && buf[off + 7] == 'H'
+                && buf[off + 8] == ' ';
+    }
+
+    /** LAURENT: Return true if the quoted value in [vs, ve[ has a closing quote (see parse) */
+    private static boolean isQuoteClosed(final byte[] buf, final int vs, final int ve) {
+        if (ve - vs < 2) {
+            return false;
+        }
+        int i = vs + 1;
+        while (i < ve) {
+            // look for next single-quote character
+            int q = i;
+            while (q < ve && buf[q] != '\'') {
+                q++;
+            }
+            if (q == ve) {
+                return false;
+            }
+            // if the quote character is the last character or not escaped, we are done
+            if (q == ve - 1 || buf[q + 1] != '\'') {
+                return true;
+            }
+            // skip past escaped single-quote
+            i = q + 2;
+        }
+        return true;
+    }
+
+    /** LAURENT: Decode the value and comment of the raw card image if needed */
+    private void decode() {
+        if (raw != null) {
+            synchronized (this) {
+                final byte[] buf = raw;
+                if (buf != null) {
+                    parse(AsciiFuncs.asciiString(buf, rawOffset, CARD_LENGTH));
+                    raw = null;
+                }
+            }
+        }
+    }
+
+    /** LAURENT: Return the end of the unquoted raw value starting at rawValueStart */
+    private int rawValueEnd(final byte[] buf) {
+        final int end = rawOffset + CARD_LENGTH;
+        int ve = rawValueStart;
+        if (rawHierarch) {
+            while (ve < end && buf[ve] != ' ' && buf[ve] != '=' && buf[ve] != '/') {
+                ve++;
+            }
+        } else {
+            while (ve < end && buf[ve] != '/') {
+                ve++;
+            }
+            while (ve > rawValueStart && isBlank(buf[ve - 1])) {
+                ve--;
+            }
+        }
+        return ve;
+    }
+
+    /** LAURENT: Return the long value of this card
+     * @param dft default value if missing or invalid
+     * @return long value or dft
+     */
+    long getLongValue(final long dft) {
+        final byte[] buf = raw;
+        if (buf != null && rawValueStart != -1) {
+            final long v = parseLong(buf, rawValueStart, rawValueEnd(buf));
+            if (v != Long.MIN_VALUE) {
+                return v;
+            }
+        }
+        try {
+            final String v = getValue();
+            if (v != null) {
+                return Long.parseLong(v);
+            }
+        } catch (NumberFormatException e) {
+        }
+        return dft;
+    }
+
+    /** LAURENT: Return the double value of this card
+     * @param dft default value if missing or invalid
+     * @return double value or dft
+     */
+    double getDoubleValue(final double dft) {
+        final byte[] buf = raw;
+        if (buf != null && rawValueStart != -1) {
+            final double v = parseDouble(buf, rawValueStart, rawValueEnd(buf));
+            if (!Double.isNaN(v)) {
+                return v;
+            }
+        }
+        try {
+            final String v = getValue();
+            if (v != null) {
+                return Double.parseDouble(v);
+            }
+        } catch (NumberFormatException e) {
+        }
+        return dft;
+    }
+
+    /** LAURENT: Return the boolean value of this card
+     * @param dft default value if missing or not a logical value
+     * @return boolean value or dft
+     */
+    boolean getBooleanValue(final boolean dft) {
+        final byte[] buf = raw;
+        if (buf != null && rawValueStart != -1) {
+            if (rawValueEnd(buf) == rawValueStart + 1) {
+                final byte b = buf[rawValueStart];
+                if (b == 'T') {
+                    return true;
+                }
+                if (b == 'F') {
+                    return false;
+                }
+            }
+            return dft;
+        }
+        final String val = getValue();
+        if (val == null) {
+            return dft;
+        }
+        if (val.equals("T")) {
+            return true;
+        } else if (val.equals("F")) {
+            return false;
+        } else {
+            return dft;
+        }
+    }
+
+    /** LAURENT: Parse a decimal integer (at most 18 digits)
+     * @return value or Long.MIN_VALUE if not handled (use Long.parseLong)
+     */
+    private static long parseLong(final byte[] buf, final int start, final int end) {
+        int i = start;
+        boolean neg = false;
+        if (i < end && (buf[i] == '-' || buf[i] == '+')) {
+            neg = (buf[i] == '-');
+            i++;
+        }
+        final int nDigits = end - i;
+        if (nDigits < 1 || nDigits > 18) {
+            return Long.MIN_VALUE;
+        }
+        long v = 0L;
+        for (; i < end; i++) {
+            final int d = buf[i] - '0';
+            if (d < 0 || d > 9) {
+                return Long.MIN_VALUE;
+            }
+            v = v * 10L + d;
+        }
+        return neg ? -v : v;
+    }
+
+    /** LAURENT: Parse a decimal floating-point number when it is exactly rounded
+     * (at most 18 significant digits giving a mantissa less than 2^53 and a decimal exponent in [-22, 22])
+     * @return value or NaN if not handled (use Double.parseDouble)
+     */
+    private static double parseDouble(final byte[] buf, final int start, final int end) {
+        int i = start;
+        boolean neg = false;
+        if (i < end && (buf[i] == '-' || buf[i] == '+')) {
+            neg = (buf[i] == '-');
+            i++;
+        }
+        long m = 0L;
+        int nDigits = 0;
+        int scale = 0;
+        boolean digits = false;
+        int d;
+
+        for (; i < end && (d = buf[i] - '0') >= 0 && d <= 9; i++) {
+            digits = true;
+            if (m != 0L || d != 0) {
+                if (++nDigits > 18) {
+                    return Double.NaN;
+                }
+                m = m * 10L + d;
+            }
+        }
+        if (i < end && buf[i] == '.') {
+            i++;
+            for (; i < end && (d = buf[i] - '0') >= 0 && d <= 9; i++) {
+                digits = true;
+                if (m != 0L || d != 0) {
+                    if (++nDigits > 18) {
+                        return Double.NaN;
+                    }
+                    m = m * 10L + d;
+                }
+                scale--;
+            }
+        }
+        if (!digits) {
+            return Double.NaN;
+        }
+        if (i < end && (buf[i] == 'E' || buf[i] == 'e')) {
+            i++;
+            boolean negExp = false;
+            if (i < end && (buf[i] == '-' || buf[i] == '+')) {
+                negExp = (buf[i] == '-');
+                i++;
+            }
+            if (i == end || end - i > 3) {
+                return Double.NaN;
+            }
+            int exp = 0;
+            for (; i < end; i++) {
+                d = buf[i] - '0';
+                if (d < 0 || d > 9) {
+                    return Double.NaN;
+                }
+                exp = exp * 10 + d;
+            }
+            scale += negExp ? -exp : exp;
+        }
+        if (i != end) {
+            return Double.NaN;
+        }
+        if (m == 0L) {
+            return neg ? -0.0 : 0.0;
+        }
+        if (m >= (1L << 53) || scale < -22 || scale > 22) {
+            return Double.NaN;
+        }
+        // exact operands: single correctly rounded operation
+        final double v = (scale < 0) ? m / POW10[-scale] : m * POW10[scale];
+        return neg ? -v : v;
+    }
+
+    /** LAURENT: Decode the given card image (formerly the HeaderCard(String) constructor) */
+    private void parse(String card) {
         key = null;
         value = null;
         comment = null;
@@ -466,18 +918,23 @@ public final class HeaderCard {
     /** Does this card contain a string value?
      */
     public boolean isStringValue() {
+        decode();
         return isString;
     }
 
     /** Is this a key/value card?
      */
     public boolean isKeyValuePair() {
+        if (raw != null) {
+            return rawKeyValue;
+        }
         return (key != null && value != null);
     }
 
     /** Set the key.
      */
     void setKey(String newKey) {
+        decode();
         key = newKey;
     }
 
@@ -490,24 +947,28 @@ public final class HeaderCard {
     /** Return the value from this card
      */
     public String getValue() {
+        decode();
         return value;
     }
 
     /** Set the value for this card.
      */
     public void setValue(String update) {
+        decode();
         value = update;
     }
 
     /** Return the comment from this card
      */
     public String getComment() {
+        decode();
         return comment;
     }
 
     /** Return the 80 character card image
      */
     public String toString() {
+        decode();
         StringBuilder buf = new StringBuilder(80);
 
         // start with the keyword, if there is one
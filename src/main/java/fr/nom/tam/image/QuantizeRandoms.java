@@ -114,6 +114,9 @@ public class QuantizeRandoms {
         while (n >= NVAL) {
             n -= NVAL;
         }
+        // LAURENT : remember the starting index so next() continues the sequence of this tile
+        // (as cfitsio) instead of restarting from computeOffset(0):
+        lastStart = n;
         nextIndex = (int) (MULT * (values[n] + 0.5));
     }
 
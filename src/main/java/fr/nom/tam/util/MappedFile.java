@@ -0,0 +1,569 @@
+/*
+ * This code is part of the Java FITS library developed 1996-2012 by T.A. McGlynn (NASA/GSFC)
+ * The code is available in the public domain and may be copied, modified and used
+ * by anyone in any fashion for any purpose without restriction.
+ *
+ * No warranty regarding correctness or performance of this code is given or implied.
+ * Users may contact the author if they have questions or concerns.
+ *
+ * The author would like to thank many who have contributed suggestions,
+ * enhancements and bug fixes including:
+ * David Glowacki, R.J. Mathar, Laurent Michel, Guillaume Belanger,
+ * Laurent Bourges, Rose Early, Fred Romelfanger, Jorgo Baker, A. Kovacs, V. Forchi, J.C. Segovia,
+ * Booth Hartley and Jason Weiss.
+ * I apologize to any contributors whose names may have been inadvertently omitted.
+ *
+ *      Tom McGlynn
+ */
+package fr.nom.tam.util;
+
+/** This class provides read-only random access to a file
+ * using memory mapped I/O (FileChannel.map).
+ * <p>
+ * Primitive arrays are decoded (big-endian) directly from the
+ * mapped buffer into the destination arrays: there is no
+ * intermediate byte buffer as in BufferedFile.
+ * <p>
+ * Large files (more than 2 GB) are mapped through a sliding
+ * window (up to 1 GB) that is remapped at the current position
+ * when a read crosses its end, so primitive values never
+ * straddle two windows.
+ * <p>
+ * Like BufferedFile, methods of this class are not synchronized.
+ */
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+public final class MappedFile implements ArrayDataInput, RandomAccess {
+
+    /** maximum size of the mapped window (1 GB) */
+    private static final int MAX_WINDOW_SIZE = 1 << 30;
+    /** minimum number of values to use bulk view transfers */
+    private static final int BULK_THRESHOLD = 8;
+    /** The underlying access to the file system */
+    private RandomAccessFile raf;
+    /** The file channel */
+    private FileChannel channel;
+    /** The file length */
+    private final long fileLength;
+    /** The mapped window (big-endian) */
+    private ByteBuffer buffer;
+    /** The offset in the file of the beginning of the mapped window */
+    private long fileOffset;
+    /** Counter used in reading arrays */
+    private long primitiveArrayCount;
+
+    /** Create a read-only memory mapped file */
+    public MappedFile(String filename) throws IOException {
+        this(new File(filename));
+    }
+
+    /** Create a read-only memory mapped file from a File descriptor */
+    public MappedFile(File file) throws IOException {
+        raf = new RandomAccessFile(file, "r");
+        channel = raf.getChannel();
+        fileLength = channel.size();
+        map(0L);
+    }
+
+    /** Map the window starting at the given file offset */
+    private void map(long offset) throws IOException {
+        if (offset < 0) {
+            offset = 0;
+        } else if (offset > fileLength) {
+            offset = fileLength;
+        }
+        final long size = Math.min(MAX_WINDOW_SIZE, fileLength - offset);
+
+        final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+        // FITS is big-endian (default byte order):
+        this.buffer = mapped;
+        this.fileOffset = offset;
+    }
+
+    /** Ensure at least the given number of bytes are available
+     * in the mapped window, remapping it if needed.
+     * @throws EOFException if the end of file is reached
+     */
+    private void checkBuffer(int needBytes) throws IOException {
+        if (buffer.remaining() < needBytes) {
+            if (fileOffset + buffer.limit() < fileLength) {
+                map(getFilePointer());
+            }
+            if (buffer.remaining() < needBytes) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    /** Return the number of values of the given size that can be read
+     * from the mapped window (at least 1).
+     * @throws EOFException if the end of file is reached
+     */
+    private int available(int length, int atomSize) throws IOException {
+        checkBuffer(atomSize);
+        return Math.min(length, buffer.remaining() / atomSize);
+    }
+
+    /** Get the current length of the file. */
+    public long length() {
+        return fileLength;
+    }
+
+    /** Get the current offset into the file. */
+    public long getFilePointer() {
+        return fileOffset + buffer.position();
+    }
+
+    /** Move to the current offset from the beginning of the file.
+     *  Offsets beyond the end of file are set to the end of file.
+     */
+    public void seek(long offsetFromStart) throws IOException {
+        if (offsetFromStart >= fileOffset && offsetFromStart <= fileOffset + buffer.limit()) {
+            buffer.position((int) (offsetFromStart - fileOffset));
+        } else {
+            map(offsetFromStart);
+        }
+    }
+
+    /** Skip from the current position.
+     *  @param offset The number of bytes from the
+     *                current position.  This may
+     *                be negative.
+     */
+    public long skip(long offset) throws IOException {
+        final long pos = getFilePointer();
+
+        if (offset > 0 && pos + offset > fileLength) {
+            offset = fileLength - pos;
+        } else if (pos + offset < 0) {
+            offset = -pos;
+        }
+        seek(pos + offset);
+        return offset;
+    }
+
+    public int skipBytes(int toSkip) throws IOException {
+        return (int) skipBytes((long) toSkip);
+    }
+
+    public long skipBytes(long toSkip) throws IOException {
+        // Note that we allow negative skips...
+        if (skip(toSkip) < toSkip) {
+            throw new EOFException();
+        }
+        return toSkip;
+    }
+
+    /** Close the file */
+    public void close() throws IOException {
+        // the mapping remains valid until the buffer is garbage collected:
+        buffer = ByteBuffer.allocate(0);
+        fileOffset = fileLength;
+        if (raf != null) {
+            raf.close();
+            raf = null;
+            channel = null;
+        }
+    }
+
+    /** Read a byte (unsigned) or -1 at the end of file */
+    public int read() throws IOException {
+        try {
+            checkBuffer(1);
+        } catch (EOFException e) {
+            return -1;
+        }
+        return buffer.get() & 0xFF;
+    }
+
+    public boolean readBoolean() throws IOException {
+        checkBuffer(1);
+        return buffer.get() == 1;
+    }
+
+    public byte readByte() throws IOException {
+        checkBuffer(1);
+        return buffer.get();
+    }
+
+    public int readUnsignedByte() throws IOException {
+        checkBuffer(1);
+        return buffer.get() & 0xFF;
+    }
+
+    public short readShort() throws IOException {
+        checkBuffer(2);
+        return buffer.getShort();
+    }
+
+    public int readUnsignedShort() throws IOException {
+        return readShort() & 0xFFFF;
+    }
+
+    public char readChar() throws IOException {
+        checkBuffer(2);
+        return buffer.getChar();
+    }
+
+    public int readInt() throws IOException {
+        checkBuffer(4);
+        return buffer.getInt();
+    }
+
+    public long readLong() throws IOException {
+        checkBuffer(8);
+        return buffer.getLong();
+    }
+
+    public float readFloat() throws IOException {
+        checkBuffer(4);
+        return buffer.getFloat();
+    }
+
+    public double readDouble() throws IOException {
+        checkBuffer(8);
+        return buffer.getDouble();
+    }
+
+    public void readFully(byte[] b) throws IOException {
+        readFully(b, 0, b.length);
+    }
+
+    public void readFully(byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || off + len > b.length) {
+            throw new IOException("Attempt to read outside byte array");
+        }
+        if (read(b, off, len) < len) {
+            throw new EOFException();
+        }
+    }
+
+    public String readUTF() throws IOException {
+        return DataInputStream.readUTF(this);
+    }
+
+    /** Read a line of input (bytes converted as ISO-8859-1).
+     *  @return the next line or null at the end of file.
+     */
+    public String readLine() throws IOException {
+        final StringBuilder sb = new StringBuilder(80);
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        while (c != -1 && c != '\n') {
+            if (c == '\r') {
+                final long pos = getFilePointer();
+                if (read() != '\n') {
+                    seek(pos);
+                }
+                break;
+            }
+            sb.append((char) c);
+            c = read();
+        }
+        return sb.toString();
+    }
+
+    /** This routine provides efficient reading of arrays of any primitive type.
+     *  @deprecated  The readLArray(Object) routine should be used to
+     *               ensure that large arrays which read more than
+     *               two-gigabytes return the proper value.
+     *
+     *  @param o  The object to be read.  It must be an array of a primitive type,
+     *           or an array of Object's.
+     */
+    public int readArray(Object o) throws IOException {
+        return (int) readLArray(o);
+    }
+
+    /** This routine provides efficient reading of arrays of any primitive
+     *  type.
+     *  @param o  The object to be read.  It must be an arraof of a primtive type
+     *            (or any dimension), or an array of Objects which contains
+     *            pointers to primitive arrays or other object arrays.
+     */
+    public long readLArray(Object o) throws IOException {
+        primitiveArrayCount = 0;
+        return primitiveArrayRecurse(o);
+    }
+
+    protected long primitiveArrayRecurse(Object o) throws IOException {
+
+        if (o == null) {
+            return primitiveArrayCount;
+        }
+
+        String className = o.getClass().getName();
+
+        if (className.charAt(0) != '[') {
+            throw new IOException("Invalid object passed to MappedFile.readArray:" + className);
+        }
+
+        // Is this a multidimensional array?  If so process recursively.
+        if (className.charAt(1) == '[') {
+            Object[] oo = (Object[]) o;
+            for (int i = 0; i < oo.length; i += 1) {
+                primitiveArrayRecurse(oo[i]);
+            }
+        } else {
+
+            // This is a one-d array.  Process it using our special functions.
+            switch (className.charAt(1)) {
+                case 'Z':
+                    primitiveArrayCount += read((boolean[]) o, 0, ((boolean[]) o).length);
+                    break;
+                case 'B':
+                    primitiveArrayCount += read((byte[]) o, 0, ((byte[]) o).length);
+                    break;
+                case 'C':
+                    primitiveArrayCount += read((char[]) o, 0, ((char[]) o).length);
+                    break;
+                case 'S':
+                    primitiveArrayCount += read((short[]) o, 0, ((short[]) o).length);
+                    break;
+                case 'I':
+                    primitiveArrayCount += read((int[]) o, 0, ((int[]) o).length);
+                    break;
+                case 'J':
+                    primitiveArrayCount += read((long[]) o, 0, ((long[]) o).length);
+                    break;
+                case 'F':
+                    primitiveArrayCount += read((float[]) o, 0, ((float[]) o).length);
+                    break;
+                case 'D':
+                    primitiveArrayCount += read((double[]) o, 0, ((double[]) o).length);
+                    break;
+                case 'L':
+
+                    // Handle an array of Objects by recursion.  Anything
+                    // else is an error.
+                    if (className.equals("[Ljava.lang.Object;")) {
+                        Object[] oo = (Object[]) o;
+                        for (int i = 0; i < oo.length; i += 1) {
+                            primitiveArrayRecurse(oo[i]);
+                        }
+                    } else {
+                        throw new IOException("Invalid object passed to MappedFile.readArray: " + className);
+                    }
+                    break;
+                default:
+                    throw new IOException("Invalid object passed to MappedFile.readArray: " + className);
+            }
+        }
+        return primitiveArrayCount;
+    }
+
+    public int read(byte[] buf) throws IOException {
+        return read(buf, 0, buf.length);
+    }
+
+    /** Read into a segment of a byte array.
+     *  @param buf    The array to be filled.
+     *  @param offset The starting location for input.
+     *  @param len    The number of bytes to be read.  Fewer bytes
+     *                will be read if an EOF is reached.
+     */
+    public int read(byte[] buf, int offset, int len) throws IOException {
+        int i = offset;
+        try {
+            for (int end = offset + len; i < end;) {
+                final int n = available(end - i, 1);
+                buffer.get(buf, i, n);
+                i += n;
+            }
+            return len;
+        } catch (EOFException e) {
+            return eofCheck(e, offset, i, 1);
+        }
+    }
+
+    public int read(boolean[] b) throws IOException {
+        return read(b, 0, b.length);
+    }
+
+    public int read(boolean[] b, int start, int length) throws IOException {
+        int i = start;
+        try {
+            for (int end = start + length; i < end; i += 1) {
+                b[i] = readBoolean();
+            }
+            return length;
+        } catch (EOFException e) {
+            return eofCheck(e, start, i, 1);
+        }
+    }
+
+    public int read(short[] s) throws IOException {
+        return read(s, 0, s.length);
+    }
+
+    public int read(short[] s, int start, int length) throws IOException {
+        int i = start;
+        try {
+            for (int end = start + length; i < end;) {
+                final int n = available(end - i, 2);
+                if (n < BULK_THRESHOLD) {
+                    for (int j = 0; j < n; j++) {
+                        s[i + j] = buffer.getShort();
+                    }
+                } else {
+                    final int pos = buffer.position();
+                    buffer.asShortBuffer().get(s, i, n);
+                    buffer.position(pos + 2 * n);
+                }
+                i += n;
+            }
+            return length * 2;
+        } catch (EOFException e) {
+            return eofCheck(e, start, i, 2);
+        }
+    }
+
+    public int read(char[] c) throws IOException {
+        return read(c, 0, c.length);
+    }
+
+    public int read(char[] c, int start, int length) throws IOException {
+        int i = start;
+        try {
+            for (int end = start + length; i < end;) {
+                final int n = available(end - i, 2);
+                if (n < BULK_THRESHOLD) {
+                    for (int j = 0; j < n; j++) {
+                        c[i + j] = buffer.getChar();
+                    }
+                } else {
+                    final int pos = buffer.position();
+                    buffer.asCharBuffer().get(c, i, n);
+                    buffer.position(pos + 2 * n);
+                }
+                i += n;
+            }
+            return length * 2;
+        } catch (EOFException e) {
+            return eofCheck(e, start, i, 2);
+        }
+    }
+
+    public int read(int[] ia) throws IOException {
+        return read(ia, 0, ia.length);
+    }
+
+    public int read(int[] ia, int start, int length) throws IOException {
+        int i = start;
+        try {
+            for (int end = start + length; i < end;) {
+                final int n = available(end - i, 4);
+                if (n < BULK_THRESHOLD) {
+                    for (int j = 0; j < n; j++) {
+                        ia[i + j] = buffer.getInt();
+                    }
+                } else {
+                    final int pos = buffer.position();
+                    buffer.asIntBuffer().get(ia, i, n);
+                    buffer.position(pos + 4 * n);
+                }
+                i += n;
+            }
+            return length * 4;
+        } catch (EOFException e) {
+            return eofCheck(e, start, i, 4);
+        }
+    }
+
+    public int read(long[] l) throws IOException {
+        return read(l, 0, l.length);
+    }
+
+    public int read(long[] l, int start, int length) throws IOException {
+        int i = start;
+        try {
+            for (int end = start + length; i < end;) {
+                final int n = available(end - i, 8);
+                if (n < BULK_THRESHOLD) {
+                    for (int j = 0; j < n; j++) {
+                        l[i + j] = buffer.getLong();
+                    }
+                } else {
+                    final int pos = buffer.position();
+                    buffer.asLongBuffer().get(l, i, n);
+                    buffer.position(pos + 8 * n);
+                }
+                i += n;
+            }
+            return length * 8;
+        } catch (EOFException e) {
+            return eofCheck(e, start, i, 8);
+        }
+    }
+
+    public int read(float[] f) throws IOException {
+        return read(f, 0, f.length);
+    }
+
+    public int read(float[] f, int start, int length) throws IOException {
+        int i = start;
+        try {
+            for (int end = start + length; i < end;) {
+                final int n = available(end - i, 4);
+                if (n < BULK_THRESHOLD) {
+                    for (int j = 0; j < n; j++) {
+                        f[i + j] = buffer.getFloat();
+                    }
+                } else {
+                    final int pos = buffer.position();
+                    buffer.asFloatBuffer().get(f, i, n);
+                    buffer.position(pos + 4 * n);
+                }
+                i += n;
+            }
+            return length * 4;
+        } catch (EOFException e) {
+            return eofCheck(e, start, i, 4);
+        }
+    }
+
+    public int read(double[] d) throws IOException {
+        return read(d, 0, d.length);
+    }
+
+    public int read(double[] d, int start, int length) throws IOException {
+        int i = start;
+        try {
+            for (int end = start + length; i < end;) {
+                final int n = available(end - i, 8);
+                if (n < BULK_THRESHOLD) {
+                    for (int j = 0; j < n; j++) {
+                        d[i + j] = buffer.getDouble();
+                    }
+                } else {
+                    final int pos = buffer.position();
+                    buffer.asDoubleBuffer().get(d, i, n);
+                    buffer.position(pos + 8 * n);
+                }
+                i += n;
+            }
+            return length * 8;
+        } catch (EOFException e) {
+            return eofCheck(e, start, i, 8);
+        }
+    }
+
+    /** See if an exception should be thrown during an array read. */
+    private int eofCheck(EOFException e, int start, int index, int length)
+            throws EOFException {
+        if (start == index) {
+            throw e;
+        } else {
+            return (index - start) * length;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools;
+
+import fr.jmmc.oitools.model.OIFitsChecker;
+import fr.jmmc.oitools.model.OIFitsLoader;
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Check validation reports with a maximum number of failures per rule (and summary mode)
+ */
+public class CheckerLimitTest extends JUnitBaseTest {
+
+    /** overflow line pattern */
+    private final static Pattern OVERFLOW = Pattern.compile("\t[A-Z0-9_]+: ([0-9]+) (more )?occurrences \\(not stored\\)$");
+
+    @Test
+    public void compareReports() throws Exception {
+        int nOverflows = 0;
+
+        for (String f : getFitsFiles(new File(TEST_DIR_OIFITS))) {
+            final OIFitsChecker refChecker = new OIFitsChecker();
+            OIFitsLoader.loadOIFits(refChecker, f);
+
+            final List<String> refLines = Arrays.asList(refChecker.getCheckReport().split("\n"));
+
+            for (int max : new int[]{0, 1, 5}) {
+                final OIFitsChecker checker = new OIFitsChecker();
+                if (max == 0) {
+                    checker.setSummaryMode(true);
+                } else {
+                    checker.setMaxFailuresPerRule(max);
+                }
+                OIFitsLoader.loadOIFits(checker, f);
+
+                Assert.assertEquals(f, refChecker.getNbSeveres(), checker.getNbSeveres());
+                Assert.assertEquals(f, refChecker.getNbWarnings(), checker.getNbWarnings());
+
+                // stored lines are the first lines of the reference report (same order)
+                // and overflow lines give the exact number of missing lines:
+                int pos = 0;
+                long nLines = 0L;
+
+                for (String line : checker.getCheckReport().split("\n")) {
+                    final Matcher m = OVERFLOW.matcher(line);
+                    if (m.find()) {
+                        nLines += Long.parseLong(m.group(1));
+                        nOverflows++;
+                    } else {
+                        while ((pos < refLines.size()) && !refLines.get(pos).equals(line)) {
+                            pos++;
+                        }
+                        Assert.assertTrue(f + ": missing line: " + line, pos < refLines.size());
+                        pos++;
+                        nLines++;
+                    }
+                }
+                Assert.assertEquals(f + " [" + max + "]", refLines.size(), nLines);
+
+                if (max == 0) {
+                    Assert.assertFalse(f, checker.getFailuresAsXML().contains("<data>"));
+                }
+            }
+        }
+        logger.log(Level.INFO, "compareReports: {0} overflow lines", nOverflows);
+        Assert.assertTrue("no overflow", nOverflows != 0);
+    }
+}
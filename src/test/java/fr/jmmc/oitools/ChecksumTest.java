@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools;
+
+import fr.jmmc.oitools.fits.ChecksumHelper;
+import fr.jmmc.oitools.model.OIFitsChecker;
+import fr.jmmc.oitools.model.OIFitsFile;
+import fr.jmmc.oitools.model.OIFitsLoader;
+import java.io.File;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the file checksums (md5sum) computed while loading OIFits files
+ */
+public class ChecksumTest extends JUnitBaseTest {
+
+    @Test
+    public void md5DuringLoad() throws Exception {
+        for (String f : getFitsFiles(new File(TEST_DIR_OIFITS))) {
+            final File file = new File(f);
+
+            // reference digests:
+            final byte[] bytes = Files.readAllBytes(file.toPath());
+            final String md5 = toHexString(MessageDigest.getInstance("MD5").digest(bytes));
+            final String sha256 = toHexString(MessageDigest.getInstance("SHA-256").digest(bytes));
+
+            final String[] checksums = ChecksumHelper.computeChecksums(file, "MD5", "SHA-256");
+            Assert.assertEquals(f, md5, checksums[0]);
+            Assert.assertEquals(f, sha256, checksums[1]);
+
+            for (boolean mapped : new boolean[]{false, true}) {
+                final OIFitsFile oiFitsFile = OIFitsLoader.loadOIFits(null, new OIFitsChecker(), f, true, mapped);
+                Assert.assertEquals(f, md5, oiFitsFile.getMd5sum());
+            }
+        }
+    }
+
+    private static String toHexString(final byte[] bytes) {
+        final StringBuilder sb = new StringBuilder(2 * bytes.length);
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b & 0xFF));
+        }
+        return sb.toString();
+    }
+}
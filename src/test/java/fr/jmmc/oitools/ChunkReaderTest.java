@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools;
+
+import fr.jmmc.oitools.fits.FlatColumn;
+import fr.jmmc.oitools.meta.ColumnMeta;
+import fr.jmmc.oitools.model.OIData;
+import fr.jmmc.oitools.model.OIDataChunkReader;
+import fr.jmmc.oitools.model.OIFitsChecker;
+import fr.jmmc.oitools.model.OIFitsFile;
+import fr.jmmc.oitools.model.OIFitsLoader;
+import fr.nom.tam.fits.FitsUtil;
+import fr.nom.tam.util.ArrayFuncs;
+import java.io.File;
+import java.lang.reflect.Array;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Compare OI_DATA tables read by chunks (OIDataChunkReader) with the complete (default) load
+ */
+public class ChunkReaderTest extends JUnitBaseTest {
+
+    private final static int CHUNK_SIZE = 7;
+
+    @Test
+    public void compareChunks() throws Exception {
+        final List<String> fileLocations = getFitsFiles(new File(TEST_DIR_OIFITS));
+
+        int nChunks = 0;
+        int nFlats = 0;
+        int nCustomUnits = 0;
+
+        for (String f : fileLocations) {
+            if (FitsUtil.isCompressed(f)) {
+                continue;
+            }
+            final OIFitsFile fullFile = OIFitsLoader.loadOIFits(null, new OIFitsChecker(), f);
+            final OIFitsFile headerFile = OIDataChunkReader.loadOIFits(f);
+
+            final List<OIData> fullDatas = fullFile.getOiDataList();
+            final List<OIData> headerDatas = headerFile.getOiDataList();
+            Assert.assertEquals(f, fullDatas.size(), headerDatas.size());
+
+            for (int i = 0; i < fullDatas.size(); i++) {
+                final OIData fullData = fullDatas.get(i);
+                final double[][] fullSpatialFreq = fullData.getSpatialFreq();
+
+                // flat buffers (getColumnValue() returns jagged copies):
+                final Map<String, FlatColumn> fullFlats = new HashMap<String, FlatColumn>();
+                for (ColumnMeta column : fullData.getColumnDescCollection()) {
+                    fullFlats.put(column.getName(), fullData.getColumnFlat(column.getName()));
+                }
+
+                final OIDataChunkReader reader = new OIDataChunkReader(headerDatas.get(i), CHUNK_SIZE);
+                try {
+                    Assert.assertEquals(f, fullData.getNbRows(), reader.getNbRows());
+                    int nRows = 0;
+
+                    while (reader.next()) {
+                        final OIData chunk = reader.getChunk();
+                        final int first = reader.getFirstRow();
+                        Assert.assertEquals(f, nRows, first);
+                        Assert.assertEquals(f, fullData.getClass(), chunk.getClass());
+                        nChunks++;
+
+                        for (ColumnMeta column : fullData.getColumnDescCollection()) {
+                            final String name = column.getName();
+
+                            // column units (custom units like OI_FLUX FLUXDATA):
+                            Assert.assertEquals(f + ": " + name, column.getUnit(), chunk.getColumnDesc(name).getUnit());
+                            if (column.isCustomUnits() && (column.getUnit().length() != 0)) {
+                                nCustomUnits++;
+                            }
+
+                            // flat buffers (invalid *ERR values are fixed like the data validation):
+                            final FlatColumn fullFlat = fullFlats.get(name);
+                            final FlatColumn chunkFlat = reader.getColumnFlat(name);
+
+                            if (fullFlat != null) {
+                                nFlats++;
+                                Assert.assertNotNull(f + ": " + name, chunkFlat);
+                                Assert.assertEquals(f + ": " + name, chunk.getNbRows(), chunkFlat.getNbRows());
+                                Assert.assertEquals(f + ": " + name, fullFlat.getStride(), chunkFlat.getStride());
+
+                                final Object fullData1D = fullFlat.getData();
+                                final Object chunkData1D = chunkFlat.getData();
+
+                                for (int r = 0; r < chunk.getNbRows(); r++) {
+                                    for (int j = 0, off = fullFlat.getOffset(first + r), coff = chunkFlat.getOffset(r); j < fullFlat.getStride(); j++) {
+                                        Assert.assertEquals(f + ": " + name + " row " + (first + r),
+                                                Array.get(fullData1D, off + j), Array.get(chunkData1D, coff + j));
+                                    }
+                                }
+                            }
+
+                            final Object fullValue = fullData.getColumnValue(name);
+                            final Object chunkValue = chunk.getColumnValue(name);
+
+                            if (fullValue == null) {
+                                Assert.assertNull(f + ": " + name, chunkValue);
+                                continue;
+                            }
+                            Assert.assertEquals(f + ": " + name, chunk.getNbRows(), Array.getLength(chunkValue));
+
+                            for (int r = 0; r < chunk.getNbRows(); r++) {
+                                Assert.assertTrue(f + ": " + name + " row " + (first + r),
+                                        ArrayFuncs.arrayEquals(Array.get(fullValue, first + r), Array.get(chunkValue, r)));
+                            }
+                        }
+                        // derived columns use the chunk rows:
+                        final double[][] spatialFreq = chunk.getSpatialFreq();
+                        if (fullSpatialFreq == null) {
+                            Assert.assertNull(f, spatialFreq);
+                        } else {
+                            for (int r = 0; r < chunk.getNbRows(); r++) {
+                                Assert.assertTrue(f + ": spatial freq row " + (first + r),
+                                        ArrayFuncs.arrayEquals(fullSpatialFreq[first + r], spatialFreq[r]));
+                            }
+                        }
+                        nRows += chunk.getNbRows();
+                    }
+                    Assert.assertEquals(f, fullData.getNbRows(), nRows);
+                } finally {
+                    reader.close();
+                }
+            }
+        }
+        logger.log(Level.INFO, "compareChunks: {0} chunks", nChunks);
+        Assert.assertTrue("no chunk", nChunks != 0);
+        Assert.assertTrue("no flat column", nFlats != 0);
+        Assert.assertTrue("no custom units", nCustomUnits != 0);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools;
+
+import fr.jmmc.oitools.meta.ColumnMeta;
+import fr.jmmc.oitools.model.ColumnProjection;
+import fr.jmmc.oitools.model.OIFitsChecker;
+import fr.jmmc.oitools.model.OIFitsFile;
+import fr.jmmc.oitools.model.OIFitsLoader;
+import fr.jmmc.oitools.model.OITable;
+import fr.nom.tam.util.ArrayFuncs;
+import java.io.File;
+import java.util.List;
+import java.util.logging.Level;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Compare OIFits files loaded with a column projection with the complete (default) load
+ */
+public class ColumnProjectionTest extends JUnitBaseTest {
+
+    @Test
+    public void compareProjected() throws Exception {
+        final List<String> fileLocations = getFitsFiles(new File(TEST_DIR_OIFITS));
+
+        // VIS2ERR, FLAG, TARGET_ID, STA_INDEX, MJD are implicitly kept:
+        final ColumnProjection projection = new ColumnProjection()
+                .keep(OIFitsConstants.TABLE_OI_VIS2,
+                        OIFitsConstants.COLUMN_VIS2DATA, OIFitsConstants.COLUMN_UCOORD, OIFitsConstants.COLUMN_VCOORD)
+                .keep(OIFitsConstants.TABLE_OI_T3, OIFitsConstants.COLUMN_T3PHI);
+
+        for (String name : new String[]{OIFitsConstants.COLUMN_VIS2ERR, OIFitsConstants.COLUMN_FLAG,
+            OIFitsConstants.COLUMN_TARGET_ID, OIFitsConstants.COLUMN_STA_INDEX, OIFitsConstants.COLUMN_MJD}) {
+            Assert.assertTrue(name, projection.isKept(OIFitsConstants.TABLE_OI_VIS2, name));
+        }
+        Assert.assertTrue(projection.isKept(OIFitsConstants.TABLE_OI_T3, OIFitsConstants.COLUMN_T3PHIERR));
+        Assert.assertFalse(projection.isKept(OIFitsConstants.TABLE_OI_T3, OIFitsConstants.COLUMN_T3AMPERR));
+
+        int nSkipped = 0;
+
+        for (String f : fileLocations) {
+            final OIFitsChecker fullChecker = new OIFitsChecker();
+            final OIFitsFile fullFile = OIFitsLoader.loadOIFits(null, fullChecker, f);
+            fullFile.analyze();
+
+            final OIFitsChecker checker = new OIFitsChecker();
+            final OIFitsFile projFile = OIFitsLoader.loadOIFits(null, checker, f, projection);
+            // required columns are loaded:
+            projFile.analyze();
+
+            Assert.assertEquals(f, fullFile.getOiDataPerGranule().keySet(), projFile.getOiDataPerGranule().keySet());
+            Assert.assertEquals(f, fullFile.getUsedStaNamesMap().keySet(), projFile.getUsedStaNamesMap().keySet());
+
+            final List<OITable> fullTables = fullFile.getOITableList();
+            final List<OITable> projTables = projFile.getOITableList();
+            Assert.assertEquals(f, fullTables.size(), projTables.size());
+
+            for (int i = 0; i < fullTables.size(); i++) {
+                final OITable fullTable = fullTables.get(i);
+                final OITable projTable = projTables.get(i);
+                final String extName = projTable.getExtName();
+
+                for (ColumnMeta column : fullTable.getColumnDescCollection()) {
+                    final String name = column.getName();
+
+                    if (projection.isKept(extName, name)) {
+                        // invalid values (*ERR) are fixed on projected tables too:
+                        Assert.assertTrue(f + ": " + name,
+                                ArrayFuncs.arrayEquals(fullTable.getColumnValue(name), projTable.getColumnValue(name)));
+                    } else {
+                        Assert.assertNull(f + ": " + name, projTable.getColumnValue(name));
+                        nSkipped++;
+                    }
+                }
+            }
+
+            // skipped columns are not reported as missing and rules depending on them are skipped:
+            Assert.assertTrue(f, checker.getNbSeveres() <= fullChecker.getNbSeveres());
+            Assert.assertTrue(f, checker.getNbWarnings() <= fullChecker.getNbWarnings());
+        }
+        logger.log(Level.INFO, "compareProjected: {0} skipped columns", nSkipped);
+        Assert.assertTrue("no skipped column", nSkipped != 0);
+    }
+}
@@ -0,0 +1,285 @@
+/* 
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools;
+
+import fr.jmmc.oitools.image.FitsImage;
+import fr.jmmc.oitools.image.FitsImageCompression;
+import fr.jmmc.oitools.image.FitsImageConstants;
+import fr.jmmc.oitools.image.FitsImageFile;
+import fr.jmmc.oitools.image.FitsImageHDU;
+import fr.jmmc.oitools.image.FitsImageLoader;
+import fr.jmmc.oitools.image.FitsImageWriter;
+import fr.nom.tam.fits.BasicHDU;
+import fr.nom.tam.fits.BinaryTableHDU;
+import fr.nom.tam.fits.Fits;
+import fr.nom.tam.fits.ImageData;
+import fr.nom.tam.fits.ImageHDU;
+import fr.nom.tam.util.ArrayFuncs;
+import fr.nom.tam.util.BufferedFile;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Level;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test tile-compressed (RICE_1 / GZIP_1) images: round trips of integer and floating-point images
+ */
+public class CompressedImageTest extends JUnitBaseTest {
+
+    @Test
+    public void integerImages() throws Exception {
+        final Random random = new Random(42L);
+
+        for (String type : new String[]{FitsImageConstants.ZCMPTYPE_RICE_1, FitsImageConstants.ZCMPTYPE_GZIP_1}) {
+            final FitsImageCompression compression = new FitsImageCompression(type);
+
+            for (int amplitude : new int[]{0, 3, 1000, Integer.MAX_VALUE}) {
+                final byte[][] bImage = new byte[37][101];
+                final short[][] sImage = new short[37][101];
+                final int[][][] iCube = new int[3][37][101];
+
+                for (int j = 0; j < 37; j++) {
+                    for (int i = 0; i < 101; i++) {
+                        final int v = (amplitude == 0) ? 7 : i * j + random.nextInt(amplitude) - amplitude / 2;
+                        bImage[j][i] = (byte) v;
+                        sImage[j][i] = (short) v;
+                        for (int k = 0; k < 3; k++) {
+                            iCube[k][j][i] = (k == 2) ? random.nextInt() : v - k;
+                        }
+                    }
+                }
+                iCube[0][0][0] = Integer.MIN_VALUE;
+                iCube[0][0][1] = Integer.MAX_VALUE;
+
+                for (Object kernel : new Object[]{bImage, sImage, iCube}) {
+                    final BinaryTableHDU hdu = compression.compress((ImageHDU) Fits.makeHDU(kernel));
+                    Assert.assertTrue(FitsImageCompression.isCompressedImage(hdu));
+
+                    final ImageHDU imgHdu = FitsImageCompression.decompress(hdu);
+                    Assert.assertTrue(type + " " + amplitude,
+                            ArrayFuncs.arrayEquals(kernel, ((ImageData) imgHdu.getData()).getData()));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void floatImages() throws Exception {
+        final float[][][] cube = createCube(4, 256, 256);
+
+        for (boolean parallel : new boolean[]{false, true}) {
+            // lossless:
+            FitsImageCompression compression = new FitsImageCompression(FitsImageConstants.ZCMPTYPE_GZIP_1, 0f);
+            if (parallel) {
+                compression.setTileSize(new int[]{64, 16});
+            }
+            ImageHDU imgHdu = FitsImageCompression.decompress(compression.compress((ImageHDU) Fits.makeHDU(cube)));
+            Assert.assertTrue(ArrayFuncs.arrayEquals(cube, ((ImageData) imgHdu.getData()).getData()));
+
+            // quantized with an absolute step:
+            final double step = 1e-3;
+            for (String type : new String[]{FitsImageConstants.ZCMPTYPE_RICE_1, FitsImageConstants.ZCMPTYPE_GZIP_1}) {
+                compression = new FitsImageCompression(type, (float) -step);
+                if (parallel) {
+                    compression.setTileSize(new int[]{64, 16});
+                }
+                imgHdu = FitsImageCompression.decompress(compression.compress((ImageHDU) Fits.makeHDU(cube)));
+                assertQuantized(type, cube, (float[][][]) ((ImageData) imgHdu.getData()).getData(), step);
+            }
+        }
+    }
+
+    /**
+     * Decode fixtures encoded like cfitsio / fpack (see compressed/make_fixtures.py) and compare their pixels
+     * with the uncompressed reference images
+     */
+    @Test
+    public void decodeFixtures() throws Exception {
+        final String dir = TEST_DIR + "compressed/";
+
+        for (String name : new String[]{"byte", "short", "int"}) {
+            final Object ref = getImageData(new Fits(dir + "ref_" + name + ".fits").read()[0]);
+
+            for (String type : new String[]{"rice_", "gzip_"}) {
+                final BasicHDU[] hdus = new Fits(dir + type + name + ".fits").read();
+                Assert.assertTrue(type + name, FitsImageCompression.isCompressedImage(hdus[1]));
+
+                final Object data = getImageData(FitsImageCompression.decompress((BinaryTableHDU) hdus[1]));
+                Assert.assertTrue(type + name, ArrayFuncs.arrayEquals(ref, data));
+            }
+        }
+
+        // SUBTRACTIVE_DITHER_1 quantized floats:
+        final float[][] ref = (float[][]) getImageData(new Fits(dir + "ref_float.fits").read()[0]);
+
+        for (String type : new String[]{"rice_", "gzip_"}) {
+            final BinaryTableHDU hdu = (BinaryTableHDU) new Fits(dir + type + "float_dither1.fits").read()[1];
+            final double step = ((double[]) hdu.getColumn(FitsImageConstants.KEYWORD_ZSCALE))[0];
+            Assert.assertEquals(0.125, step, 0.0);
+
+            final float[][] data = (float[][]) getImageData(FitsImageCompression.decompress(hdu));
+            // wrong dithering offsets give errors up to the quantization step:
+            assertQuantized(type, new float[][][]{ref}, new float[][][]{data}, step);
+        }
+    }
+
+    @Test
+    public void writeAndLoad() throws Exception {
+        final List<String> fileLocations = new ArrayList<String>();
+        fileLocations.addAll(getFitsFiles(new File(TEST_DIR_FITS)));
+        fileLocations.addAll(getFitsFiles(new File(TEST_DIR + "oimg/")));
+
+        int nImages = 0;
+
+        for (String f : fileLocations) {
+            final FitsImageFile imgFitsFile = FitsImageLoader.load(f, false, false);
+            if (imgFitsFile.getImageHDUCount() == 0) {
+                continue;
+            }
+            final String name = new File(f).getName();
+            final File uncompressed = new File(TEST_DIR_TEST, "cmp_" + name);
+            final File gzipped = new File(TEST_DIR_TEST, "cmp_gzip_" + name);
+            final File riced = new File(TEST_DIR_TEST, "cmp_rice_" + name);
+
+            FitsImageWriter.write(uncompressed.getAbsolutePath(), imgFitsFile, false);
+            final FitsImageFile refFile = FitsImageLoader.load(uncompressed.getAbsolutePath(), false, false);
+
+            FitsImageWriter.write(gzipped.getAbsolutePath(), imgFitsFile, true,
+                    new FitsImageCompression(FitsImageConstants.ZCMPTYPE_GZIP_1, 0f));
+            FitsImageWriter.write(riced.getAbsolutePath(), imgFitsFile, true,
+                    new FitsImageCompression(FitsImageConstants.ZCMPTYPE_RICE_1));
+
+            final FitsImageFile gzipFile = FitsImageLoader.load(gzipped.getAbsolutePath(), false, false);
+            final FitsImageFile riceFile = FitsImageLoader.load(riced.getAbsolutePath(), false, false);
+
+            Assert.assertEquals(f, refFile.getImageHDUCount(), gzipFile.getImageHDUCount());
+            Assert.assertEquals(f, refFile.getImageHDUCount(), riceFile.getImageHDUCount());
+
+            for (int i = 0; i < refFile.getImageHDUCount(); i++) {
+                final FitsImageHDU refHDU = refFile.getFitsImageHDUs().get(i);
+                final FitsImageHDU gzipHDU = gzipFile.getFitsImageHDUs().get(i);
+                final FitsImageHDU riceHDU = riceFile.getFitsImageHDUs().get(i);
+
+                Assert.assertEquals(f, refHDU.getImageCount(), gzipHDU.getImageCount());
+                Assert.assertEquals(f, refHDU.getImageCount(), riceHDU.getImageCount());
+
+                for (int j = 0; j < refHDU.getImageCount(); j++) {
+                    final FitsImage refImage = refHDU.getFitsImages().get(j);
+                    final FitsImage gzipImage = gzipHDU.getFitsImages().get(j);
+                    final FitsImage riceImage = riceHDU.getFitsImages().get(j);
+
+                    Assert.assertEquals(f, refImage.getNbCols(), riceImage.getNbCols());
+                    Assert.assertEquals(f, refImage.getNbRows(), riceImage.getNbRows());
+                    Assert.assertEquals(f, refImage.getIncCol(), riceImage.getIncCol(), 0.0);
+                    Assert.assertEquals(f, refImage.getIncRow(), riceImage.getIncRow(), 0.0);
+                    Assert.assertEquals(f, refImage.getWaveLength(), riceImage.getWaveLength(), 0.0);
+
+                    Assert.assertTrue(f, ArrayFuncs.arrayEquals(refImage.getData(), gzipImage.getData()));
+                    assertSameNaN(f, refImage.getData(), riceImage.getData());
+                    nImages++;
+                }
+            }
+        }
+        logger.log(Level.INFO, "writeAndLoad: {0} images", nImages);
+        Assert.assertTrue("no image", nImages != 0);
+    }
+
+    @Test
+    public void compressedSize() throws Exception {
+        final float[][][] cube = createCube(8, 128, 128);
+
+        final BasicHDU hdu = Fits.makeHDU(cube);
+        hdu.addValue("CDELT1", 1e-9, "");
+        hdu.addValue("CDELT2", 1e-9, "");
+
+        final File uncompressed = new File(TEST_DIR_TEST, "cmp_cube.fits");
+        final Fits fits = new Fits();
+        fits.addHDU(hdu);
+        final BufferedFile bf = new BufferedFile(uncompressed.getAbsolutePath(), "rw");
+        try {
+            fits.write(bf);
+        } finally {
+            bf.close();
+        }
+
+        final FitsImageFile imgFitsFile = FitsImageLoader.load(uncompressed.getAbsolutePath(), false, false);
+        final File riced = new File(TEST_DIR_TEST, "cmp_rice_cube.fits");
+        FitsImageWriter.write(riced.getAbsolutePath(), imgFitsFile, false,
+                new FitsImageCompression(FitsImageConstants.ZCMPTYPE_RICE_1));
+
+        logger.log(Level.INFO, "compressedSize: {0} bytes (uncompressed: {1} bytes)",
+                new Object[]{riced.length(), uncompressed.length()});
+        Assert.assertTrue("compressed file is not smaller", 2L * riced.length() < uncompressed.length());
+
+        final FitsImageFile riceFile = FitsImageLoader.load(riced.getAbsolutePath(), false, false);
+        Assert.assertEquals(8, riceFile.getFitsImageHDUs().get(0).getImageCount());
+    }
+
+    private static Object getImageData(final BasicHDU hdu) throws Exception {
+        return ((ImageData) hdu.getData()).getData();
+    }
+
+    /**
+     * Create a smooth float cube with gaussian noise and few NaN values
+     */
+    private static float[][][] createCube(final int nPlanes, final int nRows, final int nCols) {
+        final Random random = new Random(7L);
+        final float[][][] cube = new float[nPlanes][nRows][nCols];
+        for (int k = 0; k < nPlanes; k++) {
+            for (int j = 0; j < nRows; j++) {
+                for (int i = 0; i < nCols; i++) {
+                    cube[k][j][i] = (float) (100.0 * Math.exp(-((i - 64) * (i - 64) + (j - 64) * (j - 64)) / (200.0 * (k + 1)))
+                            + 0.1 * random.nextGaussian());
+                }
+            }
+            cube[k][k][k] = Float.NaN;
+        }
+        return cube;
+    }
+
+    private static void assertQuantized(final String msg, final float[][][] expected, final float[][][] actual, final double step) {
+        for (int k = 0; k < expected.length; k++) {
+            for (int j = 0; j < expected[k].length; j++) {
+                for (int i = 0; i < expected[k][j].length; i++) {
+                    final float e = expected[k][j][i];
+                    final float a = actual[k][j][i];
+                    if (Float.isNaN(e)) {
+                        Assert.assertTrue(msg, Float.isNaN(a));
+                    } else {
+                        Assert.assertEquals(msg, e, a, 0.5 * step + 1e-6 * Math.abs(e));
+                    }
+                }
+            }
+        }
+    }
+
+    private static void assertSameNaN(final String msg, final float[][] expected, final float[][] actual) {
+        Assert.assertEquals(msg, expected.length, actual.length);
+        for (int j = 0; j < expected.length; j++) {
+            Assert.assertEquals(msg, expected[j].length, actual[j].length);
+            for (int i = 0; i < expected[j].length; i++) {
+                Assert.assertEquals(msg, Float.isNaN(expected[j][i]), Float.isNaN(actual[j][i]));
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools;
+
+import fr.jmmc.oitools.model.Granule;
+import fr.jmmc.oitools.model.OIData;
+import fr.jmmc.oitools.model.OIFitsChecker;
+import fr.jmmc.oitools.model.OIFitsFile;
+import fr.jmmc.oitools.model.OIFitsLoader;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Stress test: load, validate and analyze the test corpus from many threads
+ * and compare results with a serial run
+ */
+public class ConcurrentLoadTest extends JUnitBaseTest {
+
+    private static final int N_THREADS = 8;
+    private static final int N_PASSES = 3;
+
+    @Test
+    public void stressLoadAnalyze() throws Exception {
+        final List<String> fileLocations = getFitsFiles(new File(TEST_DIR_OIFITS));
+
+        // serial reference:
+        final Map<String, String> expected = new HashMap<String, String>();
+        for (String f : fileLocations) {
+            expected.put(f, loadAndDescribe(f));
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(N_THREADS);
+        try {
+            final List<Future<Map<String, String>>> futures = new ArrayList<Future<Map<String, String>>>(N_THREADS);
+
+            for (int t = 0; t < N_THREADS; t++) {
+                final List<String> shuffled = new ArrayList<String>(fileLocations);
+                Collections.shuffle(shuffled, new Random(t));
+
+                futures.add(executor.submit(new Callable<Map<String, String>>() {
+                    @Override
+                    public Map<String, String> call() throws Exception {
+                        final Map<String, String> results = new HashMap<String, String>();
+                        for (int p = 0; p < N_PASSES; p++) {
+                            for (String f : shuffled) {
+                                final String desc = loadAndDescribe(f);
+                                final String previous = results.put(f, desc);
+                                if (previous != null && !previous.equals(desc)) {
+                                    throw new IllegalStateException("Inconsistent results for " + f);
+                                }
+                            }
+                        }
+                        return results;
+                    }
+                }));
+            }
+
+            for (Future<Map<String, String>> future : futures) {
+                final Map<String, String> results = future.get();
+
+                for (String f : fileLocations) {
+                    Assert.assertEquals(f, expected.get(f), results.get(f));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        logger.log(Level.INFO, "stressLoadAnalyze: {0} threads x {1} files x {2} passes",
+                new Object[]{N_THREADS, fileLocations.size(), N_PASSES});
+    }
+
+    private static String loadAndDescribe(final String fileLocation) throws Exception {
+        final OIFitsChecker checker = new OIFitsChecker();
+        final OIFitsFile oiFitsFile = OIFitsLoader.loadOIFits(checker, fileLocation);
+        oiFitsFile.analyze();
+
+        final List<String> granules = new ArrayList<String>();
+        for (Map.Entry<Granule, ? extends Iterable<OIData>> e : oiFitsFile.getOiDataPerGranule().entrySet()) {
+            final StringBuilder sb = new StringBuilder(256);
+            sb.append(e.getKey());
+            for (OIData oiData : e.getValue()) {
+                sb.append(' ').append(oiData.getExtNb()).append(':').append(oiData.getDistinctStaConf().size());
+            }
+            granules.add(sb.toString());
+        }
+        Collections.sort(granules);
+
+        return checker.getCheckReport() + '\n' + oiFitsFile.getUsedStaNamesMap().keySet() + '\n' + granules;
+    }
+}
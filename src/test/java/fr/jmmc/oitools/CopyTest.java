@@ -21,15 +21,21 @@ package fr.jmmc.oitools;
 
 import static fr.jmmc.oitools.JUnitBaseTest.getFitsFiles;
 import static fr.jmmc.oitools.JUnitBaseTest.logger;
+import fr.jmmc.oitools.meta.ColumnMeta;
+import fr.jmmc.oitools.model.OIData;
 import fr.jmmc.oitools.model.OIFitsFile;
 import fr.jmmc.oitools.model.OIFitsLoader;
+import fr.jmmc.oitools.model.OIWavelength;
 import fr.jmmc.oitools.test.OITableUtils;
 import fr.nom.tam.fits.FitsException;
+import fr.nom.tam.util.ArrayFuncs;
 import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
+import java.util.BitSet;
 import java.util.logging.Level;
 import static junit.framework.Assert.fail;
+import org.junit.Assert;
 import org.junit.Test;
 
 /**
@@ -74,4 +80,53 @@ public class CopyTest extends JUnitBaseTest {
             }
         }
     }
+
+    @Test
+    public void copyFilteredTable() throws IOException, FitsException {
+        int nTables = 0;
+
+        for (String pathFile : getFitsFiles(new File(TEST_DIR_OIFITS))) {
+            final OIFitsFile srcOIFitsFile = OIFitsLoader.loadOIFits(pathFile);
+            final OIFitsFile destOIFitsFile = new OIFitsFile(srcOIFitsFile.getVersion());
+            // referenced tables first (NWAVE):
+            for (OIWavelength oiWavelength : srcOIFitsFile.getOiWavelengths()) {
+                destOIFitsFile.addOiTable(destOIFitsFile.copyTable(oiWavelength));
+            }
+
+            for (OIData oiData : srcOIFitsFile.getOiDataList()) {
+                final int nRows = oiData.getNbRows();
+                final int nWaves = oiData.getNWave();
+
+                // keep even rows and odd wavelengths:
+                final BitSet maskRows = new BitSet(nRows);
+                for (int i = 0; i < nRows; i += 2) {
+                    maskRows.set(i);
+                }
+                final BitSet maskWavelengths = new BitSet(nWaves);
+                for (int j = 1; j < nWaves; j += 2) {
+                    maskWavelengths.set(j);
+                }
+                final int nKeepRows = maskRows.cardinality();
+
+                // filtered while copying:
+                final OIData filtered = (OIData) destOIFitsFile.copyTable(oiData, nKeepRows, maskRows,
+                        (nWaves > 1) ? maskWavelengths : null);
+
+                // copied then resized:
+                final OIData resized = (OIData) destOIFitsFile.copyTable(oiData);
+                resized.resizeTable(nKeepRows, maskRows, (nWaves > 1) ? maskWavelengths : null);
+
+                Assert.assertEquals(pathFile, nKeepRows, filtered.getNbRows());
+
+                for (ColumnMeta column : oiData.getColumnDescCollection()) {
+                    final String name = column.getName();
+                    Assert.assertTrue(pathFile + ": " + name,
+                            ArrayFuncs.arrayEquals(resized.getColumnValue(name), filtered.getColumnValue(name)));
+                }
+                nTables++;
+            }
+        }
+        logger.log(Level.INFO, "copyFilteredTable: {0} tables", nTables);
+        Assert.assertTrue("no table", nTables != 0);
+    }
 }
@@ -0,0 +1,130 @@
+/* 
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools;
+
+import fr.jmmc.oitools.fits.FitsConstants;
+import fr.jmmc.oitools.fits.FitsHDUIndex;
+import fr.jmmc.oitools.fits.FitsUtils;
+import fr.nom.tam.fits.BasicHDU;
+import fr.nom.tam.fits.BinaryTableHDU;
+import fr.nom.tam.fits.Fits;
+import fr.nom.tam.fits.FitsUtil;
+import fr.nom.tam.util.ArrayFuncs;
+import java.io.File;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.logging.Level;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Compare HDUs read by FitsHDUIndex (table of contents and random access) with a sequential read (Fits.read())
+ */
+public class FitsHDUIndexTest extends JUnitBaseTest {
+
+    @Test
+    public void compareIndexSequential() throws Exception {
+        final List<String> fileLocations = getFitsFiles(new File(TEST_DIR_OIFITS));
+
+        int nFiles = 0;
+        int nHDUs = 0;
+
+        for (String f : fileLocations) {
+            if (FitsUtil.isCompressed(new File(f))) {
+                continue;
+            }
+            final BasicHDU[] hdus = new Fits(f).read();
+
+            final FitsHDUIndex index = FitsHDUIndex.open(f);
+            try {
+                Assert.assertEquals(f, hdus.length, index.getNbEntries());
+
+                for (int i = 0; i < hdus.length; i++) {
+                    final BasicHDU hdu = hdus[i];
+                    final FitsHDUIndex.Entry entry = index.getEntry(i);
+
+                    final String extName = hdu.getTrimmedString(FitsConstants.KEYWORD_EXT_NAME);
+                    Assert.assertEquals(f, extName, entry.getExtName());
+                    Assert.assertEquals(f, hdu.getHeader().getDataSize(), entry.getDataSize());
+                    if (i != 0) {
+                        final FitsHDUIndex.Entry prev = index.getEntry(i - 1);
+                        Assert.assertEquals(f, prev.getDataOffset() + prev.getDataSize(), entry.getHeaderOffset());
+                    }
+                    Assert.assertEquals(f, hdu.getHeader().getIntValue(FitsConstants.KEYWORD_NAXIS2, 0), entry.getNbRows());
+
+                    // random access by EXTNAME / EXTVER (first one if duplicated):
+                    if (extName != null) {
+                        Assert.assertTrue(f, index.getEntries(extName).contains(entry));
+                        final FitsHDUIndex.Entry first = index.getEntry(extName, entry.getExtVer());
+                        Assert.assertNotNull(f, first);
+                        Assert.assertTrue(f, first.getIndex() <= i);
+                    }
+
+                    final BasicHDU read = index.readHDU(entry);
+                    Assert.assertEquals(f, hdu.getClass(), read.getClass());
+                    Assert.assertEquals(f, hdu.getHeader().getNumberOfCards(), read.getHeader().getNumberOfCards());
+
+                    if (hdu instanceof BinaryTableHDU) {
+                        final BinaryTableHDU bh = (BinaryTableHDU) hdu;
+                        final BinaryTableHDU rh = (BinaryTableHDU) read;
+                        Assert.assertEquals(f, bh.getNCols(), rh.getNCols());
+
+                        for (int c = 0; c < bh.getNCols(); c++) {
+                            Assert.assertTrue(f + ": " + bh.getColumnName(c),
+                                    ArrayFuncs.arrayEquals(bh.getColumn(c), rh.getColumn(c)));
+                        }
+                    }
+                    nHDUs++;
+                }
+                Assert.assertNull(f, index.getEntry("UNKNOWN", 1));
+                Assert.assertTrue(f, index.getEntries("UNKNOWN").isEmpty());
+            } finally {
+                index.close();
+            }
+            nFiles++;
+        }
+        logger.log(Level.INFO, "compareIndexSequential: {0} files, {1} HDUs", new Object[]{nFiles, nHDUs});
+        Assert.assertTrue("no file", nFiles != 0);
+    }
+
+    @Test
+    public void dumpFilter() throws Exception {
+        final String f = TEST_DIR_OIFITS + "2012-03-24_ALL_oiDataCalib.fits";
+
+        final StringBuilder sb = new StringBuilder(16 * 1024);
+        FitsUtils.dumpFile(f, false, OIFitsConstants.TABLE_OI_TARGET, sb);
+        Assert.assertTrue(sb.toString(), sb.toString().startsWith("HDUs = 1\n"));
+
+        sb.setLength(0);
+        FitsUtils.dumpFile(f, false, OIFitsConstants.TABLE_OI_VIS2 + "#1", sb);
+        Assert.assertTrue(sb.toString(), sb.toString().startsWith("HDUs = 1\n"));
+
+        sb.setLength(0);
+        FitsUtils.dumpFile(f, false, "UNKNOWN", sb);
+        Assert.assertTrue(sb.toString(), sb.toString().startsWith("HDUs = 0\n"));
+
+        // streamed dump:
+        sb.setLength(0);
+        FitsUtils.dumpFile(f, false, sb);
+        final StringWriter sw = new StringWriter();
+        FitsUtils.dumpFile(f, false, null, sw);
+        Assert.assertEquals(sb.toString(), sw.toString());
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools;
+
+import fr.jmmc.oitools.fits.FlatColumn;
+import fr.jmmc.oitools.meta.ColumnMeta;
+import fr.jmmc.oitools.meta.Types;
+import fr.jmmc.oitools.model.JELEval;
+import fr.jmmc.oitools.model.OIArray;
+import fr.jmmc.oitools.model.OIData;
+import fr.jmmc.oitools.model.OIFitsChecker;
+import fr.jmmc.oitools.model.OIFitsFile;
+import fr.jmmc.oitools.model.OIFitsLoader;
+import fr.jmmc.oitools.model.OITable;
+import fr.jmmc.oitools.model.XmlOutputVisitor;
+import fr.nom.tam.fits.FitsException;
+import fr.nom.tam.util.ArrayFuncs;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.logging.Level;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test flat column storage (FlatColumn): values and flat storage kept by usual processing
+ * (see LoadBenchmark in the benchmarks module to compare allocations of flat vs jagged arrays)
+ */
+public class FlatColumnTest extends JUnitBaseTest {
+
+    @Test
+    public void filterFlatColumn() {
+        final double[][] values = new double[][]{{1.0, 2.0, 3.0}, {4.0, 5.0, 6.0}, {7.0, 8.0, 9.0}};
+        final FlatColumn flat = FlatColumn.valueOf(values);
+
+        Assert.assertEquals(3, flat.getNbRows());
+        Assert.assertEquals(3, flat.getStride());
+        Assert.assertTrue(ArrayFuncs.arrayEquals(values, flat.toArray()));
+
+        final BitSet maskRows = new BitSet();
+        maskRows.set(0);
+        maskRows.set(2);
+        final BitSet maskCols = new BitSet();
+        maskCols.set(1);
+        maskCols.set(2);
+
+        final FlatColumn filtered = flat.filter(maskRows, 2, maskCols);
+        Assert.assertTrue(ArrayFuncs.arrayEquals(new double[][]{{2.0, 3.0}, {8.0, 9.0}}, filtered.toArray()));
+
+        // complex values:
+        final float[][][] cValues = new float[][][]{{{1f, -1f}, {2f, -2f}}, {{3f, -3f}, {4f, -4f}}};
+        final BitSet maskWl = new BitSet();
+        maskWl.set(1);
+        final FlatColumn cFiltered = FlatColumn.valueOf(cValues).filter(maskRows, 1, maskWl);
+        Assert.assertTrue(ArrayFuncs.arrayEquals(new float[][][]{{{2f, -2f}}}, cFiltered.toArray()));
+    }
+
+    @Test
+    public void compareFlatJagged() throws IOException, FitsException {
+        final List<String> fileLocations = getFitsFiles(new File(TEST_DIR_OIFITS));
+
+        int nFlat = 0;
+        for (String f : fileLocations) {
+            final OIFitsFile flatFile = load(f);
+            final OIFitsFile jaggedFile = inflate(load(f));
+
+            final List<OITable> flatTables = flatFile.getOITableList();
+            final List<OITable> jaggedTables = jaggedFile.getOITableList();
+
+            for (int i = 0; i < flatTables.size(); i++) {
+                final OITable flatTable = flatTables.get(i);
+
+                for (ColumnMeta column : flatTable.getColumnDescCollection()) {
+                    final String name = column.getName();
+
+                    if (flatTable.getColumnFlat(name) != null) {
+                        nFlat++;
+                    }
+                    Assert.assertTrue(f + ": " + name,
+                            ArrayFuncs.arrayEquals(jaggedTables.get(i).getColumnValue(name), flatTable.getColumnValue(name)));
+                }
+            }
+        }
+        logger.log(Level.INFO, "compareFlatJagged: {0} flat columns", nFlat);
+        Assert.assertTrue("no flat column", nFlat != 0);
+    }
+
+    @Test
+    public void keepFlatStorage() throws IOException, FitsException {
+        final List<String> fileLocations = getFitsFiles(new File(TEST_DIR_OIFITS));
+        final JELEval eval = new JELEval();
+
+        int nFlat = 0;
+        for (String f : fileLocations) {
+            final OIFitsFile oiFitsFile = load(f);
+
+            // flat columns after loading:
+            final List<String> flatColumns = new ArrayList<String>();
+            for (OITable oiTable : oiFitsFile.getOITableList()) {
+                for (ColumnMeta column : oiTable.getColumnDescCollection()) {
+                    if (oiTable.getColumnFlat(column.getName()) != null) {
+                        flatColumns.add(oiTable.idToString() + '.' + column.getName());
+                    }
+                }
+            }
+            nFlat += flatColumns.size();
+
+            // usual processing: validation, verbose xml dump (ranges and values), expressions:
+            oiFitsFile.check(new OIFitsChecker());
+            XmlOutputVisitor.getXmlDesc(oiFitsFile, true);
+
+            // typed getters return copies:
+            for (OITable oiTable : oiFitsFile.getOITableList()) {
+                for (ColumnMeta column : oiTable.getColumnDescCollection()) {
+                    oiTable.getColumnValue(column.getName());
+                }
+            }
+            for (OIData oiData : oiFitsFile.getOiDataList()) {
+                oiData.getSpatialFreq();
+                for (ColumnMeta column : oiData.getColumnDescCollection()) {
+                    if ((column.getDataType() == Types.TYPE_DBL) && (oiData.getColumnFlat(column.getName()) != null)) {
+                        final double[][] values = eval.eval(oiData, "FLAT_TEST", column.getName() + " * 2", false);
+                        final FlatColumn flat = oiData.getColumnFlat(column.getName());
+                        Assert.assertEquals(f + ": " + column.getName(), 2.0 * flat.getDoubles()[0], values[0][0], 0.0);
+                    }
+                }
+            }
+
+            for (OITable oiTable : oiFitsFile.getOITableList()) {
+                for (ColumnMeta column : oiTable.getColumnDescCollection()) {
+                    final String id = oiTable.idToString() + '.' + column.getName();
+                    if (flatColumns.contains(id)) {
+                        Assert.assertNotNull(f + ": " + id + " converted to jagged arrays", oiTable.getColumnFlat(column.getName()));
+                    }
+                }
+            }
+        }
+        logger.log(Level.INFO, "keepFlatStorage: {0} flat columns", nFlat);
+        Assert.assertTrue("no flat column", nFlat != 0);
+    }
+
+    @Test
+    public void setFlatStaXYZ() throws IOException, FitsException {
+        final OIFitsFile oiFitsFile = load(TEST_DIR_OIFITS + "2012-03-24_ALL_oiDataCalib.fits");
+        final OIArray oiArray = oiFitsFile.getOiArrays()[0];
+        Assert.assertNotNull(oiArray.getColumnFlat(OIFitsConstants.COLUMN_STA_XYZ));
+
+        oiArray.setStaXYZ(1, 1.0, 2.0, 3.0);
+
+        Assert.assertNotNull(oiArray.getColumnFlat(OIFitsConstants.COLUMN_STA_XYZ));
+        Assert.assertTrue(ArrayFuncs.arrayEquals(new double[]{1.0, 2.0, 3.0}, oiArray.getStaXYZ()[1]));
+    }
+
+    private static OIFitsFile load(final String fileLocation) throws IOException, FitsException {
+        final OIFitsFile oiFitsFile = OIFitsLoader.loadOIFits(fileLocation);
+        oiFitsFile.analyze();
+        return oiFitsFile;
+    }
+
+    /**
+     * Convert all flat columns to jagged arrays (previous storage)
+     * @param oiFitsFile OIFits file to process
+     * @return given OIFits file
+     */
+    private static OIFitsFile inflate(final OIFitsFile oiFitsFile) {
+        for (OITable oiTable : oiFitsFile.getOITableList()) {
+            for (ColumnMeta column : oiTable.getColumnDescCollection()) {
+                if (oiTable.getColumnFlat(column.getName()) != null) {
+                    oiTable.setColumnValue(column.getName(), oiTable.getColumnValue(column.getName()));
+                }
+            }
+        }
+        return oiFitsFile;
+    }
+}
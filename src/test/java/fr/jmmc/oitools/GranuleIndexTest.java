@@ -0,0 +1,143 @@
+/* 
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools;
+
+import fr.jmmc.oitools.model.Granule;
+import fr.jmmc.oitools.model.GranuleMatcher;
+import fr.jmmc.oitools.model.OIData;
+import fr.jmmc.oitools.model.OIFitsChecker;
+import fr.jmmc.oitools.model.OIFitsCollection;
+import fr.jmmc.oitools.model.range.Range;
+import fr.jmmc.oitools.model.range.RangeSet;
+import fr.jmmc.oitools.processing.Selector;
+import fr.jmmc.oitools.processing.SelectorResult;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.logging.Level;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Compare indexed queries (granule index, sorted merged ranges) with linear scans
+ */
+public class GranuleIndexTest extends JUnitBaseTest {
+
+    @Test
+    public void compareRangeSet() {
+        final Random random = new Random(42L);
+        final double[] specials = new double[]{Double.NaN, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY};
+
+        for (int n = 0; n < 1000; n++) {
+            final List<Range> ranges = new ArrayList<Range>();
+            for (int i = 0, len = random.nextInt(8); i < len; i++) {
+                final double min = (random.nextInt(10) == 0) ? specials[random.nextInt(3)] : random.nextInt(100);
+                final double max = (random.nextInt(10) == 0) ? specials[random.nextInt(3)] : min + random.nextInt(20) - 2;
+                ranges.add(new Range(min, max));
+            }
+            final RangeSet rangeSet = RangeSet.create(ranges);
+
+            for (int i = 0; i < 200; i++) {
+                final double value = (random.nextInt(20) == 0) ? specials[random.nextInt(3)] : 0.5 * random.nextInt(260) - 10.0;
+                Assert.assertEquals(ranges + " contains " + value, Range.contains(ranges, value), rangeSet.contains(value));
+            }
+        }
+    }
+
+    @Test
+    public void compareFindOIData() throws Exception {
+        final OIFitsCollection oiFitsCollection = OIFitsCollection.create(new OIFitsChecker(), getFitsFiles(new File(TEST_DIR_OIFITS)));
+
+        final List<Granule> granules = oiFitsCollection.getSortedGranules();
+        logger.log(Level.INFO, "compareFindOIData: {0} granules", granules.size());
+
+        int nQueries = 0;
+        for (Granule g : granules) {
+            if (g.getTarget() == null || g.getInsMode() == null) {
+                continue;
+            }
+            final String targetUID = g.getTarget().getTarget();
+            final String insModeUID = g.getInsMode().getInsName();
+            final Integer nightID = g.getNight().getNightId();
+
+            // exact criteria:
+            compare(oiFitsCollection, createSelector(targetUID, null, null), true);
+            compare(oiFitsCollection, createSelector(null, insModeUID, null), true);
+            compare(oiFitsCollection, createSelector(null, null, nightID), true);
+            compare(oiFitsCollection, createSelector(targetUID, insModeUID, nightID), true);
+            nQueries += 4;
+
+            // range criteria (row filters may discard tables):
+            if (g.hasMjdRange()) {
+                final Selector selector = createSelector(null, null, null);
+                selector.addFilter(Selector.FILTER_MJD, Arrays.asList(new Range(g.getMjdRange().getMin(), g.getMjdRange().getMin() + 1e-3)));
+                compare(oiFitsCollection, selector, false);
+                nQueries++;
+            }
+            final Selector selector = createSelector(targetUID, null, null);
+            selector.addFilter(Selector.FILTER_EFFWAVE, Arrays.asList(new Range(g.getInsMode().getLambdaMin(), g.getInsMode().getLambdaMin())));
+            compare(oiFitsCollection, selector, false);
+            nQueries++;
+        }
+        logger.log(Level.INFO, "compareFindOIData: {0} queries", nQueries);
+        Assert.assertTrue("no query", nQueries != 0);
+    }
+
+    private static Selector createSelector(final String targetUID, final String insModeUID, final Integer nightID) {
+        final Selector selector = new Selector();
+        selector.setTargetUID(targetUID);
+        selector.setInsModeUID(insModeUID);
+        selector.setNightID(nightID);
+        return selector;
+    }
+
+    private static void compare(final OIFitsCollection oiFitsCollection, final Selector selector, final boolean exact) {
+        // linear scan on all granules:
+        final Granule pattern = new Granule(
+                (selector.getTargetUID() != null) ? oiFitsCollection.getTargetManager().getGlobalByUID(selector.getTargetUID()) : null,
+                (selector.getInsModeUID() != null) ? oiFitsCollection.getInstrumentModeManager().getGlobalByUID(selector.getInsModeUID()) : null,
+                null);
+        final GranuleMatcher matcher = GranuleMatcher.getInstance(
+                (selector.hasFilter(Selector.FILTER_MJD)) ? new LinkedHashSet<Range>(selector.<Range>getFilter(Selector.FILTER_MJD)) : null,
+                (selector.hasFilter(Selector.FILTER_EFFWAVE)) ? new LinkedHashSet<Range>(selector.<Range>getFilter(Selector.FILTER_EFFWAVE)) : null);
+
+        final Set<OIData> expected = new HashSet<OIData>();
+        for (Granule candidate : oiFitsCollection.getSortedGranules()) {
+            if (matcher.match(pattern, candidate)
+                    && ((selector.getNightID() == null) || (candidate.getNight().getNightId() == selector.getNightID().intValue()))) {
+                expected.addAll(oiFitsCollection.getOiDataPerGranule().get(candidate));
+            }
+        }
+
+        final SelectorResult result = oiFitsCollection.findOIData(selector);
+        final Set<OIData> actual = (result != null) ? new HashSet<OIData>(result.getSortedOIDatas()) : new HashSet<OIData>();
+
+        if (exact) {
+            Assert.assertEquals(selector.toString(), expected, actual);
+        } else {
+            Assert.assertTrue(selector.toString(), expected.containsAll(actual));
+        }
+    }
+}
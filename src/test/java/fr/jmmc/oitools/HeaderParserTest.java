@@ -0,0 +1,215 @@
+/* 
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools;
+
+import fr.jmmc.oitools.fits.FitsHDUIndex;
+import fr.nom.tam.fits.FitsUtil;
+import fr.nom.tam.fits.Header;
+import fr.nom.tam.fits.HeaderCard;
+import fr.nom.tam.util.AsciiFuncs;
+import fr.nom.tam.util.BufferedDataInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.logging.Level;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Compare header cards read by blocks (lazy decoding, numbers parsed from card images)
+ * with cards parsed from their card image strings (HeaderCard(String))
+ */
+public class HeaderParserTest extends JUnitBaseTest {
+
+    private final static String[] CARDS = new String[]{
+        "XTENSION= 'BINTABLE'           / binary table extension",
+        "BITPIX  =                    8",
+        "NAXIS   =                    0",
+        "INT1    =                  -42 / integer",
+        "INT2    = +12",
+        "INT3    = 123456789012345678901234",
+        "INT4    = 0042",
+        "DBL1    =   -1.5E-05 / double",
+        "DBL2    = .5",
+        "DBL3    = 5.",
+        "DBL4    = -0.0",
+        "DBL5    = 1.0D+05",
+        "DBL6    = 1.5E-300",
+        "DBL7    = 0.1000000000000000055511151231257827",
+        "DBL8    = 2.2250738585072014E-308",
+        "DBL9    = 9007199254740993",
+        "DBL10   = 1 2",
+        "DBL11   = NaN",
+        "DBL12   = 3.141592653589793",
+        "DBL13   = 1e22",
+        "DBL14   = 1e23",
+        "BOOL1   =                    T",
+        "BOOL2   =                    F / false",
+        "BOOL3   = 'T'",
+        "BOOL4   = TRUE",
+        "STR1    = 'it''s'              / escaped quote",
+        "STR2    = ''",
+        "STR3    = 'unmatched",
+        "STR4    = '12'",
+        "EMPTY1  =",
+        "EMPTY2  = / only comment",
+        "NOVALUE   this is not a value",
+        "COMMENT this is a comment",
+        "HISTORY = not a value",
+        "        blank keyword comment",
+        "HIERARCH ESO DET DIT = 0.5 / integration time",
+        "HIERARCH ESO DET NDIT= 12",
+        "HIERARCH ESO INS MODE = 'LOW-K' / instrument mode",
+        "HIERARCH ESO INS GRAT = '' / empty",
+        "HIERARCH ESO INS FLAG = T",
+        "HIERARCH ESO OBS ID = 1234/comment",
+        "HIERARCH ESO OBS NAME = / no value",
+        "HIERARCH ESO NO VALUE",
+        "HIERARCH ESO TPL ID = 'unmatched",
+        "HIERARCH ESO TEL AIRM START = -1.234e+01",
+        "NONASCII= 'été'",
+        "KEYÉ    = 5",
+        "HIERARCH ESO KÉY = 5",
+        "VALUE   = 5é",
+        "END"
+    };
+
+    @Test
+    public void compareCards() throws Exception {
+        final StringBuilder sb = new StringBuilder(2880 * 2);
+        for (String card : CARDS) {
+            sb.append(card);
+            for (int i = card.length(); i < 80; i++) {
+                sb.append(' ');
+            }
+        }
+        while (sb.length() % 2880 != 0) {
+            sb.append(' ');
+        }
+        final byte[] bytes = sb.toString().getBytes("ISO-8859-1");
+
+        final Header header = Header.readHeader(new BufferedDataInputStream(new ByteArrayInputStream(bytes)));
+        Assert.assertNotNull(header);
+
+        final List<String> images = new ArrayList<String>(CARDS.length);
+        for (int off = 0; off < CARDS.length * 80; off += 80) {
+            images.add(AsciiFuncs.asciiString(bytes, off, 80));
+        }
+        compare("cards", header, images);
+    }
+
+    @Test
+    public void compareFiles() throws Exception {
+        int nCards = 0;
+        for (String dir : new String[]{TEST_DIR_OIFITS, TEST_DIR_FITS}) {
+            for (String f : getFitsFiles(new File(dir))) {
+                if (FitsUtil.isCompressed(new File(f))) {
+                    continue;
+                }
+                final FitsHDUIndex index = FitsHDUIndex.open(f);
+                final RandomAccessFile raf = new RandomAccessFile(f, "r");
+                try {
+                    for (FitsHDUIndex.Entry entry : index.getEntries()) {
+                        final Header header = entry.getHeader();
+
+                        final byte[] bytes = new byte[(int) (entry.getDataOffset() - entry.getHeaderOffset())];
+                        raf.seek(entry.getHeaderOffset());
+                        raf.readFully(bytes);
+
+                        final List<String> images = new ArrayList<String>();
+                        for (int off = 0; off < bytes.length; off += 80) {
+                            final String image = AsciiFuncs.asciiString(bytes, off, 80);
+                            images.add(image);
+                            if (image.startsWith("END     ")) {
+                                break;
+                            }
+                        }
+                        nCards += compare(f, header, images);
+                    }
+                } finally {
+                    raf.close();
+                    index.close();
+                }
+            }
+        }
+        logger.log(Level.INFO, "compareFiles: {0} cards", nCards);
+        Assert.assertTrue("no card", nCards != 0);
+    }
+
+    private static int compare(final String ref, final Header header, final List<String> images) {
+        if (header.getNumberOfCards() != images.size()) {
+            // duplicated keywords are removed:
+            logger.log(Level.INFO, "{0}: skipped header with duplicated keywords", ref);
+            return 0;
+        }
+        // numeric accessors first (before decoding):
+        for (String image : images) {
+            final HeaderCard expected = new HeaderCard(image);
+            final String key = expected.getKey();
+            if (expected.isKeyValuePair() && header.findCard(key) != null) {
+                final String msg = ref + ": " + image;
+                Assert.assertEquals(msg, legacyLong(expected.getValue(), -7L), header.getLongValue(key, -7L));
+                Assert.assertEquals(msg, Double.doubleToRawLongBits(legacyDouble(expected.getValue(), -7.0)),
+                        Double.doubleToRawLongBits(header.getDoubleValue(key, -7.0)));
+                Assert.assertEquals(msg, legacyBoolean(expected.getValue(), true), header.getBooleanValue(key, true));
+                Assert.assertEquals(msg, legacyBoolean(expected.getValue(), false), header.getBooleanValue(key, false));
+            }
+        }
+        int i = 0;
+        for (Iterator<?> it = header.iterator(); it.hasNext(); i++) {
+            final HeaderCard card = (HeaderCard) it.next();
+            final String image = images.get(i);
+            final HeaderCard expected = new HeaderCard(image);
+            final String msg = ref + ": " + image;
+
+            Assert.assertEquals(msg, expected.getKey(), card.getKey());
+            Assert.assertEquals(msg, expected.isKeyValuePair(), card.isKeyValuePair());
+            Assert.assertEquals(msg, expected.getValue(), card.getValue());
+            Assert.assertEquals(msg, expected.getComment(), card.getComment());
+            Assert.assertEquals(msg, expected.isStringValue(), card.isStringValue());
+            Assert.assertEquals(msg, expected.toString(), card.toString());
+        }
+        Assert.assertEquals(ref, images.size(), i);
+        return i;
+    }
+
+    private static long legacyLong(final String v, final long dft) {
+        try {
+            return (v != null) ? Long.parseLong(v) : dft;
+        } catch (NumberFormatException nfe) {
+            return dft;
+        }
+    }
+
+    private static double legacyDouble(final String v, final double dft) {
+        try {
+            return (v != null) ? Double.parseDouble(v) : dft;
+        } catch (NumberFormatException nfe) {
+            return dft;
+        }
+    }
+
+    private static boolean legacyBoolean(final String v, final boolean dft) {
+        return "T".equals(v) ? true : "F".equals(v) ? false : dft;
+    }
+}
@@ -47,35 +47,27 @@ public class InspectRuleTest extends AbstractFileBaseTest {
      */
     @Test
     public void dumpFile() throws IOException, FitsException {
-        // Enable inspectRules FIRST:
-        OIFitsChecker.setInspectRules(true);
-
         if (Rule.ARRNAME_UNIQ.getApplyTo() == null) {
             throw new IllegalStateException("Rule.applyToSet is null !");
         }
 
-        try {
-            final OIFitsChecker checker = new OIFitsChecker();
-
-            final List<String> failureMsgs = new ArrayList<String>();
+        // Enable inspectRules on this checker only:
+        final OIFitsChecker checker = new OIFitsChecker(true);
 
-            for (String f : getFitsFiles(new File(TEST_DIR_OIFITS))) {
-                try {
-                    OIFitsLoader.loadOIFits(checker, f);
-                } catch (Exception e) {
-                    logger.log(Level.SEVERE, "exception:", e);
-                    failureMsgs.add("File: " + (f.replaceAll(TEST_DIR_OIFITS, ""))
-                            + "throws an exception : " + e.getMessage() + "\n");
-                }
+        final List<String> failureMsgs = new ArrayList<String>();
 
-            }
-            if (!failureMsgs.isEmpty()) {
-                Assert.fail("IsInspectRuleTest failed " + failureMsgs.size() + " times:\n" + failureMsgs);
+        for (String f : getFitsFiles(new File(TEST_DIR_OIFITS))) {
+            try {
+                OIFitsLoader.loadOIFits(checker, f);
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, "exception:", e);
+                failureMsgs.add("File: " + (f.replaceAll(TEST_DIR_OIFITS, ""))
+                        + "throws an exception : " + e.getMessage() + "\n");
             }
 
-        } finally {
-            // Always disable the inspectRules flag before any other test:
-            OIFitsChecker.setInspectRules(false);
+        }
+        if (!failureMsgs.isEmpty()) {
+            Assert.fail("IsInspectRuleTest failed " + failureMsgs.size() + " times:\n" + failureMsgs);
         }
     }
 }
@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools;
+
+import fr.jmmc.oitools.meta.OIFitsStandard;
+import fr.jmmc.oitools.model.JELEval;
+import fr.jmmc.oitools.model.OIData;
+import fr.jmmc.oitools.model.OIFitsFile;
+import fr.jmmc.oitools.model.OIFitsLoader;
+import fr.jmmc.oitools.model.OIVis2;
+import fr.jmmc.oitools.model.OIWavelength;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the compiled expression cache of JELEval
+ */
+public class JELEvalTest extends JUnitBaseTest {
+
+    private final static String COLUMN_SNR = "SNR_TEST";
+    private final static String COLUMN_SNR_EXPR = "abs(" + OIFitsConstants.COLUMN_EFF_WAVE + " / "
+            + OIFitsConstants.COLUMN_EFF_BAND + ") * " + OIFitsConstants.COLUMN_MJD;
+
+    @Test
+    public void compiledExpressionCache() throws Exception {
+        final JELEval eval = new JELEval();
+
+        final List<OIData> oiDatas = new ArrayList<OIData>();
+        for (String f : getFitsFiles(new File(TEST_DIR_OIFITS))) {
+            final OIFitsFile oiFitsFile = OIFitsLoader.loadOIFits(f);
+            oiDatas.addAll(oiFitsFile.getOiDataList());
+        }
+
+        final List<double[][]> results = new ArrayList<double[][]>(oiDatas.size());
+        for (OIData oiData : oiDatas) {
+            results.add(eval.eval(oiData, COLUMN_SNR, COLUMN_SNR_EXPR, false));
+        }
+        final long misses = eval.getCacheMisses();
+
+        logger.log(Level.INFO, "compiledExpressionCache: {0} tables: {1} hits / {2} misses",
+                new Object[]{oiDatas.size(), eval.getCacheHits(), misses});
+
+        // compiled once per column name signature (table type and version):
+        Assert.assertTrue("no cache miss", misses != 0);
+        Assert.assertEquals(oiDatas.size(), eval.getCacheHits() + misses);
+        Assert.assertTrue("too many compilations", misses < oiDatas.size());
+
+        // same results using cached compiled expressions:
+        for (int i = 0; i < oiDatas.size(); i++) {
+            Assert.assertArrayEquals(results.get(i), eval.eval(oiDatas.get(i), COLUMN_SNR, COLUMN_SNR_EXPR, false));
+        }
+        Assert.assertEquals(misses, eval.getCacheMisses());
+
+        eval.clearCache();
+        Assert.assertEquals(0L, eval.getCacheHits());
+        Assert.assertEquals(0L, eval.getCacheMisses());
+    }
+
+    @Test
+    public void concurrentCompilation() throws Exception {
+        final OIFitsFile oiFitsFile = OIFitsLoader.loadOIFits(getFitsFiles(new File(TEST_DIR_OIFITS)).get(0));
+        final OIData oiData = oiFitsFile.getOiDataList().get(0);
+
+        final JELEval eval = new JELEval();
+        final int nTasks = 64;
+
+        final List<Callable<double[][]>> tasks = new ArrayList<Callable<double[][]>>(nTasks);
+        for (int i = 0; i < nTasks; i++) {
+            tasks.add(new Callable<double[][]>() {
+                @Override
+                public double[][] call() {
+                    return eval.eval(oiData, COLUMN_SNR, COLUMN_SNR_EXPR, false);
+                }
+            });
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (Future<double[][]> future : executor.invokeAll(tasks)) {
+                Assert.assertNotNull(future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        // compiled once:
+        Assert.assertEquals(1L, eval.getCacheMisses());
+        Assert.assertEquals(nTasks - 1L, eval.getCacheHits());
+    }
+
+    @Test
+    public void lruEviction() throws Exception {
+        final OIFitsFile oiFitsFile = OIFitsLoader.loadOIFits(getFitsFiles(new File(TEST_DIR_OIFITS)).get(0));
+        final OIData oiData = oiFitsFile.getOiDataList().get(0);
+
+        final JELEval eval = new JELEval();
+        final String hotExpr = OIFitsConstants.COLUMN_MJD + " + 0";
+
+        // fill the cache past its maximum size (256) while using the same expression between others:
+        final int nExprs = 300;
+        for (int i = 1; i <= nExprs; i++) {
+            eval.eval(oiData, COLUMN_SNR, hotExpr, true);
+            eval.eval(oiData, COLUMN_SNR, OIFitsConstants.COLUMN_MJD + " + " + i, true);
+        }
+        Assert.assertEquals(nExprs + 1L, eval.getCacheMisses());
+
+        // most recently used expression kept:
+        eval.eval(oiData, COLUMN_SNR, hotExpr, true);
+        Assert.assertEquals(nExprs + 1L, eval.getCacheMisses());
+
+        // least recently used expression evicted:
+        eval.eval(oiData, COLUMN_SNR, OIFitsConstants.COLUMN_MJD + " + 1", true);
+        Assert.assertEquals(nExprs + 2L, eval.getCacheMisses());
+    }
+
+    @Test
+    public void parallelBroadcastEval() {
+        // large table to use the parallel evaluation:
+        final int nRows = 20000;
+        final int nWave = 16;
+
+        final OIFitsFile oiFitsFile = new OIFitsFile(OIFitsStandard.VERSION_1);
+
+        final OIWavelength waves = new OIWavelength(oiFitsFile, nWave);
+        waves.setInsName("INS");
+        for (int i = 0; i < nWave; i++) {
+            waves.getEffWave()[i] = 1.5E-6f + i * 1E-8f;
+            waves.getEffBand()[i] = 1E-8f;
+        }
+        oiFitsFile.addOiTable(waves);
+
+        final OIVis2 vis2 = new OIVis2(oiFitsFile, "INS", nRows);
+        for (int i = 0; i < nRows; i++) {
+            vis2.getMJD()[i] = 57000.0 + i;
+            vis2.getUCoord()[i] = i;
+            for (int j = 0; j < nWave; j++) {
+                vis2.getVis2Data()[i][j] = i + 0.5 * j;
+                vis2.getVis2Err()[i][j] = 0.5;
+            }
+        }
+        oiFitsFile.addOiTable(vis2);
+
+        final JELEval eval = new JELEval();
+
+        // 1D expression (broadcast along wavelengths):
+        final double[][] mjd = eval.eval(vis2, COLUMN_SNR, "2 * " + OIFitsConstants.COLUMN_MJD, false);
+        Assert.assertEquals(nRows, mjd.length);
+        for (int i = 0; i < nRows; i++) {
+            for (int j = 0; j < nWave; j++) {
+                Assert.assertEquals(2.0 * (57000.0 + i), mjd[i][j], 0.0);
+            }
+        }
+
+        // 1D expression calling a state dependent function (not broadcast):
+        final double[][] rnd = eval.eval(vis2, COLUMN_SNR, OIFitsConstants.COLUMN_MJD + " + random()", false);
+        int nSame = 0;
+        for (int i = 0; i < nRows; i++) {
+            for (int j = 1; j < nWave; j++) {
+                if (rnd[i][j] == rnd[i][0]) {
+                    nSame++;
+                }
+            }
+        }
+        Assert.assertTrue("random values broadcast", nSame < nRows);
+
+        // 2D expression:
+        final double[][] snr = eval.eval(vis2, COLUMN_SNR,
+                OIFitsConstants.COLUMN_VIS2DATA + " / " + OIFitsConstants.COLUMN_VIS2ERR + " + " + OIFitsConstants.COLUMN_UCOORD, false);
+        for (int i = 0; i < nRows; i++) {
+            for (int j = 0; j < nWave; j++) {
+                Assert.assertEquals((i + 0.5 * j) / 0.5 + i, snr[i][j], 0.0);
+            }
+        }
+    }
+}
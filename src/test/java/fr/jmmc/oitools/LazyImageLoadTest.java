@@ -0,0 +1,143 @@
+/* 
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools;
+
+import fr.jmmc.oitools.image.FitsImage;
+import fr.jmmc.oitools.image.FitsImageFile;
+import fr.jmmc.oitools.image.FitsImageHDU;
+import fr.jmmc.oitools.image.FitsImageLoader;
+import fr.nom.tam.fits.BasicHDU;
+import fr.nom.tam.fits.Fits;
+import fr.nom.tam.util.ArrayFuncs;
+import fr.nom.tam.util.BufferedFile;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Compare Fits images and cubes loaded in lazy mode (planes read on demand) with the default (eager) mode
+ */
+public class LazyImageLoadTest extends JUnitBaseTest {
+
+    private final static int NB_PLANES = 5;
+
+    @Test
+    public void compareLazyEager() throws Exception {
+        final List<String> fileLocations = new ArrayList<String>();
+        fileLocations.addAll(getFitsFiles(new File(TEST_DIR_FITS)));
+        fileLocations.addAll(getFitsFiles(new File(TEST_DIR + "oimg/")));
+        fileLocations.add(createCube("lazy_cube_short.fits", false));
+        fileLocations.add(createCube("lazy_cube_float.fits", true));
+
+        int nLazy = 0;
+
+        for (String f : fileLocations) {
+            final FitsImageFile eagerFile = FitsImageLoader.load(f, false, false);
+
+            for (int maxResidentPlanes : new int[]{0, 1}) {
+                final FitsImageFile lazyFile = FitsImageLoader.load(f, false, false, true, maxResidentPlanes);
+
+                Assert.assertEquals(f, eagerFile.getImageHDUCount(), lazyFile.getImageHDUCount());
+
+                for (int i = 0; i < eagerFile.getImageHDUCount(); i++) {
+                    final FitsImageHDU eagerHDU = eagerFile.getFitsImageHDUs().get(i);
+                    final FitsImageHDU lazyHDU = lazyFile.getFitsImageHDUs().get(i);
+
+                    Assert.assertEquals(f, eagerHDU.getImageCount(), lazyHDU.getImageCount());
+                    Assert.assertEquals(f, eagerHDU.getChecksum(), lazyHDU.getChecksum());
+
+                    // read planes twice (reload evicted planes):
+                    for (int pass = 0; pass < 2; pass++) {
+                        for (int j = 0; j < eagerHDU.getImageCount(); j++) {
+                            final FitsImage eagerImage = eagerHDU.getFitsImages().get(j);
+                            final FitsImage lazyImage = lazyHDU.getFitsImages().get(j);
+
+                            Assert.assertTrue(f, lazyImage.isLazy());
+                            Assert.assertEquals(f, eagerImage.toString(), lazyImage.toString());
+                            Assert.assertTrue(f + ": " + lazyImage.getFitsImageIdentifier(),
+                                    ArrayFuncs.arrayEquals(eagerImage.getData(), lazyImage.getData()));
+                            nLazy++;
+                        }
+                    }
+                }
+            }
+        }
+        logger.log(Level.INFO, "compareLazyEager: {0} lazy images", nLazy);
+        Assert.assertTrue("no cube", nLazy >= 4 * NB_PLANES);
+    }
+
+    /**
+     * Create a Fits cube (NB_PLANES planes) with BSCALE / BZERO keywords for integer values
+     * @param fileName file name
+     * @param floats true to use float values
+     * @return absolute file path
+     */
+    private static String createCube(final String fileName, final boolean floats) throws Exception {
+        final int nRows = 31;
+        final int nCols = 17;
+
+        final Object cube;
+        if (floats) {
+            final float[][][] fCube = new float[NB_PLANES][nRows][nCols];
+            for (int k = 0; k < NB_PLANES; k++) {
+                for (int j = 0; j < nRows; j++) {
+                    for (int i = 0; i < nCols; i++) {
+                        fCube[k][j][i] = (float) Math.sin(0.1 * k + 0.3 * j + 0.7 * i);
+                    }
+                }
+            }
+            cube = fCube;
+        } else {
+            final short[][][] sCube = new short[NB_PLANES][nRows][nCols];
+            for (int k = 0; k < NB_PLANES; k++) {
+                for (int j = 0; j < nRows; j++) {
+                    for (int i = 0; i < nCols; i++) {
+                        sCube[k][j][i] = (short) (1000 * k + 31 * j - 7 * i);
+                    }
+                }
+            }
+            cube = sCube;
+        }
+
+        final BasicHDU hdu = Fits.makeHDU(cube);
+        if (!floats) {
+            hdu.addValue("BSCALE", 0.5, "");
+            hdu.addValue("BZERO", 100.0, "");
+        }
+        hdu.addValue("CDELT1", 1e-9, "");
+        hdu.addValue("CDELT2", 1e-9, "");
+
+        final String absFilePath = new File(TEST_DIR_TEST, fileName).getAbsolutePath();
+
+        final Fits fits = new Fits();
+        fits.addHDU(hdu);
+
+        final BufferedFile bf = new BufferedFile(absFilePath, "rw");
+        try {
+            fits.write(bf);
+        } finally {
+            bf.close();
+        }
+        return absFilePath;
+    }
+}
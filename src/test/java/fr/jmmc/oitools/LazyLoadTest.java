@@ -0,0 +1,174 @@
+/*
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools;
+
+import fr.jmmc.oitools.fits.LazyColumn;
+import fr.jmmc.oitools.meta.ColumnMeta;
+import fr.jmmc.oitools.model.OIData;
+import fr.jmmc.oitools.model.OIFitsChecker;
+import fr.jmmc.oitools.model.OIFitsFile;
+import fr.jmmc.oitools.model.OIFitsLoader;
+import fr.jmmc.oitools.model.OITable;
+import fr.nom.tam.fits.TruncatedFileException;
+import fr.nom.tam.util.ArrayFuncs;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Compare OIFits files loaded in lazy mode (columns read on demand) with the default (eager) mode
+ */
+public class LazyLoadTest extends JUnitBaseTest {
+
+    @Test
+    public void compareLazyEager() throws Exception {
+        final List<String> fileLocations = getFitsFiles(new File(TEST_DIR_OIFITS));
+
+        int nLazy = 0;
+        int nUnread = 0;
+
+        for (String f : fileLocations) {
+            final OIFitsFile eagerFile = OIFitsLoader.loadOIFits(null, new OIFitsChecker(), f, false, false, false);
+            eagerFile.analyze();
+
+            for (boolean mapped : new boolean[]{false, true}) {
+                final OIFitsFile lazyFile = OIFitsLoader.loadOIFits(null, new OIFitsChecker(), f, false, mapped, true);
+
+                final List<OITable> lazyTables = lazyFile.getOITableList();
+                for (OITable lazyTable : lazyTables) {
+                    for (ColumnMeta column : lazyTable.getColumnDescCollection()) {
+                        if (!lazyTable.isColumnLoaded(column.getName())) {
+                            nLazy++;
+                        }
+                    }
+                }
+
+                // granules only need a few columns:
+                lazyFile.analyze();
+                Assert.assertEquals(f, eagerFile.getOiDataPerGranule().keySet(), lazyFile.getOiDataPerGranule().keySet());
+
+                for (OITable lazyTable : lazyTables) {
+                    for (ColumnMeta column : lazyTable.getColumnDescCollection()) {
+                        if (!lazyTable.isColumnLoaded(column.getName())) {
+                            nUnread++;
+                        }
+                    }
+                }
+
+                // lazy values are fixed (*ERR) like the data validation (skipped in lazy mode):
+
+                final List<OITable> eagerTables = eagerFile.getOITableList();
+                Assert.assertEquals(f, eagerTables.size(), lazyTables.size());
+
+                for (int i = 0; i < eagerTables.size(); i++) {
+                    final OITable eagerTable = eagerTables.get(i);
+                    final OITable lazyTable = lazyTables.get(i);
+
+                    for (ColumnMeta column : eagerTable.getColumnDescCollection()) {
+                        final String name = column.getName();
+                        Assert.assertTrue(f + ": " + name,
+                                ArrayFuncs.arrayEquals(eagerTable.getColumnValue(name), lazyTable.getColumnValue(name)));
+                    }
+                    // lazy values are resolved:
+                    for (Object value : lazyTable.getColumnsValue().values()) {
+                        Assert.assertFalse(f, value instanceof LazyColumn);
+                    }
+                }
+            }
+        }
+        logger.log(Level.INFO, "compareLazyEager: {0} lazy columns ({1} unread after analyze)", new Object[]{nLazy, nUnread});
+        Assert.assertTrue("no lazy column", nLazy != 0);
+        Assert.assertTrue("all lazy columns read by analyze", nUnread != 0);
+    }
+
+    @Test
+    public void checkStructure() throws Exception {
+        final List<String> fileLocations = getFitsFiles(new File(TEST_DIR_OIFITS));
+
+        int nDataFailures = 0;
+
+        for (String f : fileLocations) {
+            final OIFitsChecker eagerChecker = new OIFitsChecker();
+            OIFitsLoader.loadOIFits(null, eagerChecker, f, false, false, false);
+
+            final OIFitsChecker lazyChecker = new OIFitsChecker();
+            final OIFitsFile lazyFile = OIFitsLoader.loadOIFits(null, lazyChecker, f, false, false, true);
+
+            // keywords, table presence and cross references are checked in lazy mode (same failures):
+            final Set<String> eagerFailures = new HashSet<String>(Arrays.asList(eagerChecker.getFailuresAsString().split("\n")));
+
+            for (String failure : lazyChecker.getFailuresAsString().split("\n")) {
+                Assert.assertTrue(f + ": " + failure, eagerFailures.contains(failure));
+
+                // failures on keywords of data tables (not reported while loading):
+                final String[] cells = failure.split("\t");
+                if (cells.length > 5) {
+                    for (OIData oiData : lazyFile.getOiDataList()) {
+                        if (cells[3].equals(oiData.getExtName()) && cells[4].equals(Integer.toString(oiData.getExtNb()))
+                                && (oiData.getKeywordsDesc(cells[5]) != null)) {
+                            nDataFailures++;
+                        }
+                    }
+                }
+            }
+        }
+        logger.log(Level.INFO, "checkStructure: {0} failures on data table keywords", nDataFailures);
+        Assert.assertTrue("no failure on data table keywords", nDataFailures != 0);
+    }
+
+    @Test
+    public void truncatedFile() throws Exception {
+        final File src = new File(TEST_DIR_OIFITS, "2008-Contest_Binary.oifits");
+        final File truncated = new File(TEST_DIR_TEST, "truncated-" + src.getName());
+
+        Files.copy(src.toPath(), truncated.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        try {
+            final OIFitsFile lazyFile = OIFitsLoader.loadOIFits(null, new OIFitsChecker(), truncated.getAbsolutePath(), false, false, true);
+
+            // truncate the file (last table data) once loaded:
+            final RandomAccessFile raf = new RandomAccessFile(truncated, "rw");
+            try {
+                raf.setLength(raf.length() - 2 * 2880);
+            } finally {
+                raf.close();
+            }
+
+            final List<OIData> oiDatas = lazyFile.getOiDataList();
+            final OIData oiData = oiDatas.get(oiDatas.size() - 1);
+            try {
+                oiData.getColumnsValue();
+                Assert.fail("truncated column read");
+            } catch (IllegalStateException ise) {
+                logger.log(Level.INFO, "truncatedFile: {0}", ise.getCause().getMessage());
+                Assert.assertTrue(ise.getCause().toString(), ise.getCause() instanceof TruncatedFileException);
+            }
+        } finally {
+            truncated.delete();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools;
+
+import fr.jmmc.oitools.model.OIFitsChecker;
+import fr.jmmc.oitools.model.OIFitsCollection;
+import fr.jmmc.oitools.model.OIFitsFile;
+import fr.nom.tam.fits.FitsException;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Compare the serial and parallel loading of the OIFits collection
+ */
+public class LoadOIFitsCollectionTest extends JUnitBaseTest {
+
+    private static final int N_THREADS = 4;
+
+    @Test
+    public void compareSerialParallel() throws IOException, FitsException {
+        final List<String> fileLocations = getFitsFiles(new File(TEST_DIR_OIFITS));
+
+        final OIFitsChecker serialChecker = new OIFitsChecker();
+        final OIFitsCollection serial = OIFitsCollection.create(serialChecker, fileLocations, 1);
+
+        final OIFitsChecker parallelChecker = new OIFitsChecker();
+        final OIFitsCollection parallel = OIFitsCollection.create(parallelChecker, fileLocations, N_THREADS);
+
+        logger.log(Level.INFO, "parallel validation results:\n{0}", parallelChecker.getCheckStatus());
+
+        Assert.assertEquals(getFilePaths(serial), getFilePaths(parallel));
+        Assert.assertEquals(serial.getSortedGranules().toString(), parallel.getSortedGranules().toString());
+
+        Assert.assertEquals(serialChecker.getCheckReport(), parallelChecker.getCheckReport());
+        Assert.assertEquals(serialChecker.getFailuresAsXML(), parallelChecker.getFailuresAsXML());
+    }
+
+    private static List<String> getFilePaths(final OIFitsCollection oiFitsCollection) {
+        final List<String> paths = new ArrayList<String>(oiFitsCollection.size());
+        for (OIFitsFile oiFitsFile : oiFitsCollection.getSortedOIFitsFiles()) {
+            paths.add(oiFitsFile.getAbsoluteFilePath());
+        }
+        return paths;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools;
+
+import fr.jmmc.oitools.meta.ColumnMeta;
+import fr.jmmc.oitools.model.OIFitsChecker;
+import fr.jmmc.oitools.model.OIFitsFile;
+import fr.jmmc.oitools.model.OIFitsLoader;
+import fr.jmmc.oitools.model.OITable;
+import fr.nom.tam.util.ArrayFuncs;
+import fr.nom.tam.util.MappedFile;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.logging.Level;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Compare OIFits files loaded using memory mapped I/O (MappedFile) with the default (buffered) I/O
+ */
+public class MappedLoadTest extends JUnitBaseTest {
+
+    @Test
+    public void readMappedFile() throws IOException {
+        final File file = File.createTempFile("MappedLoadTest", ".bin");
+        try {
+            final DataOutputStream out = new DataOutputStream(new FileOutputStream(file));
+            try {
+                out.writeInt(3);
+                for (int i = 0; i < 100; i++) {
+                    out.writeDouble(i * 0.5);
+                }
+                out.writeShort(-2);
+                out.writeFloat(1.5f);
+            } finally {
+                out.close();
+            }
+
+            final MappedFile in = new MappedFile(file);
+            try {
+                Assert.assertEquals(3, in.readInt());
+                final double[] d = new double[100];
+                Assert.assertEquals(800, in.read(d, 0, 100));
+                for (int i = 0; i < 100; i++) {
+                    Assert.assertEquals(i * 0.5, d[i], 0.0);
+                }
+                Assert.assertEquals(-2, in.readShort());
+
+                // partial read at the end of file:
+                final float[] f = new float[4];
+                Assert.assertEquals(4, in.read(f));
+                Assert.assertEquals(1.5f, f[0], 0f);
+                Assert.assertEquals(file.length(), in.getFilePointer());
+
+                try {
+                    in.readByte();
+                    Assert.fail("EOFException expected");
+                } catch (EOFException eofe) {
+                    // expected
+                }
+
+                in.seek(4L + 8L * 99L);
+                Assert.assertEquals(49.5, in.readDouble(), 0.0);
+            } finally {
+                in.close();
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void compareMappedBuffered() throws Exception {
+        final List<String> fileLocations = getFitsFiles(new File(TEST_DIR_OIFITS));
+
+        for (String f : fileLocations) {
+            final OIFitsChecker bufferedChecker = new OIFitsChecker();
+            final OIFitsFile bufferedFile = OIFitsLoader.loadOIFits(null, bufferedChecker, f, false, false);
+
+            final OIFitsChecker mappedChecker = new OIFitsChecker();
+            final OIFitsFile mappedFile = OIFitsLoader.loadOIFits(null, mappedChecker, f, false, true);
+
+            Assert.assertEquals(f, bufferedChecker.getCheckReport(), mappedChecker.getCheckReport());
+
+            final List<OITable> bufferedTables = bufferedFile.getOITableList();
+            final List<OITable> mappedTables = mappedFile.getOITableList();
+            Assert.assertEquals(f, bufferedTables.size(), mappedTables.size());
+
+            for (int i = 0; i < bufferedTables.size(); i++) {
+                final OITable bufferedTable = bufferedTables.get(i);
+                final OITable mappedTable = mappedTables.get(i);
+
+                Assert.assertEquals(f, bufferedTable.getKeywordsValue(), mappedTable.getKeywordsValue());
+
+                for (ColumnMeta column : bufferedTable.getColumnDescCollection()) {
+                    final String name = column.getName();
+                    Assert.assertTrue(f + ": " + name,
+                            ArrayFuncs.arrayEquals(bufferedTable.getColumnValue(name), mappedTable.getColumnValue(name)));
+                }
+            }
+        }
+        logger.log(Level.INFO, "compareMappedBuffered: {0} files", fileLocations.size());
+    }
+}
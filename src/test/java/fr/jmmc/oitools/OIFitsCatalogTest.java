@@ -0,0 +1,114 @@
+/* 
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools;
+
+import fr.jmmc.oitools.model.CsvOutputVisitor;
+import fr.jmmc.oitools.model.OIFitsCatalog;
+import fr.jmmc.oitools.model.OIFitsChecker;
+import fr.jmmc.oitools.model.OIFitsCollection;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Compare listings of OIFits collections created from loaded files and from the persistent catalog
+ */
+public class OIFitsCatalogTest extends JUnitBaseTest {
+
+    /** catalog and data directories (deleted after each test so tests can run again) */
+    @Rule
+    public final TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    @Test
+    public void compareListings() throws Exception {
+        final List<String> fileLocations = getFitsFiles(new File(TEST_DIR_OIFITS));
+
+        final OIFitsCollection loaded = OIFitsCollection.create(new OIFitsChecker(), fileLocations, 1, true);
+
+        final OIFitsCatalog catalog = new OIFitsCatalog(new File(tmpFolder.getRoot(), "catalog"));
+
+        // first run: all files are loaded and stored:
+        final OIFitsCollection created = catalog.createCollection(new OIFitsChecker(), fileLocations, 2);
+        Assert.assertEquals(fileLocations.size(), catalog.getNbLoaded());
+
+        // second run: all entries are reused:
+        final OIFitsCollection restored = catalog.createCollection(new OIFitsChecker(), fileLocations, 2);
+        Assert.assertEquals(fileLocations.size(), catalog.getNbReused());
+        Assert.assertEquals(0, catalog.getNbLoaded());
+
+        final String metadata = getMetadata(loaded);
+        final String baselines = getBaselines(loaded);
+        logger.log(Level.INFO, "metadata:\n{0}", metadata);
+
+        Assert.assertEquals(metadata, getMetadata(created));
+        Assert.assertEquals(metadata, getMetadata(restored));
+        Assert.assertEquals(baselines, getBaselines(created));
+        Assert.assertEquals(baselines, getBaselines(restored));
+    }
+
+    @Test
+    public void invalidateEntries() throws Exception {
+        final List<String> fileLocations = getFitsFiles(new File(TEST_DIR_OIFITS));
+
+        final File dataDir = tmpFolder.newFolder("catalog-data");
+
+        final File file = new File(dataDir, "copy.oifits");
+        Files.copy(new File(fileLocations.get(0)).toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        final OIFitsCatalog catalog = new OIFitsCatalog(new File(dataDir, "catalog"));
+        final List<String> locations = Arrays.asList(file.getAbsolutePath());
+
+        catalog.createCollection(null, locations, 1);
+        Assert.assertEquals(1, catalog.getNbLoaded());
+
+        // touched file (same content):
+        Assert.assertTrue(file.setLastModified(file.lastModified() - 10000L));
+        catalog.createCollection(null, locations, 1);
+        Assert.assertEquals(1, catalog.getNbReused());
+
+        // changed file:
+        Files.copy(new File(fileLocations.get(1)).toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        final OIFitsCollection changed = catalog.createCollection(null, locations, 1);
+        Assert.assertEquals(1, catalog.getNbLoaded());
+
+        Assert.assertEquals(getMetadata(OIFitsCollection.create(null, locations, 1, true)), getMetadata(changed));
+    }
+
+    private static String getMetadata(final OIFitsCollection oiFitsCollection) {
+        final CsvOutputVisitor out = new CsvOutputVisitor(false);
+        out.enterMetadata();
+        OIFitsCollectionViewer.targetMetadata(oiFitsCollection, out);
+        out.exitMetadata();
+        return out.toString();
+    }
+
+    private static String getBaselines(final OIFitsCollection oiFitsCollection) {
+        final StringBuilder sb = new StringBuilder(1024);
+        OIFitsCollectionViewer.baselinesPerGranule(oiFitsCollection, sb);
+        return sb.toString();
+    }
+}
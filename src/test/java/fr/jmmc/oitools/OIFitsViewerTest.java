@@ -19,11 +19,17 @@
  ******************************************************************************/
 package fr.jmmc.oitools;
 
+import fr.jmmc.oitools.model.CsvOutputVisitor;
+import fr.jmmc.oitools.model.OIFitsFile;
+import fr.jmmc.oitools.model.OIFitsLoader;
+import fr.jmmc.oitools.model.OutputVisitor;
+import fr.jmmc.oitools.model.XmlOutputVisitor;
 import fr.jmmc.oitools.util.FileUtils;
 import fr.nom.tam.fits.FitsException;
 import java.io.File;
 import java.io.IOException;
 import java.io.StringReader;
+import java.io.StringWriter;
 import java.util.logging.Level;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -91,6 +97,66 @@ public class OIFitsViewerTest extends AbstractFileBaseTest {
         testProcessFiles("dumpFormattedXML", "-formatted.xml", viewer);
     }
 
+    @Test
+    public void streamOutput() throws IOException, FitsException {
+        for (boolean[] options : new boolean[][]{{true, false, false}, {true, false, true}, {false, true, false}, {false, false, false}}) {
+            // xml, tsv, format, verbose:
+            final OIFitsViewer viewer = new OIFitsViewer(options[0], options[1], options[2], true);
+
+            for (String fileName : OIFITS_FILENAME) {
+                final String expected = viewer.process(TEST_DIR_OIFITS + fileName);
+
+                final int[] maxWrite = new int[1];
+                final StringWriter sw = new StringWriter() {
+                    @Override
+                    public void write(final char[] cbuf, final int off, final int len) {
+                        maxWrite[0] = Math.max(maxWrite[0], len);
+                        super.write(cbuf, off, len);
+                    }
+                };
+                viewer.process(TEST_DIR_OIFITS + fileName, sw);
+
+                Assert.assertEquals(fileName, expected, sw.toString());
+                Assert.assertTrue(fileName, maxWrite[0] <= 8 * 1024);
+            }
+        }
+    }
+
+    @Test
+    public void streamBoundedBuffer() throws IOException, FitsException {
+        int maxOutput = 0;
+
+        for (String fileName : OIFITS_FILENAME) {
+            final OIFitsFile oiFitsFile = OIFitsLoader.loadOIFits(TEST_DIR_OIFITS + fileName);
+
+            for (boolean format : new boolean[]{false, true}) {
+                final XmlOutputVisitor xmlVisitor = new XmlOutputVisitor(format, true);
+                final StringWriter sw = new StringWriter();
+                xmlVisitor.setOutput(sw);
+                oiFitsFile.accept(xmlVisitor);
+                xmlVisitor.flush();
+
+                Assert.assertEquals(fileName, XmlOutputVisitor.getXmlDesc(oiFitsFile, format, true), sw.toString());
+                Assert.assertTrue(fileName + ": " + xmlVisitor.getMaxBufferLength(),
+                        xmlVisitor.getMaxBufferLength() <= OutputVisitor.FLUSH_THRESHOLD);
+                maxOutput = Math.max(maxOutput, sw.getBuffer().length());
+            }
+
+            final CsvOutputVisitor csvVisitor = new CsvOutputVisitor(true);
+            final StringWriter sw = new StringWriter();
+            csvVisitor.setOutput(sw);
+            oiFitsFile.accept(csvVisitor);
+            csvVisitor.flush();
+
+            Assert.assertEquals(fileName, CsvOutputVisitor.getCsvDesc(oiFitsFile, true), sw.toString());
+            Assert.assertTrue(fileName + ": " + csvVisitor.getMaxBufferLength(),
+                    csvVisitor.getMaxBufferLength() <= OutputVisitor.FLUSH_THRESHOLD);
+        }
+        logger.log(Level.INFO, "streamBoundedBuffer: max output = {0} chars", maxOutput);
+        // verbose dumps are much larger than the buffer:
+        Assert.assertTrue("output too small: " + maxOutput, maxOutput > 4 * OutputVisitor.FLUSH_THRESHOLD);
+    }
+
     @Test
     public void existDB_check() throws IOException, FitsException {
         for (String fileName : OIFITS_FILENAME) {
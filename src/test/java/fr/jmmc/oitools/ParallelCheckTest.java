@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools;
+
+import fr.jmmc.oitools.model.OIFitsChecker;
+import fr.jmmc.oitools.model.OIFitsFile;
+import fr.jmmc.oitools.model.OIFitsLoader;
+import java.io.File;
+import java.util.logging.Level;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Compare validation reports of OIFits files checked in serial and parallel modes
+ */
+public class ParallelCheckTest extends JUnitBaseTest {
+
+    @Test
+    public void compareSerialParallel() throws Exception {
+        int nFailures = 0;
+
+        for (String f : getFitsFiles(new File(TEST_DIR_OIFITS))) {
+            // lazy mode: no validation while loading:
+            final OIFitsFile serialFile = OIFitsLoader.loadOIFits(null, new OIFitsChecker(), f, false, false, true);
+            final OIFitsFile parallelFile = OIFitsLoader.loadOIFits(null, new OIFitsChecker(), f, false, false, true);
+
+            final OIFitsChecker serialChecker = new OIFitsChecker();
+            serialFile.check(serialChecker, false);
+
+            final OIFitsChecker parallelChecker = new OIFitsChecker();
+            parallelFile.check(parallelChecker, true);
+
+            Assert.assertEquals(f, serialChecker.getCheckReport(), parallelChecker.getCheckReport());
+            Assert.assertEquals(f, serialChecker.getFailuresAsXML(), parallelChecker.getFailuresAsXML());
+
+            nFailures += serialChecker.getNbSeveres() + serialChecker.getNbWarnings();
+        }
+        logger.log(Level.INFO, "compareSerialParallel: {0} failures", nFailures);
+        Assert.assertTrue("no failure", nFailures != 0);
+    }
+
+    @Test
+    public void compareLoadParallel() throws Exception {
+        for (String f : getFitsFiles(new File(TEST_DIR_OIFITS))) {
+            final OIFitsChecker serialChecker = new OIFitsChecker();
+            OIFitsLoader.loadOIFits(serialChecker, f);
+
+            // validation while loading in parallel:
+            final OIFitsChecker parallelChecker = new OIFitsChecker();
+            parallelChecker.setParallelCheck(true);
+            OIFitsLoader.loadOIFits(parallelChecker, f);
+
+            Assert.assertEquals(f, serialChecker.getCheckReport(), parallelChecker.getCheckReport());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools;
+
+import fr.jmmc.oitools.processing.Resampler;
+import fr.jmmc.oitools.processing.Resampler.Filter;
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Resampler tests (double / float variants, serial / parallel modes)
+ */
+public class ResamplerTest extends JUnitBaseTest {
+
+    @Test
+    public void compareDoubleFloat() {
+        // small (serial) and large (parallel) images:
+        for (int size : new int[]{64, 300}) {
+            final double[][] srcD = new double[size][size];
+            final float[][] srcF = new float[size][size];
+
+            for (int y = 0; y < size; y++) {
+                for (int x = 0; x < size; x++) {
+                    srcF[y][x] = (float) (Math.sin(0.1 * x) * Math.cos(0.07 * y) + 0.001 * x);
+                    srcD[y][x] = srcF[y][x];
+                }
+            }
+
+            for (Filter filter : new Filter[]{Filter.FILTER_TRIANGLE, Filter.FILTER_MITCHELL, Filter.FILTER_LANCZOS3}) {
+                for (int dstSize : new int[]{size / 3, 2 * size + 1}) {
+                    final double[][] dstD = Resampler.filter(srcD, new double[dstSize][dstSize + 7], filter, false);
+                    final float[][] dstF = Resampler.filter(srcF, new float[dstSize][dstSize + 7], filter, false);
+
+                    // same contributors (cached):
+                    final double[][] dstD2 = Resampler.filter(srcD, new double[dstSize][dstSize + 7], filter, false);
+
+                    for (int y = 0; y < dstSize; y++) {
+                        Assert.assertArrayEquals(dstD[y], dstD2[y], 0.0);
+
+                        for (int x = 0; x < dstSize + 7; x++) {
+                            Assert.assertEquals(filter + " [" + x + ", " + y + "]", dstD[y][x], dstF[y][x], 1e-6);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void constantImage() {
+        // normalized weights: constant image remains constant:
+        final float[][] src = new float[400][300];
+        for (float[] row : src) {
+            Arrays.fill(row, 2.5f);
+        }
+        final float[][] dst = Resampler.filter(src, new float[517][211], Filter.FILTER_MITCHELL, true);
+
+        for (float[] row : dst) {
+            for (float value : row) {
+                Assert.assertEquals(2.5f, value, 1e-5f);
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/*******************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ******************************************************************************/
+package fr.jmmc.oitools;
+
+import fr.jmmc.oitools.model.ModelBase;
+import fr.jmmc.oitools.model.Target;
+import fr.jmmc.oitools.model.TargetManager;
+import fr.jmmc.oitools.util.CoordUtils;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Level;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the target matching (sky index) of TargetManager on clusters of targets
+ */
+public class TargetManagerTest extends JUnitBaseTest {
+
+    /** cluster radius (arcsec) smaller than half the default separation (1 arcsec) */
+    private final static double CLUSTER_RADIUS = 0.3;
+
+    @Test
+    public void matchClusters() {
+        final Random random = new Random(42L);
+
+        // cluster centers (far enough from each other) including poles and RA wrap:
+        final List<double[]> centers = new ArrayList<double[]>();
+        centers.add(new double[]{0.0, 0.0});
+        centers.add(new double[]{359.999, 0.0});
+        centers.add(new double[]{120.0, 90.0});
+        centers.add(new double[]{300.0, -89.9999});
+        centers.add(new double[]{-10.0, 45.0});
+        for (int i = 0; i < 2000; i++) {
+            centers.add(new double[]{360.0 * random.nextDouble(), 180.0 * random.nextDouble() - 90.0});
+        }
+
+        // clusters of 1 to 4 targets:
+        final List<Target> locals = new ArrayList<Target>();
+        final List<Integer> clusterOfLocal = new ArrayList<Integer>();
+        for (int c = 0; c < centers.size(); c++) {
+            final double[] center = centers.get(c);
+            final int n = 1 + random.nextInt(4);
+            for (int k = 0; k < n; k++) {
+                final double dDec = CLUSTER_RADIUS * CoordUtils.ARCSEC_IN_DEGREES * (2.0 * random.nextDouble() - 1.0) / 2.0;
+                final double dRa = CLUSTER_RADIUS * CoordUtils.ARCSEC_IN_DEGREES * (2.0 * random.nextDouble() - 1.0) / 2.0;
+                final double dec = Math.max(-90.0, Math.min(90.0, center[1] + dDec));
+                locals.add(createTarget("T" + c + "_" + k, center[0] + dRa, dec));
+                clusterOfLocal.add(c);
+            }
+        }
+        // undefined coordinates never match (except itself):
+        final Target undefined1 = createTarget("U1", Double.NaN, Double.NaN);
+        final Target undefined2 = createTarget("U2", Double.NaN, Double.NaN);
+
+        final TargetManager tm = TargetManager.newInstance();
+        tm.clear();
+
+        final long start = System.nanoTime();
+        for (Target local : locals) {
+            tm.register(local);
+        }
+        tm.register(undefined1);
+        tm.register(undefined2);
+
+        logger.log(Level.INFO, "matchClusters: {0} targets registered in {1} ms.",
+                new Object[]{locals.size(), 1e-6 * (System.nanoTime() - start)});
+
+        // Target.UNDEFINED + clusters + 2 undefined targets:
+        Assert.assertEquals(1 + centers.size() + 2, tm.getGlobalCount());
+
+        for (int i = 0; i < locals.size(); i++) {
+            final Target global = tm.getGlobal(locals.get(i));
+            Assert.assertNotNull(global);
+
+            // same global for all targets of the same cluster:
+            final int first = clusterOfLocal.indexOf(clusterOfLocal.get(i));
+            Assert.assertSame(locals.get(i).getTarget(), tm.getGlobal(locals.get(first)), global);
+            Assert.assertTrue(Target.MATCHER_LIKE.match(global, locals.get(i)));
+        }
+        Assert.assertNotSame(tm.getGlobal(undefined1), tm.getGlobal(undefined2));
+    }
+
+    private static Target createTarget(final String name, final double ra, final double dec) {
+        return new Target(name, ra, dec,
+                2000f, ModelBase.UNDEFINED_DBL, ModelBase.UNDEFINED_DBL,
+                ModelBase.UNDEFINED_DBL, ModelBase.UNDEFINED_STRING, ModelBase.UNDEFINED_STRING,
+                ModelBase.UNDEFINED_DBL, ModelBase.UNDEFINED_DBL, ModelBase.UNDEFINED_DBL, ModelBase.UNDEFINED_DBL,
+                ModelBase.UNDEFINED_FLOAT, ModelBase.UNDEFINED_FLOAT, ModelBase.UNDEFINED_STRING, ModelBase.UNDEFINED_STRING);
+    }
+}
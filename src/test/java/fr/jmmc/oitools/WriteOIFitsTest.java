@@ -24,12 +24,18 @@ import fr.jmmc.oitools.model.OIFitsLoader;
 import fr.jmmc.oitools.model.OIFitsWriter;
 import fr.jmmc.oitools.test.OITableUtils;
 import fr.jmmc.oitools.test.fits.TamFitsTest;
+import fr.nom.tam.fits.BasicHDU;
+import fr.nom.tam.fits.Fits;
 import fr.nom.tam.fits.FitsException;
+import fr.nom.tam.fits.Header;
 import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.logging.Level;
 import static junit.framework.Assert.fail;
+import org.junit.Assert;
 import org.junit.Test;
 
 /**
@@ -91,4 +97,69 @@ public class WriteOIFitsTest extends JUnitBaseTest {
             }
         }
     }
+
+    @Test
+    public void writeChecksumVerify() throws IOException, MalformedURLException, FitsException {
+        final File copyDir = new File(TEST_DIR_TEST_OIFITS);
+        copyDir.mkdirs();
+
+        for (String pathFile : getFitsFiles(new File(TEST_DIR_OIFITS))) {
+            final OIFitsFile srcOIFitsFile = OIFitsLoader.loadOIFits(pathFile);
+
+            final String fileTo = new File(copyDir, new File(pathFile).getName().replaceFirst("\\.", "-checksum.")).getAbsolutePath();
+
+            logger.log(Level.INFO, "fileTo: {0}", fileTo);
+
+            // checksums computed while writing:
+            OIFitsWriter.writeOIFits(fileTo, srcOIFitsFile, true);
+
+            final OIFitsFile destOIFitsFile = OIFitsLoader.loadOIFits(fileTo);
+            if (!OITableUtils.compareOIFitsFile(srcOIFitsFile, destOIFitsFile)) {
+                fail("Error compareOIFitsFile: " + pathFile);
+            }
+
+            // verify the checksum of every HDU (header + data bytes) is -0 (all ones):
+            final byte[] bytes = Files.readAllBytes(Paths.get(fileTo));
+            final Fits fits = new Fits(fileTo);
+            final BasicHDU[] hdus = fits.read();
+
+            int start = 0;
+            for (int i = 0; i < hdus.length; i++) {
+                final Header header = hdus[i].getHeader();
+                Assert.assertNotNull(fileTo, header.getStringValue("CHECKSUM"));
+                Assert.assertTrue(fileTo, header.containsKey("DATASUM"));
+
+                final int end = start + (int) (header.getSize() + header.getDataSize());
+
+                Assert.assertEquals(fileTo + " HDU#" + i, 0xFFFFFFFFL, checksum(bytes, start, end));
+                start = end;
+            }
+            Assert.assertEquals(fileTo, bytes.length, start);
+        }
+    }
+
+    /**
+     * Compute the 32-bit 1's complement checksum of the given bytes
+     * @param bytes bytes
+     * @param start start offset (multiple of 4)
+     * @param end end offset (multiple of 4)
+     * @return checksum
+     */
+    private static long checksum(final byte[] bytes, final int start, final int end) {
+        long hi = 0L;
+        long lo = 0L;
+        for (int i = start; i < end; i += 4) {
+            hi += ((bytes[i] & 0xff) << 8) | (bytes[i + 1] & 0xff);
+            lo += ((bytes[i + 2] & 0xff) << 8) | (bytes[i + 3] & 0xff);
+        }
+        long hicarry = hi >>> 16;
+        long locarry = lo >>> 16;
+        while (hicarry != 0 || locarry != 0) {
+            hi = (hi & 0xffffL) + locarry;
+            lo = (lo & 0xffffL) + hicarry;
+            hicarry = hi >>> 16;
+            locarry = lo >>> 16;
+        }
+        return (hi << 16) + lo;
+    }
 }
@@ -0,0 +1,174 @@
+/* 
+ * Copyright (C) 2018 CNRS - JMMC project ( http://www.jmmc.fr )
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/** *****************************************************************************
+ * JMMC project ( http://www.jmmc.fr ) - Copyright (C) CNRS.
+ ***************************************************************************** */
+package fr.jmmc.oitools.util.test;
+
+import fr.jmmc.oitools.JUnitBaseTest;
+import fr.jmmc.oitools.meta.ColumnMeta;
+import fr.jmmc.oitools.model.OIData;
+import fr.jmmc.oitools.model.OIFitsCollection;
+import fr.jmmc.oitools.model.OIFitsFile;
+import fr.jmmc.oitools.model.OIFitsLoader;
+import fr.jmmc.oitools.model.OIFitsWriter;
+import fr.jmmc.oitools.model.OITable;
+import fr.jmmc.oitools.model.range.Range;
+import fr.jmmc.oitools.processing.Merger;
+import fr.jmmc.oitools.processing.Selector;
+import fr.jmmc.oitools.util.OITableComparator;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Compare merge results written in streaming mode with the in-memory merge
+ */
+public class TestMergeStreaming extends JUnitBaseTest {
+
+    @Test
+    public void compareStreaming() throws Exception {
+        compare(null, "GRAVITY.2016-01-09T05-37-06_singlesci_calibrated.fits");
+
+        final Selector wlSelector = new Selector();
+        wlSelector.addFilter(Selector.FILTER_EFFWAVE, Arrays.asList(new Range(2.1E-6, 2.3E-6)));
+        compare(wlSelector, "GRAVITY.2016-01-09T05-37-06_singlesci_calibrated.fits");
+
+        compare(null, "2012-03-24_ALL_oiDataCalib.fits", "2009-11-eps_Aur-avg5.oifits", "NGC5128_2005.oifits");
+
+        // empty result: no file created
+        final Selector insSelector = new Selector();
+        insSelector.setInsModeUID("SPECTRO_SC");
+
+        final File output = new File(TEST_DIR_TEST + "merge_stream_empty.fits");
+        output.delete();
+        Assert.assertFalse(Merger.processAndWrite(createCollection("NGC5128_2005.oifits"), insSelector, null,
+                output.getAbsolutePath(), false));
+        Assert.assertFalse(output.exists());
+        Assert.assertEquals(0, countTempFiles());
+    }
+
+    @Test
+    public void compareStreamingLazy() throws Exception {
+        compare(true, null, "GRAVITY.2016-01-09T05-37-06_singlesci_calibrated.fits");
+
+        final Selector wlSelector = new Selector();
+        wlSelector.addFilter(Selector.FILTER_EFFWAVE, Arrays.asList(new Range(2.1E-6, 2.3E-6)));
+        compare(true, wlSelector, "GRAVITY.2016-01-09T05-37-06_singlesci_calibrated.fits");
+
+        compare(true, null, "2012-03-24_ALL_oiDataCalib.fits", "2009-11-eps_Aur-avg5.oifits", "NGC5128_2005.oifits");
+    }
+
+    @Test
+    public void failureLeavesNoFile() throws Exception {
+        // output path is a non-empty directory: the final rename fails
+        final File outDir = new File(TEST_DIR_TEST + "merge_stream_dir.fits");
+        outDir.mkdirs();
+        final File child = new File(outDir, "keep.txt");
+        child.createNewFile();
+        try {
+            Merger.processAndWrite(createCollection("NGC5128_2005.oifits"), null, null, outDir.getAbsolutePath(), false);
+            Assert.fail("IOException expected");
+        } catch (IOException ioe) {
+            logger.log(Level.INFO, "expected failure: {0}", ioe.toString());
+        } finally {
+            child.delete();
+            outDir.delete();
+        }
+        Assert.assertEquals(0, countTempFiles());
+    }
+
+    private static int countTempFiles() {
+        final File[] tmpFiles = new File(TEST_DIR_TEST).listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(final File dir, final String name) {
+                return name.startsWith("merge_stream") && name.endsWith(".tmp");
+            }
+        });
+        return (tmpFiles != null) ? tmpFiles.length : 0;
+    }
+
+    private static OIFitsCollection createCollection(final String... fileNames) throws Exception {
+        final OIFitsFile[] oiFitsFiles = new OIFitsFile[fileNames.length];
+        for (int i = 0; i < fileNames.length; i++) {
+            oiFitsFiles[i] = OIFitsLoader.loadOIFits(TEST_DIR_OIFITS + fileNames[i]);
+        }
+        return OIFitsCollection.create(oiFitsFiles);
+    }
+
+    private static OIFitsCollection createLazyCollection(final String... fileNames) throws Exception {
+        final List<String> fileLocations = new ArrayList<String>(fileNames.length);
+        for (String fileName : fileNames) {
+            fileLocations.add(TEST_DIR_OIFITS + fileName);
+        }
+        return OIFitsCollection.create(null, fileLocations, 1, true);
+    }
+
+    private static void compare(final Selector selector, final String... fileNames) throws Exception {
+        compare(false, selector, fileNames);
+    }
+
+    private static void compare(final boolean lazy, final Selector selector, final String... fileNames) throws Exception {
+        final String memPath = TEST_DIR_TEST + "merge_memory.fits";
+        final String streamPath = TEST_DIR_TEST + "merge_stream.fits";
+
+        final OIFitsFile merged = Merger.process(createCollection(fileNames), selector);
+        OIFitsWriter.writeOIFits(memPath, merged);
+
+        final OIFitsCollection streamCollection = (lazy) ? createLazyCollection(fileNames) : createCollection(fileNames);
+        Assert.assertTrue(Merger.processAndWrite(streamCollection, selector, null, streamPath, true));
+
+        if (lazy) {
+            // source column values read on demand are released once written:
+            int nLazy = 0;
+            for (OIData oiData : streamCollection.getAllOiDatas()) {
+                Assert.assertEquals(oiData.idToString(), 0, oiData.unloadColumnValues());
+
+                for (ColumnMeta column : oiData.getColumnDescCollection()) {
+                    if (!oiData.isColumnLoaded(column.getName())) {
+                        nLazy++;
+                    }
+                }
+            }
+            Assert.assertTrue("no lazy column", nLazy != 0);
+        }
+
+        final OIFitsFile memFile = OIFitsLoader.loadOIFits(memPath);
+        final OIFitsFile streamFile = OIFitsLoader.loadOIFits(streamPath);
+
+        final List<OITable> memTables = memFile.getOITableList();
+        final List<OITable> streamTables = streamFile.getOITableList();
+
+        Assert.assertEquals(memTables.size(), streamTables.size());
+
+        for (int i = 0; i < memTables.size(); i++) {
+            final OITable memTable = memTables.get(i);
+            final OITable streamTable = streamTables.get(i);
+
+            Assert.assertEquals(memTable.idToString(), streamTable.idToString());
+            Assert.assertTrue(memTable.idToString(), OITableComparator.STRICT_COMPARATOR.compareTable(memTable, streamTable));
+        }
+        Assert.assertEquals(memFile.getPrimaryImageHDU().getHeaderCards().size(),
+                streamFile.getPrimaryImageHDU().getHeaderCards().size() - 2); // CHECKSUM + DATASUM
+    }
+}
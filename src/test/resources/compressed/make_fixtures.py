@@ -0,0 +1,301 @@
+#!/usr/bin/env python3
+# -*- coding: utf-8 -*-
+"""
+Generate the tile-compressed FITS fixtures used by CompressedImageTest.
+
+The encoders below follow the cfitsio implementation of the FITS tiled image
+compression convention (ricecomp.c: fits_rcomp / fits_rcomp_short / fits_rcomp_byte,
+quantize.c: fits_quantize_float with SUBTRACTIVE_DITHER_1, imcompress.c: tiling,
+GZIP_1 big-endian pixels, fits_init_randoms), independently from the java codec.
+
+Each compressed file (rice_*.fits, gzip_*.fits) has an uncompressed reference
+image (ref_*.fits) holding the original pixels.
+
+Usage: python3 make_fixtures.py (writes files into the script directory)
+"""
+import gzip
+import math
+import os
+import random
+import struct
+
+N_RANDOM = 10000
+NULL_VALUE = -2147483647
+
+
+def fits_init_randoms():
+    """fits_init_randoms: float32 values in [0, 1)"""
+    a = 16807.0
+    m = 2147483647.0
+    seed = 1.0
+    values = []
+    for _ in range(N_RANDOM):
+        temp = a * seed
+        seed = temp - m * int(temp / m)
+        # (float) cast:
+        values.append(struct.unpack('>f', struct.pack('>f', seed / m))[0])
+    assert seed == 1043618065.0
+    return values
+
+
+RANDOMS = fits_init_randoms()
+
+
+class BitWriter(object):
+    def __init__(self):
+        self.bits = []
+
+    def output_nbits(self, value, nbits):
+        for i in range(nbits - 1, -1, -1):
+            self.bits.append((value >> i) & 1)
+
+    def output_unary(self, top):
+        self.bits.extend([0] * top)
+        self.bits.append(1)
+
+    def to_bytes(self):
+        bits = self.bits + [0] * ((8 - len(self.bits) % 8) % 8)
+        out = bytearray()
+        for i in range(0, len(bits), 8):
+            b = 0
+            for bit in bits[i:i + 8]:
+                b = (b << 1) | bit
+            out.append(b)
+        return bytes(out)
+
+
+def rice_compress(pixels, nblock, bytepix):
+    """fits_rcomp (bytepix=4), fits_rcomp_short (2) and fits_rcomp_byte (1)"""
+    fsbits, fsmax, bbits = {1: (3, 6, 8), 2: (4, 14, 16), 4: (5, 25, 32)}[bytepix]
+    mask = (1 << bbits) - 1
+    half = 1 << (bbits - 1)
+
+    def wrap(v):
+        # signed difference on bbits (C integer overflow):
+        v &= mask
+        return v - (1 << bbits) if v >= half else v
+
+    out = BitWriter()
+    out.output_nbits(pixels[0] & mask, bbits)
+    lastpix = pixels[0]
+    nx = len(pixels)
+    for i in range(0, nx, nblock):
+        block = pixels[i:i + nblock]
+        thisblock = len(block)
+        diff = []
+        pixelsum = 0.0
+        for nextpix in block:
+            pdiff = wrap(nextpix - lastpix)
+            d = (~(pdiff << 1)) & mask if pdiff < 0 else (pdiff << 1) & mask
+            diff.append(d)
+            pixelsum += d
+            lastpix = nextpix
+        dpsum = (pixelsum - (thisblock // 2) - 1) / thisblock
+        if dpsum < 0:
+            dpsum = 0.0
+        psum = int(dpsum) >> 1
+        fs = 0
+        while psum > 0:
+            psum >>= 1
+            fs += 1
+        if fs >= fsmax:
+            # high entropy: raw differences
+            out.output_nbits(fsmax + 1, fsbits)
+            for d in diff:
+                out.output_nbits(d, bbits)
+        elif fs == 0 and pixelsum == 0:
+            # low entropy: all differences are zero
+            out.output_nbits(0, fsbits)
+        else:
+            out.output_nbits(fs + 1, fsbits)
+            fsmask = (1 << fs) - 1
+            for d in diff:
+                out.output_unary(d >> fs)
+                if fs > 0:
+                    out.output_nbits(d & fsmask, fs)
+    return out.to_bytes()
+
+
+def gzip_compress(pixels, bytepix):
+    fmt = {1: 'B', 2: 'h', 4: 'i'}[bytepix]
+    return gzip.compress(struct.pack('>%d%s' % (len(pixels), fmt), *pixels), 9)
+
+
+def quantize_dither1(values, tile_row, dither_seed, delta):
+    """fits_quantize_float (SUBTRACTIVE_DITHER_1): tile_row is the 1-based tile number"""
+    iseed = (tile_row + dither_seed - 2) % N_RANDOM
+    nextrand = int(RANDOMS[iseed] * 500.0)
+    finite = [v for v in values if not math.isnan(v)]
+    zeropt = min(finite) if finite else 0.0
+    iqfactor = int(math.floor(zeropt / delta + 0.5))
+    zeropt = iqfactor * delta
+    idata = []
+    for v in values:
+        if math.isnan(v):
+            idata.append(NULL_VALUE)
+        else:
+            dvalue = (v - zeropt) / delta
+            x = dvalue + RANDOMS[nextrand] - 0.5
+            idata.append(int(x + 0.5) if x >= 0 else int(x - 0.5))  # NINT
+        nextrand += 1
+        if nextrand == N_RANDOM:
+            iseed += 1
+            if iseed == N_RANDOM:
+                iseed = 0
+            nextrand = int(RANDOMS[iseed] * 500.0)
+    return idata, zeropt
+
+
+# --- FITS writer ---
+
+def card(key, value=None, comment=None):
+    if value is None:
+        s = key.ljust(80)
+    else:
+        if isinstance(value, bool):
+            v = ('T' if value else 'F').rjust(20)
+        elif isinstance(value, str):
+            v = ("'%s'" % value.ljust(8)).ljust(20)
+        elif isinstance(value, float):
+            v = ('%.16G' % value).rjust(20)
+        else:
+            v = str(value).rjust(20)
+        s = '%-8s= %s' % (key, v)
+        if comment:
+            s += ' / ' + comment
+    return s[:80].ljust(80)
+
+
+def header_block(cards):
+    data = ''.join(cards) + card('END')
+    data += ' ' * ((2880 - len(data) % 2880) % 2880)
+    return data.encode('ascii')
+
+
+def pad(data):
+    return data + b'\0' * ((2880 - len(data) % 2880) % 2880)
+
+
+def primary_dummy():
+    return header_block([card('SIMPLE', True), card('BITPIX', 8), card('NAXIS', 0), card('EXTEND', True)])
+
+
+PACK = {8: 'B', 16: 'h', 32: 'i', -32: 'f'}
+
+
+def write_image(path, bitpix, naxis1, naxis2, pixels):
+    cards = [card('SIMPLE', True), card('BITPIX', bitpix), card('NAXIS', 2),
+             card('NAXIS1', naxis1), card('NAXIS2', naxis2)]
+    data = struct.pack('>%d%s' % (len(pixels), PACK[bitpix]), *pixels)
+    with open(path, 'wb') as f:
+        f.write(header_block(cards) + pad(data))
+
+
+def tiles(naxis1, naxis2, ztile1, ztile2):
+    for y0 in range(0, naxis2, ztile2):
+        for x0 in range(0, naxis1, ztile1):
+            yield x0, y0, min(ztile1, naxis1 - x0), min(ztile2, naxis2 - y0)
+
+
+def write_compressed(path, cmptype, bitpix, naxis1, naxis2, pixels, ztile1, ztile2,
+                     delta=None, dither_seed=None):
+    rows = []
+    heap = b''
+    scales = []
+    zeros = []
+    bytepix = 4 if bitpix < 0 else bitpix // 8
+    for index, (x0, y0, w, h) in enumerate(tiles(naxis1, naxis2, ztile1, ztile2)):
+        tile = [pixels[(y0 + j) * naxis1 + x0 + i] for j in range(h) for i in range(w)]
+        if delta is not None:
+            tile, zeropt = quantize_dither1(tile, index + 1, dither_seed, delta)
+            scales.append(delta)
+            zeros.append(zeropt)
+        if cmptype == 'RICE_1':
+            data = rice_compress(tile, 32, bytepix)
+        else:
+            data = gzip_compress(tile, bytepix)
+        rows.append((len(data), len(heap)))
+        heap += data
+
+    quantized = delta is not None
+    maxlen = max(n for n, _ in rows)
+    naxis1_tbl = 8 + (16 if quantized else 0)
+    cards = [card('XTENSION', 'BINTABLE', 'binary table extension'),
+             card('BITPIX', 8), card('NAXIS', 2),
+             card('NAXIS1', naxis1_tbl), card('NAXIS2', len(rows)),
+             card('PCOUNT', len(heap)), card('GCOUNT', 1),
+             card('TFIELDS', 3 if quantized else 1),
+             card('TTYPE1', 'COMPRESSED_DATA'), card('TFORM1', '1PB(%d)' % maxlen)]
+    if quantized:
+        cards += [card('TTYPE2', 'ZSCALE'), card('TFORM2', '1D'),
+                  card('TTYPE3', 'ZZERO'), card('TFORM3', '1D')]
+    cards += [card('ZIMAGE', True, 'extension contains compressed image'),
+              card('ZTILE1', ztile1), card('ZTILE2', ztile2),
+              card('ZCMPTYPE', cmptype, 'compression algorithm')]
+    if cmptype == 'RICE_1':
+        cards += [card('ZNAME1', 'BLOCKSIZE'), card('ZVAL1', 32),
+                  card('ZNAME2', 'BYTEPIX'), card('ZVAL2', bytepix)]
+    if quantized:
+        cards += [card('ZQUANTIZ', 'SUBTRACTIVE_DITHER_1', 'Pixel Quantization Algorithm'),
+                  card('ZDITHER0', dither_seed, 'dithering offset when quantizing floats'),
+                  card('ZBLANK', NULL_VALUE, 'null value in the compressed integer array')]
+    cards += [card('ZSIMPLE', True), card('ZBITPIX', bitpix), card('ZNAXIS', 2),
+              card('ZNAXIS1', naxis1), card('ZNAXIS2', naxis2),
+              card('EXTNAME', 'COMPRESSED_IMAGE')]
+    table = b''
+    for i, (n, offset) in enumerate(rows):
+        table += struct.pack('>ii', n, offset)
+        if quantized:
+            table += struct.pack('>dd', scales[i], zeros[i])
+    with open(path, 'wb') as f:
+        f.write(primary_dummy() + header_block(cards) + pad(table + heap))
+
+
+def main():
+    folder = os.path.dirname(os.path.abspath(__file__))
+    rnd = random.Random(20181018)
+    nx, ny = 100, 30
+
+    def integer_pixels(lo, hi):
+        pixels = []
+        for j in range(ny):
+            for i in range(nx):
+                if j < 10:
+                    v = (i * j) // 3 + rnd.randint(-3, 3)   # smooth + noise
+                elif j < 14:
+                    v = 7                                  # constant (low entropy)
+                elif j < 18:
+                    v = rnd.randint(lo, hi)                # full range (high entropy)
+                else:
+                    v = rnd.randint(-200, 200) if i % 17 else hi
+                pixels.append(min(hi, max(lo, v)))
+        pixels[0] = lo
+        pixels[1] = hi
+        return pixels
+
+    for bitpix, lo, hi, name in ((8, 0, 255, 'byte'), (16, -32768, 32767, 'short'),
+                                 (32, -2147483648, 2147483647, 'int')):
+        pixels = integer_pixels(lo, hi)
+        write_image(os.path.join(folder, 'ref_%s.fits' % name), bitpix, nx, ny, pixels)
+        # default cfitsio tiling (row by row) and 2D tiles with partial edge tiles:
+        write_compressed(os.path.join(folder, 'rice_%s.fits' % name), 'RICE_1', bitpix, nx, ny, pixels, nx, 1)
+        write_compressed(os.path.join(folder, 'gzip_%s.fits' % name), 'GZIP_1', bitpix, nx, ny, pixels, 32, 16)
+
+    # float image: gaussian spot + noise (sigma = 0.5) and NaN values
+    fpix = []
+    for j in range(ny):
+        for i in range(nx):
+            v = 1000.0 * math.exp(-((i - 50) ** 2 + (j - 15) ** 2) / 200.0) + rnd.gauss(0.0, 0.5)
+            fpix.append(struct.unpack('>f', struct.pack('>f', v))[0])
+    for k in range(0, len(fpix), 97):
+        fpix[k] = float('nan')
+    write_image(os.path.join(folder, 'ref_float.fits'), -32, nx, ny, fpix)
+    # quantization step = sigma / 4 (fpack default q = 4):
+    write_compressed(os.path.join(folder, 'rice_float_dither1.fits'), 'RICE_1', -32, nx, ny, fpix,
+                     nx, 1, delta=0.125, dither_seed=5)
+    write_compressed(os.path.join(folder, 'gzip_float_dither1.fits'), 'GZIP_1', -32, nx, ny, fpix,
+                     nx, 4, delta=0.125, dither_seed=9999)
+
+
+if __name__ == '__main__':
+    main()